@@ -12,6 +12,7 @@ import org.springframework.context.annotation.ComponentScan;
         "org.main.application.service",
         "org.main.application.config",
         "org.main.application.component",
+        "org.main.application.websocket",
 })
 public class Application {
 
@@ -1,8 +1,14 @@
 package org.main.application.component;
 
 import core.MatchingEngine.MatchingEngine;
+import core.Order.Order;
+import core.Persistence.TradePublisher;
+import core.Pipeline.EnginePipeline;
+import core.RingBuffer.RingProducer;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.ExecutorService;
@@ -12,17 +18,61 @@ import java.util.concurrent.Executors;
 public class EngineRunner {
 
     private final MatchingEngine matchingEngine;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final RingProducer<Order> ringBuffer;
+    private final TradePublisher tradePublisher;
+    private final boolean separateProcess;
+    // platform thread on purpose, the engine spins and must not share a carrier with request handlers
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "matching-engine-thread"));
 
     @Autowired
-    public EngineRunner(MatchingEngine matchingEngine) {
+    public EngineRunner(MatchingEngine matchingEngine, RingProducer<Order> ringBuffer, TradePublisher tradePublisher,
+                        @Value("${engine.ipc.file:}") String ipcFile) {
         this.matchingEngine = matchingEngine;
+        this.ringBuffer = ringBuffer;
+        this.tradePublisher = tradePublisher;
+        this.separateProcess = !ipcFile.isEmpty();
     }
 
     @PostConstruct
     public void start() {
+        if (separateProcess) {
+            System.out.println("Engine runs in a separate process, orders go to the IPC ring");
+
+            return;
+        }
+
+        if (ringBuffer instanceof EnginePipeline pipeline) {
+            System.out.println("Engine pipeline started...");
+            pipeline.start(matchingEngine, tradePublisher::isBackPressured);
+
+            return;
+        }
+
         System.out.println("Engine runner started...");
 
-        executor.submit(matchingEngine);
+        executor.execute(matchingEngine); // an exception reaches the thread's handler, not an unread Future
+    }
+
+    /**
+     * True once the in-process engine, or a stage of its pipeline, died on an exception.
+     * Always false with a separate engine process
+     */
+    public boolean isEngineDown() {
+        if (separateProcess)
+            return false;
+        if (ringBuffer instanceof EnginePipeline pipeline && pipeline.getFailure() != null)
+            return true;
+
+        return matchingEngine.getFailure() != null;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (ringBuffer instanceof EnginePipeline pipeline)
+            pipeline.stop();
+
+        matchingEngine.stop();
+        executor.shutdownNow(); // interrupts a trade publisher still waiting on a stuck drain
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package org.main.application.component;
+
+import core.Gateway.FixCredentials;
+import core.Gateway.FixGateway;
+import core.MarketData.MarketDataRing;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.main.application.config.EngineConfig;
+import org.main.application.service.order.OrderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+
+/**
+ * FIX order entry next to the REST API, orders share OrderService's ids and ring.
+ * Needs the in-process engine, executions are read from its fixExecutionRing
+ */
+@Component
+public class FixGatewayRunner {
+
+    private final FixGateway gateway; // null while fix.enabled is false
+
+    @Autowired
+    public FixGatewayRunner(@Value("${fix.enabled:false}") boolean enabled,
+                            @Value("${fix.port:9878}") int port,
+                            @Value("${fix.comp-id:EXCHANGE}") String compId,
+                            @Value("${fix.symbol:BTC-USD}") String symbol,
+                            @Value("${fix.sessions:}") String sessions,
+                            OrderService orderService, MarketDataRing fixExecutionRing) {
+        this.gateway = enabled
+                ? new FixGateway(new InetSocketAddress(port), compId, symbol, EngineConfig.MIN_PRICE,
+                EngineConfig.MAX_PRICE, EngineConfig.TICK_SIZE, orderService, fixExecutionRing,
+                FixCredentials.parse(sessions))
+                : null;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (gateway == null)
+            return;
+
+        // platform thread, the gateway polls its selector and the execution ring without blocking
+        Thread gatewayThread = new Thread(gateway, "fix-gateway-thread");
+        gatewayThread.start();
+
+        System.out.println("FIX gateway listening on port " + gateway.port());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (gateway != null)
+            gateway.stop();
+    }
+}
@@ -0,0 +1,24 @@
+package org.main.application.config;
+
+import core.Gateway.AccountTokens;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class AuthConfig {
+
+    /**
+     * Verifies the bearer tokens REST and websocket callers present, the secret is shared with the token issuer.
+     * There is no default: a committed one would let anyone forge tokens, so startup fails without it
+     */
+    @Bean
+    public AccountTokens accountTokens(@Value("${auth.token-secret:}") String secret) {
+        if (secret.isBlank())
+            throw new IllegalStateException("auth.token-secret is not set, configure at least 32 bytes per deployment");
+
+        return new AccountTokens(secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,43 +1,130 @@
 package org.main.application.config;
 
+import core.Gateway.RateLimiter;
+import core.Journal.EventLog;
+import core.Journal.EventLogPublisher;
+import core.MarketData.BookListener;
+import core.MarketData.MarketDataPublisher;
+import core.MatchingEngine.ExpiryListener;
 import core.MatchingEngine.MatchingEngine;
+import core.MatchingEngine.OrderUpdateListener;
 import core.Order.Order;
 import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
 import core.OrderPool.SPSCOrderPool;
+import core.Persistence.TradePublisher;
+import core.Pipeline.EnginePipeline;
+import core.RingBuffer.MappedRingBuffer;
 import core.RingBuffer.RingBuffer;
+import core.RingBuffer.RingProducer;
 import core.RingBuffer.SPSCRingBuffer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
 @Configuration
 public class EngineConfig {
 
+    public static final double MIN_PRICE = 65000.0;
+    public static final double MAX_PRICE = 75500.0;
+    public static final double TICK_SIZE = 0.01;
+
     private static final int RING_SIZE = 131072;
-    private static final int PRELOAD_ORDERS = 2_000_000;
+    /** Orders per pool, also the most orders that can rest and so the most fills one order can make */
+    public static final int PRELOAD_ORDERS = 2_000_000;
+    private static final int EVENT_LOG_CAPACITY = 1 << 22;
 
+    /**
+     * In-heap by default. With engine.ipc.file set, orders go through a shared-memory ring
+     * to a separate engine process (org.main.EngineProcess) and the in-process engine is not started.
+     * With engine.pipeline.enabled, orders go through the staged pipeline (decode, risk, journal, match, publish),
+     * risk rejections are reported to the account over the market data websocket
+     */
     @Bean
-    public RingBuffer<Order> ringBuffer() {
-        return new SPSCRingBuffer<>(RING_SIZE);
+    public RingProducer<Order> ringBuffer(@Value("${engine.ipc.file:}") String ipcFile,
+                                        @Value("${engine.pipeline.enabled:false}") boolean pipeline,
+                                        @Value("${risk.max-order-quantity:9223372036854775807}") long maxOrderQuantity,
+                                        MarketDataPublisher executionReportPublisher) {
+        if (!ipcFile.isEmpty())
+            return new MappedRingBuffer(Path.of(ipcFile), RING_SIZE, orderPool());
+        if (!pipeline)
+            return new SPSCRingBuffer<>(RING_SIZE);
+
+        return new EnginePipeline(RING_SIZE, orderPool(), order -> order.quantity <= maxOrderQuantity, null,
+                (command, sequence, endOfBatch) -> {
+                    if (!command.isAccepted())
+                        executionReportPublisher.onRejected(command.order.id, command.order.accountId, command.status);
+                });
     }
 
+    /**
+     * Order rate per account, shared by the REST and FIX ingress (both publish through OrderService)
+     */
     @Bean
-    public MatchingEngine matchingEngine() {
-        MatchingEngine matchingEngine = new MatchingEngine(
-                new ArrayBucketOrderBook(
-                        65000.0, 75500.0, 0.01,
-                        _ -> {},
-                        Order::reset
-                ),
-                ringBuffer(),
-                new SPSCOrderPool(PRELOAD_ORDERS)
-        );
+    public RateLimiter rateLimiter(@Value("${throttle.max-accounts:65536}") int maxAccounts,
+                                   @Value("${throttle.orders-per-second:1000}") long ordersPerSecond,
+                                   @Value("${throttle.burst:2000}") long burst) {
+        return new RateLimiter(maxAccounts, ordersPerSecond, burst);
+    }
 
-        Thread engineThread = new Thread(matchingEngine, "matching-engine-thread");
-        engineThread.start();
+    /**
+     * Borrowed by the ingress (OrderService), released by the engine thread, or by the IPC ring once copied
+     */
+    @Bean
+    public SPSCOrderPool orderPool() {
+        return new SPSCOrderPool(PRELOAD_ORDERS);
+    }
 
-        System.out.println("Matching Engine started on thread: " + engineThread.getName());
+    /**
+     * Started by EngineRunner. Behind the pipeline the engine borrows from a pool of its own,
+     * the ingress pool already has OrderService as its borrower.
+     * With fix.enabled, fills, expiries, cancels and amends are published to the FIX gateway's ring too.
+     * With engine.event-log.file set, every output is appended to a mapped EventLog for readers in other processes
+     */
+    @Bean
+    public MatchingEngine matchingEngine(RingProducer<Order> ringBuffer, TradePublisher tradePublisher,
+                                         TradePublisher candlePublisher, MarketDataPublisher marketDataPublisher,
+                                         MarketDataPublisher fixExecutionPublisher,
+                                         @Value("${fix.enabled:false}") boolean fix,
+                                         @Value("${engine.event-log.file:}") String eventLogFile) {
+        SPSCOrderPool enginePool = ringBuffer instanceof EnginePipeline ? new SPSCOrderPool(PRELOAD_ORDERS) : orderPool();
+        Consumer<Trade> trades = tradePublisher.andThen(candlePublisher).andThen(marketDataPublisher);
+        BookListener levels = marketDataPublisher;
+        ExpiryListener expiries = marketDataPublisher;
+        OrderUpdateListener updates = null;
+        if (fix) {
+            trades = trades.andThen(fixExecutionPublisher);
+            expiries = expiries.andThen(fixExecutionPublisher);
+            updates = fixExecutionPublisher;
+        }
+        if (!eventLogFile.isEmpty()) {
+            EventLogPublisher events = new EventLogPublisher(new EventLog(Path.of(eventLogFile), EVENT_LOG_CAPACITY));
+            trades = trades.andThen(events);
+            levels = levels.andThen(events);
+            expiries = expiries.andThen(events);
+            updates = updates == null ? events : updates.andThen(events);
+        }
+        ArrayBucketOrderBook orderBook = new ArrayBucketOrderBook(
+                MIN_PRICE, MAX_PRICE, TICK_SIZE,
+                trades,
+                enginePool::release
+        );
+        orderBook.setBookListener(levels);
+
+        // behind the pipeline the match stage drives the engine, it polls nothing itself
+        MatchingEngine engine = new MatchingEngine(
+                orderBook,
+                ringBuffer instanceof RingBuffer<Order> ring ? ring : null,
+                enginePool,
+                tradePublisher::isBackPressured
+        );
+        engine.setExpiryListener(expiries);
+        engine.setOrderUpdateListener(updates);
 
-        return matchingEngine;
+        return engine;
     } // TODO make configurable for different markets
 }
 
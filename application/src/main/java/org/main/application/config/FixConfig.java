@@ -0,0 +1,25 @@
+package org.main.application.config;
+
+import core.MarketData.MarketDataPublisher;
+import core.MarketData.MarketDataRing;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FixConfig {
+
+    private static final int FIX_EXECUTION_RING_SIZE = 65536;
+
+    /**
+     * Executions for the FIX gateway, written on the matching thread, read by the gateway thread
+     */
+    @Bean
+    public MarketDataRing fixExecutionRing() {
+        return new MarketDataRing(FIX_EXECUTION_RING_SIZE);
+    }
+
+    @Bean
+    public MarketDataPublisher fixExecutionPublisher() {
+        return new MarketDataPublisher(fixExecutionRing());
+    }
+}
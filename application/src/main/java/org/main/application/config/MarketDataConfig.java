@@ -0,0 +1,85 @@
+package org.main.application.config;
+
+import core.MarketData.CandleAggregator;
+import core.MarketData.MarketDataPublisher;
+import core.MarketData.MarketDataRing;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import core.Persistence.TradePublisher;
+import core.RingBuffer.SPSCRingBuffer;
+import org.main.application.websocket.MarketDataFanOut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MarketDataConfig {
+
+    private static final int MARKET_DATA_RING_SIZE = 262144;
+    private static final int EXECUTION_REPORT_RING_SIZE = 65536;
+    private static final int CANDLE_RING_SIZE = 65536;
+    private static final int CANDLE_HISTORY = 1024;
+
+    @Bean
+    public MarketDataRing marketDataRing() {
+        return new MarketDataRing(MARKET_DATA_RING_SIZE);
+    }
+
+    @Bean
+    public MarketDataPublisher marketDataPublisher() {
+        return new MarketDataPublisher(marketDataRing());
+    }
+
+    /**
+     * Rejections from the engine pipeline's publish stage, a ring of its own since the market data ring has one writer
+     */
+    @Bean
+    public MarketDataRing executionReportRing() {
+        return new MarketDataRing(EXECUTION_REPORT_RING_SIZE);
+    }
+
+    @Bean
+    public MarketDataPublisher executionReportPublisher() {
+        return new MarketDataPublisher(executionReportRing());
+    }
+
+    @Bean(destroyMethod = "stop")
+    public MarketDataFanOut marketDataFanOut(@Value("${marketdata.max-pending-levels:1024}") int maxPendingLevels,
+                                             @Value("${marketdata.max-pending-fills:4096}") int maxPendingFills) {
+        MarketDataFanOut fanOut = new MarketDataFanOut(marketDataRing(), executionReportRing(), maxPendingLevels,
+                maxPendingFills);
+
+        Thread fanOutThread = new Thread(fanOut, "market-data-fan-out-thread");
+        fanOutThread.start();
+
+        System.out.println("Market data fan-out started on thread: " + fanOutThread.getName());
+
+        return fanOut;
+    }
+
+    /**
+     * Matching thread end of the candle stage, the ring is sized so the fast aggregator never lets it fill,
+     * trades that don't fit are counted as dropped and don't back-pressure the engine
+     */
+    @Bean
+    public TradePublisher candlePublisher() {
+        return TradePublisher.dropping(candleRingBuffer(), "candles");
+    }
+
+    @Bean(destroyMethod = "stop")
+    public CandleAggregator candleAggregator() {
+        CandleAggregator aggregator = new CandleAggregator(candleRingBuffer(), CandleAggregator.DEFAULT_INTERVALS,
+                CANDLE_HISTORY);
+
+        Thread aggregatorThread = new Thread(aggregator, "candle-aggregator-thread");
+        aggregatorThread.start();
+
+        System.out.println("Candle aggregator started on thread: " + aggregatorThread.getName());
+
+        return aggregator;
+    }
+
+    @Bean
+    public SPSCRingBuffer<Trade> candleRingBuffer() {
+        return new SPSCRingBuffer<>(CANDLE_RING_SIZE);
+    }
+}
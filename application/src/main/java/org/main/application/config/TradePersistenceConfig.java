@@ -0,0 +1,63 @@
+package org.main.application.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import core.Persistence.TradeBatchWriter;
+import core.Persistence.TradeDrain;
+import core.Persistence.TradePublisher;
+import core.RingBuffer.SPSCRingBuffer;
+import org.main.application.persistence.JdbcTradeBatchWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class TradePersistenceConfig {
+
+    private static final int TRADE_RING_SIZE = 1 << 22;
+    // the engine stops taking orders at the mark, the room above it takes every fill of the order in hand
+    private static final int HIGH_WATER_MARK = TRADE_RING_SIZE - EngineConfig.PRELOAD_ORDERS;
+
+    @Bean
+    public SPSCRingBuffer<Trade> tradeRingBuffer() {
+        return new SPSCRingBuffer<>(TRADE_RING_SIZE);
+    }
+
+    @Bean
+    public TradePublisher tradePublisher() {
+        return new TradePublisher(tradeRingBuffer(), HIGH_WATER_MARK);
+    }
+
+    @Bean
+    public TradeBatchWriter tradeBatchWriter(@Value("${trades.persistence.enabled:false}") boolean enabled,
+                                             @Value("${trades.persistence.url:}") String url,
+                                             @Value("${trades.persistence.username:}") String username,
+                                             @Value("${trades.persistence.password:}") String password) {
+        if (!enabled)
+            return (_, _) -> {}; // trades are drained and discarded
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(2);
+
+        return new JdbcTradeBatchWriter(dataSource);
+    }
+
+    @Bean(destroyMethod = "stop")
+    public TradeDrain tradeDrain(TradeBatchWriter tradeBatchWriter,
+                                 @Value("${trades.persistence.batch-size:4096}") int batchSize,
+                                 @Value("${trades.persistence.max-delay-ms:5}") long maxDelayMs) {
+        TradeDrain drain = new TradeDrain(tradeRingBuffer(), tradeBatchWriter, batchSize, maxDelayMs, TimeUnit.MILLISECONDS);
+
+        Thread drainThread = new Thread(drain, "trade-drain-thread");
+        drainThread.start();
+
+        System.out.println("Trade drain started on thread: " + drainThread.getName());
+
+        return drain;
+    }
+}
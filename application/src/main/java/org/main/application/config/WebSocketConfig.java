@@ -0,0 +1,35 @@
+package org.main.application.config;
+
+import org.main.application.websocket.AccountHandshakeInterceptor;
+import org.main.application.websocket.MarketDataWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final MarketDataWebSocketHandler marketDataHandler;
+    private final AccountHandshakeInterceptor accountInterceptor;
+    private final String[] allowedOrigins;
+
+    /**
+     * @param allowedOrigins origin patterns of pages allowed to connect, none - same origin only
+     */
+    public WebSocketConfig(MarketDataWebSocketHandler marketDataHandler, AccountHandshakeInterceptor accountInterceptor,
+                           @Value("${marketdata.allowed-origins:}") String[] allowedOrigins) {
+        this.marketDataHandler = marketDataHandler;
+        this.accountInterceptor = accountInterceptor;
+        this.allowedOrigins = allowedOrigins;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(marketDataHandler, "/ws/market-data")
+                .addInterceptors(accountInterceptor)
+                .setAllowedOriginPatterns(allowedOrigins);
+    }
+}
@@ -0,0 +1,45 @@
+package org.main.application.controller.api;
+
+import core.MarketData.CandleAggregator;
+import core.MarketData.CandleSeries;
+import core.MarketData.CandleSeries.Candle;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/candles")
+public class CandleController {
+    private static final int MAX_LIMIT = 1000;
+
+    private final CandleAggregator candleAggregator;
+
+    public CandleController(CandleAggregator candleAggregator) {
+        this.candleAggregator = candleAggregator;
+    }
+
+    /**
+     * Most recent bars from memory, oldest first, the last one still open. interval: 1s, 1m or 1h
+     */
+    @GetMapping
+    public List<Candle> recent(@RequestParam(defaultValue = "1m") String interval,
+                               @RequestParam(defaultValue = "100") int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT)
+            throw new IllegalArgumentException("limit must be in 1.." + MAX_LIMIT);
+
+        CandleSeries series = candleAggregator.series(switch (interval) {
+            case "1s" -> 1_000L;
+            case "1m" -> 60_000L;
+            case "1h" -> 3_600_000L;
+            default -> throw new IllegalArgumentException("interval must be 1s, 1m or 1h");
+        });
+
+        return series.recent(limit);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -1,27 +1,108 @@
 package org.main.application.controller.api;
 
+import core.Gateway.AccountTokens;
 import org.main.application.dto.order.LimitOrderRequest;
+import org.main.application.dto.order.OrderAck;
+import org.main.application.dto.order.OrderCommandRequest;
 import org.main.application.service.order.OrderService;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
+
+/**
+ * Every request carries "Authorization: Bearer <token>" (AccountTokens) and acts for the token's account only
+ */
 @RestController
 @RequestMapping("/api/v1/orders")
 public class OrderPostController {
+    private static final String BEARER = "Bearer ";
+
     private final OrderService orderService;
+    private final AccountTokens accountTokens;
 
-    public OrderPostController(OrderService orderService) {
+    public OrderPostController(OrderService orderService, AccountTokens accountTokens) {
         this.orderService = orderService;
+        this.accountTokens = accountTokens;
     }
 
+    /**
+     * 202 once the order is on the engine ring, 503 if the engine can't take it right now
+     */
     @PostMapping("/postLimit")
-    public void placeLimit(@RequestBody LimitOrderRequest req) {
-        // TODO add necessary checks
+    public ResponseEntity<OrderAck> placeLimit(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                               @RequestBody LimitOrderRequest req) {
+        return toResponse(orderService.placeLimit(account(authorization), req));
+    }
+
+    /**
+     * Accepted means sequenced, the engine drops the cancel if the order isn't the caller's
+     */
+    @DeleteMapping("/{orderId}")
+    public ResponseEntity<OrderAck> cancel(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                           @PathVariable long orderId) {
+        return toResponse(orderService.cancel(account(authorization), orderId));
+    }
+
+    /**
+     * Cancels every resting order of the account, optionally one side only
+     */
+    @DeleteMapping("/account/{accountId}")
+    public ResponseEntity<OrderAck> massCancel(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                               @PathVariable long accountId,
+                                               @RequestParam(required = false) String side) {
+        if (account(authorization) != accountId)
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "not the authenticated account");
+
+        return toResponse(orderService.massCancel(accountId, side));
+    }
+
+    /**
+     * NEW / CANCEL / MASS_CANCEL commands published in one ring claim, acks come back in request order
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<OrderAck>> submitBatch(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                                      @RequestBody List<OrderCommandRequest> commands) {
+        List<OrderAck> acks = orderService.submitBatch(account(authorization), commands);
+
+        return ResponseEntity.status(status(acks.getFirst())).body(acks);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    /**
+     * @return the account of a valid bearer token, 401 otherwise
+     */
+    private long account(String authorization) {
+        long accountId = authorization != null && authorization.startsWith(BEARER)
+                ? accountTokens.verify(authorization.substring(BEARER.length()), System.currentTimeMillis())
+                : AccountTokens.INVALID;
+        if (accountId == AccountTokens.INVALID)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid or expired token");
+
+        return accountId;
+    }
+
+    private static ResponseEntity<OrderAck> toResponse(OrderAck ack) {
+        return ResponseEntity.status(status(ack)).body(ack);
+    }
 
-        orderService.placeBuyLimit(req);
+    /**
+     * A duplicate is final (409), retrying it can't succeed; a throttled account should slow down (429);
+     * a full ring or pool is worth retrying (503)
+     */
+    private static HttpStatus status(OrderAck ack) {
+        if (ack.accepted)
+            return HttpStatus.ACCEPTED;
+        if (OrderAck.DUPLICATE_CLIENT_ORDER_ID.equals(ack.reason))
+            return HttpStatus.CONFLICT;
 
-        System.out.println("Order placed."); // tmp
+        return OrderAck.THROTTLED.equals(ack.reason) ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
     }
 }
@@ -4,9 +4,14 @@ public class LimitOrderRequest {
     public double price;
     public long quantity;
     public String type;
+    public long accountId; // optional, the authenticated account
+    public String timeInForce; // GTC (default), DAY, GTT until expireTime, GTD until the end of expireDate (UTC)
+    public long expireTime; // epoch millis
+    public String expireDate; // yyyy-MM-dd
+    public long clientOrderId; // optional, a retry with the same id is rejected as a duplicate instead of placed again
 
     @Override
     public String toString() {
-        return price + "," + quantity + "," + type;
+        return price + "," + quantity + "," + type + "," + accountId + "," + timeInForce;
     }
 }
\ No newline at end of file
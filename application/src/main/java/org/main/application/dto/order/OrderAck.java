@@ -0,0 +1,37 @@
+package org.main.application.dto.order;
+
+/**
+ * Sent as soon as a command is sequenced onto the engine ring, before it is matched.
+ * Fills and cancels are reported separately.
+ * A DUPLICATE_CLIENT_ORDER_ID reject carries the id the client order id was accepted under.
+ */
+public class OrderAck {
+    public static final String RING_FULL = "RING_FULL";
+    public static final String POOL_EXHAUSTED = "POOL_EXHAUSTED";
+    public static final String DUPLICATE_CLIENT_ORDER_ID = "DUPLICATE_CLIENT_ORDER_ID";
+    public static final String THROTTLED = "THROTTLED";
+    public static final String ENGINE_DOWN = "ENGINE_DOWN";
+
+    public final long orderId;
+    public final boolean accepted;
+    public final String reason;
+
+    private OrderAck(long orderId, boolean accepted, String reason) {
+        this.orderId = orderId;
+        this.accepted = accepted;
+        this.reason = reason;
+    }
+
+    public static OrderAck accepted(long orderId) {
+        return new OrderAck(orderId, true, null);
+    }
+
+    public static OrderAck rejected(long orderId, String reason) {
+        return new OrderAck(orderId, false, reason);
+    }
+
+    @Override
+    public String toString() {
+        return orderId + "," + accepted + "," + reason;
+    }
+}
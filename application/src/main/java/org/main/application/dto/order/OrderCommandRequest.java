@@ -0,0 +1,26 @@
+package org.main.application.dto.order;
+
+/**
+ * One entry of a batch request.
+ * action NEW uses type/price/quantity and optionally timeInForce (see LimitOrderRequest), action CANCEL uses orderId,
+ * action MASS_CANCEL uses type as the side (BUY / SELL, null for both).
+ * Every command acts for the authenticated account, accountId may be left 0. NEW may carry a clientOrderId,
+ * see LimitOrderRequest
+ */
+public class OrderCommandRequest {
+    public String action;
+    public String type;
+    public double price;
+    public long quantity;
+    public long orderId;
+    public long accountId;
+    public String timeInForce;
+    public long expireTime;
+    public String expireDate;
+    public long clientOrderId;
+
+    @Override
+    public String toString() {
+        return action + "," + type + "," + price + "," + quantity + "," + orderId + "," + accountId;
+    }
+}
@@ -0,0 +1,92 @@
+package org.main.application.persistence;
+
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import core.Persistence.TradeBatchWriter;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JDBC batch insert writer, used only from the trade drain thread.
+ * <p>
+ * Keeps one connection open and commits once per batch. For PostgreSQL add
+ * reWriteBatchedInserts=true to the url, the driver then sends a batch as multi-row INSERTs.
+ */
+public class JdbcTradeBatchWriter implements TradeBatchWriter {
+
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS trades (
+                id             BIGSERIAL PRIMARY KEY,
+                price          DOUBLE PRECISION NOT NULL,
+                qty            BIGINT NOT NULL,
+                buy_initiator  BOOLEAN NOT NULL,
+                maker_order_id BIGINT NOT NULL,
+                taker_order_id BIGINT NOT NULL,
+                created_at     TIMESTAMPTZ NOT NULL DEFAULT now()
+            )""";
+
+    private static final String INSERT = "INSERT INTO trades (price, qty, buy_initiator, maker_order_id, taker_order_id) VALUES (?, ?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+
+    private Connection connection;
+    private PreparedStatement insert;
+
+    public JdbcTradeBatchWriter(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void write(Trade[] trades, int count) throws SQLException {
+        try {
+            PreparedStatement statement = statement();
+            for (int i = 0; i < count; i++) {
+                Trade trade = trades[i];
+                statement.setDouble(1, trade.price);
+                statement.setLong(2, trade.qty);
+                statement.setBoolean(3, trade.buyInitiator);
+                statement.setLong(4, trade.makerOrderId);
+                statement.setLong(5, trade.takerOrderId);
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            close(); // reconnect on the retry
+
+            throw e;
+        }
+    }
+
+    private PreparedStatement statement() throws SQLException {
+        if (insert != null)
+            return insert;
+
+        connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute(CREATE_TABLE);
+        }
+        connection.commit();
+
+        insert = connection.prepareStatement(INSERT);
+
+        return insert;
+    }
+
+    public void close() {
+        try {
+            if (connection != null)
+                connection.close();
+        } catch (SQLException ignored) {
+            // connection is discarded anyway
+        }
+
+        connection = null;
+        insert = null;
+    }
+}
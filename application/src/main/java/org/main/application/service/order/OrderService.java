@@ -1,25 +1,453 @@
 package org.main.application.service.order;
 
+import core.Collections.ClientOrderIdWindow;
+import core.Events.RingFullEvent;
+import core.Gateway.CommandSink;
+import core.Gateway.RateLimiter;
 import core.Order.Order;
 import core.Order.OrderType;
-import core.RingBuffer.RingBuffer;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.RingProducer;
+import org.main.application.component.EngineRunner;
+import org.main.application.config.EngineConfig;
 import org.main.application.dto.order.LimitOrderRequest;
+import org.main.application.dto.order.OrderAck;
+import org.main.application.dto.order.OrderCommandRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
 @Service
-public class OrderService {
-    private final RingBuffer<Order> ringBuffer;
+public class OrderService implements CommandSink {
+    public static final int MAX_BATCH_SIZE = 1024;
+
+    private final RingProducer<Order> ringBuffer;
+    private final SPSCOrderPool orderPool;
+    // checked before the publish lock, a throttled request never contends for it
+    private final RateLimiter rateLimiter;
+    // a dead engine drains nothing, commands are rejected instead of acked into its ring
+    private final EngineRunner engineRunner;
+
+    // ring and pool are single-producer, every request thread borrows and publishes under this lock
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final Order[] batch = new Order[MAX_BATCH_SIZE];
+    // borrowed but not published (ring full), reused before borrowing again since only the engine may release
+    private final Order[] spare = new Order[MAX_BATCH_SIZE];
+    private int spareCount;
+    private long nextOrderId = 1;
+    // client order ids of accepted NEW commands per account, a retried request is rejected before the ring
+    private final ClientOrderIdWindow clientOrderIds;
 
-    public OrderService(RingBuffer<Order> ringBuffer) {
+    public OrderService(RingProducer<Order> ringBuffer, SPSCOrderPool orderPool, RateLimiter rateLimiter,
+                        EngineRunner engineRunner,
+                        @Value("${orders.dedup.capacity:1048576}") int dedupCapacity,
+                        @Value("${orders.dedup.window-ms:60000}") long dedupWindowMillis) {
         this.ringBuffer = ringBuffer;
+        this.orderPool = orderPool;
+        this.rateLimiter = rateLimiter;
+        this.engineRunner = engineRunner;
+        this.clientOrderIds = new ClientOrderIdWindow(dedupCapacity, dedupWindowMillis);
+    }
+
+    /**
+     * @param accountId the authenticated caller, the request's own accountId must be 0 or the same
+     */
+    public OrderAck placeLimit(long accountId, LimitOrderRequest req) {
+        req.accountId = owned(accountId, req.accountId);
+        OrderType type = parseType(req.type, true);
+        validate(type, req.price, req.quantity);
+        long now = System.currentTimeMillis();
+        long expiresAt = expiresAt(req.timeInForce, req.expireTime, req.expireDate, now);
+        if (!rateLimiter.tryAcquire(accountId, System.nanoTime()))
+            return OrderAck.rejected(0, OrderAck.THROTTLED);
+        if (engineRunner.isEngineDown())
+            return OrderAck.rejected(0, OrderAck.ENGINE_DOWN);
+
+        publishLock.lock();
+        try {
+            if (req.clientOrderId != 0) {
+                long original = clientOrderIds.get(req.accountId, req.clientOrderId, now);
+                if (original != ClientOrderIdWindow.MISSING)
+                    return OrderAck.rejected(original, OrderAck.DUPLICATE_CLIENT_ORDER_ID);
+            }
+
+            Order order = borrow();
+            if (order == null)
+                return OrderAck.rejected(0, OrderAck.POOL_EXHAUSTED);
+
+            long orderId = nextOrderId;
+            fill(order, orderId, type, req.price, req.quantity, req.accountId, now);
+            order.expiresAt = expiresAt;
+            if (!ringBuffer.offer(order)) {
+                giveBack(order);
+                RingFullEvent.emit("orders", 1);
+
+                return OrderAck.rejected(0, OrderAck.RING_FULL);
+            }
+
+            nextOrderId++;
+            if (req.clientOrderId != 0)
+                clientOrderIds.put(req.accountId, req.clientOrderId, orderId, now);
+
+            return OrderAck.accepted(orderId);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * The engine only cancels the order if it belongs to the account
+     */
+    public OrderAck cancel(long accountId, long orderId) {
+        OrderCommandRequest command = new OrderCommandRequest();
+        command.action = "CANCEL";
+        command.orderId = orderId;
+
+        return submitBatch(accountId, List.of(command)).getFirst();
+    }
+
+    /**
+     * One engine command cancels every resting order of the account, e.g. when its session drops
+     *
+     * @param side BUY / SELL, null for both
+     */
+    public OrderAck massCancel(long accountId, String side) {
+        OrderCommandRequest command = new OrderCommandRequest();
+        command.action = "MASS_CANCEL";
+        command.type = side;
+
+        return submitBatch(accountId, List.of(command)).getFirst();
+    }
+
+    /**
+     * FIX gateway ingress, already validated and in ticks. Shares the order ids and the ring with the REST path
+     */
+    @Override
+    public long submit(OrderType type, long orderId, long price, long quantity, long accountId, long expiresAt) {
+        boolean newOrder = type != OrderType.CANCEL && type != OrderType.AMEND && type != OrderType.MASS_CANCEL;
+        if (CommandSink.throttled(type) && !rateLimiter.tryAcquire(accountId, System.nanoTime()))
+            return THROTTLED;
+        if (engineRunner.isEngineDown())
+            return REJECTED;
+
+        long now = System.currentTimeMillis();
+
+        publishLock.lock();
+        try {
+            Order order = borrow();
+            if (order == null)
+                return REJECTED;
+
+            long id = newOrder ? nextOrderId : orderId;
+            order.id = id;
+            order.timestamp = now * 1_000_000L;
+            order.setType(type);
+            order.price = price;
+            order.quantity = quantity;
+            order.accountId = accountId;
+            order.expiresAt = expiresAt;
+            order.flags = type == OrderType.MASS_CANCEL ? parseSides(null) : 0;
+            if (!ringBuffer.offer(order)) {
+                giveBack(order);
+                RingFullEvent.emit("orders", 1);
+
+                return REJECTED;
+            }
+
+            if (newOrder)
+                nextOrderId++;
+
+            return id;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Publish all commands to the ring in one claim: either every command is accepted or none is
+     *
+     * @param accountId the authenticated caller, every command acts for it
+     */
+    public List<OrderAck> submitBatch(long accountId, List<OrderCommandRequest> commands) {
+        int count = commands.size();
+        if (count == 0 || count > MAX_BATCH_SIZE)
+            throw new IllegalArgumentException("batch size must be in [1, " + MAX_BATCH_SIZE + "]");
+        for (OrderCommandRequest command : commands)
+            command.accountId = owned(accountId, command.accountId);
+
+        // validate everything before touching the ring
+        OrderType[] types = new OrderType[count];
+        byte[] sides = new byte[count];
+        long[] expiries = new long[count];
+        long now = System.currentTimeMillis();
+        Set<String> batchClientOrderIds = null;
+        for (int i = 0; i < count; i++) {
+            OrderCommandRequest command = commands.get(i);
+            if ("NEW".equalsIgnoreCase(command.action)) {
+                types[i] = parseType(command.type, false);
+                validate(types[i], command.price, command.quantity);
+                expiries[i] = expiresAt(command.timeInForce, command.expireTime, command.expireDate, now);
+                if (command.clientOrderId != 0) {
+                    if (batchClientOrderIds == null)
+                        batchClientOrderIds = new HashSet<>();
+                    if (!batchClientOrderIds.add(command.accountId + "/" + command.clientOrderId))
+                        throw new IllegalArgumentException("clientOrderId " + command.clientOrderId
+                                + " repeats in the batch");
+                }
+            } else if ("CANCEL".equalsIgnoreCase(command.action)) {
+                if (command.orderId <= 0)
+                    throw new IllegalArgumentException("orderId must be > 0");
+
+                types[i] = OrderType.CANCEL;
+            } else if ("MASS_CANCEL".equalsIgnoreCase(command.action)) {
+                types[i] = OrderType.MASS_CANCEL;
+                sides[i] = parseSides(command.type);
+            } else {
+                throw new IllegalArgumentException("unknown action: " + command.action);
+            }
+        }
+
+        if (!acquire(accountId, types))
+            return rejectAll(commands, OrderAck.THROTTLED);
+        if (engineRunner.isEngineDown())
+            return rejectAll(commands, OrderAck.ENGINE_DOWN);
+
+        List<OrderAck> acks = new ArrayList<>(count);
+        publishLock.lock();
+        try {
+            if (batchClientOrderIds != null) {
+                List<OrderAck> duplicates = rejectDuplicates(commands, types, now);
+                if (duplicates != null)
+                    return duplicates;
+            }
+
+            for (int i = 0; i < count; i++) {
+                batch[i] = borrow();
+                if (batch[i] == null) {
+                    for (int j = 0; j < i; j++)
+                        giveBack(batch[j]);
+
+                    return rejectAll(commands, OrderAck.POOL_EXHAUSTED);
+                }
+            }
+
+            long orderId = nextOrderId;
+            for (int i = 0; i < count; i++) {
+                OrderCommandRequest command = commands.get(i);
+                if (types[i] == OrderType.CANCEL) {
+                    fill(batch[i], command.orderId, OrderType.CANCEL, 0, 0, command.accountId, now);
+                    acks.add(OrderAck.accepted(command.orderId));
+                } else if (types[i] == OrderType.MASS_CANCEL) {
+                    fill(batch[i], 0, OrderType.MASS_CANCEL, 0, 0, command.accountId, now);
+                    batch[i].flags = sides[i];
+                    acks.add(OrderAck.accepted(0));
+                } else {
+                    fill(batch[i], orderId, types[i], command.price, command.quantity, command.accountId, now);
+                    batch[i].expiresAt = expiries[i];
+                    acks.add(OrderAck.accepted(orderId++));
+                }
+            }
+
+            if (!ringBuffer.offerBatch(batch, count)) {
+                for (int i = 0; i < count; i++)
+                    giveBack(batch[i]);
+
+                RingFullEvent.emit("orders", count);
+
+                return rejectAll(commands, OrderAck.RING_FULL);
+            }
+
+            nextOrderId = orderId;
+            if (batchClientOrderIds != null) {
+                for (int i = 0; i < count; i++) {
+                    OrderCommandRequest command = commands.get(i);
+                    if (command.clientOrderId != 0 && types[i] != OrderType.CANCEL && types[i] != OrderType.MASS_CANCEL)
+                        clientOrderIds.put(command.accountId, command.clientOrderId, acks.get(i).orderId, now);
+                }
+            }
+
+            return acks;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Every NEW of the batch takes a token from the authenticated account, all or none
+     */
+    private boolean acquire(long accountId, OrderType[] types) {
+        int newOrders = 0;
+        for (OrderType type : types)
+            if (CommandSink.throttled(type))
+                newOrders++;
+
+        return newOrders == 0 || rateLimiter.tryAcquire(accountId, newOrders, System.nanoTime());
+    }
+
+    /**
+     * The batch is all or nothing: one NEW retried inside the window rejects every command,
+     * the duplicates with the ids they were accepted under
+     *
+     * @return null when no client order id was seen before
+     */
+    private List<OrderAck> rejectDuplicates(List<OrderCommandRequest> commands, OrderType[] types, long now) {
+        List<OrderAck> acks = null;
+        for (int i = 0; i < commands.size(); i++) {
+            OrderCommandRequest command = commands.get(i);
+            if (command.clientOrderId == 0 || types[i] == OrderType.CANCEL || types[i] == OrderType.MASS_CANCEL)
+                continue;
+
+            long original = clientOrderIds.get(command.accountId, command.clientOrderId, now);
+            if (original == ClientOrderIdWindow.MISSING)
+                continue;
+
+            if (acks == null)
+                acks = rejectAll(commands, OrderAck.DUPLICATE_CLIENT_ORDER_ID);
+            acks.set(i, OrderAck.rejected(original, OrderAck.DUPLICATE_CLIENT_ORDER_ID));
+        }
+
+        return acks;
+    }
+
+    private Order borrow() {
+        if (spareCount > 0) {
+            Order order = spare[--spareCount];
+            spare[spareCount] = null;
+
+            return order;
+        }
+
+        return orderPool.borrow();
+    }
+
+    private void giveBack(Order order) {
+        order.reset();
+        spare[spareCount++] = order;
+    }
+
+    /**
+     * Every command is stamped, the timestamps drive the engine's expiry clock
+     */
+    private static void fill(Order order, long id, OrderType type, double price, long quantity, long accountId,
+                             long nowMillis) {
+        order.id = id;
+        order.timestamp = nowMillis * 1_000_000L;
+        order.setType(type);
+        order.price = Math.round(price / EngineConfig.TICK_SIZE);
+        order.quantity = quantity;
+        order.accountId = accountId;
+    }
+
+    private static List<OrderAck> rejectAll(List<OrderCommandRequest> commands, String reason) {
+        List<OrderAck> acks = new ArrayList<>(commands.size());
+        for (OrderCommandRequest command : commands)
+            acks.add(OrderAck.rejected(command.orderId, reason));
+
+        return acks;
+    }
+
+    /**
+     * Accepts BUY / SELL as limit shortcuts or any OrderType name except CANCEL
+     */
+    private static OrderType parseType(String type, boolean limitOnly) {
+        if (type == null)
+            throw new IllegalArgumentException("type is required");
+
+        OrderType parsed = switch (type.toUpperCase()) {
+            case "BUY" -> OrderType.BUY_LIMIT;
+            case "SELL" -> OrderType.SELL_LIMIT;
+            case "BUY_LIMIT" -> OrderType.BUY_LIMIT;
+            case "SELL_LIMIT" -> OrderType.SELL_LIMIT;
+            case "BUY_MARKET" -> OrderType.BUY_MARKET;
+            case "SELL_MARKET" -> OrderType.SELL_MARKET;
+            default -> throw new IllegalArgumentException("unknown order type: " + type);
+        };
+
+        if (limitOnly && parsed != OrderType.BUY_LIMIT && parsed != OrderType.SELL_LIMIT)
+            throw new IllegalArgumentException("limit order type expected: " + type);
+
+        return parsed;
+    }
+
+    /**
+     * Expiry on the engine clock (epoch ns, as stamped by fill), 0 for GTC. DAY and GTD end at midnight UTC
+     */
+    private static long expiresAt(String timeInForce, long expireTime, String expireDate, long nowMillis) {
+        if (timeInForce == null || "GTC".equalsIgnoreCase(timeInForce))
+            return 0;
+
+        long millis = switch (timeInForce.toUpperCase()) {
+            case "DAY" -> endOfDay(LocalDate.ofInstant(Instant.ofEpochMilli(nowMillis), ZoneOffset.UTC));
+            case "GTT" -> expireTime;
+            case "GTD" -> endOfDay(parseDate(expireDate));
+            default -> throw new IllegalArgumentException("unknown timeInForce: " + timeInForce);
+        };
+
+        if (millis <= nowMillis)
+            throw new IllegalArgumentException("expiry must be in the future");
+
+        return millis * 1_000_000L;
+    }
+
+    private static long endOfDay(LocalDate date) {
+        return date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
     }
 
-    public void placeBuyLimit(LimitOrderRequest req) {
-        Order order = new Order();
-        order.type = OrderType.BUY_LIMIT;
-        order.quantity = req.quantity;
-        order.price = req.price;
+    private static LocalDate parseDate(String date) {
+        if (date == null)
+            throw new IllegalArgumentException("expireDate is required for GTD");
+
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("expireDate must be yyyy-MM-dd: " + date);
+        }
+    }
+
+    /**
+     * MASS_CANCEL side filter as Order flags, null cancels both sides
+     */
+    private static byte parseSides(String side) {
+        if (side == null)
+            return Order.CANCEL_BIDS | Order.CANCEL_ASKS;
+
+        return switch (side.toUpperCase()) {
+            case "BUY" -> Order.CANCEL_BIDS;
+            case "SELL" -> Order.CANCEL_ASKS;
+            default -> throw new IllegalArgumentException("unknown side: " + side);
+        };
+    }
+
+    /**
+     * A request naming an account names the caller's own
+     */
+    private static long owned(long accountId, long requested) {
+        if (accountId <= 0)
+            throw new IllegalArgumentException("accountId must be > 0");
+        if (requested != 0 && requested != accountId)
+            throw new IllegalArgumentException("accountId " + requested + " is not the authenticated account");
+
+        return accountId;
+    }
+
+    private static void validate(OrderType type, double price, long quantity) {
+        if (quantity <= 0)
+            throw new IllegalArgumentException("quantity must be > 0");
+
+        if (type != OrderType.BUY_LIMIT && type != OrderType.SELL_LIMIT)
+            return;
 
-        ringBuffer.offer(order);
+        // the book ladder is fixed, an out of range tick would stop the engine thread
+        if (!(price >= EngineConfig.MIN_PRICE && price <= EngineConfig.MAX_PRICE))
+            throw new IllegalArgumentException("price must be in [" + EngineConfig.MIN_PRICE + ", " + EngineConfig.MAX_PRICE + "]");
     }
 }
@@ -0,0 +1,67 @@
+package org.main.application.websocket;
+
+import core.Gateway.AccountTokens;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Puts the subscriber's account in the session attributes at handshake: the account of a valid token from
+ * "Authorization: Bearer" or, for browsers that can't set headers on a websocket, ?token=. No token subscribes
+ * to public market data only, an invalid or expired one is refused with 401.
+ */
+@Component
+public class AccountHandshakeInterceptor implements HandshakeInterceptor {
+
+    static final String ACCOUNT_ID = "accountId";
+
+    private static final String BEARER = "Bearer ";
+
+    private final AccountTokens accountTokens;
+
+    public AccountHandshakeInterceptor(AccountTokens accountTokens) {
+        this.accountTokens = accountTokens;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler handler,
+                                   Map<String, Object> attributes) {
+        String token = token(request);
+        if (token == null) {
+            attributes.put(ACCOUNT_ID, 0L);
+
+            return true;
+        }
+
+        long accountId = accountTokens.verify(token, System.currentTimeMillis());
+        if (accountId == AccountTokens.INVALID) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+
+            return false;
+        }
+
+        attributes.put(ACCOUNT_ID, accountId);
+
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler handler,
+                               Exception exception) {
+    }
+
+    private static String token(ServerHttpRequest request) {
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith(BEARER))
+            return authorization.substring(BEARER.length());
+
+        return UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst("token");
+    }
+}
@@ -0,0 +1,181 @@
+package org.main.application.websocket;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded outgoing queue of one websocket subscriber, drained by its own virtual thread.
+ * <p>
+ * L2 updates are conflated per price level: a pending level is overwritten in place by a newer update,
+ * so a slow client skips intermediate states instead of buffering them. If more than maxPendingLevels
+ * distinct levels pile up, the pending levels are replaced by a full snapshot. Top of book keeps only the latest.
+ * Private fills can't be conflated: a client that lets maxPendingFills build up is disconnected.
+ */
+final class ClientChannel implements Runnable {
+
+    private final WebSocketSession session;
+    final long accountId;
+    private final int maxPendingLevels;
+    private final int maxPendingFills;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();
+
+    // guarded by lock
+    private LinkedHashMap<Long, TextMessage> levels = new LinkedHashMap<>();
+    private ArrayDeque<TextMessage> fills = new ArrayDeque<>();
+    private TextMessage top;
+    private TextMessage snapshot;
+    private boolean needsSnapshot;
+    private boolean slow;
+
+    // sender thread only, swapped with the guarded ones on each drain
+    private LinkedHashMap<Long, TextMessage> spareLevels = new LinkedHashMap<>();
+    private ArrayDeque<TextMessage> spareFills = new ArrayDeque<>();
+
+    private volatile boolean closed;
+
+    ClientChannel(WebSocketSession session, long accountId, int maxPendingLevels, int maxPendingFills) {
+        this.session = session;
+        this.accountId = accountId;
+        this.maxPendingLevels = maxPendingLevels;
+        this.maxPendingFills = maxPendingFills;
+    }
+
+    /**
+     * Fan-out thread, one lock acquisition per cycle
+     *
+     * @return true if the channel needs a snapshot because conflation overflowed
+     */
+    boolean offer(MarketDataUpdate[] updates, int count) {
+        lock.lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                MarketDataUpdate update = updates[i];
+                if (update.kind == MarketDataUpdate.TOP) {
+                    top = update.message;
+                } else if (!needsSnapshot) {
+                    if (levels.size() >= maxPendingLevels && !levels.containsKey(update.levelKey)) {
+                        needsSnapshot = true; // a snapshot will cover everything pending
+                        levels.clear();
+                    } else {
+                        levels.put(update.levelKey, update.message);
+                    }
+                }
+            }
+
+            pending.signal();
+
+            return needsSnapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fan-out thread, replaces all pending levels
+     */
+    void offerSnapshot(TextMessage message) {
+        lock.lock();
+        try {
+            snapshot = message;
+            levels.clear();
+            needsSnapshot = false;
+            pending.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fan-out thread
+     */
+    void offerFill(TextMessage message) {
+        lock.lock();
+        try {
+            if (fills.size() >= maxPendingFills)
+                slow = true;
+            else
+                fills.add(message);
+
+            pending.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!closed) {
+                TextMessage snapshotToSend;
+                TextMessage topToSend;
+                LinkedHashMap<Long, TextMessage> levelsToSend;
+                ArrayDeque<TextMessage> fillsToSend;
+
+                lock.lock();
+                try {
+                    while (!closed && !slow && snapshot == null && top == null && levels.isEmpty() && fills.isEmpty())
+                        pending.await();
+
+                    if (slow) {
+                        session.close(CloseStatus.SESSION_NOT_RELIABLE.withReason("slow consumer"));
+                        break;
+                    }
+
+                    snapshotToSend = snapshot;
+                    topToSend = top;
+                    snapshot = top = null;
+
+                    levelsToSend = levels;
+                    levels = spareLevels;
+                    fillsToSend = fills;
+                    fills = spareFills;
+                } finally {
+                    lock.unlock();
+                }
+
+                if (snapshotToSend != null)
+                    session.sendMessage(snapshotToSend);
+                for (TextMessage message : levelsToSend.values())
+                    session.sendMessage(message);
+                if (topToSend != null)
+                    session.sendMessage(topToSend);
+                for (TextMessage message : fillsToSend)
+                    session.sendMessage(message);
+
+                levelsToSend.clear();
+                fillsToSend.clear();
+                spareLevels = levelsToSend;
+                spareFills = fillsToSend;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // session is gone, nothing left to deliver
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closed = true;
+        }
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            pending.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,286 @@
+package org.main.application.websocket;
+
+import core.MarketData.MarketDataRing;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single thread between the engine's market data ring and the websocket subscribers.
+ * <p>
+ * Each cycle drains up to MAX_EVENTS_PER_CYCLE records, keeps an L2 mirror of the book, conflates the cycle's
+ * level changes, encodes every resulting update once and offers the same encoded message to all subscribers.
+ * Fills are routed only to the subscribers of the maker/taker account, expiries and rejections to the order's account.
+ */
+public class MarketDataFanOut implements Runnable, MarketDataRing.Handler {
+
+    private static final int MAX_EVENTS_PER_CYCLE = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final MarketDataRing ring;
+    private final MarketDataRing executionReports; // could be null
+    private final int maxPendingLevels;
+    private final int maxPendingFills;
+
+    private final ConcurrentLinkedQueue<ClientChannel> registrations = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running = true;
+
+    // fan-out thread only
+    private final List<ClientChannel> channels = new ArrayList<>();
+    private final Map<Long, List<ClientChannel>> channelsByAccount = new HashMap<>();
+    private final NavigableMap<Double, Long> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final NavigableMap<Double, Long> asks = new TreeMap<>();
+    private final LinkedHashSet<Long> dirtyLevels = new LinkedHashSet<>();
+    private final MarketDataUpdate[] updates = new MarketDataUpdate[MAX_EVENTS_PER_CYCLE + 1];
+    private MarketDataUpdate lastTop;
+    private TextMessage cycleSnapshot;
+    private final StringBuilder sb = new StringBuilder(256);
+
+    public MarketDataFanOut(MarketDataRing ring, int maxPendingLevels, int maxPendingFills) {
+        this(ring, null, maxPendingLevels, maxPendingFills);
+    }
+
+    /**
+     * @param executionReports optional (could be null), second ring written off the matching thread (engine pipeline)
+     */
+    public MarketDataFanOut(MarketDataRing ring, MarketDataRing executionReports, int maxPendingLevels,
+                            int maxPendingFills) {
+        this.ring = ring;
+        this.executionReports = executionReports;
+        this.maxPendingLevels = maxPendingLevels;
+        this.maxPendingFills = maxPendingFills;
+    }
+
+    /**
+     * Any thread. The subscriber gets a snapshot first, then incremental updates.
+     */
+    public ClientChannel register(WebSocketSession session, long accountId) {
+        ClientChannel channel = new ClientChannel(session, accountId, maxPendingLevels, maxPendingFills);
+        Thread.ofVirtual().name("md-" + session.getId()).start(channel);
+        registrations.add(channel);
+
+        return channel;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            cycleSnapshot = null;
+            int events = ring.poll(this, MAX_EVENTS_PER_CYCLE);
+            if (events > 0)
+                publishCycle();
+            if (executionReports != null)
+                events += executionReports.poll(this, MAX_EVENTS_PER_CYCLE);
+
+            boolean registered = processRegistrations();
+
+            if (events == 0 && !registered)
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+
+        for (ClientChannel channel : channels)
+            channel.close();
+    }
+
+    @Override
+    public void onLevel(boolean bid, double price, long totalQty) {
+        NavigableMap<Double, Long> side = bid ? bids : asks;
+        if (totalQty == 0)
+            side.remove(price);
+        else
+            side.put(price, totalQty);
+
+        dirtyLevels.add(MarketDataUpdate.levelKey(bid, price));
+    }
+
+    @Override
+    public void onFill(double price, long qty, boolean buyInitiator,
+                       long makerOrderId, long takerOrderId, long makerAccountId, long takerAccountId) {
+        deliverFill(makerAccountId, makerOrderId, "maker", !buyInitiator, price, qty);
+        deliverFill(takerAccountId, takerOrderId, "taker", buyInitiator, price, qty);
+    }
+
+    @Override
+    public void onExpired(long orderId, long accountId, boolean buy, long remaining) {
+        if (accountId == 0)
+            return;
+
+        List<ClientChannel> subscribers = channelsByAccount.get(accountId);
+        if (subscribers == null || subscribers.isEmpty())
+            return;
+
+        sb.setLength(0);
+        sb.append("{\"type\":\"expired\",\"orderId\":").append(orderId)
+                .append(",\"side\":\"").append(buy ? "buy" : "sell")
+                .append("\",\"qty\":").append(remaining).append('}');
+        TextMessage message = new TextMessage(sb.toString());
+
+        for (ClientChannel channel : subscribers)
+            channel.offerFill(message);
+    }
+
+    @Override
+    public void onRejected(long orderId, long accountId, int reason) {
+        if (accountId == 0)
+            return;
+
+        List<ClientChannel> subscribers = channelsByAccount.get(accountId);
+        if (subscribers == null || subscribers.isEmpty())
+            return;
+
+        sb.setLength(0);
+        sb.append("{\"type\":\"rejected\",\"orderId\":").append(orderId)
+                .append(",\"reason\":").append(reason).append('}');
+        TextMessage message = new TextMessage(sb.toString());
+
+        for (ClientChannel channel : subscribers)
+            channel.offerFill(message);
+    }
+
+    private void deliverFill(long accountId, long orderId, String role, boolean buy, double price, long qty) {
+        if (accountId == 0)
+            return;
+
+        List<ClientChannel> subscribers = channelsByAccount.get(accountId);
+        if (subscribers == null || subscribers.isEmpty())
+            return;
+
+        sb.setLength(0);
+        sb.append("{\"type\":\"fill\",\"orderId\":").append(orderId)
+                .append(",\"role\":\"").append(role)
+                .append("\",\"side\":\"").append(buy ? "buy" : "sell")
+                .append("\",\"price\":").append(price)
+                .append(",\"qty\":").append(qty).append('}');
+        TextMessage message = new TextMessage(sb.toString());
+
+        for (ClientChannel channel : subscribers)
+            channel.offerFill(message);
+    }
+
+    private void publishCycle() {
+        int count = 0;
+        for (Long key : dirtyLevels) {
+            boolean bid = key < 0;
+            double price = Double.longBitsToDouble(key & Long.MAX_VALUE);
+            Long qty = (bid ? bids : asks).get(price);
+
+            sb.setLength(0);
+            sb.append("{\"type\":\"l2\",\"side\":\"").append(bid ? "bid" : "ask")
+                    .append("\",\"price\":").append(price)
+                    .append(",\"qty\":").append(qty == null ? 0 : qty).append('}');
+            updates[count++] = new MarketDataUpdate(MarketDataUpdate.LEVEL, key, new TextMessage(sb.toString()));
+        }
+        dirtyLevels.clear();
+
+        MarketDataUpdate top = encodeTop();
+        if (lastTop == null || !lastTop.message.getPayload().equals(top.message.getPayload())) {
+            updates[count++] = top;
+            lastTop = top;
+        }
+
+        for (int i = 0; i < channels.size(); i++) {
+            ClientChannel channel = channels.get(i);
+            if (channel.isClosed()) {
+                removeAt(i--);
+                continue;
+            }
+
+            if (channel.offer(updates, count))
+                channel.offerSnapshot(snapshot());
+        }
+
+        Arrays.fill(updates, 0, count, null);
+    }
+
+    private boolean processRegistrations() {
+        boolean registered = false;
+        ClientChannel channel;
+        while ((channel = registrations.poll()) != null) {
+            registered = true;
+            if (channel.isClosed())
+                continue;
+
+            channel.offerSnapshot(snapshot());
+            if (lastTop != null)
+                channel.offer(new MarketDataUpdate[]{lastTop}, 1);
+
+            channels.add(channel);
+            if (channel.accountId != 0)
+                channelsByAccount.computeIfAbsent(channel.accountId, _ -> new ArrayList<>()).add(channel);
+        }
+
+        return registered;
+    }
+
+    private void removeAt(int i) {
+        ClientChannel channel = channels.get(i);
+        int last = channels.size() - 1;
+        channels.set(i, channels.get(last));
+        channels.remove(last);
+
+        List<ClientChannel> subscribers = channelsByAccount.get(channel.accountId);
+        if (subscribers != null) {
+            subscribers.remove(channel);
+            if (subscribers.isEmpty())
+                channelsByAccount.remove(channel.accountId);
+        }
+    }
+
+    private MarketDataUpdate encodeTop() {
+        Map.Entry<Double, Long> bid = bids.firstEntry();
+        Map.Entry<Double, Long> ask = asks.firstEntry();
+
+        sb.setLength(0);
+        sb.append("{\"type\":\"top\",\"bid\":").append(bid == null ? null : bid.getKey())
+                .append(",\"bidQty\":").append(bid == null ? 0 : bid.getValue())
+                .append(",\"ask\":").append(ask == null ? null : ask.getKey())
+                .append(",\"askQty\":").append(ask == null ? 0 : ask.getValue()).append('}');
+
+        return new MarketDataUpdate(MarketDataUpdate.TOP, null, new TextMessage(sb.toString()));
+    }
+
+    /**
+     * Full L2, built at most once per cycle and shared by every subscriber that needs it
+     */
+    private TextMessage snapshot() {
+        if (cycleSnapshot != null)
+            return cycleSnapshot;
+
+        StringBuilder snapshot = new StringBuilder(64 + 32 * (bids.size() + asks.size()));
+        snapshot.append("{\"type\":\"snapshot\",\"bids\":");
+        appendLevels(snapshot, bids);
+        snapshot.append(",\"asks\":");
+        appendLevels(snapshot, asks);
+        snapshot.append('}');
+
+        cycleSnapshot = new TextMessage(snapshot.toString());
+
+        return cycleSnapshot;
+    }
+
+    private static void appendLevels(StringBuilder sb, NavigableMap<Double, Long> side) {
+        sb.append('[');
+        boolean first = true;
+        for (Map.Entry<Double, Long> level : side.entrySet()) {
+            if (!first)
+                sb.append(',');
+
+            sb.append('[').append(level.getKey()).append(',').append(level.getValue()).append(']');
+            first = false;
+        }
+        sb.append(']');
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public int getSubscriberCount() {
+        return channels.size();
+    }
+}
@@ -0,0 +1,30 @@
+package org.main.application.websocket;
+
+import org.springframework.web.socket.TextMessage;
+
+/**
+ * One encoded update, created once per fan-out cycle and shared by every subscriber
+ */
+final class MarketDataUpdate {
+    static final byte LEVEL = 1;
+    static final byte TOP = 2;
+
+    final byte kind;
+    final Long levelKey; // boxed once here, not per subscriber
+    final TextMessage message;
+
+    MarketDataUpdate(byte kind, Long levelKey, TextMessage message) {
+        this.kind = kind;
+        this.levelKey = levelKey;
+        this.message = message;
+    }
+
+    /**
+     * Prices are positive, so the sign bit is free to carry the side
+     */
+    static long levelKey(boolean bid, double price) {
+        long bits = Double.doubleToRawLongBits(price);
+
+        return bid ? bits | Long.MIN_VALUE : bits;
+    }
+}
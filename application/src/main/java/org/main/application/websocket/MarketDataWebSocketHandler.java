@@ -0,0 +1,42 @@
+package org.main.application.websocket;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * /ws/market-data[?token=T]: top of book, L2 deltas and, with a token, its account's private fills.
+ * The account comes from the token, checked by AccountHandshakeInterceptor
+ */
+@Component
+public class MarketDataWebSocketHandler extends TextWebSocketHandler {
+
+    private final MarketDataFanOut fanOut;
+    private final Map<String, ClientChannel> channels = new ConcurrentHashMap<>();
+
+    public MarketDataWebSocketHandler(MarketDataFanOut fanOut) {
+        this.fanOut = fanOut;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        channels.put(session.getId(), fanOut.register(session, accountId(session)));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        ClientChannel channel = channels.remove(session.getId());
+        if (channel != null)
+            channel.close();
+    }
+
+    private static long accountId(WebSocketSession session) {
+        Object accountId = session.getAttributes().get(AccountHandshakeInterceptor.ACCOUNT_ID);
+
+        return accountId instanceof Long id ? id : 0;
+    }
+}
@@ -3,7 +3,7 @@ package org.main.application;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "auth.token-secret=test-only-secret-0123456789abcdef")
 class ApplicationTests {
 
     @Test
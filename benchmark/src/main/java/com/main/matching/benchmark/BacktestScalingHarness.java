@@ -0,0 +1,99 @@
+package com.main.matching.benchmark;
+
+import core.Backtest.Backtest;
+import core.Backtest.Backtest.Result;
+import core.Backtest.Backtest.Scenario;
+import core.Journal.CommandJournal;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * How Backtest throughput scales with ForkJoinPool workers over independent recorded symbols.
+ * <p>
+ * Records one journal per symbol (limits, markets and cancels around a mid), then replays all of them with
+ * 1, 2, 4 ... workers up to the number of cores and prints wall-clock commands/s and the speedup over one worker.
+ * Every run must give the same total digest, it is checked.
+ * <p>
+ *  java -cp benchmark.jar com.main.matching.benchmark.BacktestScalingHarness [symbols] [commands per symbol] [dir]
+ *  defaults: 2 x cores symbols, 4M commands each, /dev/shm (journals take 64 bytes a command, deleted at the end)
+ */
+public class BacktestScalingHarness {
+
+    private static final long MID_TICK = 7_000_000;
+    private static final int POOL_SIZE = 1 << 20;
+
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int symbols = args.length > 0 ? Integer.parseInt(args[0]) : 2 * cores;
+        int commands = args.length > 1 ? Integer.parseInt(args[1]) : 4_000_000;
+        Path dir = Files.createTempDirectory(Path.of(args.length > 2 ? args[2] : "/dev/shm"), "backtest");
+
+        List<Scenario> scenarios = new ArrayList<>();
+        for (int symbol = 0; symbol < symbols; symbol++) {
+            Path journal = record(dir.resolve("symbol-" + symbol), commands, symbol);
+            scenarios.add(new Scenario("symbol-" + symbol, List.of(journal),
+                    (pool, trades) -> new ArrayBucketOrderBook(65000.0, 75500.0, 0.01, trades, pool::release)));
+        }
+
+        System.out.printf("%d symbols x %,d commands, %d cores%n", symbols, commands, cores);
+        long baseline = 0;
+        long digest = 0;
+        for (int workers = 1; ; workers = Math.min(workers * 2, cores)) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            long start = System.nanoTime();
+            Result total = Result.total(new Backtest(pool, POOL_SIZE).run(scenarios));
+            long wall = System.nanoTime() - start;
+            pool.shutdown();
+
+            if (baseline == 0) {
+                baseline = wall;
+                digest = total.digest();
+            } else if (total.digest() != digest) {
+                throw new IllegalStateException("digest changed with " + workers + " workers");
+            }
+            System.out.printf("%3d workers %,14.0f commands/s  x%.2f%n", workers, total.commands() * 1e9 / wall,
+                    (double) baseline / wall);
+
+            if (workers == cores)
+                break;
+        }
+
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList())
+                Files.delete(file);
+        }
+        Files.delete(dir);
+    }
+
+    private static Path record(Path file, int commands, int symbol) {
+        SplittableRandom rnd = new SplittableRandom(symbol);
+        Order order = new Order();
+        try (CommandJournal journal = new CommandJournal(file, commands)) {
+            long id = 0;
+            for (int i = 0; i < commands; i++) {
+                int roll = rnd.nextInt(10);
+                order.reset();
+                if (roll < 8) {
+                    order.id = ++id;
+                    order.setType(OrderType.values()[roll & 3]);
+                    order.price = MID_TICK - 50 + rnd.nextInt(101);
+                    order.quantity = 1 + rnd.nextInt(100);
+                } else {
+                    order.id = 1 + rnd.nextLong(id + 1);
+                    order.setType(OrderType.CANCEL);
+                }
+                journal.append(order);
+            }
+        }
+
+        return file;
+    }
+}
@@ -0,0 +1,36 @@
+package com.main.matching.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Runs benchmarks forked with the GC profiler (allocation rate, GC count) and writes JSON results,
+ * so runs can be diffed over time.
+ * <p>
+ * java -cp benchmark/target/benchmark.jar com.main.matching.benchmark.BenchmarkRunner [include regex] [result file]
+ */
+public final class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : OrderBookBenchmark.class.getSimpleName();
+        String result = args.length > 1 ? args[1]
+                : "jmh-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build();
+
+        new Runner(options).run();
+        System.out.println("Results written to " + result);
+    }
+}
@@ -0,0 +1,163 @@
+package com.main.matching.benchmark;
+
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.*;
+
+import java.util.function.Consumer;
+
+/**
+ * Common face of every book for the benchmarks, so a @Param string selects the implementation.
+ * <p>
+ * OrderBook implementations take the caller's Order objects, SLAB copies them into slots and cancels by id,
+ * the experimental interfaces create their own and can't cancel. New books only need a case in create().
+ */
+public interface BookAdapter {
+
+    /** resting orders a SLAB book can hold */
+    int SLAB_SLOTS = 1 << 21;
+
+    void limit(boolean buy, Order order);
+
+    void market(boolean buy, Order order);
+
+    /**
+     * @return false if the order is not resting or the book has no cancel
+     */
+    boolean cancel(Order order);
+
+    /**
+     * @return false if the book copies what it needs, the caller may reuse a limit order right away
+     */
+    default boolean keepsOrders() {
+        return true;
+    }
+
+    /**
+     * @param poolReleaser receives resting orders leaving the book, if the book supports it
+     */
+    static BookAdapter create(String book, double minPrice, double maxPrice, double tickSize,
+                              Consumer<Order> poolReleaser) {
+        return switch (book) {
+            case "ARRAY_BUCKET" -> of(new ArrayBucketOrderBook(minPrice, maxPrice, tickSize, null, poolReleaser));
+            case "SLAB" -> of(new SlabOrderBook(minPrice, maxPrice, tickSize, SLAB_SLOTS, null));
+            case "TREE_MAP" -> of(new TreeMapOrderBook(tickSize));
+            case "SKIP_LIST" -> of(new SkipListOrderBook(tickSize, null, poolReleaser));
+            case "HASH_MAP_TREE_SET_TWO_METHODS" -> of(new HashMapTreeSetOrderBookTwoMethods());
+            case "HASH_MAP_TREE_SET_ONE_METHOD" -> of(new HashMapTreeSetOrderBookOneMethod());
+            default -> throw new IllegalArgumentException("unknown book: " + book);
+        };
+    }
+
+    static BookAdapter of(OrderBook book) {
+        return new BookAdapter() {
+            @Override
+            public void limit(boolean buy, Order order) {
+                if (buy)
+                    book.placeBuyLimit(order);
+                else
+                    book.placeSellLimit(order);
+            }
+
+            @Override
+            public void market(boolean buy, Order order) {
+                if (buy)
+                    book.placeBuyMarket(order);
+                else
+                    book.placeSellMarket(order);
+            }
+
+            @Override
+            public boolean cancel(Order order) {
+                return book.cancel(order);
+            }
+        };
+    }
+
+    /**
+     * Copies limits into its slots and cancels by id
+     */
+    static BookAdapter of(SlabOrderBook book) {
+        return new BookAdapter() {
+            @Override
+            public void limit(boolean buy, Order order) {
+                if (buy)
+                    book.placeBuyLimit(order);
+                else
+                    book.placeSellLimit(order);
+            }
+
+            @Override
+            public void market(boolean buy, Order order) {
+                if (buy)
+                    book.placeBuyMarket(order);
+                else
+                    book.placeSellMarket(order);
+            }
+
+            @Override
+            public boolean cancel(Order order) {
+                return book.cancel(order);
+            }
+
+            @Override
+            public boolean keepsOrders() {
+                return false;
+            }
+        };
+    }
+
+    static BookAdapter of(ExperimentalOrderBook book) {
+        return new BookAdapter() {
+            @Override
+            public void limit(boolean buy, Order order) {
+                if (buy)
+                    book.placeBuyLimit(order.price, order.quantity);
+                else
+                    book.placeSellLimit(order.price, order.quantity);
+            }
+
+            @Override
+            public void market(boolean buy, Order order) {
+                if (buy)
+                    book.placeBuyMarket(order.quantity);
+                else
+                    book.placeSellMarket(order.quantity);
+            }
+
+            @Override
+            public boolean cancel(Order order) {
+                return false;
+            }
+
+            @Override
+            public boolean keepsOrders() {
+                return false;
+            }
+        };
+    }
+
+    static BookAdapter of(OneMethodOrderBook book) {
+        return new BookAdapter() {
+            @Override
+            public void limit(boolean buy, Order order) {
+                book.limit(order.price, order.quantity, buy ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT);
+            }
+
+            @Override
+            public void market(boolean buy, Order order) {
+                book.market(order.quantity, buy ? OrderType.BUY_MARKET : OrderType.SELL_MARKET);
+            }
+
+            @Override
+            public boolean cancel(Order order) {
+                return false;
+            }
+
+            @Override
+            public boolean keepsOrders() {
+                return false;
+            }
+        };
+    }
+}
@@ -0,0 +1,51 @@
+package com.main.matching.benchmark;
+
+import core.Collections.ClientOrderIdWindow;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplicate check per order on a full window: one lookup of a fresh id then its insert (which evicts the oldest),
+ * and a lookup that hits. The GC profiler should report 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ClientOrderIdWindowBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+
+    @Param({"65536", "1048576"})
+    public int capacity;
+
+    private ClientOrderIdWindow window;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        window = new ClientOrderIdWindow(capacity, Long.MAX_VALUE); // evicted by capacity only
+        for (next = 1; next <= window.capacity(); next++)
+            window.put(next % ACCOUNTS, next, next, next);
+    }
+
+    @Benchmark
+    public long checkAndInsert() {
+        long id = next++;
+        long original = window.get(id % ACCOUNTS, id, id);
+        if (original == ClientOrderIdWindow.MISSING)
+            window.put(id % ACCOUNTS, id, id, id);
+
+        return original;
+    }
+
+    @Benchmark
+    public long duplicate() {
+        long id = next - 1 - (next * 0x9E3779B97F4A7C15L >>> 40) % (window.size() - 1); // a random live entry
+
+        return window.get(id % ACCOUNTS, id, id);
+    }
+}
@@ -0,0 +1,123 @@
+package com.main.matching.benchmark;
+
+import core.Codec.FillCodec;
+import core.Codec.NewOrderCodec;
+import core.Order.Order;
+import core.Order.OrderRecord;
+import core.Order.OrderType;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flyweight encode / decode cost per message, heap and direct buffers and a native MemorySegment.
+ * The GC profiler should report ~0 B/op: flyweights and records are reused, nothing is allocated per message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class CodecBenchmark {
+
+    private static final int SLOTS = 1024; // spread over 64 KB so the same line isn't hit every time
+
+    @Param({"HEAP", "DIRECT", "SEGMENT"})
+    public String buffer;
+
+    private ByteBuffer bytes;
+    private MemorySegment segment; // SEGMENT only, bytes is a view of it for OrderRecord
+    private final NewOrderCodec newOrder = new NewOrderCodec();
+    private final FillCodec fill = new FillCodec();
+    private final OrderRecord record = new OrderRecord();
+    private final Order order = new Order(42, OrderType.BUY_LIMIT, 6_500_123, 17);
+    private final Order target = new Order();
+    private int slot;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int capacity = SLOTS * OrderRecord.SIZE + FillCodec.SIZE; // a fill is a byte longer than a slot
+        if (buffer.equals("SEGMENT")) {
+            segment = Arena.ofAuto().allocate(capacity, 64);
+            bytes = segment.asByteBuffer();
+        } else {
+            bytes = buffer.equals("DIRECT") ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+        bytes.order(ByteOrder.LITTLE_ENDIAN);
+        order.accountId = 7;
+        order.timestamp = System.nanoTime();
+        for (int i = 0; i < SLOTS; i++)
+            record.write(bytes, i * OrderRecord.SIZE, order);
+    }
+
+    @Benchmark
+    public long encodeNewOrder() {
+        int offset = nextOffset();
+        if (segment != null)
+            newOrder.wrapForEncode(segment, offset);
+        else
+            newOrder.wrapForEncode(bytes, offset);
+        newOrder.orderId(slot)
+                .price(6_500_123)
+                .quantity(17)
+                .accountId(7)
+                .timestamp(slot)
+                .expiresAt(0)
+                .type(OrderType.BUY_LIMIT.code)
+                .flags((byte) 0);
+
+        return newOrder.limit();
+    }
+
+    @Benchmark
+    public long decodeNewOrder() {
+        if (segment != null)
+            newOrder.wrapForDecode(segment, nextOffset());
+        else
+            newOrder.wrapForDecode(bytes, nextOffset());
+
+        return newOrder.orderId() + newOrder.price() + newOrder.quantity() + newOrder.accountId() + newOrder.type();
+    }
+
+    @Benchmark
+    public long encodeFill() {
+        int offset = nextOffset();
+        if (segment != null)
+            fill.wrapForEncode(segment, offset);
+        else
+            fill.wrapForEncode(bytes, offset);
+        fill.makerOrderId(slot)
+                .takerOrderId(slot + 1)
+                .makerAccountId(7)
+                .takerAccountId(8)
+                .price(65_001.23)
+                .quantity(17)
+                .timestamp(slot)
+                .buyInitiator(true);
+
+        return fill.limit();
+    }
+
+    /**
+     * What the IPC ring and the journal do per command: Order -> record -> pooled Order
+     */
+    @Benchmark
+    public long orderRecordRoundTrip() {
+        int offset = nextOffset();
+        record.write(bytes, offset, order);
+        record.read(bytes, offset, target);
+
+        return target.id;
+    }
+
+    private int nextOffset() {
+        slot = (slot + 1) & (SLOTS - 1);
+
+        return slot * OrderRecord.SIZE;
+    }
+}
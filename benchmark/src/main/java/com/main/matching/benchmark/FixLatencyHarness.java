@@ -0,0 +1,260 @@
+package com.main.matching.benchmark;
+
+import core.Gateway.Fix;
+import core.Gateway.FixCredentials;
+import core.Gateway.FixGateway;
+import core.Gateway.FixWriter;
+import core.Gateway.RingCommandSink;
+import core.MarketData.MarketDataPublisher;
+import core.MarketData.MarketDataRing;
+import core.Order.Order;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.SPSCRingBuffer;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Message-to-ring latency of the FIX gateway: a loopback client writes NewOrderSingles at a fixed rate,
+ * a consumer thread in place of the engine polls the ring and records the time since the message was due.
+ * Socket, selector wake-up, parsing and the ring handoff are all in the measurement.
+ * <p>
+ * The consumer cancels every order right away through an execution ring, so the gateway encodes an ExecutionReport
+ * back per order and the client drains them on a thread of its own, the return path is under load too.
+ * Messages are stamped with their intended send time, a client that falls behind its schedule adds the wait
+ * to every message behind it (coordinated omission is corrected by construction).
+ * <p>
+ *  java -cp benchmark.jar com.main.matching.benchmark.FixLatencyHarness [rates] [seconds]
+ * <p>
+ * Prints percentiles per offered load, full distributions go to latency-FIX-[rate].hgrm.
+ * Client, gateway and consumer threads spin, give them a core each.
+ */
+public class FixLatencyHarness {
+
+    private static final String COMP_ID = "EXCHANGE";
+    private static final String SYMBOL = "BTC-USD";
+    private static final byte[] SENDER = "LOADGEN".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PASSWORD = "loadgen".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TARGET = COMP_ID.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SYMBOL_BYTES = SYMBOL.getBytes(StandardCharsets.US_ASCII);
+    private static final int IN_FLIGHT = 1 << 20; // send times kept by order id
+    private static final int RING_SIZE = 1 << 16;
+    private static final int POOL_SIZE = 1 << 16;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        long[] rates = Arrays.stream((args.length > 0 ? args[0] : "10000,50000,100000,200000").split(","))
+                .mapToLong(Long::parseLong)
+                .toArray();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        System.out.printf("%12s %12s %9s %9s %9s %9s %9s %9s%n", "offered/s", "achieved/s",
+                "p50 us", "p90 us", "p99 us", "p99.9 us", "p99.99", "max us");
+        for (long rate : rates) {
+            long start = System.nanoTime();
+            Histogram histogram = run(rate, seconds * 1_000_000_000L);
+            double elapsed = (System.nanoTime() - start - WARMUP_NANOS) / 1e9;
+
+            System.out.printf("%,12d %,12.0f %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    rate, histogram.getTotalCount() / elapsed,
+                    micros(histogram, 50), micros(histogram, 90), micros(histogram, 99),
+                    micros(histogram, 99.9), micros(histogram, 99.99), histogram.getMaxValue() / 1000.0);
+
+            try (PrintStream out = new PrintStream(new FileOutputStream("latency-FIX-" + rate + ".hgrm"))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static Histogram run(long rate, long durationNanos) throws Exception {
+        SPSCOrderPool pool = new SPSCOrderPool(POOL_SIZE);
+        SPSCRingBuffer<Order> ring = new SPSCRingBuffer<>(RING_SIZE);
+        MarketDataRing executionRing = new MarketDataRing(RING_SIZE);
+        MarketDataPublisher executions = new MarketDataPublisher(executionRing);
+        FixGateway gateway = new FixGateway(new InetSocketAddress("localhost", 0), COMP_ID, SYMBOL,
+                60_000.0, 70_000.0, 0.01, new RingCommandSink(ring, pool, 1), executionRing,
+                new FixCredentials().add("LOADGEN", 1, "loadgen"));
+        long[] sentAt = new long[IN_FLIGHT];
+        SingleWriterRecorder recorder = new SingleWriterRecorder(3);
+
+        Thread gatewayThread = new Thread(gateway, "fix-gateway-thread");
+        gatewayThread.start();
+
+        Consumer consumer = new Consumer(ring, pool, executions, sentAt, recorder);
+        Thread consumerThread = new Thread(consumer, "ring-consumer-thread");
+        consumerThread.start();
+
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", gateway.port()))) {
+            channel.socket().setTcpNoDelay(true);
+            Client client = new Client(channel);
+            client.logon();
+
+            Thread drainThread = new Thread(client::drain, "fix-client-drain-thread");
+            drainThread.setDaemon(true);
+            drainThread.start();
+
+            long sent = client.send(rate, WARMUP_NANOS, 0, sentAt);
+            awaitReceived(consumer, sent);
+            recorder.getIntervalHistogram(); // drop warmup
+            sent = client.send(rate, durationNanos, sent, sentAt);
+            awaitReceived(consumer, sent);
+        }
+
+        consumer.running = false;
+        gateway.stop();
+        consumerThread.join();
+        gatewayThread.join();
+
+        return recorder.getIntervalHistogram();
+    }
+
+    /**
+     * Ids are matched to send times by order, an order the gateway rejected (ring full) would shift them
+     */
+    private static void awaitReceived(Consumer consumer, long sent) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (consumer.received < sent) {
+            if (System.nanoTime() > deadline) {
+                System.err.printf("%,d orders never reached the ring, latencies after the first are off%n",
+                        sent - consumer.received);
+
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Stands in for the engine: takes orders off the ring and cancels them, the gateway frees their slots
+     */
+    private static final class Consumer implements Runnable {
+
+        private final SPSCRingBuffer<Order> ring;
+        private final SPSCOrderPool pool;
+        private final MarketDataPublisher executions;
+        private final long[] sentAt;
+        private final SingleWriterRecorder recorder;
+
+        volatile boolean running = true;
+        volatile long received;
+
+        Consumer(SPSCRingBuffer<Order> ring, SPSCOrderPool pool, MarketDataPublisher executions, long[] sentAt,
+                 SingleWriterRecorder recorder) {
+            this.ring = ring;
+            this.pool = pool;
+            this.executions = executions;
+            this.sentAt = sentAt;
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Order order = ring.poll();
+                if (order == null) {
+                    Thread.onSpinWait();
+
+                    continue;
+                }
+                if (order.id == 0) { // the MASS_CANCEL of the client's disconnect
+                    pool.release(order);
+
+                    continue;
+                }
+
+                recorder.recordValue(System.nanoTime() - sentAt[(int) (order.id & (IN_FLIGHT - 1))]);
+                executions.onCancelled(order.id, order.accountId, order.isBuy(), order.quantity);
+                pool.release(order);
+                received++;
+            }
+        }
+    }
+
+    private static final class Client {
+
+        private final SocketChannel channel;
+        private final FixWriter writer = new FixWriter();
+        private final ByteBuffer out = ByteBuffer.allocateDirect(4096);
+        private long seqNum = 1;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void logon() throws IOException {
+            writer.begin(Fix.LOGON, SENDER, SENDER.length, TARGET, TARGET.length, seqNum++, System.currentTimeMillis())
+                    .putChar(Fix.ENCRYPT_METHOD, (byte) '0')
+                    .putLong(Fix.HEART_BT_INT, 30)
+                    .putBytes(Fix.PASSWORD, PASSWORD, 0, PASSWORD.length);
+            write();
+
+            ByteBuffer in = ByteBuffer.allocate(4096);
+            if (channel.read(in) <= 0)
+                throw new IOException("No logon response");
+        }
+
+        /**
+         * @return the last order id sent, ids are assigned by the gateway in send order starting at 1
+         */
+        long send(long rate, long durationNanos, long id, long[] sentAt) throws IOException {
+            long start = System.nanoTime();
+            long sent = 0;
+            while (true) {
+                long intended = start + sent * 1_000_000_000L / rate;
+                if (intended - start >= durationNanos)
+                    return id;
+
+                while (System.nanoTime() < intended)
+                    Thread.onSpinWait();
+
+                id++;
+                sentAt[(int) (id & (IN_FLIGHT - 1))] = intended;
+                boolean buy = (id & 1) == 0;
+                writer.begin(Fix.NEW_ORDER_SINGLE, SENDER, SENDER.length, TARGET, TARGET.length, seqNum++,
+                                System.currentTimeMillis())
+                        .putLong(Fix.CL_ORD_ID, id)
+                        .putBytes(Fix.SYMBOL, SYMBOL_BYTES, 0, SYMBOL_BYTES.length)
+                        .putChar(Fix.SIDE, buy ? Fix.SIDE_BUY : Fix.SIDE_SELL)
+                        .putLong(Fix.ORDER_QTY, 1 + (id & 63))
+                        .putChar(Fix.ORD_TYPE, Fix.ORD_TYPE_LIMIT)
+                        .putDecimal(Fix.PRICE, buy ? 6_499_900 - (id & 15) : 6_500_100 + (id & 15), 2)
+                        .putChar(Fix.TIME_IN_FORCE, Fix.TIF_GTC);
+                write();
+                sent++;
+            }
+        }
+
+        /**
+         * Read and discard ExecutionReports until the gateway closes the connection
+         */
+        void drain() {
+            ByteBuffer in = ByteBuffer.allocateDirect(1 << 16);
+            try {
+                while (channel.read(in) >= 0)
+                    in.clear();
+            } catch (IOException e) {
+                // closed at the end of the run
+            }
+        }
+
+        private void write() throws IOException {
+            out.clear();
+            writer.finish(out);
+            out.flip();
+            while (out.hasRemaining())
+                channel.write(out);
+        }
+    }
+
+    private static double micros(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
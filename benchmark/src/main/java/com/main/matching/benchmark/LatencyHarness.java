@@ -0,0 +1,184 @@
+package com.main.matching.benchmark;
+
+import core.MatchingEngine.MatchingEngine;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderBook.OrderBook;
+import core.OrderBook.SkipListOrderBook;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.MappedRingBuffer;
+import core.RingBuffer.RingBuffer;
+import core.RingBuffer.SPSCRingBuffer;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * End-to-end latency through the real threads: a producer at a fixed rate -> SPSCRingBuffer -> MatchingEngine thread,
+ * so ring handoff, the engine's idle strategy and the order pool are all in the measurement (matchOne() in JMH sees none).
+ * <p>
+ * Every order is stamped with its intended send time from the schedule, not the time it was actually offered.
+ * When the ring is full or the pool is empty the producer falls behind and the wait is part of the latency
+ * of every order queued behind it: coordinated omission is corrected by construction.
+ * <p>
+ *  java -cp benchmark.jar com.main.matching.benchmark.LatencyHarness [rates] [seconds] [book] [ring]
+ *  rates: comma separated orders/s, book: ARRAY_BUCKET (default) or SKIP_LIST,
+ *  ring: HEAP (default) or IPC - a MappedRingBuffer in /dev/shm with a pool per side, as between two processes
+ * <p>
+ * Prints percentiles up to p99.99 per offered load, the knee is where p99 leaves the floor.
+ * Full distributions go to latency-[book]-[rate].hgrm for plotting.
+ * Both threads spin, give them a free core each or the numbers measure the scheduler.
+ */
+public class LatencyHarness {
+
+    private static final double MID = 65_000.0;
+    private static final double TICK = 0.01;
+    private static final long MID_TICK = Math.round(MID / TICK);
+    private static final int SPREAD_TICKS = 30;
+    private static final int COMMANDS = 1 << 20;
+    private static final int RING_SIZE = 1 << 16;
+    private static final int POOL_SIZE = 1 << 20;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+
+    private static final OrderType[] TYPES = new OrderType[COMMANDS];
+    private static final long[] PRICES = new long[COMMANDS];
+    private static final long[] QUANTITIES = new long[COMMANDS];
+
+    private static final class Stalls {
+        long ringFull;
+        long poolEmpty;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long[] rates = Arrays.stream((args.length > 0 ? args[0] : "100000,500000,1000000,2000000,4000000").split(","))
+                .mapToLong(Long::parseLong)
+                .toArray();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String book = args.length > 2 ? args[2] : "ARRAY_BUCKET";
+        boolean ipc = args.length > 3 && args[3].equals("IPC");
+        String label = ipc ? book + "+IPC" : book;
+
+        generate();
+
+        System.out.printf("%-16s %12s %12s %9s %9s %9s %9s %9s %9s %12s %12s%n", "book", "offered/s", "achieved/s",
+                "p50 us", "p90 us", "p99 us", "p99.9 us", "p99.99", "max us", "ring full", "pool empty");
+        for (long rate : rates) {
+            Stalls stalls = new Stalls();
+            long start = System.nanoTime();
+            Histogram histogram = run(book, ipc, rate, seconds * 1_000_000_000L, stalls);
+            double elapsed = (System.nanoTime() - start - WARMUP_NANOS) / 1e9;
+
+            System.out.printf("%-16s %,12d %,12.0f %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f %,12d %,12d%n",
+                    label, rate, histogram.getTotalCount() / elapsed,
+                    micros(histogram, 50), micros(histogram, 90), micros(histogram, 99),
+                    micros(histogram, 99.9), micros(histogram, 99.99), histogram.getMaxValue() / 1000.0,
+                    stalls.ringFull, stalls.poolEmpty);
+
+            try (PrintStream out = new PrintStream(new FileOutputStream("latency-" + label + "-" + rate + ".hgrm"))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static Histogram run(String book, boolean ipc, long rate, long durationNanos, Stalls stalls)
+            throws Exception {
+        SPSCOrderPool pool = new SPSCOrderPool(POOL_SIZE);
+        SPSCOrderPool producerPool = ipc ? new SPSCOrderPool(POOL_SIZE) : pool;
+        Path file = ipc ? Files.createTempFile(Path.of("/dev/shm"), "latency-", ".ring") : null;
+        RingBuffer<Order> ringBuffer = ipc ? new MappedRingBuffer(file, RING_SIZE, pool) : new SPSCRingBuffer<>(RING_SIZE);
+        RingBuffer<Order> producerRing = ipc ? new MappedRingBuffer(file, RING_SIZE, producerPool) : ringBuffer;
+        SingleWriterRecorder recorder = new SingleWriterRecorder(3);
+
+        OrderBook orderBook = switch (book) {
+            case "ARRAY_BUCKET" -> new ArrayBucketOrderBook(MID - 500, MID + 500, TICK, null, pool::release);
+            case "SKIP_LIST" -> new SkipListOrderBook(TICK, null, pool::release);
+            default -> throw new IllegalArgumentException("book must release filled orders to the pool: " + book);
+        };
+        MatchingEngine engine = new MatchingEngine(new LatencyRecordingOrderBook(orderBook, recorder), ringBuffer, pool);
+        Thread engineThread = new Thread(engine, "matching-engine-thread");
+        engineThread.start();
+
+        long id = produce(producerPool, producerRing, rate, WARMUP_NANOS, 0, new Stalls());
+        recorder.getIntervalHistogram(); // drop warmup
+        produce(producerPool, producerRing, rate, durationNanos, id, stalls);
+
+        while (engine.getProcessedCount() < id)
+            Thread.onSpinWait();
+
+        engine.stop();
+        engineThread.join();
+        if (ipc) {
+            ((MappedRingBuffer) ringBuffer).close();
+            ((MappedRingBuffer) producerRing).close();
+            Files.delete(file);
+        }
+
+        return recorder.getIntervalHistogram();
+    }
+
+    /**
+     * @return the last order id sent
+     */
+    private static long produce(SPSCOrderPool pool, RingBuffer<Order> ringBuffer, long rate, long durationNanos,
+                                long id, Stalls stalls) {
+        long start = System.nanoTime();
+        long sent = 0;
+        while (true) {
+            long intended = start + sent * 1_000_000_000L / rate;
+            if (intended - start >= durationNanos)
+                return id;
+
+            while (System.nanoTime() < intended)
+                Thread.onSpinWait();
+
+            Order order;
+            while ((order = pool.borrow()) == null) {
+                stalls.poolEmpty++;
+                Thread.onSpinWait();
+            }
+
+            int i = (int) (id & (COMMANDS - 1));
+            order.id = ++id;
+            order.setType(TYPES[i]);
+            order.price = PRICES[i];
+            order.quantity = QUANTITIES[i];
+            order.timestamp = intended;
+
+            while (!ringBuffer.offer(order)) {
+                stalls.ringFull++;
+                Thread.onSpinWait();
+            }
+
+            sent++;
+        }
+    }
+
+    /**
+     * Half limits within SPREAD_TICKS of the mid, half markets of the same size distribution, so the book stays shallow
+     */
+    private static void generate() {
+        SplittableRandom rnd = new SplittableRandom(42);
+        for (int i = 0; i < COMMANDS; i++) {
+            boolean buy = rnd.nextBoolean();
+            QUANTITIES[i] = rnd.nextInt(1, 100);
+            if (rnd.nextBoolean()) {
+                int ticks = 1 + rnd.nextInt(SPREAD_TICKS);
+                TYPES[i] = buy ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT;
+                PRICES[i] = buy ? MID_TICK - ticks : MID_TICK + ticks;
+            } else {
+                TYPES[i] = buy ? OrderType.BUY_MARKET : OrderType.SELL_MARKET;
+            }
+        }
+    }
+
+    private static double micros(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
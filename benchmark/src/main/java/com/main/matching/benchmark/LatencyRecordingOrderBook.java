@@ -0,0 +1,74 @@
+package com.main.matching.benchmark;
+
+import core.Order.Order;
+import core.OrderBook.OrderBook;
+import org.HdrHistogram.SingleWriterRecorder;
+
+/**
+ * Records order.timestamp -> match complete for every order the engine hands to the book.
+ * Runs on the matching thread, the recorder is its single writer.
+ */
+final class LatencyRecordingOrderBook implements OrderBook {
+
+    private final OrderBook delegate;
+    private final SingleWriterRecorder recorder;
+
+    LatencyRecordingOrderBook(OrderBook delegate, SingleWriterRecorder recorder) {
+        this.delegate = delegate;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void placeBuyLimit(Order order) {
+        delegate.placeBuyLimit(order);
+        record(order);
+    }
+
+    @Override
+    public void placeSellLimit(Order order) {
+        delegate.placeSellLimit(order);
+        record(order);
+    }
+
+    @Override
+    public void placeBuyMarket(Order order) {
+        delegate.placeBuyMarket(order);
+        record(order);
+    }
+
+    @Override
+    public void placeSellMarket(Order order) {
+        delegate.placeSellMarket(order);
+        record(order);
+    }
+
+    @Override
+    public boolean cancel(Order order) {
+        return delegate.cancel(order);
+    }
+
+    @Override
+    public int cancelAccount(long accountId, boolean bids, boolean asks, CancelListener listener) {
+        return delegate.cancelAccount(accountId, bids, asks, listener);
+    }
+
+    @Override
+    public double getBestBidPrice() {
+        return delegate.getBestBidPrice();
+    }
+
+    @Override
+    public double getBestAskPrice() {
+        return delegate.getBestAskPrice();
+    }
+
+    @Override
+    public long getTotalAtPrice(boolean buy, double price) {
+        return delegate.getTotalAtPrice(buy, price);
+    }
+
+    private void record(Order order) {
+        if (order.timestamp != 0)
+            recorder.recordValue(System.nanoTime() - order.timestamp);
+    }
+}
@@ -0,0 +1,129 @@
+package com.main.matching.benchmark;
+
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.MappedOrderBook;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Restart-to-trading time of a MappedOrderBook holding millions of resting orders.
+ * <p>
+ * Per size the book is filled on the EngineProcess ladder, then "crashes" in the middle of a market order sweeping
+ * some SWEEP makers and is unmapped without finishing it. The restart maps the file again (rolling the sweep back and
+ * checking the header), replays the journal tail the book never applied - the cut-short command and TAIL more,
+ * held in memory here - and trades once. Each phase is timed, the sum is the time to trading.
+ * <p>
+ *  java -cp benchmark.jar com.main.matching.benchmark.MappedBookRestartHarness [sizes] [dir]
+ *  sizes: comma separated resting orders, default 1M, 10M and 50M. dir: where the books go, default /dev/shm
+ * <p>
+ * A book takes 50 to 56 bytes of file per slot. The pages are still in the page cache when the book is reopened,
+ * as after a process crash; after a reboot the first touches of each page read it from the device.
+ */
+public class MappedBookRestartHarness {
+
+    private static final double MIN_PRICE = 65000.0;
+    private static final double MAX_PRICE = 75500.0;
+    private static final double TICK = 0.01;
+    private static final long MID_TICK = Math.round(70000.0 / TICK);
+    private static final int SPREAD_TICKS = 100_000;
+    private static final int SWEEP = 10_000;
+    private static final int TAIL = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        String sizes = args.length > 0 ? args[0] : "1000000,10000000,50000000";
+        Path dir = Path.of(args.length > 1 ? args[1] : "/dev/shm");
+
+        System.out.printf("%12s %10s %14s %12s %12s %12s %14s%n", "resting", "fill ms", "open+check ms",
+                "rolled back", "replay ms", "trade us", "to trading ms");
+        for (String size : sizes.split(","))
+            run(Integer.parseInt(size.trim()), dir.resolve("restart-book-" + size.trim()));
+    }
+
+    private static void run(int resting, Path file) throws Exception {
+        Files.deleteIfExists(file);
+        int slots = resting + TAIL;
+        SplittableRandom rnd = new SplittableRandom(48);
+        int[] fills = {Integer.MAX_VALUE};
+
+        long start = System.nanoTime();
+        MappedOrderBook book = new MappedOrderBook(file, MIN_PRICE, MAX_PRICE, TICK, slots, _ -> {
+            if (--fills[0] == 0)
+                throw new IllegalStateException("crash");
+        });
+        long sequence = 0;
+        for (int i = 1; i <= resting; i++) {
+            book.setSequence(sequence++);
+            int ticks = 1 + rnd.nextInt(SPREAD_TICKS);
+            if ((i & 1) == 0)
+                book.placeBuyLimit(new Order(i, OrderType.BUY_LIMIT, MID_TICK - ticks, rnd.nextInt(1, 100)));
+            else
+                book.placeSellLimit(new Order(i, OrderType.SELL_LIMIT, MID_TICK + ticks, rnd.nextInt(1, 100)));
+        }
+        long filled = System.nanoTime() - start;
+
+        // the journal tail: the sweep the process dies in, then commands it journaled but never applied
+        Order[] tail = new Order[TAIL + 1];
+        tail[0] = new Order(resting + 1L, OrderType.SELL_MARKET, 0, SWEEP * 50L);
+        for (int i = 1; i <= TAIL; i++)
+            tail[i] = command(rnd, resting + 1L + i);
+
+        fills[0] = SWEEP / 2;
+        book.setSequence(sequence);
+        try {
+            book.placeSellMarket(copy(tail[0]));
+        } catch (IllegalStateException _) {
+            // the process dies half way through the sweep
+        }
+        book.close();
+
+        long restart = System.nanoTime();
+        try (MappedOrderBook recovered = new MappedOrderBook(file, MIN_PRICE, MAX_PRICE, TICK, slots, null)) {
+            long opened = System.nanoTime();
+            long next = recovered.appliedSequence() + 1;
+            for (Order command : tail) {
+                recovered.setSequence(next++);
+                apply(recovered, command);
+            }
+            long replayed = System.nanoTime();
+            recovered.setSequence(next);
+            recovered.placeBuyMarket(new Order(resting + TAIL + 2L, OrderType.BUY_MARKET, 0, 1));
+            long traded = System.nanoTime();
+
+            System.out.printf("%,12d %,10d %,14d %,12d %,12d %,12d %,14d%n", resting, filled / 1_000_000,
+                    (opened - restart) / 1_000_000, recovered.rolledBack(), (replayed - opened) / 1_000_000,
+                    (traded - replayed) / 1_000, (traded - restart) / 1_000_000);
+        }
+        Files.deleteIfExists(file);
+    }
+
+    private static Order command(SplittableRandom rnd, long id) {
+        int roll = rnd.nextInt(10);
+        int ticks = 1 + rnd.nextInt(SPREAD_TICKS);
+        if (roll < 4)
+            return new Order(id, OrderType.BUY_LIMIT, MID_TICK - ticks, rnd.nextInt(1, 100));
+        if (roll < 8)
+            return new Order(id, OrderType.SELL_LIMIT, MID_TICK + ticks, rnd.nextInt(1, 100));
+        if (roll == 8)
+            return new Order(1 + rnd.nextLong(id), OrderType.CANCEL, 0, 0);
+
+        return new Order(id, rnd.nextBoolean() ? OrderType.BUY_MARKET : OrderType.SELL_MARKET, 0, rnd.nextInt(1, 100));
+    }
+
+    private static Order copy(Order order) {
+        return new Order(order.id, order.type(), order.price, order.quantity);
+    }
+
+    private static void apply(MappedOrderBook book, Order order) {
+        switch (order.type()) {
+            case BUY_LIMIT -> book.placeBuyLimit(order);
+            case SELL_LIMIT -> book.placeSellLimit(order);
+            case BUY_MARKET -> book.placeBuyMarket(order);
+            case SELL_MARKET -> book.placeSellMarket(order);
+            case CANCEL -> book.cancel(order);
+            default -> throw new IllegalArgumentException(order.type().toString());
+        }
+    }
+}
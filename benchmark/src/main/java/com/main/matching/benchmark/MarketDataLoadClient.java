@@ -0,0 +1,160 @@
+package com.main.matching.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Opens many market data websocket subscribers against a running application while posting order flow,
+ * then reports delivered messages per second. A share of the subscribers reads slowly to exercise conflation:
+ * they should see fewer messages, not get disconnected or make the server buffer without limit.
+ * <p>
+ *  java -cp benchmark.jar com.main.matching.benchmark.MarketDataLoadClient [host:port] [subscribers] [seconds] [slowPercent]
+ */
+public class MarketDataLoadClient {
+
+    public static void main(String[] args) throws Exception {
+        String hostPort = args.length > 0 ? args[0] : "localhost:8080";
+        int subscribers = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int slowPercent = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        URI wsUri = URI.create("ws://" + hostPort + "/ws/market-data");
+        AtomicInteger connected = new AtomicInteger();
+        AtomicInteger closedByServer = new AtomicInteger();
+        List<Subscriber> all = new ArrayList<>(subscribers);
+        List<CompletableFuture<WebSocket>> connecting = new ArrayList<>(subscribers);
+
+        for (int i = 0; i < subscribers; i++) {
+            Subscriber subscriber = new Subscriber(i * 100 < subscribers * slowPercent ? 1 : 0, connected, closedByServer);
+            all.add(subscriber);
+            connecting.add(client.newWebSocketBuilder().buildAsync(wsUri, subscriber));
+        }
+
+        for (CompletableFuture<WebSocket> future : connecting) {
+            try {
+                future.join();
+            } catch (Exception e) {
+                // counted as not connected
+            }
+        }
+        System.out.printf("connected %,d of %,d subscribers%n", connected.get(), subscribers);
+
+        long before = total(all);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService flow = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 4; i++)
+                flow.submit(() -> postOrderFlow(client, URI.create("http://" + hostPort + "/api/v1/orders/batch"), deadline));
+        }
+        long delivered = total(all) - before;
+
+        long fastMin = Long.MAX_VALUE, fastMax = 0, slowMax = 0;
+        for (Subscriber subscriber : all) {
+            long received = subscriber.received.sum();
+            if (subscriber.delayMillis == 0) {
+                fastMin = Math.min(fastMin, received);
+                fastMax = Math.max(fastMax, received);
+            } else {
+                slowMax = Math.max(slowMax, received);
+            }
+        }
+
+        System.out.printf("delivered %,d messages, %,.0f msg/s%n", delivered, delivered / (double) seconds);
+        System.out.printf("fast subscriber received min %,d max %,d, slow max %,d%n", fastMin, fastMax, slowMax);
+        System.out.printf("closed by server: %,d%n", closedByServer.get());
+        System.exit(0);
+    }
+
+    private static long total(List<Subscriber> subscribers) {
+        long total = 0;
+        for (Subscriber subscriber : subscribers)
+            total += subscriber.received.sum();
+
+        return total;
+    }
+
+    private static Void postOrderFlow(HttpClient client, URI uri, long deadline) {
+        while (System.nanoTime() < deadline) {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < 100; i++) {
+                if (i > 0)
+                    sb.append(',');
+
+                boolean limit = rnd.nextInt(4) != 0;
+                boolean buy = rnd.nextBoolean();
+                sb.append("{\"action\":\"NEW\",\"type\":\"").append(buy ? "BUY" : "SELL").append(limit ? "_LIMIT" : "_MARKET")
+                        .append("\",\"price\":").append(buy ? 65000 + rnd.nextInt(50) : 65050 + rnd.nextInt(50))
+                        .append(",\"quantity\":").append(1 + rnd.nextInt(20)).append('}');
+            }
+            sb.append(']');
+
+            try {
+                client.send(HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(sb.toString()))
+                        .build(), HttpResponse.BodyHandlers.discarding());
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    private static final class Subscriber implements WebSocket.Listener {
+        final long delayMillis;
+        final LongAdder received = new LongAdder();
+        private final AtomicInteger connected;
+        private final AtomicInteger closedByServer;
+
+        Subscriber(long delayMillis, AtomicInteger connected, AtomicInteger closedByServer) {
+            this.delayMillis = delayMillis;
+            this.connected = connected;
+            this.closedByServer = closedByServer;
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            connected.incrementAndGet();
+            webSocket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            if (last)
+                received.increment();
+
+            if (delayMillis > 0)
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(delayMillis));
+
+            webSocket.request(1);
+
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            closedByServer.incrementAndGet();
+
+            return null;
+        }
+    }
+}
@@ -18,27 +18,28 @@ import java.util.concurrent.TimeUnit;
 @OutputTimeUnit(TimeUnit.SECONDS)
 @Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
 @Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
-@Fork(0)
+@Fork(1)
 public class MatchingBenchmark {
 
     private static final int RING_SIZE = 131072;
     private static final int PRELOAD_ORDERS = 2_000_000;
 
     private MatchingEngine engine;
+    private FakeRingBufferForBenchmark<Order> ringBuffer;
     Queue<Order> preloadQueue = new ConcurrentLinkedQueue<>();
 
     @Setup(Level.Trial)
     public void setup() {
         SPSCOrderPool orderPool = new SPSCOrderPool(PRELOAD_ORDERS);
 
-        FakeRingBufferForBenchmark<Order> ringBuffer = new FakeRingBufferForBenchmark<>(preloadQueue, () -> {
+        ringBuffer = new FakeRingBufferForBenchmark<>(preloadQueue, () -> {
             Order order = engine.orderPool.borrow();
             // does not affect performance, but requires a large pool
-            /*order.type = ThreadLocalRandom.current().nextBoolean() ?
+            /*order.setType(ThreadLocalRandom.current().nextBoolean() ?
                     (ThreadLocalRandom.current().nextBoolean() ? OrderType.BUY_MARKET : OrderType.SELL_MARKET):
-                    (ThreadLocalRandom.current().nextBoolean() ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT);*/
-            order.type = ThreadLocalRandom.current().nextBoolean() ? OrderType.BUY_MARKET : OrderType.SELL_MARKET;
-            order.price = 65000 + ThreadLocalRandom.current().nextInt(0, 30);
+                    (ThreadLocalRandom.current().nextBoolean() ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT));*/
+            order.setType(ThreadLocalRandom.current().nextBoolean() ? OrderType.BUY_MARKET : OrderType.SELL_MARKET);
+            order.price = 6_500_000 + ThreadLocalRandom.current().nextInt(0, 30); // 65000.00 + 0..29 ticks
             order.quantity = ThreadLocalRandom.current().nextInt(10, 50);
 
             return order;
@@ -60,8 +61,8 @@ public class MatchingBenchmark {
         int inserted = 0;
         while (inserted < RING_SIZE - 1) {
             Order order = engine.orderPool.borrow();
-            order.type = ThreadLocalRandom.current().nextBoolean() ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT;
-            order.price = 65000 + ThreadLocalRandom.current().nextInt(0, 30);
+            order.setType(ThreadLocalRandom.current().nextBoolean() ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT);
+            order.price = 6_500_000 + ThreadLocalRandom.current().nextInt(0, 30); // 65000.00 + 0..29 ticks
             order.quantity = ThreadLocalRandom.current().nextInt(30_000_000, 50_000_000);
 
             preloadQueue.offer(order);
@@ -69,7 +70,7 @@ public class MatchingBenchmark {
             inserted++;
         }
 
-        engine.ringBuffer.setPreloadQueue(preloadQueue);
+        ringBuffer.setPreloadQueue(preloadQueue);
 
         System.out.println("Inserted: " + inserted);
     }
@@ -0,0 +1,169 @@
+package com.main.matching.benchmark;
+
+import core.Order.Order;
+import core.Order.OrderType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every book behind BookAdapter on the same pre-generated command stream.
+ * <p>
+ * - mix: limit:market:cancel percentages, market sizes are scaled so the volume added by limits is taken out again
+ * - depth: price levels preloaded on each side
+ * - spread: new limits land within this many ticks behind the touch
+ * <p>
+ * Orders come from a free list fed by the book's poolReleaser, so gc.alloc.rate shows what the book itself allocates.
+ * The book is rebuilt before each iteration. Run through BenchmarkRunner for the GC profiler and JSON output,
+ * narrow the matrix with -p, e.g. -p book=ARRAY_BUCKET,SKIP_LIST
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-XX:+AlwaysPreTouch"})
+public class OrderBookBenchmark {
+
+    private static final double MID = 100_000.0;
+    private static final double TICK = 1.0;
+    private static final long MID_TICK = Math.round(MID / TICK);
+    private static final int RANGE_TICKS = 10_000;
+    private static final int COMMANDS = 1 << 20;
+    private static final int LIVE = 1 << 12;
+
+    private static final byte BUY_LIMIT = 0, SELL_LIMIT = 1, BUY_MARKET = 2, SELL_MARKET = 3, CANCEL = 4;
+
+    @Param({"ARRAY_BUCKET", "SLAB", "TREE_MAP", "SKIP_LIST", "HASH_MAP_TREE_SET_TWO_METHODS", "HASH_MAP_TREE_SET_ONE_METHOD"})
+    public String book;
+
+    @Param({"60:30:10", "30:60:10", "45:10:45"})
+    public String mix;
+
+    @Param({"10", "1000"})
+    public int depth;
+
+    @Param({"5", "500"})
+    public int spread;
+
+    private final byte[] kinds = new byte[COMMANDS];
+    private final long[] prices = new long[COMMANDS];
+    private final long[] quantities = new long[COMMANDS];
+    private final int[] cancelSlots = new int[COMMANDS];
+    private int cursor;
+
+    // recently placed limits, the id guards against a slot whose order was filled and reused
+    private final Order[] live = new Order[LIVE];
+    private final long[] liveIds = new long[LIVE];
+    private int liveCursor;
+
+    private final Order cancelCommand = new Order();
+    private final ArrayDeque<Order> free = new ArrayDeque<>();
+    private BookAdapter adapter;
+    private long id;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        String[] parts = mix.split(":");
+        int limitPct = Integer.parseInt(parts[0]);
+        int marketPct = Integer.parseInt(parts[1]);
+        if (limitPct + marketPct + Integer.parseInt(parts[2]) != 100)
+            throw new IllegalArgumentException("mix must add up to 100: " + mix);
+
+        SplittableRandom rnd = new SplittableRandom(42);
+        for (int i = 0; i < COMMANDS; i++) {
+            int roll = rnd.nextInt(100);
+            boolean buy = rnd.nextBoolean();
+            long quantity = rnd.nextInt(1, 100);
+            if (roll < limitPct) {
+                int ticks = 1 + rnd.nextInt(spread);
+                kinds[i] = buy ? BUY_LIMIT : SELL_LIMIT;
+                prices[i] = buy ? MID_TICK - ticks : MID_TICK + ticks;
+                quantities[i] = quantity;
+            } else if (roll < limitPct + marketPct) {
+                kinds[i] = buy ? BUY_MARKET : SELL_MARKET;
+                quantities[i] = Math.max(1, quantity * limitPct / marketPct);
+            } else {
+                kinds[i] = CANCEL;
+                cancelSlots[i] = rnd.nextInt(LIVE);
+            }
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void rebuild() {
+        free.clear();
+        Arrays.fill(live, null);
+        Arrays.fill(liveIds, 0);
+        adapter = BookAdapter.create(book, MID - RANGE_TICKS * TICK, MID + RANGE_TICKS * TICK, TICK, order -> {
+            order.reset();
+            free.push(order);
+        });
+
+        for (int level = 1; level <= depth; level++) {
+            adapter.limit(true, order(OrderType.BUY_LIMIT, MID_TICK - level, 1_000));
+            adapter.limit(false, order(OrderType.SELL_LIMIT, MID_TICK + level, 1_000));
+        }
+    }
+
+    @Benchmark
+    public void mixed() {
+        int i = cursor++ & (COMMANDS - 1);
+        switch (kinds[i]) {
+            case BUY_LIMIT -> limit(true, OrderType.BUY_LIMIT, i);
+            case SELL_LIMIT -> limit(false, OrderType.SELL_LIMIT, i);
+            case BUY_MARKET -> market(true, OrderType.BUY_MARKET, i);
+            case SELL_MARKET -> market(false, OrderType.SELL_MARKET, i);
+            default -> {
+                int slot = cancelSlots[i];
+                Order order = live[slot];
+                if (order != null && order.id == liveIds[slot] && order.quantity > 0) {
+                    adapter.cancel(order);
+                } else if (order == null && !adapter.keepsOrders()) {
+                    cancelCommand.id = liveIds[slot]; // copying books cancel by id
+                    adapter.cancel(cancelCommand);
+                }
+            }
+        }
+    }
+
+    private void limit(boolean buy, OrderType type, int i) {
+        Order order = order(type, prices[i], quantities[i]);
+        adapter.limit(buy, order);
+        int slot = liveCursor++ & (LIVE - 1);
+        liveIds[slot] = order.id;
+        if (adapter.keepsOrders()) {
+            live[slot] = order;
+        } else {
+            live[slot] = null;
+            release(order);
+        }
+    }
+
+    private void market(boolean buy, OrderType type, int i) {
+        Order order = order(type, 0, quantities[i]);
+        adapter.market(buy, order);
+        release(order);
+    }
+
+    private Order order(OrderType type, long price, long quantity) {
+        Order order = free.poll();
+        if (order == null)
+            order = new Order();
+
+        order.id = ++id;
+        order.setType(type);
+        order.price = price;
+        order.quantity = quantity;
+
+        return order;
+    }
+
+    private void release(Order order) {
+        order.reset();
+        free.push(order);
+    }
+}
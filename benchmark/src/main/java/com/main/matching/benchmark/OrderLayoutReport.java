@@ -0,0 +1,39 @@
+package com.main.matching.benchmark;
+
+import core.Order.Order;
+import core.OrderBook.OrderBook;
+import core.OrderPool.SPSCOrderPool;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+/**
+ * Field layout of Order and retained bytes per order, pooled and resting in each book.
+ * <p>
+ * java -Djol.magicFieldOffset=true -cp benchmark/target/benchmark.jar com.main.matching.benchmark.OrderLayoutReport [orders]
+ * <p>
+ * Run it after changing Order fields, the instance should stay at 80 bytes with compressed oops.
+ */
+public final class OrderLayoutReport {
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println(VM.current().details());
+        System.out.println(ClassLayout.parseClass(Order.class).toPrintable());
+
+        SPSCOrderPool pool = new SPSCOrderPool(orders);
+        System.out.printf("%-14s %8.1f bytes per order (%,d orders)%n", "POOL",
+                (double) GraphLayout.parseInstance(pool).totalSize() / orders, orders);
+
+        for (String book : RestingMemoryBenchmark.BOOKS) {
+            OrderBook orderBook = RestingMemoryBenchmark.create(book, orders);
+            long empty = GraphLayout.parseInstance(orderBook).totalSize();
+            RestingMemoryBenchmark.fill(orderBook, orders);
+            long full = GraphLayout.parseInstance(orderBook).totalSize();
+
+            System.out.printf("%-14s %8.1f bytes per resting order, %,d bytes empty%n", book,
+                    (double) full / orders, empty);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.main.matching.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for the REST ingress, compares /postLimit (one order per request) with /batch.
+ * <p>
+ * Start the application first, with the per-account throttle out of the way (every order is on account 0):
+ *  --throttle.orders-per-second=1000000000 --throttle.burst=1000000000, then:
+ *  java -cp benchmark.jar com.main.matching.benchmark.RestIngressLoadGenerator [baseUrl] [clients] [seconds] [batchSize]
+ * <p>
+ * Runs the single-order endpoint and then the batch endpoint with the same number of clients
+ * and prints accepted orders per second for both.
+ */
+public class RestIngressLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/api/v1/orders";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        double single = run(client, URI.create(baseUrl + "/postLimit"), clients, seconds, 1);
+        double batch = run(client, URI.create(baseUrl + "/batch"), clients, seconds, batchSize);
+
+        System.out.printf("single : %,12.0f orders/s%n", single);
+        System.out.printf("batch  : %,12.0f orders/s (batch of %d)%n", batch, batchSize);
+        System.out.printf("gain   : %.1fx%n", batch / single);
+    }
+
+    private static double run(HttpClient client, URI uri, int clients, int seconds, int batchSize) throws InterruptedException {
+        LongAdder accepted = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        String body = batchSize == 1 ? limitOrder() : batch(batchSize);
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(body))
+                                .build();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 202)
+                                accepted.add(batchSize);
+                            else
+                                rejected.add(batchSize);
+                        } catch (Exception e) {
+                            rejected.add(batchSize);
+                        }
+                    }
+
+                    return null;
+                });
+            }
+        }
+
+        System.out.printf("%s: accepted %,d, rejected %,d%n", uri.getPath(), accepted.sum(), rejected.sum());
+
+        return accepted.sum() / (double) seconds;
+    }
+
+    private static String limitOrder() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+
+        return "{\"price\":" + (65000 + rnd.nextInt(0, 100)) + ",\"quantity\":" + rnd.nextInt(1, 50)
+                + ",\"type\":\"" + (rnd.nextBoolean() ? "BUY" : "SELL") + "\"}";
+    }
+
+    private static String batch(int size) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        StringBuilder sb = new StringBuilder(size * 80).append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                sb.append(',');
+
+            sb.append("{\"action\":\"NEW\",\"price\":").append(65000 + rnd.nextInt(0, 100))
+                    .append(",\"quantity\":").append(rnd.nextInt(1, 50))
+                    .append(",\"type\":\"").append(rnd.nextBoolean() ? "BUY" : "SELL").append("\"}");
+        }
+
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,87 @@
+package com.main.matching.benchmark;
+
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retained memory per resting order, measured with JOL over the whole book graph after a fill.
+ * <p>
+ * Reported as JMH secondary results (bytesPerRestingOrder, emptyBookBytes), the timed part is only a best price read.
+ * The per-order figure includes what the book preallocates: the price ladder, and for SLAB the slots (sized to resting).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djol.magicFieldOffset=true"})
+public class RestingMemoryBenchmark {
+
+    static final String[] BOOKS = {"ARRAY_BUCKET", "SLAB", "TREE_MAP", "SKIP_LIST"};
+
+    private static final double MID = 100_000.0;
+    private static final double TICK = 1.0;
+    private static final int RANGE_TICKS = 10_000;
+
+    @Param({"ARRAY_BUCKET", "SLAB", "TREE_MAP", "SKIP_LIST"})
+    public String book;
+
+    @Param({"100000", "1000000"})
+    public int resting;
+
+    private OrderBook orderBook;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerRestingOrder;
+        public long emptyBookBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void fill(Footprint footprint) {
+        orderBook = create(book, resting);
+        footprint.emptyBookBytes = GraphLayout.parseInstance(orderBook).totalSize();
+        fill(orderBook, resting);
+        footprint.bytesPerRestingOrder = GraphLayout.parseInstance(orderBook).totalSize() / resting;
+    }
+
+    @Benchmark
+    public double bestBid(Footprint footprint) {
+        return orderBook.getBestBidPrice();
+    }
+
+    static OrderBook create(String book, int resting) {
+        double minPrice = MID - RANGE_TICKS * TICK;
+        double maxPrice = MID + RANGE_TICKS * TICK;
+
+        return switch (book) {
+            case "ARRAY_BUCKET" -> new ArrayBucketOrderBook(minPrice, maxPrice, TICK, null, null);
+            case "SLAB" -> new SlabOrderBook(minPrice, maxPrice, TICK, resting, null);
+            case "TREE_MAP" -> new TreeMapOrderBook(TICK);
+            case "SKIP_LIST" -> new SkipListOrderBook(TICK, null, null);
+            default -> throw new IllegalArgumentException("unknown book: " + book);
+        };
+    }
+
+    /**
+     * Bids below the mid, asks above, spread over the whole range so nothing crosses
+     */
+    static void fill(OrderBook orderBook, int resting) {
+        long midTick = Math.round(MID / TICK);
+        SplittableRandom rnd = new SplittableRandom(42);
+        for (int i = 1; i <= resting; i++) {
+            int ticks = 1 + rnd.nextInt(RANGE_TICKS);
+            if ((i & 1) == 0)
+                orderBook.placeBuyLimit(new Order(i, OrderType.BUY_LIMIT, midTick - ticks, rnd.nextInt(1, 100)));
+            else
+                orderBook.placeSellLimit(new Order(i, OrderType.SELL_LIMIT, midTick + ticks, rnd.nextInt(1, 100)));
+        }
+    }
+}
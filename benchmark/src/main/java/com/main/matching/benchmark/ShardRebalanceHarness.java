@@ -0,0 +1,118 @@
+package com.main.matching.benchmark;
+
+import core.MatchingEngine.ShardGroup;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderBook.OrderBook;
+import core.OrderPool.SPSCOrderPool;
+
+import java.util.SplittableRandom;
+
+/**
+ * Throughput of a ShardGroup under a skewed symbol load, before and after live rebalancing.
+ * <p>
+ * One producer thread sends orders to symbols drawn from a Zipf distribution as fast as the rings take them,
+ * a full ring parks its order and the producer moves on to other symbols. Symbols start round robin, so the hot
+ * symbol shares its shard with others while some shards idle. The first half of the run is static, in the second
+ * rebalance() runs every SAMPLE_MILLIS on the per-symbol load the shards counted.
+ * <p>
+ *  java -cp benchmark.jar com.main.matching.benchmark.ShardRebalanceHarness [shards] [symbols] [seconds] [skew]
+ *  shards: default cores - 1 (the producer needs one), symbols: 16, seconds: 20, skew: Zipf exponent, 1.0
+ * <p>
+ * Prints orders/s per second and every move. Throughput recovers as the hot symbol's neighbours leave its shard,
+ * up to what one core does for the hot symbol alone. Give every thread a core or it measures the scheduler.
+ */
+public class ShardRebalanceHarness {
+
+    private static final int SAMPLE_MILLIS = 250;
+    private static final int RING_SIZE = 1 << 14;
+    private static final int POOL_SIZE = 1 << 16;
+
+    public static void main(String[] args) throws Exception {
+        int shards = args.length > 0 ? Integer.parseInt(args[0])
+                : Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        int symbols = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        double skew = args.length > 3 ? Double.parseDouble(args[3]) : 1.0;
+
+        OrderBook[] books = new OrderBook[symbols];
+        SPSCOrderPool[] pools = new SPSCOrderPool[symbols];
+        for (int i = 0; i < symbols; i++) {
+            pools[i] = new SPSCOrderPool(POOL_SIZE);
+            books[i] = new ArrayBucketOrderBook(90.0, 110.0, 1.0, null, pools[i]::release);
+        }
+        ShardGroup group = new ShardGroup(books, pools, shards, RING_SIZE);
+        group.start();
+
+        double[] cumulative = zipf(symbols, skew);
+        System.out.printf("%d shards, %d symbols, Zipf %.2f: the hottest symbol takes %.0f%% of the flow%n",
+                shards, symbols, skew, cumulative[0] * 100);
+
+        Thread producer = Thread.ofPlatform().name("producer").start(() -> produce(group, cumulative));
+
+        long last = 0;
+        long samples = seconds * 1000L / SAMPLE_MILLIS;
+        for (long sample = 1; sample <= samples; sample++) {
+            Thread.sleep(SAMPLE_MILLIS);
+            boolean balancing = sample > samples / 2;
+            if (balancing) {
+                int moved = group.rebalance();
+                if (moved != ShardGroup.NONE)
+                    System.out.printf("  symbol %d moves to the idlest shard%n", moved);
+            }
+
+            if (sample % (1000 / SAMPLE_MILLIS) == 0) {
+                long processed = 0;
+                for (int i = 0; i < symbols; i++)
+                    processed += group.engine(i).getProcessedCount();
+                System.out.printf("%3ds %,14d orders/s %s%n", sample * SAMPLE_MILLIS / 1000, processed - last,
+                        balancing ? "rebalancing" : "static");
+                last = processed;
+            }
+        }
+
+        producer.interrupt();
+        producer.join();
+        group.stop();
+    }
+
+    private static double[] zipf(int symbols, double skew) {
+        double[] cumulative = new double[symbols];
+        double sum = 0;
+        for (int i = 0; i < symbols; i++)
+            cumulative[i] = sum += 1 / Math.pow(i + 1, skew);
+        for (int i = 0; i < symbols; i++)
+            cumulative[i] /= sum;
+
+        return cumulative;
+    }
+
+    /**
+     * Crossing limits and markets around 100, books stay shallow
+     */
+    private static void produce(ShardGroup group, double[] cumulative) {
+        SplittableRandom rnd = new SplittableRandom(49);
+        Order[] parked = new Order[cumulative.length];
+        long id = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            double u = rnd.nextDouble();
+            int symbol = 0;
+            while (cumulative[symbol] < u && symbol < cumulative.length - 1)
+                symbol++;
+
+            Order order = parked[symbol];
+            if (order == null) {
+                order = group.pool(symbol).borrow();
+                if (order == null)
+                    continue;
+
+                order.id = ++id;
+                order.setType(OrderType.values()[rnd.nextInt(4)]);
+                order.price = 95 + rnd.nextInt(11);
+                order.quantity = 1 + rnd.nextInt(20);
+            }
+            parked[symbol] = group.offer(symbol, order) ? null : order;
+        }
+    }
+}
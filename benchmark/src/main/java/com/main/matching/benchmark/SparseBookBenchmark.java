@@ -0,0 +1,81 @@
+package com.main.matching.benchmark;
+
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.OrderBook;
+import core.OrderBook.SkipListOrderBook;
+import core.OrderBook.TreeMapOrderBook;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sparse books on a wide price range: SkipListOrderBook (primitive tick keys, intrusive levels)
+ * against TreeMapOrderBook (boxed Double keys, ArrayDeque per level).
+ * <p>
+ * Each op rests a limit order at a random active level and sends an opposite market order of the same size,
+ * so the book keeps its depth through the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class SparseBookBenchmark {
+
+    private static final double TICK = 0.01;
+    private static final long MID_TICK = 100_000_000; // 1,000,000.00
+    private static final int RANDOM_SIZE = 1 << 20;
+
+    @Param({"TREE_MAP", "SKIP_LIST"})
+    public String book;
+
+    /** active price levels per side, spread over a range 100x wider */
+    @Param({"1000", "100000"})
+    public int levels;
+
+    private OrderBook orderBook;
+    private final long[] bidPrices = new long[RANDOM_SIZE];
+    private final long[] askPrices = new long[RANDOM_SIZE];
+    private final long[] quantities = new long[RANDOM_SIZE];
+    private int cursor;
+    private long id;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        orderBook = switch (book) {
+            case "TREE_MAP" -> new TreeMapOrderBook(TICK);
+            case "SKIP_LIST" -> new SkipListOrderBook(TICK, null, null);
+            default -> throw new IllegalArgumentException(book);
+        };
+
+        SplittableRandom rnd = new SplittableRandom(42);
+        for (int i = 0; i < RANDOM_SIZE; i++) {
+            int level = rnd.nextInt(levels) * 100 + 1; // sparse: one active tick in a hundred
+            bidPrices[i] = MID_TICK - level;
+            askPrices[i] = MID_TICK + level;
+            quantities[i] = rnd.nextInt(1, 100);
+        }
+
+        for (int i = 0; i < levels * 4; i++) {
+            orderBook.placeBuyLimit(new Order(++id, OrderType.BUY_LIMIT, bidPrices[i], 1_000));
+            orderBook.placeSellLimit(new Order(++id, OrderType.SELL_LIMIT, askPrices[i], 1_000));
+        }
+    }
+
+    @Benchmark
+    public void limitThenMarket() {
+        int i = cursor++ & (RANDOM_SIZE - 1);
+        long quantity = quantities[i];
+
+        if ((i & 1) == 0) {
+            orderBook.placeBuyLimit(new Order(++id, OrderType.BUY_LIMIT, bidPrices[i], quantity));
+            orderBook.placeSellMarket(new Order(++id, OrderType.SELL_MARKET, 0, quantity));
+        } else {
+            orderBook.placeSellLimit(new Order(++id, OrderType.SELL_LIMIT, askPrices[i], quantity));
+            orderBook.placeBuyMarket(new Order(++id, OrderType.BUY_MARKET, 0, quantity));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package core.Backtest;
+
+import core.Journal.CommandJournal;
+import core.MatchingEngine.MatchingEngine;
+import core.Order.Order;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import core.OrderBook.OrderBook;
+import core.OrderPool.SPSCOrderPool;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Batch replay of recorded command streams, scenarios matched in parallel on a ForkJoinPool.
+ * <p>
+ * A scenario is one symbol's recorded flow (CommandJournal files, replayed in order, e.g. one per day) against one
+ * book variant. Each runs start to end on one worker with a book, pool and MatchingEngine of its own: commands are
+ * read from the mapping straight into pooled orders and handed to processOrder(), no ring, no handoff, no spinning.
+ * Scenarios share nothing, so throughput scales with workers as long as there are more scenarios than workers.
+ * <p>
+ * Usage:
+ *  - new Backtest(ForkJoinPool.commonPool(), orders).run(scenarios), one Result per scenario in the same order
+ *  - Result.total(results) aggregates them
+ * <p>
+ * Note: Replays like a FollowerRingBuffer: a command arriving to an empty pool is skipped (and counted), size the
+ * pool like the recording engine's. Results are deterministic, the same scenario gives the same digest on any run.
+ */
+public final class Backtest {
+
+    /**
+     * The variant under test: a fresh book around the scenario's pool, trades go to the consumer.
+     * <p>
+     * Books holding the engine's orders (ArrayBucketOrderBook) replay every command type and GTT expiry. Books that
+     * copy orders in (SlabOrderBook, MappedOrderBook) replay limits, markets, CANCEL and MASS_CANCEL only: the engine
+     * can't amend or expire what it doesn't hold. Compare digests only over recordings without AMEND or expiries
+     */
+    @FunctionalInterface
+    public interface BookFactory {
+        OrderBook create(SPSCOrderPool pool, Consumer<Trade> trades);
+    }
+
+    public record Scenario(String name, List<Path> journals, BookFactory books) {
+    }
+
+    /**
+     * @param digest order-sensitive hash of every trade, equal digests mean the same fills in the same order
+     */
+    public record Result(String name, long commands, long skipped, long trades, long volume, long digest, long nanos) {
+
+        public double commandsPerSecond() {
+            return nanos == 0 ? 0 : commands * 1e9 / nanos;
+        }
+
+        /**
+         * Sums of every result, nanos is the time spent over all workers and digest a hash of the digests in order
+         */
+        public static Result total(List<Result> results) {
+            long commands = 0;
+            long skipped = 0;
+            long trades = 0;
+            long volume = 0;
+            long digest = 0;
+            long nanos = 0;
+            for (Result result : results) {
+                commands += result.commands;
+                skipped += result.skipped;
+                trades += result.trades;
+                volume += result.volume;
+                digest = digest * 31 + result.digest;
+                nanos += result.nanos;
+            }
+
+            return new Result("total", commands, skipped, trades, volume, digest, nanos);
+        }
+    }
+
+    private final ForkJoinPool workers;
+    private final int orders;
+
+    /**
+     * @param orders pool size of every scenario
+     */
+    public Backtest(ForkJoinPool workers, int orders) {
+        this.workers = workers;
+        this.orders = orders;
+    }
+
+    public List<Result> run(List<Scenario> scenarios) {
+        Result[] results = new Result[scenarios.size()];
+        if (!scenarios.isEmpty())
+            workers.invoke(new Split(scenarios, results, 0, scenarios.size()));
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Halves the scenarios until one is left, then runs it on the worker that got it
+     */
+    @SuppressWarnings("serial") // never serialized, a ForkJoinTask is Serializable by inheritance only
+    private final class Split extends RecursiveAction {
+
+        private final List<Scenario> scenarios;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        Split(List<Scenario> scenarios, Result[] results, int from, int to) {
+            this.scenarios = scenarios;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                results[from] = replay(scenarios.get(from));
+
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new Split(scenarios, results, from, middle), new Split(scenarios, results, middle, to));
+        }
+    }
+
+    /**
+     * One scenario, start to end on the calling thread
+     */
+    public Result replay(Scenario scenario) {
+        long start = System.nanoTime();
+        long[] fills = new long[3]; // trades, volume, digest
+        SPSCOrderPool pool = new SPSCOrderPool(orders);
+        OrderBook book = scenario.books().create(pool, trade -> {
+            fills[0]++;
+            fills[1] += trade.qty;
+            fills[2] = fills[2] * 31 + trade.makerOrderId * 1_000_003 + trade.takerOrderId * 7919 + trade.qty;
+        });
+        MatchingEngine engine = new MatchingEngine(book, null, pool); // fed through processOrder, no ring
+
+        long commands = 0;
+        long skipped = 0;
+        for (Path file : scenario.journals()) {
+            try (CommandJournal journal = CommandJournal.open(file)) {
+                long published = journal.published();
+                for (long sequence = 0; sequence < published; sequence++) {
+                    Order order = pool.borrow();
+                    if (order == null) { // the recording engine's pool was exhausted at the same command
+                        skipped++;
+
+                        continue;
+                    }
+
+                    journal.read(sequence, order);
+                    engine.processOrder(order);
+                    commands++;
+                }
+            }
+        }
+
+        return new Result(scenario.name(), commands, skipped, fills[0], fills[1], fills[2], System.nanoTime() - start);
+    }
+
+    /**
+     * The same variant over every symbol's recording, one scenario each
+     */
+    public static List<Scenario> scenarios(String variant, List<List<Path>> symbols, BookFactory books) {
+        List<Scenario> scenarios = new ArrayList<>(symbols.size());
+        for (int i = 0; i < symbols.size(); i++)
+            scenarios.add(new Scenario(variant + "/" + i, symbols.get(i), books));
+
+        return scenarios;
+    }
+}
@@ -0,0 +1,120 @@
+package core.Codec;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * Ack, template 4: execution report of a command that didn't trade, or of what is left of an order.
+ * <pre>
+ *  0 orderId    long
+ *  8 accountId  long
+ * 16 timestamp  long, ns
+ * 24 leavesQty  long, quantity still resting
+ * 32 status     byte, see the constants
+ * 33 reason     byte, why a command was rejected, 0 otherwise
+ * </pre>
+ */
+public final class AckCodec extends Flyweight {
+
+    public static final int TEMPLATE_ID = 4;
+    public static final int BLOCK_LENGTH = 34;
+    public static final int SIZE = HEADER + BLOCK_LENGTH;
+
+    public static final byte NEW = 0;
+    public static final byte REJECTED = 1;
+    public static final byte CANCELLED = 2;
+    public static final byte EXPIRED = 3;
+    public static final byte AMENDED = 4;
+
+    public AckCodec wrapForEncode(ByteBuffer buffer, int offset) {
+        encodeHeader(buffer, offset);
+
+        return this;
+    }
+
+    public AckCodec wrapForDecode(ByteBuffer buffer, int offset) {
+        decodeHeader(buffer, offset);
+
+        return this;
+    }
+
+    public AckCodec wrapForEncode(MemorySegment segment, long offset) {
+        encodeHeader(segment, offset);
+
+        return this;
+    }
+
+    public AckCodec wrapForDecode(MemorySegment segment, long offset) {
+        decodeHeader(segment, offset);
+
+        return this;
+    }
+
+    public int blockLength() {
+        return BLOCK_LENGTH;
+    }
+
+    public int templateId() {
+        return TEMPLATE_ID;
+    }
+
+    public long orderId() {
+        return getLong(0);
+    }
+
+    public AckCodec orderId(long value) {
+        putLong(0, value);
+
+        return this;
+    }
+
+    public long accountId() {
+        return getLong(8);
+    }
+
+    public AckCodec accountId(long value) {
+        putLong(8, value);
+
+        return this;
+    }
+
+    public long timestamp() {
+        return getLong(16);
+    }
+
+    public AckCodec timestamp(long value) {
+        putLong(16, value);
+
+        return this;
+    }
+
+    public long leavesQty() {
+        return getLong(24);
+    }
+
+    public AckCodec leavesQty(long value) {
+        putLong(24, value);
+
+        return this;
+    }
+
+    public byte status() {
+        return getByte(32);
+    }
+
+    public AckCodec status(byte value) {
+        putByte(32, value);
+
+        return this;
+    }
+
+    public byte reason() {
+        return getByte(33);
+    }
+
+    public AckCodec reason(byte value) {
+        putByte(33, value);
+
+        return this;
+    }
+}
@@ -0,0 +1,103 @@
+package core.Codec;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * Amend, template 3: new price and quantity for a resting order.
+ * <pre>
+ *  0 orderId    long
+ *  8 accountId  long
+ * 16 price      long, ticks
+ * 24 quantity   long, remaining quantity after the amend
+ * 32 timestamp  long, ingress ns
+ * </pre>
+ */
+public final class AmendCodec extends Flyweight {
+
+    public static final int TEMPLATE_ID = 3;
+    public static final int BLOCK_LENGTH = 40;
+    public static final int SIZE = HEADER + BLOCK_LENGTH;
+
+    public AmendCodec wrapForEncode(ByteBuffer buffer, int offset) {
+        encodeHeader(buffer, offset);
+
+        return this;
+    }
+
+    public AmendCodec wrapForDecode(ByteBuffer buffer, int offset) {
+        decodeHeader(buffer, offset);
+
+        return this;
+    }
+
+    public AmendCodec wrapForEncode(MemorySegment segment, long offset) {
+        encodeHeader(segment, offset);
+
+        return this;
+    }
+
+    public AmendCodec wrapForDecode(MemorySegment segment, long offset) {
+        decodeHeader(segment, offset);
+
+        return this;
+    }
+
+    public int blockLength() {
+        return BLOCK_LENGTH;
+    }
+
+    public int templateId() {
+        return TEMPLATE_ID;
+    }
+
+    public long orderId() {
+        return getLong(0);
+    }
+
+    public AmendCodec orderId(long value) {
+        putLong(0, value);
+
+        return this;
+    }
+
+    public long accountId() {
+        return getLong(8);
+    }
+
+    public AmendCodec accountId(long value) {
+        putLong(8, value);
+
+        return this;
+    }
+
+    public long price() {
+        return getLong(16);
+    }
+
+    public AmendCodec price(long value) {
+        putLong(16, value);
+
+        return this;
+    }
+
+    public long quantity() {
+        return getLong(24);
+    }
+
+    public AmendCodec quantity(long value) {
+        putLong(24, value);
+
+        return this;
+    }
+
+    public long timestamp() {
+        return getLong(32);
+    }
+
+    public AmendCodec timestamp(long value) {
+        putLong(32, value);
+
+        return this;
+    }
+}
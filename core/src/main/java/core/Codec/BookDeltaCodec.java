@@ -0,0 +1,81 @@
+package core.Codec;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * BookDelta, template 6: new total quantity of one price level, 0 - the level is gone.
+ * <pre>
+ *  0 price     double, price of the level (tick size applied)
+ *  8 totalQty  long
+ * 16 bid       byte, 1 - bid side
+ * </pre>
+ */
+public final class BookDeltaCodec extends Flyweight {
+
+    public static final int TEMPLATE_ID = 6;
+    public static final int BLOCK_LENGTH = 17;
+    public static final int SIZE = HEADER + BLOCK_LENGTH;
+
+    public BookDeltaCodec wrapForEncode(ByteBuffer buffer, int offset) {
+        encodeHeader(buffer, offset);
+
+        return this;
+    }
+
+    public BookDeltaCodec wrapForDecode(ByteBuffer buffer, int offset) {
+        decodeHeader(buffer, offset);
+
+        return this;
+    }
+
+    public BookDeltaCodec wrapForEncode(MemorySegment segment, long offset) {
+        encodeHeader(segment, offset);
+
+        return this;
+    }
+
+    public BookDeltaCodec wrapForDecode(MemorySegment segment, long offset) {
+        decodeHeader(segment, offset);
+
+        return this;
+    }
+
+    public int blockLength() {
+        return BLOCK_LENGTH;
+    }
+
+    public int templateId() {
+        return TEMPLATE_ID;
+    }
+
+    public double price() {
+        return getDouble(0);
+    }
+
+    public BookDeltaCodec price(double value) {
+        putDouble(0, value);
+
+        return this;
+    }
+
+    public long totalQty() {
+        return getLong(8);
+    }
+
+    public BookDeltaCodec totalQty(long value) {
+        putLong(8, value);
+
+        return this;
+    }
+
+    public boolean bid() {
+        return getByte(16) == 1;
+    }
+
+    public BookDeltaCodec bid(boolean value) {
+        putByte(16, (byte) (value ? 1 : 0));
+
+        return this;
+    }
+}
@@ -0,0 +1,103 @@
+package core.Codec;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * Cancel, template 2: one resting order by id (type CANCEL) or an account's orders (type MASS_CANCEL).
+ * <pre>
+ *  0 orderId    long, 0 for a mass cancel
+ *  8 accountId  long
+ * 16 timestamp  long, ingress ns
+ * 24 type       byte, OrderType code
+ * 25 flags      byte, mass cancel sides
+ * </pre>
+ */
+public final class CancelCodec extends Flyweight {
+
+    public static final int TEMPLATE_ID = 2;
+    public static final int BLOCK_LENGTH = 26;
+    public static final int SIZE = HEADER + BLOCK_LENGTH;
+
+    public CancelCodec wrapForEncode(ByteBuffer buffer, int offset) {
+        encodeHeader(buffer, offset);
+
+        return this;
+    }
+
+    public CancelCodec wrapForDecode(ByteBuffer buffer, int offset) {
+        decodeHeader(buffer, offset);
+
+        return this;
+    }
+
+    public CancelCodec wrapForEncode(MemorySegment segment, long offset) {
+        encodeHeader(segment, offset);
+
+        return this;
+    }
+
+    public CancelCodec wrapForDecode(MemorySegment segment, long offset) {
+        decodeHeader(segment, offset);
+
+        return this;
+    }
+
+    public int blockLength() {
+        return BLOCK_LENGTH;
+    }
+
+    public int templateId() {
+        return TEMPLATE_ID;
+    }
+
+    public long orderId() {
+        return getLong(0);
+    }
+
+    public CancelCodec orderId(long value) {
+        putLong(0, value);
+
+        return this;
+    }
+
+    public long accountId() {
+        return getLong(8);
+    }
+
+    public CancelCodec accountId(long value) {
+        putLong(8, value);
+
+        return this;
+    }
+
+    public long timestamp() {
+        return getLong(16);
+    }
+
+    public CancelCodec timestamp(long value) {
+        putLong(16, value);
+
+        return this;
+    }
+
+    public byte type() {
+        return getByte(24);
+    }
+
+    public CancelCodec type(byte value) {
+        putByte(24, value);
+
+        return this;
+    }
+
+    public byte flags() {
+        return getByte(25);
+    }
+
+    public CancelCodec flags(byte value) {
+        putByte(25, value);
+
+        return this;
+    }
+}
@@ -0,0 +1,136 @@
+package core.Codec;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * Fill, template 5: one trade between a resting maker and an incoming taker.
+ * <pre>
+ *  0 makerOrderId    long
+ *  8 takerOrderId    long
+ * 16 makerAccountId  long
+ * 24 takerAccountId  long
+ * 32 price           double, price of the level (tick size applied)
+ * 40 quantity        long
+ * 48 timestamp       long, the taker's ingress ns
+ * 56 buyInitiator    byte, 1 - the taker bought
+ * </pre>
+ */
+public final class FillCodec extends Flyweight {
+
+    public static final int TEMPLATE_ID = 5;
+    public static final int BLOCK_LENGTH = 57;
+    public static final int SIZE = HEADER + BLOCK_LENGTH;
+
+    public FillCodec wrapForEncode(ByteBuffer buffer, int offset) {
+        encodeHeader(buffer, offset);
+
+        return this;
+    }
+
+    public FillCodec wrapForDecode(ByteBuffer buffer, int offset) {
+        decodeHeader(buffer, offset);
+
+        return this;
+    }
+
+    public FillCodec wrapForEncode(MemorySegment segment, long offset) {
+        encodeHeader(segment, offset);
+
+        return this;
+    }
+
+    public FillCodec wrapForDecode(MemorySegment segment, long offset) {
+        decodeHeader(segment, offset);
+
+        return this;
+    }
+
+    public int blockLength() {
+        return BLOCK_LENGTH;
+    }
+
+    public int templateId() {
+        return TEMPLATE_ID;
+    }
+
+    public long makerOrderId() {
+        return getLong(0);
+    }
+
+    public FillCodec makerOrderId(long value) {
+        putLong(0, value);
+
+        return this;
+    }
+
+    public long takerOrderId() {
+        return getLong(8);
+    }
+
+    public FillCodec takerOrderId(long value) {
+        putLong(8, value);
+
+        return this;
+    }
+
+    public long makerAccountId() {
+        return getLong(16);
+    }
+
+    public FillCodec makerAccountId(long value) {
+        putLong(16, value);
+
+        return this;
+    }
+
+    public long takerAccountId() {
+        return getLong(24);
+    }
+
+    public FillCodec takerAccountId(long value) {
+        putLong(24, value);
+
+        return this;
+    }
+
+    public double price() {
+        return getDouble(32);
+    }
+
+    public FillCodec price(double value) {
+        putDouble(32, value);
+
+        return this;
+    }
+
+    public long quantity() {
+        return getLong(40);
+    }
+
+    public FillCodec quantity(long value) {
+        putLong(40, value);
+
+        return this;
+    }
+
+    public long timestamp() {
+        return getLong(48);
+    }
+
+    public FillCodec timestamp(long value) {
+        putLong(48, value);
+
+        return this;
+    }
+
+    public boolean buyInitiator() {
+        return getByte(56) == 1;
+    }
+
+    public FillCodec buyInitiator(boolean value) {
+        putByte(56, (byte) (value ? 1 : 0));
+
+        return this;
+    }
+}
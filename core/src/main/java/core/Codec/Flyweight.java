@@ -0,0 +1,164 @@
+package core.Codec;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Base of the message flyweights: a reusable view over a message at an offset, fields are read and written
+ * in place with absolute get/put, so nothing is copied or allocated per message and the buffer's position is untouched.
+ * <p>
+ * Every message is an 8-byte header then a fixed block, little-endian:
+ * blockLength, templateId, schemaId, version as 16-bit values.
+ * Wraps a ByteBuffer (heap, direct or mapped) or a MemorySegment (e.g. a file mapped through an Arena) at an offset,
+ * a segment is read and written through little-endian layouts whatever the host's order.
+ */
+public abstract class Flyweight {
+
+    public static final int HEADER = 8;
+    public static final short SCHEMA_ID = 1;
+    public static final short VERSION = 1;
+
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    // header fields
+    private static final int BLOCK_LENGTH_AT = 0;
+    private static final int TEMPLATE_ID_AT = 2;
+    private static final int SCHEMA_ID_AT = 4;
+    private static final int VERSION_AT = 6;
+
+    // one of the two is wrapped
+    private ByteBuffer buffer;
+    private MemorySegment segment;
+    private long offset; // first byte of the block, after the header
+
+    /**
+     * @return template of the message at offset, to pick the flyweight to wrap it with
+     */
+    public static int templateId(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset + TEMPLATE_ID_AT);
+    }
+
+    public static int templateId(MemorySegment segment, long offset) {
+        return segment.get(SHORT, offset + TEMPLATE_ID_AT);
+    }
+
+    /**
+     * @return offset right after this message
+     */
+    public long limit() {
+        return offset + blockLength();
+    }
+
+    public abstract int blockLength();
+
+    public abstract int templateId();
+
+    /**
+     * Writes the header, the block is left as it is
+     */
+    protected final void encodeHeader(ByteBuffer buffer, int offset) {
+        checkOrder(buffer);
+        wrap(buffer, null, offset);
+        encodeHeader();
+    }
+
+    protected final void encodeHeader(MemorySegment segment, long offset) {
+        wrap(null, segment, offset);
+        encodeHeader();
+    }
+
+    /**
+     * Checks the header against this flyweight
+     */
+    protected final void decodeHeader(ByteBuffer buffer, int offset) {
+        checkOrder(buffer);
+        wrap(buffer, null, offset);
+        decodeHeader();
+    }
+
+    protected final void decodeHeader(MemorySegment segment, long offset) {
+        wrap(null, segment, offset);
+        decodeHeader();
+    }
+
+    private void wrap(ByteBuffer buffer, MemorySegment segment, long offset) {
+        this.buffer = buffer;
+        this.segment = segment;
+        this.offset = offset + HEADER;
+    }
+
+    private void encodeHeader() {
+        putShort(BLOCK_LENGTH_AT - HEADER, (short) blockLength());
+        putShort(TEMPLATE_ID_AT - HEADER, (short) templateId());
+        putShort(SCHEMA_ID_AT - HEADER, SCHEMA_ID);
+        putShort(VERSION_AT - HEADER, VERSION);
+    }
+
+    private void decodeHeader() {
+        long at = offset - HEADER;
+        if (getShort(TEMPLATE_ID_AT - HEADER) != templateId())
+            throw new IllegalArgumentException("Template " + getShort(TEMPLATE_ID_AT - HEADER)
+                    + " at " + at + ", expected " + templateId());
+        if (getShort(SCHEMA_ID_AT - HEADER) != SCHEMA_ID || getShort(VERSION_AT - HEADER) != VERSION)
+            throw new IllegalArgumentException("Unknown schema " + getShort(SCHEMA_ID_AT - HEADER)
+                    + " v" + getShort(VERSION_AT - HEADER) + " at " + at);
+        if (getShort(BLOCK_LENGTH_AT - HEADER) != blockLength())
+            throw new IllegalArgumentException("Block length " + getShort(BLOCK_LENGTH_AT - HEADER)
+                    + " at " + at + ", expected " + blockLength());
+    }
+
+    private static void checkOrder(ByteBuffer buffer) {
+        if (buffer.order() != ByteOrder.LITTLE_ENDIAN)
+            throw new IllegalArgumentException("Messages are little-endian, the buffer is " + buffer.order());
+    }
+
+    // field access at an offset within the block
+
+    protected final byte getByte(int field) {
+        return segment == null ? buffer.get((int) offset + field) : segment.get(ValueLayout.JAVA_BYTE, offset + field);
+    }
+
+    protected final void putByte(int field, byte value) {
+        if (segment == null)
+            buffer.put((int) offset + field, value);
+        else
+            segment.set(ValueLayout.JAVA_BYTE, offset + field, value);
+    }
+
+    protected final short getShort(int field) {
+        return segment == null ? buffer.getShort((int) offset + field) : segment.get(SHORT, offset + field);
+    }
+
+    protected final void putShort(int field, short value) {
+        if (segment == null)
+            buffer.putShort((int) offset + field, value);
+        else
+            segment.set(SHORT, offset + field, value);
+    }
+
+    protected final long getLong(int field) {
+        return segment == null ? buffer.getLong((int) offset + field) : segment.get(LONG, offset + field);
+    }
+
+    protected final void putLong(int field, long value) {
+        if (segment == null)
+            buffer.putLong((int) offset + field, value);
+        else
+            segment.set(LONG, offset + field, value);
+    }
+
+    protected final double getDouble(int field) {
+        return segment == null ? buffer.getDouble((int) offset + field) : segment.get(DOUBLE, offset + field);
+    }
+
+    protected final void putDouble(int field, double value) {
+        if (segment == null)
+            buffer.putDouble((int) offset + field, value);
+        else
+            segment.set(DOUBLE, offset + field, value);
+    }
+}
@@ -0,0 +1,136 @@
+package core.Codec;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * NewOrder, template 1: a limit or market order.
+ * <pre>
+ *  0 orderId    long
+ *  8 price      long, ticks
+ * 16 quantity   long
+ * 24 accountId  long, 0 - anonymous
+ * 32 timestamp  long, ingress ns
+ * 40 expiresAt  long, 0 - good till cancel
+ * 48 type       byte, OrderType code
+ * 49 flags      byte
+ * </pre>
+ */
+public final class NewOrderCodec extends Flyweight {
+
+    public static final int TEMPLATE_ID = 1;
+    public static final int BLOCK_LENGTH = 50;
+    public static final int SIZE = HEADER + BLOCK_LENGTH;
+
+    public NewOrderCodec wrapForEncode(ByteBuffer buffer, int offset) {
+        encodeHeader(buffer, offset);
+
+        return this;
+    }
+
+    public NewOrderCodec wrapForDecode(ByteBuffer buffer, int offset) {
+        decodeHeader(buffer, offset);
+
+        return this;
+    }
+
+    public NewOrderCodec wrapForEncode(MemorySegment segment, long offset) {
+        encodeHeader(segment, offset);
+
+        return this;
+    }
+
+    public NewOrderCodec wrapForDecode(MemorySegment segment, long offset) {
+        decodeHeader(segment, offset);
+
+        return this;
+    }
+
+    public int blockLength() {
+        return BLOCK_LENGTH;
+    }
+
+    public int templateId() {
+        return TEMPLATE_ID;
+    }
+
+    public long orderId() {
+        return getLong(0);
+    }
+
+    public NewOrderCodec orderId(long value) {
+        putLong(0, value);
+
+        return this;
+    }
+
+    public long price() {
+        return getLong(8);
+    }
+
+    public NewOrderCodec price(long value) {
+        putLong(8, value);
+
+        return this;
+    }
+
+    public long quantity() {
+        return getLong(16);
+    }
+
+    public NewOrderCodec quantity(long value) {
+        putLong(16, value);
+
+        return this;
+    }
+
+    public long accountId() {
+        return getLong(24);
+    }
+
+    public NewOrderCodec accountId(long value) {
+        putLong(24, value);
+
+        return this;
+    }
+
+    public long timestamp() {
+        return getLong(32);
+    }
+
+    public NewOrderCodec timestamp(long value) {
+        putLong(32, value);
+
+        return this;
+    }
+
+    public long expiresAt() {
+        return getLong(40);
+    }
+
+    public NewOrderCodec expiresAt(long value) {
+        putLong(40, value);
+
+        return this;
+    }
+
+    public byte type() {
+        return getByte(48);
+    }
+
+    public NewOrderCodec type(byte value) {
+        putByte(48, value);
+
+        return this;
+    }
+
+    public byte flags() {
+        return getByte(49);
+    }
+
+    public NewOrderCodec flags(byte value) {
+        putByte(49, value);
+
+        return this;
+    }
+}
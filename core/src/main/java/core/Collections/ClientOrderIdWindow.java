@@ -0,0 +1,145 @@
+package core.Collections;
+
+/**
+ * Client order ids seen recently, per account: (accountId, clientOrderId) -> engine order id.
+ * <p>
+ * Entries live in an insertion-ordered log of fixed capacity, an open-addressing table with linear probing
+ * points into it. The oldest entry is evicted once it is older than the window or when the log is full,
+ * so under load the effective window is capacity / order rate. Nothing is allocated after construction.
+ * <p>
+ * Not thread safe. Times are in whatever unit the caller's clock and window use.
+ * Client order id 0 means "none" and can't be stored, missing ids read as 0.
+ */
+public final class ClientOrderIdWindow {
+
+    public static final long MISSING = 0;
+
+    // the log is a ring, oldest entry at head
+    private final long[] accountIds;
+    private final long[] clientOrderIds;
+    private final long[] orderIds;
+    private final long[] insertedAt;
+    private final int logMask;
+    private int head;
+    private int size;
+
+    // slot -> log index + 1, 0 for empty
+    private final int[] table;
+    private final int tableMask;
+    private final long window;
+
+    /**
+     * @param capacity entries kept at most, rounded up to a power of two
+     * @param window   age at which an entry is forgotten
+     */
+    public ClientOrderIdWindow(int capacity, long window) {
+        if (capacity <= 0 || capacity > 1 << 29)
+            throw new IllegalArgumentException("capacity must be in [1, 2^29]");
+        if (window <= 0)
+            throw new IllegalArgumentException("window must be > 0");
+
+        int logCapacity = Integer.highestOneBit(Math.max(2, capacity * 2 - 1));
+        accountIds = new long[logCapacity];
+        clientOrderIds = new long[logCapacity];
+        orderIds = new long[logCapacity];
+        insertedAt = new long[logCapacity];
+        logMask = logCapacity - 1;
+        table = new int[logCapacity << 1]; // load factor stays <= 0.5
+        tableMask = table.length - 1;
+        this.window = window;
+    }
+
+    /**
+     * @return the order id stored for the client order id within the window, or MISSING
+     */
+    public long get(long accountId, long clientOrderId, long now) {
+        int i = slot(accountId, clientOrderId);
+        while (table[i] != 0) {
+            int entry = table[i] - 1;
+            if (clientOrderIds[entry] == clientOrderId && accountIds[entry] == accountId)
+                return now - insertedAt[entry] < window ? orderIds[entry] : MISSING;
+
+            i = (i + 1) & tableMask;
+        }
+
+        return MISSING;
+    }
+
+    /**
+     * Callers check get() first, an id still in the window can't be stored twice
+     */
+    public void put(long accountId, long clientOrderId, long orderId, long now) {
+        if (clientOrderId == MISSING)
+            throw new IllegalArgumentException("client order id 0 is reserved");
+
+        while (size > 0 && now - insertedAt[head] >= window)
+            evictOldest();
+        if (size == logMask + 1)
+            evictOldest();
+
+        int i = slot(accountId, clientOrderId);
+        while (table[i] != 0) {
+            int entry = table[i] - 1;
+            if (clientOrderIds[entry] == clientOrderId && accountIds[entry] == accountId)
+                throw new IllegalStateException("client order id " + clientOrderId + " is already in the window");
+
+            i = (i + 1) & tableMask;
+        }
+
+        int entry = (head + size) & logMask;
+        accountIds[entry] = accountId;
+        clientOrderIds[entry] = clientOrderId;
+        orderIds[entry] = orderId;
+        insertedAt[entry] = now;
+        table[i] = entry + 1;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return logMask + 1;
+    }
+
+    private void evictOldest() {
+        int i = slot(accountIds[head], clientOrderIds[head]);
+        while (table[i] != head + 1)
+            i = (i + 1) & tableMask;
+
+        removeAt(i);
+        head = (head + 1) & logMask;
+        size--;
+    }
+
+    private int slot(long accountId, long clientOrderId) {
+        long h = (accountId * 0x9E3779B97F4A7C15L ^ clientOrderId) * 0xC2B2AE3D27D4EB4FL;
+
+        return (int) ((h ^ (h >>> 32)) & tableMask);
+    }
+
+    /**
+     * Backward shift, same as LongIntHashMap: no tombstones, probe chains stay short
+     */
+    private void removeAt(int i) {
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & tableMask;
+            if (table[j] == 0)
+                break;
+
+            int entry = table[j] - 1;
+            int home = slot(accountIds[entry], clientOrderIds[entry]);
+            // move j into the hole unless its home lies cyclically in (hole, j]
+            boolean stays = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!stays) {
+                table[hole] = table[j];
+                hole = j;
+            }
+        }
+
+        table[hole] = 0;
+    }
+}
@@ -0,0 +1,155 @@
+package core.Collections;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Open-addressing long -> V map with linear probing, no boxing and no per-entry objects.
+ * <p>
+ * Not thread safe. Key 0 is reserved for empty slots and can't be stored.
+ * Removal uses backward shifting, so there are no tombstones and lookups stay short.
+ */
+public final class LongObjectHashMap<V> {
+
+    private long[] keys;
+    private V[] values;
+    private int mask;
+    private int size;
+
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    public V get(long key) {
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key)
+                return values[i];
+
+            i = (i + 1) & mask;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the previous value or null
+     */
+    public V put(long key, V value) {
+        if (key == 0)
+            throw new IllegalArgumentException("key 0 is reserved");
+
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                V previous = values[i];
+                values[i] = value;
+
+                return previous;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length)
+            resize(keys.length << 1);
+
+        return null;
+    }
+
+    public V remove(long key) {
+        int i = slot(key);
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                V previous = values[i];
+                removeAt(i);
+
+                return previous;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Visits every entry, the map must not be modified meanwhile
+     */
+    public void forEach(BiConsumer<Long, ? super V> action) {
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] != 0)
+                action.accept(keys[i], values[i]);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+
+        return (int) ((h ^ (h >>> 32)) & mask);
+    }
+
+    private void removeAt(int i) {
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == 0)
+                break;
+
+            int home = slot(keys[j]);
+            // move j into the hole unless its home lies cyclically in (hole, j]
+            boolean stays = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!stays) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+
+        keys[hole] = 0;
+        values[hole] = null;
+        size--;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = (V[]) new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        V[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0)
+                continue;
+
+            int j = slot(oldKeys[i]);
+            while (keys[j] != 0)
+                j = (j + 1) & mask;
+
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package core.Events;
+
+import jdk.jfr.*;
+
+/**
+ * The array book walked over many empty levels to find the next best price, a gap in the book
+ */
+@Name("exchange.BestPriceScan")
+@Label("Long Best Price Scan")
+@Category({"Exchange", "Order Book"})
+@Description("Best bid/ask search crossed more empty levels than the threshold")
+@StackTrace(false)
+public final class BestPriceScanEvent extends Event {
+
+    public static final int LONG_SCAN_LEVELS = 64;
+
+    @Label("Bid")
+    public boolean bid;
+
+    @Label("Levels Scanned")
+    public int levels;
+
+    @Label("Found")
+    @Description("False when the side became empty")
+    public boolean found;
+
+    public static void emit(boolean bid, int levels, boolean found) {
+        BestPriceScanEvent event = new BestPriceScanEvent();
+        if (!event.shouldCommit())
+            return;
+
+        event.bid = bid;
+        event.levels = levels;
+        event.found = found;
+        event.commit();
+    }
+}
@@ -0,0 +1,22 @@
+package core.Events;
+
+import jdk.jfr.*;
+
+/**
+ * Duration of forcing a journal to storage, begin() before force and commit after
+ */
+@Name("exchange.JournalSync")
+@Label("Journal Sync")
+@Category({"Exchange", "Journal"})
+@Description("fsync / force of a journal file")
+@StackTrace(false)
+public final class JournalSyncEvent extends Event {
+
+    @Label("Journal")
+    public String journal;
+
+    @Label("Bytes")
+    @DataAmount
+    @Description("Bytes written since the previous sync")
+    public long bytes;
+}
@@ -0,0 +1,25 @@
+package core.Events;
+
+import jdk.jfr.*;
+
+/**
+ * Duration of one order through the matching engine: book operation plus index / pool bookkeeping.
+ * Sampled by the engine, one order in {@code MatchingEngine.MATCH_SAMPLE_RATE}
+ */
+@Name("exchange.Match")
+@Label("Match")
+@Category({"Exchange", "Matching Engine"})
+@Description("Sampled duration of processing one order on the matching thread")
+@StackTrace(false)
+public final class MatchEvent extends Event {
+
+    @Label("Order Type")
+    public String orderType;
+
+    @Label("Quantity")
+    public long quantity;
+
+    @Label("Remaining")
+    @Description("Quantity left after matching, resting or unfilled")
+    public long remaining;
+}
@@ -0,0 +1,26 @@
+package core.Events;
+
+import jdk.jfr.*;
+
+/**
+ * borrow() found no free order: everything is resting in the book or in flight on the ring
+ */
+@Name("exchange.PoolExhausted")
+@Label("Order Pool Exhausted")
+@Category({"Exchange", "Order Pool"})
+@Description("Order pool borrow returned null")
+@StackTrace(false)
+public final class PoolExhaustedEvent extends Event {
+
+    @Label("Capacity")
+    public int capacity;
+
+    public static void emit(int capacity) {
+        PoolExhaustedEvent event = new PoolExhaustedEvent();
+        if (!event.shouldCommit())
+            return;
+
+        event.capacity = capacity;
+        event.commit();
+    }
+}
@@ -0,0 +1,31 @@
+package core.Events;
+
+import jdk.jfr.*;
+
+/**
+ * An offer that didn't fit: the producer drops or rejects, the consumer is behind
+ */
+@Name("exchange.RingFull")
+@Label("Ring Full")
+@Category({"Exchange", "Ring Buffer"})
+@Description("Offer to a full ring buffer was rejected or dropped")
+@StackTrace(false)
+public final class RingFullEvent extends Event {
+
+    @Label("Ring")
+    public String ring;
+
+    @Label("Count")
+    @Description("Entries that didn't fit")
+    public int count;
+
+    public static void emit(String ring, int count) {
+        RingFullEvent event = new RingFullEvent();
+        if (!event.shouldCommit())
+            return;
+
+        event.ring = ring;
+        event.count = count;
+        event.commit();
+    }
+}
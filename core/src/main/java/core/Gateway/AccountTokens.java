@@ -0,0 +1,98 @@
+package core.Gateway;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Signed account tokens: the account a REST or websocket caller acts as, never taken from the request body.
+ * <p>
+ * A token is "accountId.expiresAtMillis.signature", the signature a base64url HMAC-SHA256 of the first two parts
+ * under a secret shared with whatever issues tokens (the account service, or issue() here). Verifying needs no
+ * lookup and no state, any request thread can do it.
+ * <p>
+ * Note: No revocation, keep expiries short. Changing the secret invalidates every token.
+ */
+public final class AccountTokens {
+
+    /** verify() result for a malformed, forged or expired token, no account has id 0 */
+    public static final long INVALID = 0;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final Mac prototype;
+
+    /**
+     * @param secret at least 32 bytes
+     */
+    public AccountTokens(byte[] secret) {
+        if (secret.length < 32)
+            throw new IllegalArgumentException("secret must be at least 32 bytes");
+
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(secret, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    public String issue(long accountId, long expiresAtMillis) {
+        if (accountId <= 0)
+            throw new IllegalArgumentException("accountId must be > 0");
+
+        String claims = accountId + "." + expiresAtMillis;
+
+        return claims + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sign(claims));
+    }
+
+    /**
+     * The signature is checked before anything in the token is parsed
+     *
+     * @return the token's account, INVALID if it is malformed, not signed with this secret or expired
+     */
+    public long verify(String token, long nowMillis) {
+        if (token == null)
+            return INVALID;
+
+        int first = token.indexOf('.');
+        int second = token.indexOf('.', first + 1);
+        if (first <= 0 || second <= first + 1)
+            return INVALID;
+
+        String claims = token.substring(0, second);
+        byte[] signature;
+        try {
+            signature = Base64.getUrlDecoder().decode(token.substring(second + 1));
+        } catch (IllegalArgumentException e) {
+            return INVALID;
+        }
+        if (!MessageDigest.isEqual(sign(claims), signature))
+            return INVALID;
+
+        try {
+            long accountId = Long.parseLong(token, 0, first, 10);
+            long expiresAt = Long.parseLong(token, first + 1, second, 10);
+
+            return accountId > 0 && expiresAt > nowMillis ? accountId : INVALID;
+        } catch (NumberFormatException e) {
+            return INVALID;
+        }
+    }
+
+    /**
+     * Mac isn't thread-safe, each call signs with a copy of the initialized one
+     */
+    private byte[] sign(String claims) {
+        try {
+            Mac mac = (Mac) prototype.clone();
+
+            return mac.doFinal(claims.getBytes(StandardCharsets.US_ASCII));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(ALGORITHM + " can't be cloned", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package core.Gateway;
+
+import core.Order.OrderType;
+
+/**
+ * Where a gateway hands engine commands: the ring directly ({@link RingCommandSink}) or the application's sequencer
+ * shared with the other ingress paths. Called from the gateway thread only.
+ */
+public interface CommandSink {
+
+    long REJECTED = -1;
+    long THROTTLED = -2;
+
+    /**
+     * @param orderId   ignored for new orders, the resting order for CANCEL / AMEND
+     * @param price     ticks
+     * @param expiresAt engine clock (epoch ns), 0 - good till cancel
+     * @return the engine order id assigned to a new order, orderId for other commands (0 for MASS_CANCEL),
+     * REJECTED if the command was not published (pool exhausted, ring full or engine down),
+     * THROTTLED if the account is over its order rate
+     */
+    long submit(OrderType type, long orderId, long price, long quantity, long accountId, long expiresAt);
+
+    /**
+     * Commands counted against an account's order rate: cancels always go through, they only take load off the book
+     */
+    static boolean throttled(OrderType type) {
+        return type != OrderType.CANCEL && type != OrderType.MASS_CANCEL;
+    }
+}
@@ -0,0 +1,108 @@
+package core.Gateway;
+
+/**
+ * FIX 4.4 tags, message types and values the gateway uses. Message types are packed into an int,
+ * one or two characters, see {@link #msgType(char)}.
+ */
+public final class Fix {
+
+    public static final byte SOH = 1;
+
+    // tags
+    public static final int ACCOUNT = 1;
+    public static final int AVG_PX = 6;
+    public static final int BEGIN_STRING = 8;
+    public static final int BODY_LENGTH = 9;
+    public static final int CHECK_SUM = 10;
+    public static final int CL_ORD_ID = 11;
+    public static final int CUM_QTY = 14;
+    public static final int EXEC_ID = 17;
+    public static final int LAST_PX = 31;
+    public static final int LAST_QTY = 32;
+    public static final int MSG_SEQ_NUM = 34;
+    public static final int MSG_TYPE = 35;
+    public static final int ORDER_ID = 37;
+    public static final int ORDER_QTY = 38;
+    public static final int ORD_STATUS = 39;
+    public static final int ORD_TYPE = 40;
+    public static final int ORIG_CL_ORD_ID = 41;
+    public static final int PRICE = 44;
+    public static final int REF_SEQ_NUM = 45;
+    public static final int SENDER_COMP_ID = 49;
+    public static final int SENDING_TIME = 52;
+    public static final int SIDE = 54;
+    public static final int SYMBOL = 55;
+    public static final int TARGET_COMP_ID = 56;
+    public static final int TEXT = 58;
+    public static final int TIME_IN_FORCE = 59;
+    public static final int TRANSACT_TIME = 60;
+    public static final int ENCRYPT_METHOD = 98;
+    public static final int CXL_REJ_REASON = 102;
+    public static final int ORD_REJ_REASON = 103;
+    public static final int HEART_BT_INT = 108;
+    public static final int TEST_REQ_ID = 112;
+    public static final int EXPIRE_TIME = 126;
+    public static final int EXEC_TYPE = 150;
+    public static final int LEAVES_QTY = 151;
+    public static final int CXL_REJ_RESPONSE_TO = 434;
+    public static final int PASSWORD = 554;
+
+    // message types
+    public static final int HEARTBEAT = msgType('0');
+    public static final int TEST_REQUEST = msgType('1');
+    public static final int REJECT = msgType('3');
+    public static final int LOGOUT = msgType('5');
+    public static final int EXECUTION_REPORT = msgType('8');
+    public static final int ORDER_CANCEL_REJECT = msgType('9');
+    public static final int LOGON = msgType('A');
+    public static final int NEW_ORDER_SINGLE = msgType('D');
+    public static final int ORDER_CANCEL_REQUEST = msgType('F');
+    public static final int ORDER_CANCEL_REPLACE_REQUEST = msgType('G');
+
+    // ExecType (150) and OrdStatus (39) share their codes
+    public static final byte EXEC_NEW = '0';
+    public static final byte EXEC_PARTIAL_FILL = '1';
+    public static final byte EXEC_FILL = '2';
+    public static final byte EXEC_CANCELED = '4';
+    public static final byte EXEC_REPLACED = '5';
+    public static final byte EXEC_PENDING_CANCEL = '6';
+    public static final byte EXEC_REJECTED = '8';
+    public static final byte EXEC_EXPIRED = 'C';
+    public static final byte EXEC_PENDING_REPLACE = 'E';
+    public static final byte EXEC_TRADE = 'F';
+
+    public static final byte SIDE_BUY = '1';
+    public static final byte SIDE_SELL = '2';
+    public static final byte ORD_TYPE_MARKET = '1';
+    public static final byte ORD_TYPE_LIMIT = '2';
+    public static final byte TIF_DAY = '0';
+    public static final byte TIF_GTC = '1';
+    public static final byte TIF_IOC = '3';
+    public static final byte TIF_GTD = '6';
+
+    // OrdRejReason (103)
+    public static final int ORD_REJ_UNKNOWN_SYMBOL = 1;
+    public static final int ORD_REJ_EXCEEDS_LIMIT = 3;
+    public static final int ORD_REJ_DUPLICATE = 6;
+    public static final int ORD_REJ_UNSUPPORTED = 11;
+    public static final int ORD_REJ_INCORRECT_QUANTITY = 13;
+    public static final int ORD_REJ_OTHER = 99;
+
+    // CxlRejReason (102) and CxlRejResponseTo (434)
+    public static final int CXL_REJ_TOO_LATE = 0;
+    public static final int CXL_REJ_UNKNOWN_ORDER = 1;
+    public static final int CXL_REJ_PENDING = 3;
+    public static final int CXL_REJ_OTHER = 99;
+    public static final byte RESPONSE_TO_CANCEL = '1';
+    public static final byte RESPONSE_TO_REPLACE = '2';
+
+    private Fix() {}
+
+    public static int msgType(char c) {
+        return c;
+    }
+
+    public static int msgType(char first, char second) {
+        return first << 8 | second;
+    }
+}
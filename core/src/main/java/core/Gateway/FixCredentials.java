@@ -0,0 +1,89 @@
+package core.Gateway;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Who may log on to the FixGateway: each SenderCompID is bound to one account and a password (Password, 554),
+ * each account to one SenderCompID. A Logon is accepted only for a configured SenderCompID with its password.
+ * <p>
+ * Passwords are kept as SHA-256 digests and compared in constant time. Filled before the gateway starts,
+ * read on the gateway thread only.
+ */
+public final class FixCredentials {
+
+    public static final int MAX_PASSWORD = 64;
+
+    private final List<byte[]> senders = new ArrayList<>();
+    private final List<byte[]> digests = new ArrayList<>();
+    private final List<Long> accounts = new ArrayList<>();
+    private final MessageDigest sha256;
+
+    public FixCredentials() {
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @param sessions "senderCompId:accountId:password" entries, comma separated, e.g. from configuration
+     */
+    public static FixCredentials parse(String sessions) {
+        FixCredentials credentials = new FixCredentials();
+        for (String session : sessions.split(",")) {
+            if (session.isBlank())
+                continue;
+
+            String[] parts = session.trim().split(":", 3);
+            if (parts.length != 3)
+                throw new IllegalArgumentException("FIX session must be senderCompId:accountId:password: " + parts[0]);
+
+            credentials.add(parts[0], Long.parseLong(parts[1]), parts[2]);
+        }
+
+        return credentials;
+    }
+
+    public FixCredentials add(String senderCompId, long accountId, String password) {
+        byte[] sender = senderCompId.getBytes(StandardCharsets.US_ASCII);
+        byte[] secret = password.getBytes(StandardCharsets.US_ASCII);
+        if (sender.length < 1 || sender.length > FixSession.MAX_COMP_ID)
+            throw new IllegalArgumentException("senderCompId must be 1 to " + FixSession.MAX_COMP_ID + " characters");
+        if (accountId <= 0)
+            throw new IllegalArgumentException("accountId must be > 0");
+        if (secret.length < 1 || secret.length > MAX_PASSWORD)
+            throw new IllegalArgumentException("password must be 1 to " + MAX_PASSWORD + " characters");
+        for (int i = 0; i < senders.size(); i++)
+            if (Arrays.equals(senders.get(i), sender) || accounts.get(i) == accountId)
+                throw new IllegalArgumentException(senderCompId + " or account " + accountId + " is already bound");
+
+        senders.add(sender);
+        digests.add(sha256.digest(secret));
+        accounts.add(accountId);
+
+        return this;
+    }
+
+    /**
+     * @return the sender's account, 0 if the sender is unknown or the password is wrong
+     */
+    long authenticate(byte[] sender, int senderLength, byte[] password, int passwordLength) {
+        for (int i = 0; i < senders.size(); i++) {
+            byte[] known = senders.get(i);
+            if (!Arrays.equals(known, 0, known.length, sender, 0, senderLength))
+                continue;
+
+            sha256.update(password, 0, passwordLength);
+
+            return MessageDigest.isEqual(digests.get(i), sha256.digest()) ? accounts.get(i) : 0;
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,876 @@
+package core.Gateway;
+
+import core.MarketData.MarketDataRing;
+import core.Order.OrderType;
+import core.Pipeline.Command;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * FIX 4.4 order entry acceptor on one thread: non-blocking sockets under a selector, messages parsed in place from
+ * each session's direct buffer, NewOrderSingle / OrderCancelRequest / OrderCancelReplaceRequest handed to the engine
+ * as commands, ExecutionReports encoded from the engine's execution ring (fills, cancels, amends, expiries).
+ * <p>
+ * Nothing is allocated per message: sessions and order slots are pooled, ClOrdIDs are kept as bytes.
+ * One instrument per gateway, prices must be on the book's tick grid and within its range.
+ * A session logs on with a SenderCompID and Password (554) from its FixCredentials, which bind it to one account;
+ * an Account (1) on the Logon must be that account. One session per account. When a session drops,
+ * every resting order of its account is cancelled with one MASS_CANCEL.
+ * Sequence numbers restart with every connection and gaps are not recovered (no ResendRequest), the session is
+ * logged out instead.
+ */
+public class FixGateway implements Runnable, MarketDataRing.Handler {
+
+    public static final int MAX_SESSIONS = 64;
+    public static final int MAX_ORDERS = 1 << 16;
+
+    private static final int MAX_EVENTS_PER_CYCLE = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+    private static final long LOGON_TIMEOUT_MILLIS = 10_000;
+    private static final long TIMER_PERIOD_MILLIS = 100;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final int MAX_HEARTBEAT_SECONDS = 3600;
+
+    private static final byte[] NONE = ascii("NONE");
+    private static final byte[] TEST_REQ_ID = ascii("TEST");
+    private static final byte[] MALFORMED = ascii("Malformed message");
+    private static final byte[] TOO_LONG = ascii("Message too long");
+    private static final byte[] BAD_LOGON = ascii("Logon rejected");
+    private static final byte[] COMP_ID = ascii("CompID problem");
+    private static final byte[] SEQ_TOO_LOW = ascii("MsgSeqNum too low");
+    private static final byte[] SEQ_GAP = ascii("MsgSeqNum gap, resend is not supported");
+    private static final byte[] NO_HEARTBEAT = ascii("Heartbeat timeout");
+    private static final byte[] UNSUPPORTED_MESSAGE = ascii("Unsupported MsgType");
+    private static final byte[] BAD_CL_ORD_ID = ascii("ClOrdID missing or longer than 32");
+    private static final byte[] UNKNOWN_SYMBOL = ascii("Unknown symbol");
+    private static final byte[] BAD_SIDE = ascii("Side must be buy or sell");
+    private static final byte[] BAD_QUANTITY = ascii("OrderQty must be a positive integer");
+    private static final byte[] BAD_PRICE = ascii("Price off the tick grid or out of range");
+    private static final byte[] BAD_ORDER = ascii("Only limit and market orders, limits DAY, GTC or GTD");
+    private static final byte[] DUPLICATE = ascii("Duplicate ClOrdID");
+    private static final byte[] TOO_MANY_ORDERS = ascii("Too many open orders");
+    private static final byte[] ENGINE_BUSY = ascii("Engine busy");
+    private static final byte[] THROTTLED = ascii("Order rate limit exceeded");
+    private static final byte[] UNKNOWN_ORDER = ascii("Unknown order");
+    private static final byte[] ALREADY_PENDING = ascii("Cancel or replace already pending");
+    private static final byte[] BAD_REPLACE = ascii("Side and order type can't change, OrderQty must exceed CumQty");
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final byte[] compId;
+    private final byte[] symbol;
+    private final int priceDecimals;
+    private final long priceFactor; // 10^priceDecimals
+    private final long tickUnits; // the tick in units of the last price decimal
+    private final long minTicks;
+    private final long maxTicks;
+    private final CommandSink commands;
+    private final MarketDataRing executionReports;
+    private final FixCredentials credentials;
+
+    private volatile boolean running = true;
+
+    // gateway thread only
+    private final FixReader reader = new FixReader();
+    private final FixWriter writer = new FixWriter();
+    private final FixOrders orders = new FixOrders(MAX_ORDERS);
+    private final FixSession[] sessions = new FixSession[MAX_SESSIONS];
+    private final int[] freeSessions = new int[MAX_SESSIONS];
+    private int freeSessionCount;
+    private final byte[] scratch = new byte[FixOrders.MAX_CL_ORD_ID];
+    private final byte[] password = new byte[FixCredentials.MAX_PASSWORD];
+    private final Consumer<SelectionKey> onSelected = this::onSelected;
+    private long now; // millis, read once per cycle
+    private long nextTimerMillis;
+    private long nextExecId = 1;
+
+    /**
+     * @param minPrice         same ladder as the engine's book, orders outside it are rejected here
+     * @param commands         the ring producer, the gateway thread must be its only caller
+     * @param executionReports fed on the matching thread by a MarketDataPublisher that is the engine's
+     *                         trade consumer, expiry listener and order update listener
+     * @param credentials      the sessions allowed to log on, not changed once the gateway runs
+     */
+    public FixGateway(InetSocketAddress address, String compId, String symbol, double minPrice, double maxPrice,
+                      double tickSize, CommandSink commands, MarketDataRing executionReports,
+                      FixCredentials credentials) {
+        if (tickSize <= 0 || minPrice > maxPrice)
+            throw new IllegalArgumentException("tickSize must be > 0 and minPrice <= maxPrice");
+        if (compId.isEmpty() || compId.length() > FixSession.MAX_COMP_ID)
+            throw new IllegalArgumentException("compId must be 1 to " + FixSession.MAX_COMP_ID + " characters");
+
+        this.compId = ascii(compId);
+        this.symbol = ascii(symbol);
+        this.priceDecimals = Math.max(0, BigDecimal.valueOf(tickSize).stripTrailingZeros().scale());
+        if (priceDecimals > 9)
+            throw new IllegalArgumentException("tickSize has more than 9 decimals: " + tickSize);
+        this.priceFactor = BigDecimal.ONE.scaleByPowerOfTen(priceDecimals).longValueExact();
+        this.tickUnits = Math.round(tickSize * priceFactor);
+        this.minTicks = Math.round(minPrice / tickSize);
+        this.maxTicks = Math.round(maxPrice / tickSize);
+        this.commands = commands;
+        this.executionReports = executionReports;
+        this.credentials = credentials;
+
+        for (int i = 0; i < MAX_SESSIONS; i++) {
+            sessions[i] = new FixSession(i);
+            sessions[i].reset();
+            freeSessions[i] = MAX_SESSIONS - 1 - i;
+        }
+        freeSessionCount = MAX_SESSIONS;
+
+        try {
+            this.selector = Selector.open();
+            this.server = ServerSocketChannel.open();
+            server.configureBlocking(false);
+            server.bind(address);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on " + address, e);
+        }
+    }
+
+    /**
+     * @return bound port, useful when listening on port 0
+     */
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                now = System.currentTimeMillis();
+                int work = selector.selectNow(onSelected);
+                work += executionReports.poll(this, MAX_EVENTS_PER_CYCLE);
+                if (now >= nextTimerMillis) {
+                    checkTimers();
+                    nextTimerMillis = now + TIMER_PERIOD_MILLIS;
+                }
+                flush();
+
+                if (work == 0)
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (FixSession session : sessions)
+                close(session);
+            try {
+                server.close();
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("FIX gateway close failed: " + e.getMessage());
+            }
+        }
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    private void onSelected(SelectionKey key) {
+        if (!key.isValid())
+            return;
+        if (key.isAcceptable()) {
+            accept();
+
+            return;
+        }
+
+        FixSession session = (FixSession) key.attachment();
+        try {
+            if (key.isValid() && key.isReadable())
+                read(session);
+            if (key.isValid() && key.isWritable())
+                write(session);
+        } catch (IOException e) {
+            close(session);
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = server.accept()) != null) {
+                if (freeSessionCount == 0) {
+                    channel.close();
+
+                    continue;
+                }
+
+                FixSession session = sessions[freeSessions[--freeSessionCount]];
+                session.channel = channel;
+                session.lastReceivedMillis = now;
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                session.key = channel.register(selector, SelectionKey.OP_READ, session);
+            }
+        } catch (IOException e) {
+            System.err.println("FIX accept failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parse every complete message received, keep the partial one at the start of the buffer
+     */
+    private void read(FixSession session) throws IOException {
+        ByteBuffer in = session.in;
+        if (session.channel.read(in) < 0) {
+            close(session);
+
+            return;
+        }
+        session.lastReceivedMillis = now;
+
+        int offset = 0;
+        while (session.channel != null) { // a message can end the session
+            int length = reader.parse(in, offset, in.position());
+            if (length == 0)
+                break;
+            if (length < 0) {
+                logout(session, MALFORMED);
+
+                return;
+            }
+
+            onMessage(session);
+            offset += length;
+        }
+        if (session.channel == null)
+            return;
+
+        in.limit(in.position()).position(offset);
+        in.compact();
+        if (!in.hasRemaining())
+            logout(session, TOO_LONG);
+    }
+
+    private void onMessage(FixSession session) {
+        int type = reader.msgType();
+        long seqNum = reader.getLong(Fix.MSG_SEQ_NUM);
+        if (!session.loggedOn) {
+            if (type == Fix.LOGON)
+                logon(session, seqNum);
+            else
+                close(session);
+
+            return;
+        }
+
+        if (!reader.valueEquals(Fix.SENDER_COMP_ID, session.senderCompId, session.senderCompIdLength)
+                || !reader.valueEquals(Fix.TARGET_COMP_ID, compId, compId.length)) {
+            logout(session, COMP_ID);
+
+            return;
+        }
+        if (seqNum != session.expectedSeqNum) {
+            logout(session, seqNum != FixReader.MISSING && seqNum < session.expectedSeqNum ? SEQ_TOO_LOW : SEQ_GAP);
+
+            return;
+        }
+        session.expectedSeqNum++;
+        session.testRequestSent = false;
+
+        if (type == Fix.NEW_ORDER_SINGLE)
+            newOrder(session);
+        else if (type == Fix.ORDER_CANCEL_REQUEST)
+            cancel(session);
+        else if (type == Fix.ORDER_CANCEL_REPLACE_REQUEST)
+            replace(session);
+        else if (type == Fix.TEST_REQUEST)
+            heartbeat(session, true);
+        else if (type == Fix.LOGOUT)
+            logout(session, null);
+        else if (type != Fix.HEARTBEAT)
+            reject(session, seqNum, UNSUPPORTED_MESSAGE);
+    }
+
+    /**
+     * The account comes from the credentials of the SenderCompID, never from the client
+     */
+    private void logon(FixSession session, long seqNum) {
+        session.senderCompIdLength = Math.max(0,
+                reader.copyValue(Fix.SENDER_COMP_ID, session.senderCompId, 0, FixSession.MAX_COMP_ID));
+        int senderLength = reader.valueLength(Fix.SENDER_COMP_ID);
+        int passwordLength = reader.valueLength(Fix.PASSWORD);
+        long accountId = senderLength >= 1 && senderLength <= FixSession.MAX_COMP_ID
+                && passwordLength >= 1 && passwordLength <= FixCredentials.MAX_PASSWORD
+                ? credentials.authenticate(session.senderCompId, senderLength, password,
+                        reader.copyValue(Fix.PASSWORD, password, 0, FixCredentials.MAX_PASSWORD))
+                : 0;
+        long heartbeat = reader.getLong(Fix.HEART_BT_INT);
+        if (accountId <= 0 || reader.has(Fix.ACCOUNT) && reader.getLong(Fix.ACCOUNT) != accountId
+                || !reader.valueEquals(Fix.TARGET_COMP_ID, compId, compId.length)
+                || seqNum < 1 || loggedOn(accountId)
+                || heartbeat <= 0 || heartbeat > MAX_HEARTBEAT_SECONDS
+                || reader.has(Fix.ENCRYPT_METHOD) && reader.getLong(Fix.ENCRYPT_METHOD) != 0) {
+            logout(session, BAD_LOGON);
+
+            return;
+        }
+
+        session.loggedOn = true;
+        session.accountId = accountId;
+        session.heartbeatMillis = heartbeat * 1000;
+        session.expectedSeqNum = seqNum + 1;
+
+        begin(session, Fix.LOGON)
+                .putChar(Fix.ENCRYPT_METHOD, (byte) '0')
+                .putLong(Fix.HEART_BT_INT, heartbeat);
+        send(session);
+    }
+
+    private boolean loggedOn(long accountId) {
+        for (FixSession session : sessions)
+            if (session.loggedOn && session.accountId == accountId)
+                return true;
+
+        return false;
+    }
+
+    private void newOrder(FixSession session) {
+        int clOrdIdLength = reader.valueLength(Fix.CL_ORD_ID);
+        if (clOrdIdLength < 1 || clOrdIdLength > FixOrders.MAX_CL_ORD_ID) {
+            reject(session, reader.getLong(Fix.MSG_SEQ_NUM), BAD_CL_ORD_ID);
+
+            return;
+        }
+
+        byte side = reader.getChar(Fix.SIDE);
+        byte ordType = reader.getChar(Fix.ORD_TYPE);
+        long quantity = reader.getLong(Fix.ORDER_QTY);
+        if (!reader.valueEquals(Fix.SYMBOL, symbol, symbol.length)) {
+            rejectOrder(session, Fix.ORD_REJ_UNKNOWN_SYMBOL, UNKNOWN_SYMBOL);
+
+            return;
+        }
+        if (side != Fix.SIDE_BUY && side != Fix.SIDE_SELL) {
+            rejectOrder(session, Fix.ORD_REJ_UNSUPPORTED, BAD_SIDE);
+
+            return;
+        }
+        if (quantity <= 0) {
+            rejectOrder(session, Fix.ORD_REJ_INCORRECT_QUANTITY, BAD_QUANTITY);
+
+            return;
+        }
+        if (orders.find(session.index, reader, Fix.CL_ORD_ID, scratch) != FixOrders.NONE) {
+            rejectOrder(session, Fix.ORD_REJ_DUPLICATE, DUPLICATE);
+
+            return;
+        }
+
+        boolean buy = side == Fix.SIDE_BUY;
+        OrderType type;
+        long ticks = 0;
+        long expiresAt = 0;
+        if (ordType == Fix.ORD_TYPE_LIMIT) {
+            ticks = ticks();
+            if (ticks < 0) {
+                rejectOrder(session, Fix.ORD_REJ_OTHER, BAD_PRICE);
+
+                return;
+            }
+            expiresAt = expiresAt();
+            if (expiresAt < 0) {
+                rejectOrder(session, Fix.ORD_REJ_UNSUPPORTED, BAD_ORDER);
+
+                return;
+            }
+            type = buy ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT;
+        } else if (ordType == Fix.ORD_TYPE_MARKET) {
+            type = buy ? OrderType.BUY_MARKET : OrderType.SELL_MARKET; // immediate or cancel whatever TimeInForce says
+        } else {
+            rejectOrder(session, Fix.ORD_REJ_UNSUPPORTED, BAD_ORDER);
+
+            return;
+        }
+
+        if (orders.size() == MAX_ORDERS) {
+            rejectOrder(session, Fix.ORD_REJ_EXCEEDS_LIMIT, TOO_MANY_ORDERS);
+
+            return;
+        }
+
+        long orderId = commands.submit(type, 0, ticks, quantity, session.accountId, expiresAt);
+        if (orderId == CommandSink.THROTTLED) {
+            rejectOrder(session, Fix.ORD_REJ_EXCEEDS_LIMIT, THROTTLED);
+
+            return;
+        }
+        if (orderId == CommandSink.REJECTED) {
+            rejectOrder(session, Fix.ORD_REJ_OTHER, ENGINE_BUSY);
+
+            return;
+        }
+
+        int slot = orders.add(orderId, session.index, side, ticks, quantity, reader);
+        putClOrdId(report(session, slot, Fix.EXEC_NEW, Fix.EXEC_NEW), slot);
+        send(session);
+    }
+
+    private void cancel(FixSession session) {
+        int clOrdIdLength = reader.valueLength(Fix.CL_ORD_ID);
+        if (clOrdIdLength < 1 || clOrdIdLength > FixOrders.MAX_CL_ORD_ID) {
+            reject(session, reader.getLong(Fix.MSG_SEQ_NUM), BAD_CL_ORD_ID);
+
+            return;
+        }
+
+        int slot = orders.find(session.index, reader, Fix.ORIG_CL_ORD_ID, scratch);
+        if (slot == FixOrders.NONE) {
+            rejectRequest(session, slot, Fix.RESPONSE_TO_CANCEL, Fix.CXL_REJ_UNKNOWN_ORDER, UNKNOWN_ORDER);
+
+            return;
+        }
+        if (orders.pending[slot] != FixOrders.NO_PENDING) {
+            rejectRequest(session, slot, Fix.RESPONSE_TO_CANCEL, Fix.CXL_REJ_PENDING, ALREADY_PENDING);
+
+            return;
+        }
+        if (commands.submit(OrderType.CANCEL, orders.orderId[slot], 0, 0, session.accountId, 0) == CommandSink.REJECTED) {
+            rejectRequest(session, slot, Fix.RESPONSE_TO_CANCEL, Fix.CXL_REJ_OTHER, ENGINE_BUSY);
+
+            return;
+        }
+
+        orders.setPending(slot, FixOrders.PENDING_CANCEL, reader, orders.price[slot], orders.orderQty[slot]);
+        putPendingClOrdId(report(session, slot, Fix.EXEC_PENDING_CANCEL, Fix.EXEC_PENDING_CANCEL), slot);
+        send(session);
+    }
+
+    /**
+     * The engine amends the resting order to the new price and to what remains of the new OrderQty,
+     * the order loses its time priority
+     */
+    private void replace(FixSession session) {
+        int clOrdIdLength = reader.valueLength(Fix.CL_ORD_ID);
+        if (clOrdIdLength < 1 || clOrdIdLength > FixOrders.MAX_CL_ORD_ID) {
+            reject(session, reader.getLong(Fix.MSG_SEQ_NUM), BAD_CL_ORD_ID);
+
+            return;
+        }
+
+        int slot = orders.find(session.index, reader, Fix.ORIG_CL_ORD_ID, scratch);
+        if (slot == FixOrders.NONE) {
+            rejectRequest(session, slot, Fix.RESPONSE_TO_REPLACE, Fix.CXL_REJ_UNKNOWN_ORDER, UNKNOWN_ORDER);
+
+            return;
+        }
+        if (orders.pending[slot] != FixOrders.NO_PENDING) {
+            rejectRequest(session, slot, Fix.RESPONSE_TO_REPLACE, Fix.CXL_REJ_PENDING, ALREADY_PENDING);
+
+            return;
+        }
+
+        long quantity = reader.getLong(Fix.ORDER_QTY);
+        if (reader.getChar(Fix.SIDE) != orders.side[slot] || reader.getChar(Fix.ORD_TYPE) != Fix.ORD_TYPE_LIMIT
+                || orders.price[slot] == 0 || quantity <= orders.cumQty[slot]) {
+            rejectRequest(session, slot, Fix.RESPONSE_TO_REPLACE, Fix.CXL_REJ_OTHER, BAD_REPLACE);
+
+            return;
+        }
+        long ticks = ticks();
+        if (ticks < 0) {
+            rejectRequest(session, slot, Fix.RESPONSE_TO_REPLACE, Fix.CXL_REJ_OTHER, BAD_PRICE);
+
+            return;
+        }
+        long amended = commands.submit(OrderType.AMEND, orders.orderId[slot], ticks, quantity - orders.cumQty[slot],
+                session.accountId, 0);
+        if (amended == CommandSink.REJECTED || amended == CommandSink.THROTTLED) {
+            rejectRequest(session, slot, Fix.RESPONSE_TO_REPLACE, Fix.CXL_REJ_OTHER,
+                    amended == CommandSink.THROTTLED ? THROTTLED : ENGINE_BUSY);
+
+            return;
+        }
+
+        orders.setPending(slot, FixOrders.PENDING_REPLACE, reader, ticks, quantity);
+        putPendingClOrdId(report(session, slot, Fix.EXEC_PENDING_REPLACE, Fix.EXEC_PENDING_REPLACE), slot);
+        send(session);
+    }
+
+    /**
+     * @return ticks of the Price field, -1 if it is missing, off the tick grid or out of the book's range
+     */
+    private long ticks() {
+        long price = reader.getDecimal(Fix.PRICE, priceDecimals);
+        if (price == FixReader.MISSING || price % tickUnits != 0)
+            return -1;
+
+        long ticks = price / tickUnits;
+
+        return ticks < minTicks || ticks > maxTicks ? -1 : ticks;
+    }
+
+    /**
+     * @return engine clock (epoch ns) of a limit order's TimeInForce, 0 for GTC, -1 if not supported.
+     * DAY ends at midnight UTC, GTD needs ExpireTime (126)
+     */
+    private long expiresAt() {
+        byte timeInForce = reader.getChar(Fix.TIME_IN_FORCE);
+        if (timeInForce == 0 || timeInForce == Fix.TIF_DAY)
+            return (now / MILLIS_PER_DAY + 1) * MILLIS_PER_DAY * 1_000_000L;
+        if (timeInForce == Fix.TIF_GTC)
+            return 0;
+        if (timeInForce != Fix.TIF_GTD)
+            return -1; // the book has no immediate or cancel limits
+
+        long expireTime = reader.getTimestamp(Fix.EXPIRE_TIME);
+
+        return expireTime == FixReader.MISSING || expireTime <= now ? -1 : expireTime * 1_000_000L;
+    }
+
+    @Override
+    public void onLevel(boolean bid, double price, long totalQty) {
+        // market data goes out over the websocket
+    }
+
+    @Override
+    public void onFill(double price, long qty, boolean buyInitiator,
+                       long makerOrderId, long takerOrderId, long makerAccountId, long takerAccountId) {
+        long lastPx = Math.round(price * priceFactor);
+        fill(orders.byOrderId(makerOrderId), lastPx, qty);
+        fill(orders.byOrderId(takerOrderId), lastPx, qty);
+    }
+
+    private void fill(int slot, long lastPx, long qty) {
+        if (slot == FixOrders.NONE)
+            return;
+
+        orders.cumQty[slot] += qty;
+        orders.notional[slot] += lastPx * qty;
+        boolean filled = orders.cumQty[slot] >= orders.orderQty[slot];
+        FixSession session = sessions[orders.session[slot]];
+        putClOrdId(report(session, slot, Fix.EXEC_TRADE, filled ? Fix.EXEC_FILL : Fix.EXEC_PARTIAL_FILL), slot)
+                .putDecimal(Fix.LAST_PX, lastPx, priceDecimals)
+                .putLong(Fix.LAST_QTY, qty);
+        send(session);
+
+        if (filled) {
+            rejectPending(session, slot, Fix.EXEC_FILL);
+            orders.remove(slot);
+        }
+    }
+
+    @Override
+    public void onCancelled(long orderId, long accountId, boolean buy, long remaining) {
+        int slot = orders.byOrderId(orderId);
+        if (slot == FixOrders.NONE)
+            return;
+
+        FixSession session = sessions[orders.session[slot]];
+        if (orders.pending[slot] == FixOrders.PENDING_CANCEL) {
+            putPendingClOrdId(report(session, slot, Fix.EXEC_CANCELED, Fix.EXEC_CANCELED), slot);
+            send(session);
+        } else {
+            terminal(session, slot, Fix.EXEC_CANCELED, -1); // what a market order could not fill
+        }
+        orders.remove(slot);
+    }
+
+    @Override
+    public void onAmended(long orderId, long accountId, boolean buy, long price, long quantity) {
+        int slot = orders.byOrderId(orderId);
+        if (slot == FixOrders.NONE || orders.pending[slot] != FixOrders.PENDING_REPLACE)
+            return;
+
+        FixSession session = sessions[orders.session[slot]];
+        int origLength = orders.clOrdIdLength[slot];
+        System.arraycopy(orders.clOrdId, slot * FixOrders.MAX_CL_ORD_ID, scratch, 0, origLength);
+        orders.replace(slot);
+        putClOrdId(report(session, slot, Fix.EXEC_REPLACED, status(slot)), slot)
+                .putBytes(Fix.ORIG_CL_ORD_ID, scratch, 0, origLength);
+        send(session);
+    }
+
+    @Override
+    public void onExpired(long orderId, long accountId, boolean buy, long remaining) {
+        int slot = orders.byOrderId(orderId);
+        if (slot == FixOrders.NONE)
+            return;
+
+        terminal(sessions[orders.session[slot]], slot, Fix.EXEC_EXPIRED, -1);
+        orders.remove(slot);
+    }
+
+    @Override
+    public void onRejected(long orderId, long accountId, int reason) {
+        int slot = orders.byOrderId(orderId);
+        if (slot == FixOrders.NONE)
+            return;
+
+        terminal(sessions[orders.session[slot]], slot, Fix.EXEC_REJECTED,
+                reason == Command.REJECTED_RISK ? Fix.ORD_REJ_EXCEEDS_LIMIT : Fix.ORD_REJ_OTHER);
+        orders.remove(slot);
+    }
+
+    /**
+     * Report the order's end, a cancel or replace still pending for it can't happen anymore
+     *
+     * @param ordRejReason -1 unless execType is rejected
+     */
+    private void terminal(FixSession session, int slot, byte execType, int ordRejReason) {
+        rejectPending(session, slot, execType);
+        FixWriter report = putClOrdId(report(session, slot, execType, execType), slot);
+        if (ordRejReason >= 0)
+            report.putLong(Fix.ORD_REJ_REASON, ordRejReason);
+        send(session);
+    }
+
+    /**
+     * ExecutionReport up to the ClOrdIDs, which depend on what it answers
+     */
+    private FixWriter report(FixSession session, int slot, byte execType, byte ordStatus) {
+        boolean done = ordStatus == Fix.EXEC_CANCELED || ordStatus == Fix.EXEC_EXPIRED || ordStatus == Fix.EXEC_REJECTED;
+        long cumQty = orders.cumQty[slot];
+        FixWriter report = begin(session, Fix.EXECUTION_REPORT)
+                .putLong(Fix.ORDER_ID, orders.orderId[slot])
+                .putLong(Fix.EXEC_ID, nextExecId++)
+                .putChar(Fix.EXEC_TYPE, execType)
+                .putChar(Fix.ORD_STATUS, ordStatus)
+                .putBytes(Fix.SYMBOL, symbol, 0, symbol.length)
+                .putChar(Fix.SIDE, orders.side[slot])
+                .putLong(Fix.ORDER_QTY, orders.orderQty[slot]);
+        if (orders.price[slot] != 0)
+            report.putDecimal(Fix.PRICE, orders.price[slot] * tickUnits, priceDecimals);
+
+        return report.putLong(Fix.LEAVES_QTY, done ? 0 : Math.max(0, orders.orderQty[slot] - cumQty))
+                .putLong(Fix.CUM_QTY, cumQty)
+                .putDecimal(Fix.AVG_PX, cumQty == 0 ? 0 : orders.notional[slot] / cumQty, priceDecimals)
+                .putTimestamp(Fix.TRANSACT_TIME, now);
+    }
+
+    private FixWriter putClOrdId(FixWriter report, int slot) {
+        return report.putBytes(Fix.CL_ORD_ID, orders.clOrdId, slot * FixOrders.MAX_CL_ORD_ID, orders.clOrdIdLength[slot]);
+    }
+
+    /**
+     * The request's ClOrdID, the order's own as OrigClOrdID
+     */
+    private FixWriter putPendingClOrdId(FixWriter report, int slot) {
+        return report.putBytes(Fix.CL_ORD_ID, orders.pendingClOrdId, slot * FixOrders.MAX_CL_ORD_ID,
+                        orders.pendingClOrdIdLength[slot])
+                .putBytes(Fix.ORIG_CL_ORD_ID, orders.clOrdId, slot * FixOrders.MAX_CL_ORD_ID, orders.clOrdIdLength[slot]);
+    }
+
+    private byte status(int slot) {
+        return orders.cumQty[slot] > 0 ? Fix.EXEC_PARTIAL_FILL : Fix.EXEC_NEW;
+    }
+
+    /**
+     * ExecutionReport for a NewOrderSingle that never reached the engine, echoes the request
+     */
+    private void rejectOrder(FixSession session, int reason, byte[] text) {
+        FixWriter report = begin(session, Fix.EXECUTION_REPORT)
+                .putBytes(Fix.ORDER_ID, NONE, 0, NONE.length);
+        echo(report, session, Fix.CL_ORD_ID)
+                .putLong(Fix.EXEC_ID, nextExecId++)
+                .putChar(Fix.EXEC_TYPE, Fix.EXEC_REJECTED)
+                .putChar(Fix.ORD_STATUS, Fix.EXEC_REJECTED)
+                .putLong(Fix.ORD_REJ_REASON, reason)
+                .putBytes(Fix.SYMBOL, symbol, 0, symbol.length);
+        if (reader.valueLength(Fix.SIDE) > 0)
+            echo(report, session, Fix.SIDE);
+        report.putLong(Fix.LEAVES_QTY, 0)
+                .putLong(Fix.CUM_QTY, 0)
+                .putLong(Fix.AVG_PX, 0)
+                .putTimestamp(Fix.TRANSACT_TIME, now)
+                .putBytes(Fix.TEXT, text, 0, text.length);
+        send(session);
+    }
+
+    /**
+     * OrderCancelReject for a request that was not sent to the engine
+     *
+     * @param slot the order, FixOrders.NONE if it is unknown
+     */
+    private void rejectRequest(FixSession session, int slot, byte responseTo, int reason, byte[] text) {
+        FixWriter reject = begin(session, Fix.ORDER_CANCEL_REJECT);
+        if (slot == FixOrders.NONE)
+            reject.putBytes(Fix.ORDER_ID, NONE, 0, NONE.length);
+        else
+            reject.putLong(Fix.ORDER_ID, orders.orderId[slot]);
+        echo(reject, session, Fix.CL_ORD_ID);
+        if (reader.valueLength(Fix.ORIG_CL_ORD_ID) > 0)
+            echo(reject, session, Fix.ORIG_CL_ORD_ID);
+        reject.putChar(Fix.ORD_STATUS, slot == FixOrders.NONE ? Fix.EXEC_REJECTED : status(slot))
+                .putChar(Fix.CXL_REJ_RESPONSE_TO, responseTo)
+                .putLong(Fix.CXL_REJ_REASON, reason)
+                .putBytes(Fix.TEXT, text, 0, text.length);
+        send(session);
+    }
+
+    /**
+     * OrderCancelReject for a cancel or replace the engine dropped: the order was done before it got there
+     */
+    private void rejectPending(FixSession session, int slot, byte ordStatus) {
+        byte pending = orders.pending[slot];
+        if (pending == FixOrders.NO_PENDING)
+            return;
+
+        FixWriter reject = begin(session, Fix.ORDER_CANCEL_REJECT)
+                .putLong(Fix.ORDER_ID, orders.orderId[slot]);
+        putPendingClOrdId(reject, slot)
+                .putChar(Fix.ORD_STATUS, ordStatus)
+                .putChar(Fix.CXL_REJ_RESPONSE_TO,
+                        pending == FixOrders.PENDING_CANCEL ? Fix.RESPONSE_TO_CANCEL : Fix.RESPONSE_TO_REPLACE)
+                .putLong(Fix.CXL_REJ_REASON, Fix.CXL_REJ_TOO_LATE);
+        send(session);
+        orders.pending[slot] = FixOrders.NO_PENDING;
+    }
+
+    private void reject(FixSession session, long refSeqNum, byte[] text) {
+        begin(session, Fix.REJECT)
+                .putLong(Fix.REF_SEQ_NUM, refSeqNum)
+                .putBytes(Fix.TEXT, text, 0, text.length);
+        send(session);
+    }
+
+    /**
+     * @param echo answer a TestRequest with its TestReqID
+     */
+    private void heartbeat(FixSession session, boolean echo) {
+        FixWriter heartbeat = begin(session, Fix.HEARTBEAT);
+        if (echo && reader.valueLength(Fix.TEST_REQ_ID) > 0)
+            echo(heartbeat, session, Fix.TEST_REQ_ID);
+        send(session);
+    }
+
+    /**
+     * Say why if the peer is known, then close
+     */
+    private void logout(FixSession session, byte[] text) {
+        if (session.senderCompIdLength > 0) {
+            FixWriter logout = begin(session, Fix.LOGOUT);
+            if (text != null)
+                logout.putBytes(Fix.TEXT, text, 0, text.length);
+            send(session);
+            if (session.channel != null)
+                try {
+                    write(session); // best effort, the socket closes right after
+                } catch (IOException e) {
+                    // closing anyway
+                }
+        }
+        close(session);
+    }
+
+    /**
+     * Cancel on disconnect: the account's resting orders are cancelled before the session can be reused
+     */
+    private void close(FixSession session) {
+        if (session.channel == null)
+            return;
+
+        if (session.loggedOn)
+            while (commands.submit(OrderType.MASS_CANCEL, 0, 0, 0, session.accountId, 0) == CommandSink.REJECTED
+                    && running)
+                Thread.onSpinWait();
+        orders.removeSession(session.index);
+
+        if (session.key != null)
+            session.key.cancel();
+        try {
+            session.channel.close();
+        } catch (IOException e) {
+            // nothing left to do with it
+        }
+        session.reset();
+        freeSessions[freeSessionCount++] = session.index;
+    }
+
+    private void checkTimers() {
+        for (FixSession session : sessions) {
+            if (session.channel == null)
+                continue;
+
+            long idle = now - session.lastReceivedMillis;
+            if (!session.loggedOn) {
+                if (idle > LOGON_TIMEOUT_MILLIS)
+                    close(session);
+
+                continue;
+            }
+
+            if (idle > 2 * session.heartbeatMillis) {
+                logout(session, NO_HEARTBEAT);
+
+                continue;
+            }
+            if (idle > session.heartbeatMillis + session.heartbeatMillis / 5 && !session.testRequestSent) {
+                begin(session, Fix.TEST_REQUEST).putBytes(Fix.TEST_REQ_ID, TEST_REQ_ID, 0, TEST_REQ_ID.length);
+                send(session);
+                session.testRequestSent = true;
+            }
+            if (now - session.lastSentMillis >= session.heartbeatMillis)
+                heartbeat(session, false);
+        }
+    }
+
+    private FixWriter begin(FixSession session, int msgType) {
+        return writer.begin(msgType, compId, compId.length, session.senderCompId, session.senderCompIdLength,
+                session.nextSeqNum++, now);
+    }
+
+    private FixWriter echo(FixWriter message, FixSession session, int tag) {
+        return message.putBytes(tag, session.in, reader.valueOffset(tag), reader.valueLength(tag));
+    }
+
+    /**
+     * Queue the message for the end of the cycle, a session whose output backs up past its buffer is dropped
+     */
+    private void send(FixSession session) {
+        if (session.channel == null)
+            return;
+
+        if (!writer.finish(session.out)) {
+            close(session);
+
+            return;
+        }
+        session.lastSentMillis = now;
+        session.dirty = true;
+    }
+
+    private void flush() {
+        for (FixSession session : sessions) {
+            if (!session.dirty)
+                continue;
+
+            try {
+                write(session);
+            } catch (IOException e) {
+                close(session);
+            }
+        }
+    }
+
+    private void write(FixSession session) throws IOException {
+        ByteBuffer out = session.out;
+        out.flip();
+        session.channel.write(out);
+        out.compact();
+        session.dirty = false;
+        session.key.interestOps(out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,166 @@
+package core.Gateway;
+
+import core.Collections.LongIntHashMap;
+
+/**
+ * Live orders entered through the gateway, what an ExecutionReport needs to echo: session, ClOrdID, side,
+ * quantities and the average price so far. Preallocated primitive slots, found by engine order id
+ * and by (session, ClOrdID). Gateway thread only.
+ */
+final class FixOrders {
+
+    static final int MAX_CL_ORD_ID = 32;
+    static final int NONE = -1;
+
+    static final byte NO_PENDING = 0;
+    static final byte PENDING_CANCEL = 1;
+    static final byte PENDING_REPLACE = 2;
+
+    final long[] orderId;
+    final int[] session;
+    final byte[] side;
+    final long[] price; // ticks, 0 for market orders
+    final long[] orderQty;
+    final long[] cumQty;
+    final long[] notional; // sum of fill price in ticks * quantity
+    final byte[] clOrdId;
+    final int[] clOrdIdLength;
+
+    // cancel / replace sent to the engine and not confirmed yet
+    final byte[] pending;
+    final byte[] pendingClOrdId;
+    final int[] pendingClOrdIdLength;
+    final long[] pendingPrice;
+    final long[] pendingQty;
+
+    private final LongIntHashMap byOrderId;
+    private final LongIntHashMap byClOrdId;
+    private final int[] free;
+    private int freeCount;
+
+    FixOrders(int capacity) {
+        orderId = new long[capacity];
+        session = new int[capacity];
+        side = new byte[capacity];
+        price = new long[capacity];
+        orderQty = new long[capacity];
+        cumQty = new long[capacity];
+        notional = new long[capacity];
+        clOrdId = new byte[capacity * MAX_CL_ORD_ID];
+        clOrdIdLength = new int[capacity];
+        pending = new byte[capacity];
+        pendingClOrdId = new byte[capacity * MAX_CL_ORD_ID];
+        pendingClOrdIdLength = new int[capacity];
+        pendingPrice = new long[capacity];
+        pendingQty = new long[capacity];
+        byOrderId = new LongIntHashMap(capacity);
+        byClOrdId = new LongIntHashMap(capacity);
+
+        free = new int[capacity];
+        for (int i = 0; i < capacity; i++)
+            free[i] = capacity - 1 - i;
+        freeCount = capacity;
+    }
+
+    /**
+     * @return the slot, NONE if the table is full. The ClOrdID key must not be live on the session (see find)
+     */
+    int add(long id, int sessionIndex, byte sideCode, long priceTicks, long quantity, FixReader reader) {
+        if (freeCount == 0)
+            return NONE;
+
+        int slot = free[--freeCount];
+        orderId[slot] = id;
+        session[slot] = sessionIndex;
+        side[slot] = sideCode;
+        price[slot] = priceTicks;
+        orderQty[slot] = quantity;
+        cumQty[slot] = 0;
+        notional[slot] = 0;
+        pending[slot] = NO_PENDING;
+        clOrdIdLength[slot] = reader.copyValue(Fix.CL_ORD_ID, clOrdId, slot * MAX_CL_ORD_ID, MAX_CL_ORD_ID);
+
+        byOrderId.put(id, slot);
+        byClOrdId.put(key(sessionIndex, clOrdId, slot * MAX_CL_ORD_ID, clOrdIdLength[slot]), slot);
+
+        return slot;
+    }
+
+    int byOrderId(long id) {
+        return byOrderId.get(id);
+    }
+
+    /**
+     * Live order of the session whose ClOrdID is the value of the tag in the last parsed message
+     *
+     * @return NONE if there is none
+     */
+    int find(int sessionIndex, FixReader reader, int tag, byte[] scratch) {
+        int length = reader.copyValue(tag, scratch, 0, MAX_CL_ORD_ID);
+        if (length < 0 || reader.valueLength(tag) > MAX_CL_ORD_ID)
+            return NONE;
+
+        int slot = byClOrdId.get(key(sessionIndex, scratch, 0, length));
+        if (slot == LongIntHashMap.MISSING || session[slot] != sessionIndex
+                || !reader.valueEquals(tag, clOrdId, slot * MAX_CL_ORD_ID, clOrdIdLength[slot]))
+            return NONE;
+
+        return slot;
+    }
+
+    /**
+     * Remember a cancel or replace until the engine confirms it, the request's ClOrdID is in the last parsed message
+     */
+    void setPending(int slot, byte type, FixReader reader, long newPrice, long newQty) {
+        pending[slot] = type;
+        pendingClOrdIdLength[slot] = reader.copyValue(Fix.CL_ORD_ID, pendingClOrdId, slot * MAX_CL_ORD_ID, MAX_CL_ORD_ID);
+        pendingPrice[slot] = newPrice;
+        pendingQty[slot] = newQty;
+    }
+
+    /**
+     * Confirmed replace: the pending ClOrdID, price and quantity become the order's own
+     */
+    void replace(int slot) {
+        byClOrdId.remove(key(session[slot], clOrdId, slot * MAX_CL_ORD_ID, clOrdIdLength[slot]));
+        System.arraycopy(pendingClOrdId, slot * MAX_CL_ORD_ID, clOrdId, slot * MAX_CL_ORD_ID, pendingClOrdIdLength[slot]);
+        clOrdIdLength[slot] = pendingClOrdIdLength[slot];
+        price[slot] = pendingPrice[slot];
+        orderQty[slot] = pendingQty[slot];
+        pending[slot] = NO_PENDING;
+        byClOrdId.put(key(session[slot], clOrdId, slot * MAX_CL_ORD_ID, clOrdIdLength[slot]), slot);
+    }
+
+    void remove(int slot) {
+        byOrderId.remove(orderId[slot]);
+        byClOrdId.remove(key(session[slot], clOrdId, slot * MAX_CL_ORD_ID, clOrdIdLength[slot]));
+        orderId[slot] = 0;
+        free[freeCount++] = slot;
+    }
+
+    /**
+     * Drop every order of a closed session, the engine cancels them with one MASS_CANCEL
+     */
+    void removeSession(int sessionIndex) {
+        for (int slot = 0; slot < orderId.length; slot++)
+            if (orderId[slot] != 0 && session[slot] == sessionIndex)
+                remove(slot);
+    }
+
+    int size() {
+        return orderId.length - freeCount;
+    }
+
+    /**
+     * FNV-1a over the session and the ClOrdID bytes, never 0. Collisions are told apart by comparing the bytes
+     */
+    private static long key(int sessionIndex, byte[] bytes, int offset, int length) {
+        long hash = 0xcbf29ce484222325L ^ sessionIndex;
+        for (int i = 0; i < length; i++) {
+            hash ^= bytes[offset + i];
+            hash *= 0x100000001b3L;
+        }
+
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,279 @@
+package core.Gateway;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses FIX 4.4 tag=value messages in place: one pass over the bytes records where every field's value starts
+ * and ends and sums the checksum on the way, values are decoded only when asked for and never become Strings.
+ * <p>
+ * One instance per gateway thread, the field table is reused by every message.
+ * The buffer must not change while the fields of the last parsed message are read.
+ */
+public final class FixReader {
+
+    public static final long MISSING = Long.MIN_VALUE;
+    public static final int MAX_FIELDS = 64;
+
+    private static final byte[] BEGIN_STRING = "8=FIX.4.4\u00019=".getBytes();
+    private static final int TRAILER = 7; // 10=nnn<SOH>
+
+    private final int[] tags = new int[MAX_FIELDS];
+    private final int[] starts = new int[MAX_FIELDS];
+    private final int[] lengths = new int[MAX_FIELDS];
+    private int fieldCount;
+    private int msgType;
+    private ByteBuffer buffer;
+
+    /**
+     * Parse the message that starts at offset
+     *
+     * @return length of the message, 0 if it is not complete before limit,
+     * -1 if it is malformed: wrong begin string, body length or checksum, too many fields
+     */
+    public int parse(ByteBuffer buffer, int offset, int limit) {
+        this.buffer = buffer;
+        fieldCount = 0;
+        msgType = 0;
+
+        int position = offset;
+        int checksum = 0;
+        for (byte b : BEGIN_STRING) {
+            if (position >= limit)
+                return 0;
+            if (buffer.get(position++) != b)
+                return -1;
+            checksum += b;
+        }
+
+        int bodyLength = 0;
+        while (true) {
+            if (position >= limit)
+                return 0;
+            byte b = buffer.get(position++);
+            checksum += b;
+            if (b == Fix.SOH)
+                break;
+            if (b < '0' || b > '9' || bodyLength > 1 << 20)
+                return -1;
+            bodyLength = bodyLength * 10 + (b - '0');
+        }
+
+        int bodyEnd = position + bodyLength;
+        if (bodyEnd + TRAILER > limit)
+            return 0;
+
+        while (position < bodyEnd) {
+            int tag = 0;
+            byte b;
+            while ((b = buffer.get(position++)) != '=') {
+                checksum += b;
+                if (b < '0' || b > '9' || position >= bodyEnd)
+                    return -1;
+                tag = tag * 10 + (b - '0');
+            }
+            checksum += b;
+            if (tag == 0)
+                return -1;
+
+            int start = position;
+            while ((b = buffer.get(position++)) != Fix.SOH) {
+                checksum += b;
+                if (position >= bodyEnd)
+                    return -1;
+            }
+            checksum += b;
+
+            if (fieldCount == MAX_FIELDS)
+                return -1;
+            tags[fieldCount] = tag;
+            starts[fieldCount] = start;
+            lengths[fieldCount] = position - 1 - start;
+            fieldCount++;
+        }
+        if (position != bodyEnd)
+            return -1;
+
+        if (buffer.get(position) != '1' || buffer.get(position + 1) != '0' || buffer.get(position + 2) != '='
+                || buffer.get(position + 6) != Fix.SOH)
+            return -1;
+        int expected = (buffer.get(position + 3) - '0') * 100 + (buffer.get(position + 4) - '0') * 10
+                + buffer.get(position + 5) - '0';
+        if ((checksum & 0xFF) != expected)
+            return -1;
+
+        int type = index(Fix.MSG_TYPE);
+        if (type < 0 || lengths[type] < 1 || lengths[type] > 2)
+            return -1;
+        msgType = lengths[type] == 1 ? buffer.get(starts[type])
+                : Fix.msgType((char) buffer.get(starts[type]), (char) buffer.get(starts[type] + 1));
+
+        return bodyEnd + TRAILER - offset;
+    }
+
+    public int msgType() {
+        return msgType;
+    }
+
+    public boolean has(int tag) {
+        return index(tag) >= 0;
+    }
+
+    /**
+     * @return MISSING if the field is absent or not an integer
+     */
+    public long getLong(int tag) {
+        int i = index(tag);
+        if (i < 0 || lengths[i] == 0 || lengths[i] > 18)
+            return MISSING;
+
+        int position = starts[i];
+        int end = position + lengths[i];
+        boolean negative = buffer.get(position) == '-';
+        if (negative && ++position == end)
+            return MISSING;
+
+        long value = 0;
+        for (; position < end; position++) {
+            int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit > 9)
+                return MISSING;
+            value = value * 10 + digit;
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * Fixed point decimal: "65000.25" with 2 decimals is 6500025
+     *
+     * @return MISSING if the field is absent, not a number or has non-zero digits past the decimals
+     */
+    public long getDecimal(int tag, int decimals) {
+        int i = index(tag);
+        if (i < 0 || lengths[i] == 0 || lengths[i] > 24)
+            return MISSING;
+
+        int position = starts[i];
+        int end = position + lengths[i];
+        boolean negative = buffer.get(position) == '-';
+        if (negative)
+            position++;
+
+        long value = 0;
+        int fraction = -1; // digits after the point so far, -1 before it
+        boolean digits = false;
+        for (; position < end; position++) {
+            byte b = buffer.get(position);
+            if (b == '.' && fraction < 0) {
+                fraction = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9)
+                return MISSING;
+
+            digits = true;
+            if (fraction >= decimals) { // past the tick grid, only trailing zeros are fine
+                if (digit != 0)
+                    return MISSING;
+                continue;
+            }
+            if (value > (Long.MAX_VALUE - digit) / 10)
+                return MISSING;
+            value = value * 10 + digit;
+            if (fraction >= 0)
+                fraction++;
+        }
+        if (!digits)
+            return MISSING;
+
+        for (int scale = Math.max(fraction, 0); scale < decimals; scale++) {
+            if (value > Long.MAX_VALUE / 10)
+                return MISSING;
+            value *= 10;
+        }
+
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return first byte of the value, 0 if the field is absent or empty
+     */
+    public byte getChar(int tag) {
+        int i = index(tag);
+
+        return i < 0 || lengths[i] == 0 ? 0 : buffer.get(starts[i]);
+    }
+
+    /**
+     * @return epoch millis of a UTCTimestamp field, MISSING if absent or malformed
+     */
+    public long getTimestamp(int tag) {
+        int i = index(tag);
+        if (i < 0)
+            return MISSING;
+
+        long millis = FixTime.parse(buffer, starts[i], lengths[i]);
+
+        return millis == FixTime.INVALID ? MISSING : millis;
+    }
+
+    /**
+     * @return -1 if the field is absent
+     */
+    public int valueLength(int tag) {
+        int i = index(tag);
+
+        return i < 0 ? -1 : lengths[i];
+    }
+
+    /**
+     * @return absolute offset of the value in the parsed buffer, -1 if the field is absent
+     */
+    public int valueOffset(int tag) {
+        int i = index(tag);
+
+        return i < 0 ? -1 : starts[i];
+    }
+
+    public boolean valueEquals(int tag, byte[] expected, int length) {
+        return valueEquals(tag, expected, 0, length);
+    }
+
+    public boolean valueEquals(int tag, byte[] expected, int offset, int length) {
+        int i = index(tag);
+        if (i < 0 || lengths[i] != length)
+            return false;
+
+        for (int k = 0; k < length; k++)
+            if (buffer.get(starts[i] + k) != expected[offset + k])
+                return false;
+
+        return true;
+    }
+
+    /**
+     * @return bytes copied, at most max, -1 if the field is absent
+     */
+    public int copyValue(int tag, byte[] target, int targetOffset, int max) {
+        int i = index(tag);
+        if (i < 0)
+            return -1;
+
+        int length = Math.min(lengths[i], max);
+        buffer.get(starts[i], target, targetOffset, length);
+
+        return length;
+    }
+
+    /**
+     * The first occurrence, repeating groups are not supported
+     */
+    private int index(int tag) {
+        for (int i = 0; i < fieldCount; i++)
+            if (tags[i] == tag)
+                return i;
+
+        return -1;
+    }
+}
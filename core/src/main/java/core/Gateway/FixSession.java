@@ -0,0 +1,55 @@
+package core.Gateway;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * State of one connection, pooled by the gateway: buffers are allocated once and reused by the next connection.
+ * Gateway thread only.
+ */
+final class FixSession {
+
+    static final int IN_CAPACITY = 64 * 1024;
+    static final int OUT_CAPACITY = 256 * 1024;
+    static final int MAX_COMP_ID = 32;
+
+    final int index;
+    final ByteBuffer in = ByteBuffer.allocateDirect(IN_CAPACITY); // received, not parsed yet: [0, position)
+    final ByteBuffer out = ByteBuffer.allocateDirect(OUT_CAPACITY); // encoded, not written yet: [0, position)
+    final byte[] senderCompId = new byte[MAX_COMP_ID];
+
+    SocketChannel channel;
+    SelectionKey key;
+    int senderCompIdLength;
+    boolean loggedOn;
+    boolean testRequestSent;
+    boolean dirty; // has output to flush at the end of the cycle
+    long accountId;
+    long expectedSeqNum;
+    long nextSeqNum;
+    long heartbeatMillis;
+    long lastReceivedMillis;
+    long lastSentMillis;
+
+    FixSession(int index) {
+        this.index = index;
+    }
+
+    void reset() {
+        in.clear();
+        out.clear();
+        channel = null;
+        key = null;
+        senderCompIdLength = 0;
+        loggedOn = false;
+        testRequestSent = false;
+        dirty = false;
+        accountId = 0;
+        expectedSeqNum = 1;
+        nextSeqNum = 1;
+        heartbeatMillis = 0;
+        lastReceivedMillis = 0;
+        lastSentMillis = 0;
+    }
+}
@@ -0,0 +1,104 @@
+package core.Gateway;
+
+import java.nio.ByteBuffer;
+
+/**
+ * UTCTimestamp (YYYYMMDD-HH:MM:SS[.sss]) to and from epoch millis without java.time objects
+ */
+final class FixTime {
+
+    static final int LENGTH = 21; // with millis
+    static final long INVALID = Long.MIN_VALUE;
+
+    private FixTime() {}
+
+    /**
+     * @return epoch millis, INVALID if the value is not a UTCTimestamp
+     */
+    static long parse(ByteBuffer buffer, int offset, int length) {
+        if (length != 17 && length != LENGTH)
+            return INVALID;
+        if (buffer.get(offset + 8) != '-' || buffer.get(offset + 11) != ':' || buffer.get(offset + 14) != ':')
+            return INVALID;
+        if (length == LENGTH && buffer.get(offset + 17) != '.')
+            return INVALID;
+
+        int year = digits(buffer, offset, 4);
+        int month = digits(buffer, offset + 4, 2);
+        int day = digits(buffer, offset + 6, 2);
+        int hour = digits(buffer, offset + 9, 2);
+        int minute = digits(buffer, offset + 12, 2);
+        int second = digits(buffer, offset + 15, 2);
+        int millis = length == LENGTH ? digits(buffer, offset + 18, 3) : 0;
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 60 || millis < 0)
+            return INVALID;
+
+        long days = daysFromCivil(year, month, day);
+
+        return ((days * 24 + hour) * 60 + minute) * 60_000L + second * 1000L + millis;
+    }
+
+    /**
+     * Writes LENGTH bytes
+     */
+    static void format(byte[] target, int offset, long epochMillis) {
+        long days = Math.floorDiv(epochMillis, 86_400_000L);
+        int millisOfDay = (int) Math.floorMod(epochMillis, 86_400_000L);
+
+        // civil from days (H. Hinnant)
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        int doe = (int) (z - era * 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+
+        put(target, offset, year, 4);
+        put(target, offset + 4, month, 2);
+        put(target, offset + 6, day, 2);
+        target[offset + 8] = '-';
+        put(target, offset + 9, millisOfDay / 3_600_000, 2);
+        target[offset + 11] = ':';
+        put(target, offset + 12, millisOfDay / 60_000 % 60, 2);
+        target[offset + 14] = ':';
+        put(target, offset + 15, millisOfDay / 1000 % 60, 2);
+        target[offset + 17] = '.';
+        put(target, offset + 18, millisOfDay % 1000, 3);
+    }
+
+    static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        int era = (year >= 0 ? year : year - 399) / 400;
+        int yoe = year - era * 400;
+        int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+
+        return era * 146097L + doe - 719468;
+    }
+
+    /**
+     * @return -1 if a byte is not a digit
+     */
+    private static int digits(ByteBuffer buffer, int offset, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int digit = buffer.get(offset + i) - '0';
+            if (digit < 0 || digit > 9)
+                return -1;
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+    private static void put(byte[] target, int offset, int value, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            target[offset + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package core.Gateway;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes FIX 4.4 messages without allocating: the body goes into a reused byte array,
+ * finish() writes begin string, body length, the body and the checksum into the output buffer.
+ * <p>
+ * One instance per gateway thread.
+ */
+public final class FixWriter {
+
+    public static final int MAX_BODY = 1024;
+
+    private static final byte[] BEGIN_STRING = "8=FIX.4.4\u00019=".getBytes();
+
+    private final byte[] body = new byte[MAX_BODY];
+    private final byte[] digits = new byte[20];
+    private int length;
+
+    /**
+     * Start a message with the standard header
+     */
+    public FixWriter begin(int msgType, byte[] senderCompId, int senderLength, byte[] targetCompId, int targetLength,
+                           long seqNum, long sendingTimeMillis) {
+        length = 0;
+        tag(Fix.MSG_TYPE);
+        if (msgType > 0xFF)
+            body[length++] = (byte) (msgType >> 8);
+        body[length++] = (byte) msgType;
+        body[length++] = Fix.SOH;
+
+        putBytes(Fix.SENDER_COMP_ID, senderCompId, 0, senderLength);
+        putBytes(Fix.TARGET_COMP_ID, targetCompId, 0, targetLength);
+        putLong(Fix.MSG_SEQ_NUM, seqNum);
+
+        return putTimestamp(Fix.SENDING_TIME, sendingTimeMillis);
+    }
+
+    public FixWriter putLong(int tag, long value) {
+        tag(tag);
+        number(value);
+        body[length++] = Fix.SOH;
+
+        return this;
+    }
+
+    /**
+     * Fixed point decimal, 6500025 with scale 2 is "65000.25"
+     */
+    public FixWriter putDecimal(int tag, long unscaled, int scale) {
+        tag(tag);
+        if (unscaled < 0) {
+            body[length++] = '-';
+            unscaled = -unscaled;
+        }
+
+        long factor = 1;
+        for (int i = 0; i < scale; i++)
+            factor *= 10;
+        number(unscaled / factor);
+        if (scale > 0) {
+            body[length++] = '.';
+            long fraction = unscaled % factor;
+            for (long f = factor / 10; f > 0; f /= 10)
+                body[length++] = (byte) ('0' + fraction / f % 10);
+        }
+        body[length++] = Fix.SOH;
+
+        return this;
+    }
+
+    public FixWriter putChar(int tag, byte value) {
+        tag(tag);
+        body[length++] = value;
+        body[length++] = Fix.SOH;
+
+        return this;
+    }
+
+    public FixWriter putBytes(int tag, byte[] source, int offset, int count) {
+        tag(tag);
+        System.arraycopy(source, offset, body, length, count);
+        length += count;
+        body[length++] = Fix.SOH;
+
+        return this;
+    }
+
+    /**
+     * Copy a value straight out of a received message
+     */
+    public FixWriter putBytes(int tag, ByteBuffer source, int offset, int count) {
+        tag(tag);
+        source.get(offset, body, length, count);
+        length += count;
+        body[length++] = Fix.SOH;
+
+        return this;
+    }
+
+    public FixWriter putTimestamp(int tag, long epochMillis) {
+        tag(tag);
+        FixTime.format(body, length, epochMillis);
+        length += FixTime.LENGTH;
+        body[length++] = Fix.SOH;
+
+        return this;
+    }
+
+    /**
+     * Write the framed message at the output's position
+     *
+     * @return false if it doesn't fit, the output is untouched
+     */
+    public boolean finish(ByteBuffer out) {
+        int lengthDigits = format(length);
+        if (out.remaining() < BEGIN_STRING.length + lengthDigits + 1 + length + 7)
+            return false;
+
+        int checksum = 0;
+        for (byte b : BEGIN_STRING) {
+            out.put(b);
+            checksum += b;
+        }
+        for (int i = digits.length - lengthDigits; i < digits.length; i++) {
+            out.put(digits[i]);
+            checksum += digits[i];
+        }
+        out.put(Fix.SOH);
+        checksum += Fix.SOH;
+        for (int i = 0; i < length; i++)
+            checksum += body[i];
+        out.put(body, 0, length);
+
+        checksum &= 0xFF;
+        out.put((byte) '1').put((byte) '0').put((byte) '=')
+                .put((byte) ('0' + checksum / 100)).put((byte) ('0' + checksum / 10 % 10)).put((byte) ('0' + checksum % 10))
+                .put(Fix.SOH);
+
+        return true;
+    }
+
+    private void tag(int tag) {
+        number(tag);
+        body[length++] = '=';
+    }
+
+    private void number(long value) {
+        if (value < 0) {
+            body[length++] = '-';
+            value = -value;
+        }
+
+        int count = format(value);
+        System.arraycopy(digits, digits.length - count, body, length, count);
+        length += count;
+    }
+
+    /**
+     * Digits of a non-negative value at the end of the digits array
+     *
+     * @return number of digits
+     */
+    private int format(long value) {
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+
+        return digits.length - position;
+    }
+}
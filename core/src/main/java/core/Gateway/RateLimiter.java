@@ -0,0 +1,117 @@
+package core.Gateway;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Token bucket per client, lock-free: any number of request threads throttle at once.
+ * <p>
+ * Each bucket is a single long, the time at which it will be full again (the GCRA form of a token bucket):
+ * taking n tokens pushes it n intervals further, the take is refused if that is more than burst intervals ahead
+ * of now. One CAS per take, no refill timer. Buckets sit in an open-addressing table, a client claims its slot
+ * with a CAS on the key. Every slot has a cache line of its own so busy clients don't share lines.
+ * <p>
+ * A client with no slot within a few probes takes over one whose bucket is full again (idle since it was last used,
+ * the new owner starts from the same full bucket), keys are replaced and never cleared so probe chains stay intact.
+ * A take racing the takeover can be charged to the new owner, once. Client 0, and clients that find neither a free
+ * nor an idle slot, share one overflow bucket. Key clients on an authenticated identity, ids a caller picks freely
+ * would take over idle slots at will.
+ */
+public final class RateLimiter {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int STRIDE = 8; // longs per slot: key, full-at, padding
+    private static final int MAX_PROBES = 16;
+
+    private final long[] slots;
+    private final int mask;
+    private final int overflow;
+    private final long interval;
+    private final long tolerance;
+
+    /**
+     * @param maxClients    clients with a bucket of their own, the table is sized at twice that
+     * @param ratePerSecond tokens added per second, at most 10^9
+     * @param burst         bucket size, a take of more tokens than this never succeeds
+     */
+    public RateLimiter(int maxClients, long ratePerSecond, long burst) {
+        if (maxClients <= 0 || maxClients > 1 << 24)
+            throw new IllegalArgumentException("maxClients must be in [1, 2^24]");
+        if (ratePerSecond <= 0 || ratePerSecond > 1_000_000_000L)
+            throw new IllegalArgumentException("ratePerSecond must be in [1, 10^9]");
+        if (burst <= 0)
+            throw new IllegalArgumentException("burst must be > 0");
+
+        int capacity = Integer.highestOneBit(Math.max(2, maxClients * 2 - 1)) << 1;
+        slots = new long[(capacity + 1) * STRIDE];
+        mask = capacity - 1;
+        overflow = capacity;
+        interval = 1_000_000_000L / ratePerSecond;
+        tolerance = burst > Long.MAX_VALUE / 4 / interval ? Long.MAX_VALUE / 4 : interval * burst;
+    }
+
+    /**
+     * @param nowNanos System.nanoTime() or any monotonic nanosecond clock, the same for every caller
+     * @return false if the client's bucket holds fewer than permits tokens, nothing is taken then
+     */
+    public boolean tryAcquire(long clientId, int permits, long nowNanos) {
+        if (permits <= 0)
+            throw new IllegalArgumentException("permits must be > 0");
+
+        int at = slot(clientId, nowNanos) * STRIDE + 1;
+        long cost = permits * interval;
+        while (true) {
+            long fullAt = (long) SLOTS.getVolatile(slots, at);
+            long next = (fullAt == 0 || fullAt - nowNanos < 0 ? nowNanos : fullAt) + cost;
+            if (next - nowNanos > tolerance)
+                return false;
+            if (SLOTS.compareAndSet(slots, at, fullAt, next))
+                return true;
+        }
+    }
+
+    public boolean tryAcquire(long clientId, long nowNanos) {
+        return tryAcquire(clientId, 1, nowNanos);
+    }
+
+    private int slot(long clientId, long nowNanos) {
+        if (clientId == 0)
+            return overflow;
+
+        long h = clientId * 0x9E3779B97F4A7C15L;
+        int i = (int) ((h ^ (h >>> 32)) & mask);
+        int idle = -1;
+        long idleKey = 0;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            long key = (long) SLOTS.getAcquire(slots, i * STRIDE);
+            if (key == clientId)
+                return i;
+            if (key == 0) {
+                key = (long) SLOTS.compareAndExchange(slots, i * STRIDE, 0L, clientId);
+                if (key == 0 || key == clientId)
+                    return i;
+            }
+            if (idle < 0 && isIdle(i, nowNanos)) {
+                idle = i;
+                idleKey = key;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        // the whole window was scanned: the client has no slot of its own yet
+        if (idle >= 0 && SLOTS.compareAndSet(slots, idle * STRIDE, idleKey, clientId))
+            return idle;
+
+        return overflow;
+    }
+
+    /**
+     * A claimed bucket that is full again, 0 is a claim whose first take hasn't landed yet
+     */
+    private boolean isIdle(int slot, long nowNanos) {
+        long fullAt = (long) SLOTS.getVolatile(slots, slot * STRIDE + 1);
+
+        return fullAt != 0 && fullAt - nowNanos <= 0;
+    }
+}
@@ -0,0 +1,69 @@
+package core.Gateway;
+
+import core.Events.RingFullEvent;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.RingProducer;
+
+/**
+ * The gateway as the only producer of the engine ring: borrows from the pool, assigns order ids and stamps the time.
+ * New orders and amends are throttled per account when a rate limiter is given, cancels never are.
+ */
+public final class RingCommandSink implements CommandSink {
+
+    private final RingProducer<Order> ringBuffer;
+    private final SPSCOrderPool orderPool;
+    private final RateLimiter rateLimiter; // null - unthrottled
+    private long nextOrderId;
+    private Order spare; // borrowed but not published (ring full), only the engine may release
+
+    public RingCommandSink(RingProducer<Order> ringBuffer, SPSCOrderPool orderPool, long firstOrderId) {
+        this(ringBuffer, orderPool, firstOrderId, null);
+    }
+
+    public RingCommandSink(RingProducer<Order> ringBuffer, SPSCOrderPool orderPool, long firstOrderId,
+                           RateLimiter rateLimiter) {
+        if (firstOrderId <= 0)
+            throw new IllegalArgumentException("order ids start at 1");
+
+        this.ringBuffer = ringBuffer;
+        this.orderPool = orderPool;
+        this.rateLimiter = rateLimiter;
+        this.nextOrderId = firstOrderId;
+    }
+
+    @Override
+    public long submit(OrderType type, long orderId, long price, long quantity, long accountId, long expiresAt) {
+        if (rateLimiter != null && CommandSink.throttled(type)
+                && !rateLimiter.tryAcquire(accountId, System.nanoTime()))
+            return THROTTLED;
+
+        Order order = spare != null ? spare : orderPool.borrow();
+        if (order == null)
+            return REJECTED;
+        spare = null;
+
+        boolean newOrder = type != OrderType.CANCEL && type != OrderType.AMEND && type != OrderType.MASS_CANCEL;
+        order.id = newOrder ? nextOrderId : orderId;
+        order.setType(type);
+        order.price = price;
+        order.quantity = quantity;
+        order.accountId = accountId;
+        order.timestamp = System.currentTimeMillis() * 1_000_000L;
+        order.expiresAt = expiresAt;
+        order.flags = type == OrderType.MASS_CANCEL ? (byte) (Order.CANCEL_BIDS | Order.CANCEL_ASKS) : 0;
+
+        if (!ringBuffer.offer(order)) {
+            spare = order;
+            RingFullEvent.emit("orders", 1);
+
+            return REJECTED;
+        }
+
+        if (newOrder)
+            nextOrderId++;
+
+        return order.id;
+    }
+}
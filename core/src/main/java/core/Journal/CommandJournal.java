@@ -0,0 +1,203 @@
+package core.Journal;
+
+import core.Events.JournalSyncEvent;
+import core.Order.Order;
+import core.Order.OrderRecord;
+import core.Order.OrderType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only, memory-mapped log of the commands in the order the engine applied them, one OrderRecord each.
+ * <p>
+ * One writer appends and publishes the sequence with a release store, any number of readers in this or other
+ * processes read up to published(). Replaying it into an empty engine rebuilds the same books: commands carry
+ * their timestamps and expiry is driven by them. Little-endian on every host so records can be shipped as bytes.
+ * <p>
+ * The file has a fixed capacity. Writers ask admits() first: new orders and amends are refused once only the cancel
+ * reserve (1/64 of the capacity) is left, cancels once it is full. Appending to a full journal throws.
+ */
+public final class CommandJournal implements AutoCloseable {
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long MAGIC = 0x4C4E524A444D43L; // "CMDJRNL"
+    private static final int CAPACITY = 8;
+    private static final int PUBLISHED = 64;
+    private static final int RECORDS = 128;
+
+    private final String name;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long capacity;
+    private final long reserve;
+    private final OrderRecord writerRecord = new OrderRecord();
+    private final OrderRecord readerRecord = new OrderRecord();
+    private long syncedSequence;
+
+    /**
+     * Map the journal, creating it if missing. An existing file must have been created with the same capacity.
+     *
+     * @param capacity records, up to 2^24 (1 GB)
+     */
+    public CommandJournal(Path file, int capacity) {
+        this(file, capacity, false);
+    }
+
+    private CommandJournal(Path file, int capacity, boolean readOnly) {
+        if (capacity <= 0 || capacity > 1 << 24)
+            throw new IllegalArgumentException("capacity must be in (0, 2^24]");
+
+        this.name = file.getFileName().toString();
+        this.capacity = capacity;
+        this.reserve = capacity >> 6;
+
+        try {
+            channel = readOnly
+                    ? FileChannel.open(file, StandardOpenOption.READ)
+                    : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE,
+                    0, RECORDS + (long) capacity * OrderRecord.SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map " + file, e);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        long magic = (long) LONGS.getAcquire(buffer, 0);
+        if (magic == 0 && !readOnly) {
+            buffer.putLong(CAPACITY, capacity);
+            LONGS.setRelease(buffer, 0, MAGIC);
+        } else if (magic != MAGIC || buffer.getLong(CAPACITY) != capacity) {
+            close();
+            throw new IllegalStateException(file + " is not a command journal of capacity " + capacity);
+        }
+        syncedSequence = published();
+    }
+
+    /**
+     * Map an existing journal read-only at the capacity it was created with, for readers that don't know it
+     * (backtests). The file is never created or written, appending throws
+     *
+     * @throws IllegalStateException if the file is not a command journal
+     */
+    public static CommandJournal open(Path file) {
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + file, e);
+        }
+        if (header.getLong(0) != MAGIC)
+            throw new IllegalStateException(file + " is not a command journal");
+
+        return new CommandJournal(file, (int) header.getLong(CAPACITY), true);
+    }
+
+    /**
+     * Writer only, back-pressure ahead of append(): the journal keeps room for cancels after it stops taking orders,
+     * so resting orders can still be pulled. A refused command must not be applied, a replay would miss it.
+     */
+    public boolean admits(Order order) {
+        long left = capacity - (long) LONGS.getOpaque(buffer, PUBLISHED);
+        OrderType type = order.type();
+
+        return type == OrderType.CANCEL || type == OrderType.MASS_CANCEL ? left > 0 : left > reserve;
+    }
+
+    /**
+     * Writer only
+     *
+     * @return sequence of the appended command
+     */
+    public long append(Order order) {
+        long sequence = (long) LONGS.getOpaque(buffer, PUBLISHED);
+        if (sequence >= capacity)
+            throw new IllegalStateException("Journal " + name + " is full at " + capacity + " commands");
+
+        writerRecord.write(buffer, offset(sequence), order);
+        LONGS.setRelease(buffer, PUBLISHED, sequence + 1);
+
+        return sequence;
+    }
+
+    /**
+     * Writer only, append count raw records from the source's position, as received from another journal
+     */
+    public void appendRecords(ByteBuffer source, int count) {
+        long sequence = (long) LONGS.getOpaque(buffer, PUBLISHED);
+        if (sequence + count > capacity)
+            throw new IllegalStateException("Journal " + name + " is full at " + capacity + " commands");
+
+        int length = count * OrderRecord.SIZE;
+        buffer.put(offset(sequence), source, source.position(), length);
+        source.position(source.position() + length);
+        LONGS.setRelease(buffer, PUBLISHED, sequence + count);
+    }
+
+    /**
+     * @return number of commands readable, the next sequence to be written
+     */
+    public long published() {
+        return (long) LONGS.getAcquire(buffer, PUBLISHED);
+    }
+
+    /**
+     * Copy a published command into the order, links untouched
+     */
+    public void read(long sequence, Order order) {
+        readerRecord.read(buffer, offset(sequence), order);
+    }
+
+    /**
+     * Copy count published records starting at sequence into the target as raw bytes
+     */
+    public void copyRecords(long sequence, int count, ByteBuffer target) {
+        int length = count * OrderRecord.SIZE;
+        target.put(target.position(), buffer, offset(sequence), length);
+        target.position(target.position() + length);
+    }
+
+    /**
+     * Writer only, force appended records to storage. Not needed for a journal in /dev/shm
+     */
+    public void sync() {
+        long published = published();
+        JournalSyncEvent event = new JournalSyncEvent();
+        event.begin();
+        buffer.force(offset(syncedSequence), (int) (published - syncedSequence) * OrderRecord.SIZE);
+        event.journal = name;
+        event.bytes = (published - syncedSequence) * OrderRecord.SIZE;
+        event.commit();
+
+        syncedSequence = published;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Close the file, the mapping itself is released when the buffer is collected
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int offset(long sequence) {
+        return RECORDS + (int) sequence * OrderRecord.SIZE;
+    }
+}
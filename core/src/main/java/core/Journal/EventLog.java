@@ -0,0 +1,136 @@
+package core.Journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped, sequenced log of what the engine produced: fills, book deltas, cancels, expiries, amends
+ * and rejections as core.Codec messages, one fixed slot each.
+ * <p>
+ * The matching thread appends every event once. Readers ({@link EventLogReader}), in this process or in others
+ * mapping the same file, each keep a cursor of their own and copy events out. The log is a ring: the writer
+ * never waits for anyone and overwrites the oldest slot, so a reader more than capacity events behind is lapped
+ * and has to start again from oldest(). Any sequence still in the ring can be replayed.
+ * <p>
+ * Each slot starts with the sequence it holds, written last, like a seqlock: a reader checks it before and after
+ * copying and can tell a slot overwritten under it.
+ */
+public final class EventLog implements AutoCloseable {
+
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    public static final int SLOT_SIZE = 80;
+    public static final int MAX_EVENT_SIZE = SLOT_SIZE - 8;
+    static final long WRITING = -1;
+
+    private static final long MAGIC = 0x474F4C544E5645L; // "EVNTLOG"
+    private static final int CAPACITY = 8;
+    private static final int PUBLISHED = 64;
+    private static final int SLOTS = 128;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int mask;
+
+    /**
+     * Map the log, creating it if missing. An existing file must have been created with the same capacity.
+     *
+     * @param capacity events kept, a power of two up to 2^24
+     */
+    public EventLog(Path file, int capacity) {
+        if (capacity <= 0 || capacity > 1 << 24 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity must be a power of two in (0, 2^24]");
+
+        this.mask = capacity - 1;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SLOTS + (long) capacity * SLOT_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map " + file, e);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        long magic = (long) LONGS.getAcquire(buffer, 0);
+        if (magic == 0) {
+            buffer.putLong(CAPACITY, capacity);
+            LONGS.setRelease(buffer, 0, MAGIC);
+        } else if (magic != MAGIC || buffer.getLong(CAPACITY) != capacity) {
+            close();
+            throw new IllegalStateException(file + " is not an event log of capacity " + capacity);
+        }
+    }
+
+    /**
+     * Writer only: marks the next slot as being written and returns where its event goes in buffer().
+     * Encode at most MAX_EVENT_SIZE bytes there with a flyweight, then commit()
+     */
+    public int claim() {
+        int slot = slot((long) LONGS.getOpaque(buffer, PUBLISHED));
+        LONGS.setOpaque(buffer, slot, WRITING);
+        VarHandle.storeStoreFence(); // readers see the mark before any byte of the new event
+
+        return slot + 8;
+    }
+
+    /**
+     * Writer only, publishes the claimed event
+     *
+     * @return its sequence
+     */
+    public long commit() {
+        long sequence = (long) LONGS.getOpaque(buffer, PUBLISHED);
+        LONGS.setRelease(buffer, slot(sequence), sequence);
+        LONGS.setRelease(buffer, PUBLISHED, sequence + 1);
+
+        return sequence;
+    }
+
+    /**
+     * @return number of events appended so far, the next sequence to be written
+     */
+    public long published() {
+        return (long) LONGS.getAcquire(buffer, PUBLISHED);
+    }
+
+    /**
+     * @return the oldest sequence still in the ring
+     */
+    public long oldest() {
+        return Math.max(0, published() - capacity());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * The mapping itself, readers read through duplicates of it and never move its position
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Close the file, the mapping itself is released when the buffer is collected
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int slot(long sequence) {
+        return SLOTS + (int) (sequence & mask) * SLOT_SIZE;
+    }
+}
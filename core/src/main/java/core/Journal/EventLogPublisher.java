@@ -0,0 +1,97 @@
+package core.Journal;
+
+import core.Codec.AckCodec;
+import core.Codec.AmendCodec;
+import core.Codec.BookDeltaCodec;
+import core.Codec.FillCodec;
+import core.MarketData.BookListener;
+import core.MatchingEngine.ExpiryListener;
+import core.MatchingEngine.OrderUpdateListener;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Matching thread side of the {@link EventLog}: every output of the engine is encoded once, in place, into the log.
+ * Fills as Fill, level changes as BookDelta, amends as Amend, cancels, expiries and rejections as Ack.
+ * Acks and amends carry no timestamp (0), fills carry the taker's.
+ * <p>
+ * Never blocks: the log overwrites its oldest events instead.
+ */
+public final class EventLogPublisher implements BookListener, Consumer<Trade>, ExpiryListener, OrderUpdateListener {
+
+    private final EventLog log;
+    private final ByteBuffer buffer;
+    private final FillCodec fill = new FillCodec();
+    private final BookDeltaCodec bookDelta = new BookDeltaCodec();
+    private final AckCodec ack = new AckCodec();
+    private final AmendCodec amend = new AmendCodec();
+
+    public EventLogPublisher(EventLog log) {
+        this.log = log;
+        this.buffer = log.buffer();
+    }
+
+    @Override
+    public void onLevelChanged(boolean bid, double price, long totalQty) {
+        bookDelta.wrapForEncode(buffer, log.claim())
+                .price(price)
+                .totalQty(totalQty)
+                .bid(bid);
+        log.commit();
+    }
+
+    @Override
+    public void accept(Trade trade) {
+        fill.wrapForEncode(buffer, log.claim())
+                .makerOrderId(trade.makerOrderId)
+                .takerOrderId(trade.takerOrderId)
+                .makerAccountId(trade.makerAccountId)
+                .takerAccountId(trade.takerAccountId)
+                .price(trade.price)
+                .quantity(trade.qty)
+                .timestamp(trade.timestamp)
+                .buyInitiator(trade.buyInitiator);
+        log.commit();
+    }
+
+    @Override
+    public void onExpired(long orderId, long accountId, boolean buy, long remaining) {
+        ack(orderId, accountId, remaining, AckCodec.EXPIRED, 0);
+    }
+
+    @Override
+    public void onCancelled(long orderId, long accountId, boolean buy, long remaining) {
+        ack(orderId, accountId, remaining, AckCodec.CANCELLED, 0);
+    }
+
+    @Override
+    public void onAmended(long orderId, long accountId, boolean buy, long price, long quantity) {
+        amend.wrapForEncode(buffer, log.claim())
+                .orderId(orderId)
+                .accountId(accountId)
+                .price(price)
+                .quantity(quantity)
+                .timestamp(0);
+        log.commit();
+    }
+
+    /**
+     * Command the engine never matched, called by whichever single thread appends to the log
+     */
+    public void onRejected(long orderId, long accountId, int reason) {
+        ack(orderId, accountId, 0, AckCodec.REJECTED, reason);
+    }
+
+    private void ack(long orderId, long accountId, long leavesQty, byte status, int reason) {
+        ack.wrapForEncode(buffer, log.claim())
+                .orderId(orderId)
+                .accountId(accountId)
+                .timestamp(0)
+                .leavesQty(leavesQty)
+                .status(status)
+                .reason((byte) reason);
+        log.commit();
+    }
+}
@@ -0,0 +1,88 @@
+package core.Journal;
+
+import core.Codec.Flyweight;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * One consumer's cursor into an {@link EventLog}, owned by a single thread. Readers never block the writer
+ * or each other, each moves at its own pace from the sequence it started at.
+ * <p>
+ * An event is copied out of its slot into a buffer of the reader's own and the slot's sequence checked again
+ * before the handler sees it, so a handler never gets bytes the writer was overwriting.
+ */
+public final class EventLogReader {
+
+    /**
+     * Receives an event: wrap the flyweight of templateId at offset, the bytes are only valid during the call
+     */
+    @FunctionalInterface
+    public interface Handler {
+        void onEvent(long sequence, int templateId, ByteBuffer buffer, int offset);
+    }
+
+    private final EventLog log;
+    private final ByteBuffer buffer;
+    private final ByteBuffer event = ByteBuffer.allocate(EventLog.MAX_EVENT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long sequence;
+
+    /**
+     * @param fromSequence first event to read, 0 replays whatever the ring still holds, log.published() tails
+     */
+    public EventLogReader(EventLog log, long fromSequence) {
+        if (fromSequence < 0)
+            throw new IllegalArgumentException("fromSequence must be >= 0");
+
+        this.log = log;
+        this.buffer = log.buffer().duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.sequence = fromSequence;
+    }
+
+    /**
+     * Hands published events to the handler in sequence
+     *
+     * @return events read, 0 when caught up
+     * @throws IllegalStateException if the reader was lapped: the event it was at has been overwritten before it was
+     *                               copied, the handler hasn't seen it. Start a new reader from log.oldest()
+     */
+    public int poll(Handler handler, int limit) {
+        long published = log.published();
+        int read = 0;
+        while (read < limit && sequence < published) {
+            int slot = log.slot(sequence);
+            if ((long) EventLog.LONGS.getAcquire(buffer, slot) != sequence)
+                throw lapped();
+
+            event.put(0, buffer, slot + 8, EventLog.MAX_EVENT_SIZE);
+            VarHandle.loadLoadFence(); // the event's bytes are read before the slot is checked again
+            if ((long) EventLog.LONGS.getOpaque(buffer, slot) != sequence)
+                throw lapped();
+
+            handler.onEvent(sequence, Flyweight.templateId(event, 0), event, 0);
+            sequence++;
+            read++;
+        }
+
+        return read;
+    }
+
+    /**
+     * @return the next sequence to read
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * @return events published but not read yet
+     */
+    public long lag() {
+        return log.published() - sequence;
+    }
+
+    private IllegalStateException lapped() {
+        return new IllegalStateException("Event " + sequence + " was overwritten, the oldest is " + log.oldest());
+    }
+}
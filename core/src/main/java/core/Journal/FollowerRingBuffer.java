@@ -0,0 +1,94 @@
+package core.Journal;
+
+import core.Order.Order;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.RingConsumer;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Input of a hot-standby engine: a MatchingEngine polling this ring applies the primary's journal
+ * command by command to its own books, in the same order and with the same timestamps.
+ * <p>
+ * The journal is the primary's own file on the same host, or a local copy fed by a ReplicationClient.
+ * After promote() the follower applies whatever is left in the journal, then takes live orders from the
+ * given ingress ring and appends them to the same journal, becoming the primary without a restart or replay.
+ * The old primary (or the ReplicationClient) must have stopped writing to the journal by then.
+ */
+public final class FollowerRingBuffer implements RingConsumer<Order> {
+
+    private final CommandJournal journal;
+    private final SPSCOrderPool orderPool;
+    private final LongSupplier leaderSequence;
+
+    private volatile long applied; // written by the engine thread
+    private volatile RingConsumer<Order> promotedIngress;
+    private volatile JournaledRingBuffer primary;
+
+    /**
+     * @param orderPool      the follower engine's pool, polled commands are borrowed from it.
+     *                       Same size as the primary's, a command arriving to an empty pool is skipped like there
+     * @param leaderSequence commands the primary has journaled, for lag: CommandJournal::published on the same host,
+     *                       ReplicationClient::leaderSequence over TCP
+     */
+    public FollowerRingBuffer(CommandJournal journal, SPSCOrderPool orderPool, LongSupplier leaderSequence) {
+        this.journal = journal;
+        this.orderPool = orderPool;
+        this.leaderSequence = leaderSequence;
+    }
+
+    public Order poll() {
+        JournaledRingBuffer live = primary;
+        if (live != null)
+            return live.poll();
+
+        long next = applied;
+        if (next < journal.published()) {
+            applied = next + 1;
+            Order order = orderPool.borrow();
+            if (order == null) // the primary's pool was exhausted at the same command and rejected it
+                return null;
+
+            journal.read(next, order);
+
+            return order;
+        }
+
+        RingConsumer<Order> ingress = promotedIngress;
+        if (ingress == null)
+            return null;
+
+        // caught up with everything the old primary journaled
+        primary = new JournaledRingBuffer(ingress, journal, orderPool);
+
+        return primary.poll();
+    }
+
+    /**
+     * Switch to live orders once the journal is drained, takes effect on the engine thread within one poll
+     */
+    public void promote(RingConsumer<Order> ingress) {
+        promotedIngress = ingress;
+    }
+
+    public boolean isPromoted() {
+        return primary != null;
+    }
+
+    /**
+     * @return journaled commands not yet applied, 0 once promoted
+     */
+    public long lag() {
+        if (primary != null)
+            return 0;
+
+        return Math.max(0, leaderSequence.getAsLong() - applied);
+    }
+
+    /**
+     * @return commands applied from the journal
+     */
+    public long applied() {
+        return applied;
+    }
+}
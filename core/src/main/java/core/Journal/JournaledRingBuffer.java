@@ -0,0 +1,56 @@
+package core.Journal;
+
+import core.Order.Order;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.RingConsumer;
+
+/**
+ * Input of a primary engine over its ingress ring: every command the engine polls is appended to the journal first,
+ * so the journal is the sequenced stream a follower applies. Ingress offers to the ring itself, appends run on the
+ * engine thread.
+ * <p>
+ * A command the journal doesn't admit (full, or down to its cancel reserve) is released unapplied and counted,
+ * the engine keeps matching whatever is still admitted.
+ */
+public final class JournaledRingBuffer implements RingConsumer<Order> {
+
+    private final RingConsumer<Order> ingress;
+    private final CommandJournal journal;
+    private final SPSCOrderPool orderPool;
+
+    private volatile long refused; // written by the engine thread
+
+    /**
+     * @param orderPool the engine's pool, refused commands go back to it
+     */
+    public JournaledRingBuffer(RingConsumer<Order> ingress, CommandJournal journal, SPSCOrderPool orderPool) {
+        this.ingress = ingress;
+        this.journal = journal;
+        this.orderPool = orderPool;
+    }
+
+    public Order poll() {
+        Order order;
+        while ((order = ingress.poll()) != null) {
+            if (journal.admits(order)) {
+                journal.append(order);
+
+                return order;
+            }
+
+            if (refused == 0)
+                System.err.println("Journal is full at " + journal.published() + " commands, refusing orders");
+            refused = refused + 1;
+            orderPool.release(order);
+        }
+
+        return null;
+    }
+
+    /**
+     * @return commands released unapplied because the journal didn't admit them
+     */
+    public long refused() {
+        return refused;
+    }
+}
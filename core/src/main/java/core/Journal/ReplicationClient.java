@@ -0,0 +1,86 @@
+package core.Journal;
+
+import core.Order.OrderRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Follower end of the replication link: copies the primary's journal into a local one on its own thread,
+ * which a FollowerRingBuffer tails. Resumes from the local journal's length after a reconnect.
+ * <p>
+ * Stop it before promoting the follower, the promoted engine becomes the local journal's only writer.
+ */
+public class ReplicationClient implements Runnable {
+
+    private final CommandJournal journal;
+    private final InetSocketAddress leader;
+    private final ByteBuffer frame = ByteBuffer.allocateDirect(ReplicationServer.HEADER
+            + ReplicationServer.MAX_BATCH * OrderRecord.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private volatile boolean running = true;
+    private volatile long leaderSequence;
+    private volatile SocketChannel channel;
+
+    public ReplicationClient(CommandJournal journal, InetSocketAddress leader) {
+        this.journal = journal;
+        this.leader = leader;
+        this.leaderSequence = journal.published();
+    }
+
+    @Override
+    public void run() {
+        try (SocketChannel socket = SocketChannel.open(leader)) {
+            channel = socket;
+            socket.socket().setTcpNoDelay(true);
+
+            ByteBuffer start = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, journal.published());
+            while (start.hasRemaining())
+                socket.write(start);
+
+            while (running) {
+                readFully(socket, ReplicationServer.HEADER);
+                long sequence = frame.getLong(0);
+                int count = frame.getInt(8);
+
+                readFully(socket, count * OrderRecord.SIZE);
+                journal.appendRecords(frame, count);
+                leaderSequence = sequence;
+            }
+        } catch (IOException e) {
+            if (running)
+                throw new UncheckedIOException("Replication from " + leader + " stopped", e);
+        }
+    }
+
+    /**
+     * @return commands the primary had journaled as of the last frame
+     */
+    public long leaderSequence() {
+        return leaderSequence;
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            SocketChannel socket = channel;
+            if (socket != null)
+                socket.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readFully(SocketChannel socket, int length) throws IOException {
+        frame.clear().limit(length);
+        while (frame.hasRemaining())
+            if (socket.read(frame) < 0)
+                throw new IOException("Primary closed the link");
+
+        frame.flip();
+    }
+}
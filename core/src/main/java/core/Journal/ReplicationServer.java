@@ -0,0 +1,111 @@
+package core.Journal;
+
+import core.Order.OrderRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams the primary's journal to one follower at a time over TCP, on its own thread.
+ * <p>
+ * The follower opens with the sequence it has (8 bytes), then receives frames of
+ * [leader sequence: long][count: int][count records], little-endian, as the journal grows.
+ */
+public class ReplicationServer implements Runnable {
+
+    static final int HEADER = 12;
+    static final int MAX_BATCH = 1024;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final CommandJournal journal;
+    private final ServerSocketChannel server;
+    private final ByteBuffer frame = ByteBuffer.allocateDirect(HEADER + MAX_BATCH * OrderRecord.SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+    private volatile boolean running = true;
+    private volatile SocketChannel follower;
+
+    public ReplicationServer(CommandJournal journal, InetSocketAddress address) {
+        this.journal = journal;
+        try {
+            this.server = ServerSocketChannel.open().bind(address);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on " + address, e);
+        }
+    }
+
+    /**
+     * @return bound port, useful when listening on port 0
+     */
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try (SocketChannel channel = server.accept()) {
+                follower = channel;
+                channel.socket().setTcpNoDelay(true);
+                stream(channel, readStart(channel));
+            } catch (IOException e) {
+                if (running)
+                    System.err.println("Replication to follower stopped: " + e.getMessage());
+            }
+        }
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            server.close();
+            SocketChannel channel = follower;
+            if (channel != null)
+                channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void stream(SocketChannel channel, long sent) throws IOException {
+        while (running) {
+            long published = journal.published();
+            if (sent >= published) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+
+                continue;
+            }
+
+            int count = (int) Math.min(MAX_BATCH, published - sent);
+            frame.clear();
+            frame.putLong(published).putInt(count);
+            journal.copyRecords(sent, count, frame);
+            frame.flip();
+            while (frame.hasRemaining())
+                channel.write(frame);
+
+            sent += count;
+        }
+    }
+
+    private long readStart(SocketChannel channel) throws IOException {
+        ByteBuffer start = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        while (start.hasRemaining())
+            if (channel.read(start) < 0)
+                throw new IOException("Follower closed before sending its sequence");
+
+        long sequence = start.getLong(0);
+        if (sequence < 0 || sequence > journal.published())
+            throw new IOException("Follower is at " + sequence + ", journal has " + journal.published());
+
+        return sequence;
+    }
+}
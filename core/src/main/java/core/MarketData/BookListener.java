@@ -0,0 +1,36 @@
+package core.MarketData;
+
+public interface BookListener {
+
+    /**
+     * Called on the matching thread after the total quantity resting at a price level changed
+     *
+     * @param totalQty new total at the level, 0 when the level became empty
+     */
+    void onLevelChanged(boolean bid, double price, long totalQty);
+
+    /**
+     * Called on the matching thread when the indicative auction price or volume changed
+     *
+     * @param price NaN when nothing crosses
+     */
+    default void onIndicativePrice(double price, long volume) {}
+
+    default BookListener andThen(BookListener next) {
+        BookListener first = this;
+
+        return new BookListener() {
+            @Override
+            public void onLevelChanged(boolean bid, double price, long totalQty) {
+                first.onLevelChanged(bid, price, totalQty);
+                next.onLevelChanged(bid, price, totalQty);
+            }
+
+            @Override
+            public void onIndicativePrice(double price, long volume) {
+                first.onIndicativePrice(price, volume);
+                next.onIndicativePrice(price, volume);
+            }
+        };
+    }
+}
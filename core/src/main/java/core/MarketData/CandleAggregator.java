@@ -0,0 +1,80 @@
+package core.MarketData;
+
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import core.RingBuffer.RingBuffer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains a trade ring on its own thread and keeps OHLCV bars with VWAP per interval, see {@link CandleSeries}.
+ * <p>
+ * Fed by a TradePublisher on the matching thread, so the engine only pays for an offer.
+ * Bars follow the taker's ingress timestamp, trades without one (auction uncross) take the aggregator's clock.
+ */
+public class CandleAggregator implements Runnable {
+
+    public static final long[] DEFAULT_INTERVALS = {1_000, 60_000, 3_600_000}; // 1s, 1m, 1h
+
+    private static final int MAX_TRADES_PER_CYCLE = 4096;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final RingBuffer<Trade> ringBuffer;
+    private final CandleSeries[] series;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param history bars kept per interval, power of two
+     */
+    public CandleAggregator(RingBuffer<Trade> ringBuffer, long[] intervalsMillis, int history) {
+        this.ringBuffer = ringBuffer;
+        this.series = new CandleSeries[intervalsMillis.length];
+        for (int i = 0; i < intervalsMillis.length; i++)
+            series[i] = new CandleSeries(intervalsMillis[i], history);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if (drain(MAX_TRADES_PER_CYCLE) == 0)
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+
+        drain(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Aggregator thread only, exposed for tests
+     *
+     * @return trades applied
+     */
+    public int drain(int limit) {
+        int applied = 0;
+        Trade trade;
+        while (applied < limit && (trade = ringBuffer.poll()) != null) {
+            long timeMillis = trade.timestamp != 0 ? trade.timestamp / 1_000_000 : System.currentTimeMillis();
+            for (CandleSeries s : series)
+                s.onTrade(timeMillis, trade.price, trade.qty);
+
+            applied++;
+        }
+
+        return applied;
+    }
+
+    /**
+     * @return the series of that interval, null if not aggregated
+     */
+    public CandleSeries series(long intervalMillis) {
+        for (CandleSeries s : series)
+            if (s.intervalMillis() == intervalMillis)
+                return s;
+
+        return null;
+    }
+
+    public void stop() {
+        running = false;
+    }
+}
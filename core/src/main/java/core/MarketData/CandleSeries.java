@@ -0,0 +1,131 @@
+package core.MarketData;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OHLCV bars of one interval in preallocated primitive ring arrays, the last {@code capacity} bars with trades.
+ * <p>
+ * One writer (the aggregator thread) updates the current bar per trade, any thread reads.
+ * Readers copy under a sequence lock: the version is odd while a trade is applied and readers retry.
+ * Intervals without trades leave no bar.
+ */
+public final class CandleSeries {
+
+    /**
+     * One bar, vwap is NaN without volume
+     */
+    public record Candle(long startMillis, double open, double high, double low, double close,
+                         long volume, double vwap, int trades) {}
+
+    private static final VarHandle VERSION;
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(CandleSeries.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long intervalMillis;
+    private final int mask;
+    private final long[] start;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final long[] volume;
+    private final double[] notional;
+    private final int[] trades;
+
+    private long version; // odd while writing
+    private long count; // bars ever opened, the current one is count - 1
+
+    public CandleSeries(long intervalMillis, int capacityPow2) {
+        if (intervalMillis <= 0)
+            throw new IllegalArgumentException("intervalMillis > 0");
+        if ((capacityPow2 & (capacityPow2 - 1)) != 0)
+            throw new IllegalArgumentException("Capacity must be power of two");
+
+        this.intervalMillis = intervalMillis;
+        this.mask = capacityPow2 - 1;
+        this.start = new long[capacityPow2];
+        this.open = new double[capacityPow2];
+        this.high = new double[capacityPow2];
+        this.low = new double[capacityPow2];
+        this.close = new double[capacityPow2];
+        this.volume = new long[capacityPow2];
+        this.notional = new double[capacityPow2];
+        this.trades = new int[capacityPow2];
+    }
+
+    /**
+     * Writer only. A trade older than the current bar (clock skew) is counted into the current bar
+     */
+    public void onTrade(long timeMillis, double price, long qty) {
+        long barStart = timeMillis - Math.floorMod(timeMillis, intervalMillis);
+
+        long v = version; // the field is odd after the first store, both stores count from v
+        VERSION.setOpaque(this, v + 1);
+        VarHandle.storeStoreFence();
+
+        int i = (int) ((count - 1) & mask);
+        if (count == 0 || barStart > start[i]) {
+            i = (int) (count & mask);
+            start[i] = barStart;
+            open[i] = high[i] = low[i] = close[i] = price;
+            volume[i] = qty;
+            notional[i] = price * qty;
+            trades[i] = 1;
+            count++;
+        } else {
+            if (price > high[i])
+                high[i] = price;
+            if (price < low[i])
+                low[i] = price;
+            close[i] = price;
+            volume[i] += qty;
+            notional[i] += price * qty;
+            trades[i]++;
+        }
+
+        VERSION.setRelease(this, v + 2);
+    }
+
+    /**
+     * Any thread
+     *
+     * @return up to limit most recent bars, oldest first, the last one still open
+     */
+    public List<Candle> recent(int limit) {
+        List<Candle> bars = new ArrayList<>(Math.min(limit, mask + 1));
+        while (true) {
+            long before = (long) VERSION.getAcquire(this);
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+
+                continue;
+            }
+
+            bars.clear();
+            long last = count;
+            long first = Math.max(0, last - Math.min(limit, mask + 1));
+            for (long n = first; n < last; n++) {
+                int i = (int) (n & mask);
+                bars.add(new Candle(start[i], open[i], high[i], low[i], close[i], volume[i],
+                        volume[i] == 0 ? Double.NaN : notional[i] / volume[i], trades[i]));
+            }
+
+            VarHandle.loadLoadFence();
+            if ((long) VERSION.getOpaque(this) == before)
+                return bars;
+        }
+    }
+
+    public long intervalMillis() {
+        return intervalMillis;
+    }
+}
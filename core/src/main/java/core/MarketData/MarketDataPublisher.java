@@ -0,0 +1,80 @@
+package core.MarketData;
+
+import core.Events.RingFullEvent;
+import core.MatchingEngine.ExpiryListener;
+import core.MatchingEngine.OrderUpdateListener;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+
+import java.util.function.Consumer;
+
+/**
+ * Matching thread side of market data: book level changes, fills, expiries, cancels and amends
+ * go into a {@link MarketDataRing}.
+ * <p>
+ * Never blocks and never back-pressures the engine, events that don't fit are counted as dropped.
+ */
+public final class MarketDataPublisher implements BookListener, Consumer<Trade>, ExpiryListener, OrderUpdateListener {
+
+    private final MarketDataRing ring;
+
+    private volatile long droppedCount; // single writer
+
+    public MarketDataPublisher(MarketDataRing ring) {
+        this.ring = ring;
+    }
+
+    @Override
+    public void onLevelChanged(boolean bid, double price, long totalQty) {
+        if (!ring.publishLevel(bid, price, totalQty)) {
+            droppedCount++;
+            RingFullEvent.emit("market-data", 1);
+        }
+    }
+
+    @Override
+    public void accept(Trade trade) {
+        if (!ring.publishFill(trade.price, trade.qty, trade.buyInitiator,
+                trade.makerOrderId, trade.takerOrderId, trade.makerAccountId, trade.takerAccountId)) {
+            droppedCount++;
+            RingFullEvent.emit("market-data", 1);
+        }
+    }
+
+    @Override
+    public void onExpired(long orderId, long accountId, boolean buy, long remaining) {
+        if (!ring.publishExpired(orderId, accountId, buy, remaining)) {
+            droppedCount++;
+            RingFullEvent.emit("market-data", 1);
+        }
+    }
+
+    @Override
+    public void onCancelled(long orderId, long accountId, boolean buy, long remaining) {
+        if (!ring.publishCancelled(orderId, accountId, buy, remaining)) {
+            droppedCount++;
+            RingFullEvent.emit("market-data", 1);
+        }
+    }
+
+    @Override
+    public void onAmended(long orderId, long accountId, boolean buy, long price, long quantity) {
+        if (!ring.publishAmended(orderId, accountId, buy, price, quantity)) {
+            droppedCount++;
+            RingFullEvent.emit("market-data", 1);
+        }
+    }
+
+    /**
+     * Execution report of a command the engine never matched, called by whichever single thread owns this publisher
+     */
+    public void onRejected(long orderId, long accountId, int reason) {
+        if (!ring.publishRejected(orderId, accountId, reason)) {
+            droppedCount++;
+            RingFullEvent.emit("market-data", 1);
+        }
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+}
@@ -0,0 +1,194 @@
+package core.MarketData;
+
+/**
+ * SPSC ring of fixed-size primitive records between the matching thread and the market data fan-out.
+ * <p>
+ * Nothing is allocated per event, a record is 8 longs in a preallocated long[].
+ */
+public final class MarketDataRing {
+
+    public interface Handler {
+        void onLevel(boolean bid, double price, long totalQty);
+
+        void onFill(double price, long qty, boolean buyInitiator,
+                    long makerOrderId, long takerOrderId, long makerAccountId, long takerAccountId);
+
+        default void onExpired(long orderId, long accountId, boolean buy, long remaining) {}
+
+        default void onRejected(long orderId, long accountId, int reason) {}
+
+        default void onCancelled(long orderId, long accountId, boolean buy, long remaining) {}
+
+        /**
+         * @param price ticks
+         */
+        default void onAmended(long orderId, long accountId, boolean buy, long price, long quantity) {}
+    }
+
+    private static final int RECORD_LONGS = 8;
+    private static final long LEVEL = 1;
+    private static final long FILL = 2;
+    private static final long EXPIRED = 3;
+    private static final long REJECTED = 4;
+    private static final long CANCELLED = 5;
+    private static final long AMENDED = 6;
+
+    private final long[] records;
+    private final int mask;
+
+    private volatile long head = 0;
+    private volatile long tail = 0;
+
+    public MarketDataRing(int capacityPow2) {
+        if ((capacityPow2 & (capacityPow2 - 1)) != 0)
+            throw new IllegalArgumentException("Capacity must be power of two");
+
+        records = new long[capacityPow2 * RECORD_LONGS];
+        mask = capacityPow2 - 1;
+    }
+
+    public boolean publishLevel(boolean bid, double price, long totalQty) {
+        long h = head;
+        if (h - tail > mask) // full
+            return false;
+
+        int offset = (int) (h & mask) * RECORD_LONGS;
+        records[offset] = LEVEL;
+        records[offset + 1] = bid ? 1 : 0;
+        records[offset + 2] = Double.doubleToRawLongBits(price);
+        records[offset + 3] = totalQty;
+
+        head = h + 1;
+
+        return true;
+    }
+
+    public boolean publishFill(double price, long qty, boolean buyInitiator,
+                               long makerOrderId, long takerOrderId, long makerAccountId, long takerAccountId) {
+        long h = head;
+        if (h - tail > mask) // full
+            return false;
+
+        int offset = (int) (h & mask) * RECORD_LONGS;
+        records[offset] = FILL;
+        records[offset + 1] = buyInitiator ? 1 : 0;
+        records[offset + 2] = Double.doubleToRawLongBits(price);
+        records[offset + 3] = qty;
+        records[offset + 4] = makerOrderId;
+        records[offset + 5] = takerOrderId;
+        records[offset + 6] = makerAccountId;
+        records[offset + 7] = takerAccountId;
+
+        head = h + 1;
+
+        return true;
+    }
+
+    public boolean publishExpired(long orderId, long accountId, boolean buy, long remaining) {
+        long h = head;
+        if (h - tail > mask) // full
+            return false;
+
+        int offset = (int) (h & mask) * RECORD_LONGS;
+        records[offset] = EXPIRED;
+        records[offset + 1] = buy ? 1 : 0;
+        records[offset + 3] = remaining;
+        records[offset + 4] = orderId;
+        records[offset + 6] = accountId;
+
+        head = h + 1;
+
+        return true;
+    }
+
+    public boolean publishRejected(long orderId, long accountId, int reason) {
+        long h = head;
+        if (h - tail > mask) // full
+            return false;
+
+        int offset = (int) (h & mask) * RECORD_LONGS;
+        records[offset] = REJECTED;
+        records[offset + 3] = reason;
+        records[offset + 4] = orderId;
+        records[offset + 6] = accountId;
+
+        head = h + 1;
+
+        return true;
+    }
+
+    public boolean publishCancelled(long orderId, long accountId, boolean buy, long remaining) {
+        long h = head;
+        if (h - tail > mask) // full
+            return false;
+
+        int offset = (int) (h & mask) * RECORD_LONGS;
+        records[offset] = CANCELLED;
+        records[offset + 1] = buy ? 1 : 0;
+        records[offset + 3] = remaining;
+        records[offset + 4] = orderId;
+        records[offset + 6] = accountId;
+
+        head = h + 1;
+
+        return true;
+    }
+
+    public boolean publishAmended(long orderId, long accountId, boolean buy, long price, long quantity) {
+        long h = head;
+        if (h - tail > mask) // full
+            return false;
+
+        int offset = (int) (h & mask) * RECORD_LONGS;
+        records[offset] = AMENDED;
+        records[offset + 1] = buy ? 1 : 0;
+        records[offset + 3] = quantity;
+        records[offset + 4] = orderId;
+        records[offset + 5] = price;
+        records[offset + 6] = accountId;
+
+        head = h + 1;
+
+        return true;
+    }
+
+    /**
+     * Consumer side, hands up to limit records to the handler
+     *
+     * @return number of records consumed
+     */
+    public int poll(Handler handler, int limit) {
+        long t = tail;
+        long available = head - t;
+        int count = (int) Math.min(available, limit);
+
+        for (int i = 0; i < count; i++) {
+            int offset = (int) ((t + i) & mask) * RECORD_LONGS;
+            double price = Double.longBitsToDouble(records[offset + 2]);
+            if (records[offset] == LEVEL)
+                handler.onLevel(records[offset + 1] == 1, price, records[offset + 3]);
+            else if (records[offset] == EXPIRED)
+                handler.onExpired(records[offset + 4], records[offset + 6], records[offset + 1] == 1, records[offset + 3]);
+            else if (records[offset] == REJECTED)
+                handler.onRejected(records[offset + 4], records[offset + 6], (int) records[offset + 3]);
+            else if (records[offset] == CANCELLED)
+                handler.onCancelled(records[offset + 4], records[offset + 6], records[offset + 1] == 1, records[offset + 3]);
+            else if (records[offset] == AMENDED)
+                handler.onAmended(records[offset + 4], records[offset + 6], records[offset + 1] == 1,
+                        records[offset + 5], records[offset + 3]);
+            else
+                handler.onFill(price, records[offset + 3], records[offset + 1] == 1,
+                        records[offset + 4], records[offset + 5], records[offset + 6], records[offset + 7]);
+        }
+
+        if (count > 0)
+            tail = t + count;
+
+        return count;
+    }
+
+    public long size() {
+        long t = tail;
+        return head - t;
+    }
+}
@@ -0,0 +1,16 @@
+package core.MatchingEngine;
+
+/**
+ * Receives orders the engine cancelled because their expiry passed, on the matching thread
+ */
+public interface ExpiryListener {
+
+    void onExpired(long orderId, long accountId, boolean buy, long remaining);
+
+    default ExpiryListener andThen(ExpiryListener next) {
+        return (orderId, accountId, buy, remaining) -> {
+            onExpired(orderId, accountId, buy, remaining);
+            next.onExpired(orderId, accountId, buy, remaining);
+        };
+    }
+}
@@ -0,0 +1,181 @@
+package core.MatchingEngine;
+
+import core.Order.Order;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Hashed hierarchical timer wheel of resting orders with an expiry, owned by the engine thread.
+ * <p>
+ * 4 levels of 256 slots, a level 0 slot is one tick (2^20 ns, about 1 ms), so the wheel spans 2^32 ticks (~50 days),
+ * later deadlines wait in an overflow bucket. An order goes to the lowest level whose upper bits it shares with now
+ * and moves down when that level turns over, so it is touched at most 5 times. Buckets are plain arrays, no timer objects.
+ * <p>
+ * Time only moves with advance(), driven by the timestamps of ring messages, so replays expire the same orders.
+ * Like OrderIndex, entries are validated lazily: books release filled orders without telling the engine,
+ * an entry whose order was reset or reused under another id is dropped when its bucket comes up.
+ */
+public final class ExpiryWheel {
+
+    public static final int TICK_SHIFT = 20;
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int OVERFLOW = LEVELS * SLOTS;
+    private static final long UNSET = Long.MIN_VALUE;
+
+    private final Order[][] orders = new Order[OVERFLOW + 1][];
+    private final long[][] ids = new long[OVERFLOW + 1][];
+    private final int[] counts = new int[OVERFLOW + 1];
+    private final int[] levelCounts = new int[LEVELS + 1];
+    private final Consumer<Order> onExpired;
+
+    private long now = UNSET; // ticks
+    private int size;
+
+    /**
+     * @param onExpired receives live orders whose deadline has passed, still resting in the book
+     */
+    public ExpiryWheel(Consumer<Order> onExpired) {
+        this.onExpired = onExpired;
+    }
+
+    /**
+     * Schedule a resting order by its expiresAt, an order already due expires right away
+     */
+    public void add(Order order) {
+        if (now == UNSET)
+            throw new IllegalStateException("advance() sets the time before the first add()");
+
+        long deadline = order.expiresAt >> TICK_SHIFT;
+        if (deadline <= now) {
+            onExpired.accept(order);
+
+            return;
+        }
+
+        place(order, order.id, deadline);
+        size++;
+    }
+
+    /**
+     * Move time forward to the timestamp and expire everything due, earlier timestamps are ignored.
+     * Empty stretches are skipped up to the next turnover of the lowest occupied level
+     */
+    public void advance(long timestamp) {
+        long target = timestamp >> TICK_SHIFT;
+        if (now == UNSET || size == 0) {
+            if (target > now)
+                now = target;
+
+            return;
+        }
+
+        while (now < target) {
+            now = Math.min(target, nextTurnover());
+            cascade();
+            fire();
+        }
+    }
+
+    /**
+     * @return scheduled entries, including stale ones not yet dropped
+     */
+    public int size() {
+        return size;
+    }
+
+    private long nextTurnover() {
+        int level = 0;
+        while (level < LEVELS && levelCounts[level] == 0)
+            level++;
+
+        int bits = SLOT_BITS * level;
+
+        return ((now >> bits) + 1) << bits;
+    }
+
+    /**
+     * Every level turning over at now hands its current bucket down, orders due within it land in lower levels
+     */
+    private void cascade() {
+        if ((now & MASK) != 0)
+            return;
+
+        for (int level = LEVELS; level >= 1; level--) {
+            if ((now & ((1L << (SLOT_BITS * level)) - 1)) != 0)
+                continue;
+
+            reinsert(level == LEVELS ? OVERFLOW : level * SLOTS + (int) ((now >> (SLOT_BITS * level)) & MASK));
+        }
+    }
+
+    private void fire() {
+        int b = (int) (now & MASK);
+        int n = take(b);
+        Order[] bucket = orders[b];
+        long[] bucketIds = ids[b];
+        for (int i = 0; i < n; i++) {
+            Order order = bucket[i];
+            bucket[i] = null;
+            if (isLive(order, bucketIds[i]))
+                onExpired.accept(order);
+        }
+    }
+
+    /**
+     * Orders never move back into the bucket they come from except the overflow, which is refilled
+     * from the front, behind the read position
+     */
+    private void reinsert(int b) {
+        int n = take(b);
+        Order[] bucket = orders[b];
+        long[] bucketIds = ids[b];
+        for (int i = 0; i < n; i++) {
+            Order order = bucket[i];
+            long id = bucketIds[i];
+            bucket[i] = null;
+            if (isLive(order, id)) {
+                place(order, id, order.expiresAt >> TICK_SHIFT);
+                size++;
+            }
+        }
+    }
+
+    private int take(int b) {
+        int n = counts[b];
+        counts[b] = 0;
+        levelCounts[b / SLOTS] -= n;
+        size -= n;
+
+        return n;
+    }
+
+    private void place(Order order, long id, long deadline) {
+        int level = 0;
+        while (level < LEVELS && (deadline >> (SLOT_BITS * (level + 1))) != (now >> (SLOT_BITS * (level + 1))))
+            level++;
+
+        int b = level == LEVELS ? OVERFLOW : level * SLOTS + (int) ((deadline >> (SLOT_BITS * level)) & MASK);
+        int n = counts[b];
+        if (orders[b] == null) {
+            orders[b] = new Order[8];
+            ids[b] = new long[8];
+        } else if (n == orders[b].length) {
+            orders[b] = Arrays.copyOf(orders[b], n << 1);
+            ids[b] = Arrays.copyOf(ids[b], n << 1);
+        }
+
+        orders[b][n] = order;
+        ids[b][n] = id;
+        counts[b] = n + 1;
+        levelCounts[level]++;
+    }
+
+    private static boolean isLive(Order order, long id) {
+        return order.id == id && order.quantity > 0;
+    }
+}
@@ -1,93 +1,332 @@
 package core.MatchingEngine;
 
+import core.Events.MatchEvent;
 import core.Order.Order;
 import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
 import core.OrderBook.OrderBook;
 import core.OrderPool.SPSCOrderPool;
-import core.RingBuffer.RingBuffer;
+import core.RingBuffer.RingConsumer;
 
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 public class MatchingEngine implements Runnable {
 
+    /** One order in MATCH_SAMPLE_RATE is timed as a JFR MatchEvent, power of two */
+    public static final int MATCH_SAMPLE_RATE = 1024;
+
     private final OrderBook orderBook;
-    public final RingBuffer<Order> ringBuffer;
+    public final RingConsumer<Order> ringBuffer;
     public final SPSCOrderPool orderPool;
+    private final BooleanSupplier backPressure;
+    private final OrderIndex orderIndex = new OrderIndex(1 << 16);
+    private final ExpiryWheel expiries = new ExpiryWheel(this::expire);
+    private final OrderBook.CancelListener massCancelled = this::massCancelled;
+    private ExpiryListener expiryListener;
+    private OrderUpdateListener updateListener;
 
     private volatile boolean running = true;
+    private volatile Throwable failure;
 
     private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong backPressureSpins = new AtomicLong();
+    private long dispatchCount; // matching thread only
+
+    public MatchingEngine(OrderBook orderBook, RingConsumer<Order> ringBuffer, SPSCOrderPool orderPool) {
+        this(orderBook, ringBuffer, orderPool, null);
+    }
 
-    public MatchingEngine(OrderBook orderBook, RingBuffer<Order> ringBuffer, SPSCOrderPool orderPool) {
+    /**
+     * @param ringBuffer   input of run(), drain() and matchOne(), null for an engine only driven through
+     *                     processOrder() (EnginePipeline's match stage)
+     * @param backPressure optional signal from downstream output stages (could be null).
+     *                     While it is raised the engine stops taking new orders from the ring,
+     *                     so ingress sees a full ring instead of the engine blocking on output.
+     */
+    public MatchingEngine(OrderBook orderBook, RingConsumer<Order> ringBuffer, SPSCOrderPool orderPool,
+                          BooleanSupplier backPressure) {
         this.orderBook = orderBook;
         this.ringBuffer = ringBuffer;
         this.orderPool = orderPool;
+        this.backPressure = backPressure;
     }
 
+    /**
+     * An exception out of the book or a listener stops the loop, it is kept for getFailure() and rethrown
+     */
     @Override
     public void run() {
-        while (running) {
-            Order order = ringBuffer.poll();
-            if (order == null) {
-                Thread.yield();
+        RingConsumer<Order> input = input();
+        try {
+            while (running) {
+                if (backPressure != null && backPressure.getAsBoolean()) {
+                    backPressureSpins.incrementAndGet();
+                    Thread.yield();
 
-                continue;
-            }
+                    continue;
+                }
 
-            processOrder(order);
+                Order order = input.poll();
+                if (order == null) {
+                    Thread.yield();
+
+                    continue;
+                }
+
+                processOrder(order);
+            }
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            running = false;
+            throw e;
         }
     }
 
     public void processOrder(Order order) {
-         switch (order.type) {
-            case BUY_LIMIT -> orderBook.placeBuyLimit(order);
-            case SELL_LIMIT -> orderBook.placeSellLimit(order);
-            case BUY_MARKET -> orderBook.placeBuyMarket(order);
-            case SELL_MARKET -> orderBook.placeSellMarket(order);
-        }
+        dispatch(order);
 
-        if (order.type == OrderType.BUY_LIMIT || order.type == OrderType.SELL_LIMIT) {
-            if (order.quantity == 0)
-                orderPool.release(order); //release only filled LIMIT orders
-        } else {
-            orderPool.release(order);
+        processedCount.incrementAndGet();
+    }
+
+    /**
+     * Process up to limit orders from the ring and return, for a thread running several engines (ShardGroup)
+     *
+     * @return orders processed, 0 when the ring was empty
+     */
+    public int drain(int limit) {
+        RingConsumer<Order> input = input();
+        int processed = 0;
+        Order order;
+        while (processed < limit && (order = input.poll()) != null) {
+            processOrder(order);
+            processed++;
         }
 
-        processedCount.incrementAndGet();
+        return processed;
     }
 
     /**
      * For benchmark, todo remove later
      */
     public void matchOne() {
-        Order order = ringBuffer.poll();
+        Order order = input().poll();
         if (order == null)
             return;
 
-        switch (order.type) {
+        dispatch(order);
+    }
+
+    private RingConsumer<Order> input() {
+        if (ringBuffer == null)
+            throw new IllegalStateException("No input ring, this engine is driven through processOrder()");
+
+        return ringBuffer;
+    }
+
+    private void dispatch(Order order) {
+        if (order.timestamp != 0)
+            expiries.advance(order.timestamp);
+
+        if ((++dispatchCount & (MATCH_SAMPLE_RATE - 1)) == 0) {
+            sampledDispatch(order);
+
+            return;
+        }
+
+        match(order);
+        settle(order);
+    }
+
+    /**
+     * Allocation is eliminated when the event is disabled, only the sample counter is left in the hot path
+     */
+    private void sampledDispatch(Order order) {
+        MatchEvent event = new MatchEvent();
+        OrderType type = order.type();
+        long quantity = order.quantity;
+
+        event.begin();
+        match(order);
+        long remaining = order.quantity; // settle may hand the order back to ingress
+        settle(order);
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.orderType = type.name();
+            event.quantity = quantity;
+            event.remaining = remaining;
+            event.commit();
+        }
+    }
+
+    private void match(Order order) {
+        switch (order.type()) {
             case BUY_LIMIT -> orderBook.placeBuyLimit(order);
             case SELL_LIMIT -> orderBook.placeSellLimit(order);
             case BUY_MARKET -> orderBook.placeBuyMarket(order);
             case SELL_MARKET -> orderBook.placeSellMarket(order);
+            case CANCEL -> cancel(order);
+            case AMEND -> amend(order);
+            case MASS_CANCEL -> orderBook.cancelAccount(order.accountId,
+                    (order.flags & Order.CANCEL_BIDS) != 0, (order.flags & Order.CANCEL_ASKS) != 0, massCancelled);
         }
+    }
 
-        if (order.type == OrderType.BUY_LIMIT || order.type == OrderType.SELL_LIMIT) {
+    /**
+     * Index what rests in the book, release the rest
+     */
+    private void settle(Order order) {
+        if (order.isLimit()) {
             if (order.quantity == 0)
-                orderPool.release(order);
+                orderPool.release(order); //release only filled LIMIT orders
+            else if (order.id > 0)
+                rest(order);
         } else {
+            if (order.quantity > 0 && updateListener != null && isMarket(order))
+                updateListener.onCancelled(order.id, order.accountId, order.isBuy(), order.quantity); // IOC rest
             orderPool.release(order);
         }
     }
 
-    public void addToRingBuffer(Order order) {
-        this.ringBuffer.offer(order);
+    private static boolean isMarket(Order order) {
+        OrderType type = order.type();
+
+        return type == OrderType.BUY_MARKET || type == OrderType.SELL_MARKET;
+    }
+
+    private void rest(Order order) {
+        orderIndex.put(order);
+        if (order.expiresAt != 0 && order.timestamp != 0)
+            expiries.add(order);
+    }
+
+    /**
+     * Called by the wheel with a live resting order, cancelled like a CANCEL command and reported to the listener
+     */
+    private void expire(Order order) {
+        long orderId = order.id;
+        long accountId = order.accountId;
+        boolean buy = order.isBuy();
+        long remaining = order.quantity;
+
+        orderIndex.remove(orderId);
+        if (orderBook.cancel(order) && expiryListener != null)
+            expiryListener.onExpired(orderId, accountId, buy, remaining);
+    }
+
+    /**
+     * Cancel a resting order by id, the book hands the cancelled order to its pool releaser.
+     * Only the owner cancels: a command from another account is dropped like one for an unknown id.
+     * Orders copied into a SlabOrderBook are never indexed, the book finds them by the command's id and account
+     */
+    private boolean cancel(Order command) {
+        Order resting = orderIndex.get(command.id);
+        if (resting == null)
+            return orderBook.cancel(command);
+        if (resting.accountId != command.accountId)
+            return false;
+
+        orderIndex.remove(command.id);
+        long accountId = resting.accountId;
+        boolean buy = resting.isBuy();
+        long remaining = resting.quantity;
+        if (!orderBook.cancel(resting))
+            return false;
+
+        if (updateListener != null)
+            updateListener.onCancelled(command.id, accountId, buy, remaining);
+
+        return true;
+    }
+
+    /**
+     * Called by the book for each order of a MASS_CANCEL, reported like a CANCEL
+     */
+    private void massCancelled(long orderId, long accountId, boolean buy, long remaining) {
+        orderIndex.remove(orderId);
+        if (updateListener != null)
+            updateListener.onCancelled(orderId, accountId, buy, remaining);
+    }
+
+    /**
+     * Ends the book's call auction, on the matching thread between orders.
+     * Held market orders left unfilled are reported to the update listener like a CANCEL
+     *
+     * @return executed volume
+     */
+    public long uncross() {
+        if (!(orderBook instanceof ArrayBucketOrderBook book))
+            throw new IllegalStateException(orderBook.getClass().getSimpleName() + " has no call auction");
+
+        return book.uncross(massCancelled);
+    }
+
+    /**
+     * Cancel / replace: the resting order leaves the book and the command rests in its place as a limit order
+     * with the same id, side, account and expiry and its own price and quantity, behind the orders already there.
+     * Only indexed orders of the command's account can be amended, an AMEND for anything else is released by settle()
+     * as a non-limit
+     */
+    private void amend(Order command) {
+        if (command.quantity <= 0)
+            return;
+
+        Order resting = orderIndex.get(command.id);
+        if (resting == null || resting.accountId != command.accountId)
+            return;
+
+        orderIndex.remove(command.id);
+
+        boolean buy = resting.isBuy();
+        long accountId = resting.accountId;
+        long expiresAt = resting.expiresAt;
+        if (!orderBook.cancel(resting))
+            return;
+
+        command.setType(buy ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT);
+        command.accountId = accountId;
+        command.expiresAt = expiresAt;
+        if (updateListener != null)
+            updateListener.onAmended(command.id, accountId, buy, command.price, command.quantity);
+
+        if (buy)
+            orderBook.placeBuyLimit(command);
+        else
+            orderBook.placeSellLimit(command);
+    }
+
+    /**
+     * Optional, receives expired orders on the matching thread. Expiry needs timestamped messages:
+     * the wheel only moves with order.timestamp and only orders with a timestamp are scheduled
+     */
+    public void setExpiryListener(ExpiryListener expiryListener) {
+        this.expiryListener = expiryListener;
+    }
+
+    /**
+     * Optional, receives cancelled and amended orders on the matching thread
+     */
+    public void setOrderUpdateListener(OrderUpdateListener updateListener) {
+        this.updateListener = updateListener;
     }
 
     public void stop() {
         running = false;
     }
 
+    /**
+     * @return what stopped run(), null while it runs or after a clean stop()
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
     public long getProcessedCount() {
         return processedCount.get();
     }
+
+    public long getBackPressureSpins() {
+        return backPressureSpins.get();
+    }
 }
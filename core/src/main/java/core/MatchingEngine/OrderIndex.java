@@ -0,0 +1,160 @@
+package core.MatchingEngine;
+
+import core.Order.Order;
+
+/**
+ * Open-addressing id -> resting order map, owned by the engine thread.
+ * <p>
+ * Books release filled orders without telling the engine, so entries are validated lazily:
+ * an entry whose order was reset, filled or reused under another id is stale and dropped on lookup or on resize.
+ * Ids must be > 0, 0 marks an empty slot.
+ */
+public final class OrderIndex {
+
+    private long[] keys;
+    private Order[] values;
+    private int mask;
+    private int size;
+
+    public OrderIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new Order[capacity];
+        mask = capacity - 1;
+    }
+
+    public void put(Order order) {
+        if (order.id <= 0)
+            throw new IllegalArgumentException("order id must be > 0");
+
+        if ((size + 1) * 2 > keys.length)
+            resize();
+
+        int i = slot(order.id);
+        while (keys[i] != 0) {
+            if (keys[i] == order.id) {
+                values[i] = order;
+
+                return;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = order.id;
+        values[i] = order;
+        size++;
+    }
+
+    /**
+     * @return the resting order or null if unknown or no longer resting
+     */
+    public Order get(long id) {
+        int i = slot(id);
+        while (keys[i] != 0) {
+            if (keys[i] == id) {
+                Order order = values[i];
+                if (isLive(id, order))
+                    return order;
+
+                removeAt(i);
+
+                return null;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        return null;
+    }
+
+    public Order remove(long id) {
+        int i = slot(id);
+        while (keys[i] != 0) {
+            if (keys[i] == id) {
+                Order order = values[i];
+                removeAt(i);
+
+                return isLive(id, order) ? order : null;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean isLive(long id, Order order) {
+        return order.id == id && order.quantity > 0;
+    }
+
+    private int slot(long id) {
+        return (int) (mix(id) & mask);
+    }
+
+    private static long mix(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Backward-shift deletion, keeps probe chains intact without tombstones
+     */
+    private void removeAt(int i) {
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == 0)
+                break;
+
+            int home = slot(keys[j]);
+            // move j into the hole unless its home lies cyclically in (hole, j]
+            boolean stays = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!stays) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+
+        keys[hole] = 0;
+        values[hole] = null;
+        size--;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Order[] oldValues = values;
+
+        int live = 0;
+        for (int i = 0; i < oldKeys.length; i++)
+            if (oldKeys[i] != 0 && isLive(oldKeys[i], oldValues[i]))
+                live++;
+
+        // grow only if dropping stale entries doesn't free enough room
+        int capacity = (live + 1) * 4 > oldKeys.length ? oldKeys.length << 1 : oldKeys.length;
+        keys = new long[capacity];
+        values = new Order[capacity];
+        mask = capacity - 1;
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0 || !isLive(oldKeys[i], oldValues[i]))
+                continue;
+
+            int j = slot(oldKeys[i]);
+            while (keys[j] != 0)
+                j = (j + 1) & mask;
+
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+            size++;
+        }
+    }
+}
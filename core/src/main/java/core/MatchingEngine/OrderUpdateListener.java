@@ -0,0 +1,34 @@
+package core.MatchingEngine;
+
+/**
+ * Receives what CANCEL, MASS_CANCEL and AMEND commands did, on the matching thread, one call per order.
+ * Only orders that were resting are reported, a command for an order already filled or cancelled is dropped silently.
+ * The unfilled rest of a market order is reported as cancelled too, nothing rests it.
+ */
+public interface OrderUpdateListener {
+
+    void onCancelled(long orderId, long accountId, boolean buy, long remaining);
+
+    /**
+     * @param price ticks
+     */
+    void onAmended(long orderId, long accountId, boolean buy, long price, long quantity);
+
+    default OrderUpdateListener andThen(OrderUpdateListener next) {
+        OrderUpdateListener first = this;
+
+        return new OrderUpdateListener() {
+            @Override
+            public void onCancelled(long orderId, long accountId, boolean buy, long remaining) {
+                first.onCancelled(orderId, accountId, buy, remaining);
+                next.onCancelled(orderId, accountId, buy, remaining);
+            }
+
+            @Override
+            public void onAmended(long orderId, long accountId, boolean buy, long price, long quantity) {
+                first.onAmended(orderId, accountId, buy, price, quantity);
+                next.onAmended(orderId, accountId, buy, price, quantity);
+            }
+        };
+    }
+}
@@ -0,0 +1,284 @@
+package core.MatchingEngine;
+
+import core.Order.Order;
+import core.OrderBook.OrderBook;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.SPSCRingBuffer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Several symbols, a MatchingEngine each, run by a few engine threads (shards) and moved between them at runtime.
+ * <p>
+ * - Every symbol has a ring of its own: the ingress offers by symbol and never knows which shard runs it
+ * - A shard polls the rings of the symbols it owns in turn, at most BATCH orders each
+ * - migrate() sets a symbol's target shard. Its owner releases it between two commands, the ring's read position
+ *   is the barrier, and the target adopts it from there with its book, pool and queued orders.
+ *   Release and adoption are ordered through the owners array, a symbol is never run by two threads at once
+ * - Every engine counts what it processed on its own thread. rebalance() turns that and the growth of each ring
+ *   into demand per symbol and moves one symbol from the busiest shard to the idlest when it evens them out
+ * <p>
+ * Usage:
+ *  - create: new ShardGroup(books, pools, shards, ringSize), symbol i is books[i], its orders come from pools[i]
+ *  - start(), then offer() from one ingress thread, rebalance() / migrate() from one control thread
+ * <p>
+ * Note: A symbol's pool is borrowed from by the ingress and released to by the shard owning the symbol, one shard
+ * at a time, so SPSCOrderPool holds. Listeners of an engine are called on whichever shard runs it.
+ */
+public final class ShardGroup {
+
+    public static final int NONE = -1;
+    /** Orders a shard takes from one symbol's ring before moving to the next */
+    public static final int BATCH = 64;
+    /** A move has to cut the busiest shard's load by at least this share */
+    private static final double MIN_GAIN = 0.1;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final MatchingEngine[] engines;
+    private final List<SPSCRingBuffer<Order>> rings;
+    private final SPSCOrderPool[] pools;
+    private final int[] targets; // written by the control thread
+    private final int[] owners; // written by the shards, NONE while handed over
+    private final AtomicLong generation = new AtomicLong(); // bumped on every target change and release
+    private final Shard[] shards;
+    private final Thread[] threads;
+    private volatile boolean running = true;
+
+    // rebalance() only
+    private final long[] lastProcessed;
+    private final long[] lastQueued;
+    private final long[] demand;
+    private final long[] load;
+
+    /**
+     * Symbols start spread round robin over the shards
+     *
+     * @param pools the pool each book releases to, orders offered for symbol i are borrowed from pools[i]
+     */
+    public ShardGroup(OrderBook[] books, SPSCOrderPool[] pools, int shards, int ringSize) {
+        if (books.length == 0 || books.length != pools.length)
+            throw new IllegalArgumentException("one pool per book");
+        if (shards <= 0)
+            throw new IllegalArgumentException("shards > 0");
+
+        int symbols = books.length;
+        this.engines = new MatchingEngine[symbols];
+        List<SPSCRingBuffer<Order>> rings = new ArrayList<>(symbols);
+        this.pools = pools;
+        for (int i = 0; i < symbols; i++) {
+            rings.add(new SPSCRingBuffer<>(ringSize));
+            engines[i] = new MatchingEngine(books[i], rings.get(i), pools[i]);
+        }
+        this.rings = List.copyOf(rings);
+
+        this.targets = new int[symbols];
+        this.owners = new int[symbols];
+        for (int i = 0; i < symbols; i++)
+            targets[i] = i % shards;
+        Arrays.fill(owners, NONE);
+
+        this.shards = new Shard[shards];
+        this.threads = new Thread[shards];
+        for (int i = 0; i < shards; i++)
+            this.shards[i] = new Shard(i, symbols);
+
+        lastProcessed = new long[symbols];
+        lastQueued = new long[symbols];
+        demand = new long[symbols];
+        load = new long[shards];
+    }
+
+    public void start() {
+        for (int i = 0; i < shards.length; i++)
+            threads[i] = Thread.ofPlatform().name("engine-shard-" + i).start(shards[i]);
+    }
+
+    /**
+     * Stop every shard after the batch in hand and wait for them
+     */
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads)
+            if (thread != null)
+                thread.join();
+    }
+
+    /**
+     * Ingress, one thread: route the order to its symbol, whichever shard runs it
+     *
+     * @return false if the symbol's ring is full
+     */
+    public boolean offer(int symbol, Order order) {
+        return rings.get(symbol).offer(order);
+    }
+
+    /**
+     * Control thread: move the symbol to the shard, done once the shard has adopted it (shardOf)
+     *
+     * @return false while the symbol is still being handed over from an earlier move
+     */
+    public boolean migrate(int symbol, int shard) {
+        if (shard < 0 || shard >= shards.length)
+            throw new IllegalArgumentException("no shard " + shard);
+
+        int owner = (int) INTS.getAcquire(owners, symbol);
+        if (owner == NONE || owner != (int) INTS.getOpaque(targets, symbol))
+            return false;
+
+        if (owner != shard) {
+            INTS.setRelease(targets, symbol, shard);
+            generation.incrementAndGet();
+        }
+
+        return true;
+    }
+
+    /**
+     * Control thread: demand per symbol since the last call is what its engine processed plus what its ring grew by,
+     * so a saturated shard still shows what it could not serve. Moves the symbol of the busiest shard that brings
+     * its load and the idlest shard's closest together, if that cuts the busiest load by MIN_GAIN.
+     * Nothing moves while an earlier move is in flight
+     *
+     * @return the symbol moved or NONE
+     */
+    public int rebalance() {
+        Arrays.fill(load, 0);
+        boolean settled = true;
+        for (int symbol = 0; symbol < engines.length; symbol++) {
+            long processed = engines[symbol].getProcessedCount();
+            long queued = rings.get(symbol).size();
+            demand[symbol] = Math.max(0, processed - lastProcessed[symbol] + queued - lastQueued[symbol]);
+            lastProcessed[symbol] = processed;
+            lastQueued[symbol] = queued;
+
+            int owner = (int) INTS.getAcquire(owners, symbol);
+            if (owner == NONE || owner != (int) INTS.getOpaque(targets, symbol))
+                settled = false;
+            else
+                load[owner] += demand[symbol];
+        }
+        if (!settled)
+            return NONE;
+
+        int busiest = 0;
+        int idlest = 0;
+        for (int shard = 1; shard < load.length; shard++) {
+            if (load[shard] > load[busiest])
+                busiest = shard;
+            if (load[shard] < load[idlest])
+                idlest = shard;
+        }
+
+        long gap = load[busiest] - load[idlest];
+        long ceiling = (long) (load[busiest] * (1 - MIN_GAIN));
+        int best = NONE;
+        for (int symbol = 0; symbol < engines.length; symbol++) {
+            long d = demand[symbol];
+            if ((int) INTS.getOpaque(owners, symbol) != busiest || d == 0 || d >= gap
+                    || Math.max(load[busiest] - d, load[idlest] + d) > ceiling)
+                continue;
+
+            if (best == NONE || Math.abs(2 * d - gap) < Math.abs(2 * demand[best] - gap))
+                best = symbol;
+        }
+        if (best != NONE)
+            migrate(best, idlest);
+
+        return best;
+    }
+
+    /**
+     * @return the shard running the symbol, NONE while it is handed over
+     */
+    public int shardOf(int symbol) {
+        return (int) INTS.getAcquire(owners, symbol);
+    }
+
+    public MatchingEngine engine(int symbol) {
+        return engines[symbol];
+    }
+
+    public SPSCOrderPool pool(int symbol) {
+        return pools[symbol];
+    }
+
+    public int symbols() {
+        return engines.length;
+    }
+
+    public int shards() {
+        return shards.length;
+    }
+
+    /**
+     * One engine thread, owns the symbols it adopted until their target changes
+     */
+    private final class Shard implements Runnable {
+
+        private final int id;
+        private final int[] symbols;
+        private final MatchingEngine[] owned;
+        private int count;
+        private long seen = -1;
+
+        Shard(int id, int symbols) {
+            this.id = id;
+            this.symbols = new int[symbols];
+            this.owned = new MatchingEngine[symbols];
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                long g = generation.get();
+                if (g != seen) {
+                    seen = g;
+                    reconcile();
+                }
+
+                int processed = 0;
+                for (int i = 0; i < count; i++)
+                    processed += owned[i].drain(BATCH);
+                if (processed == 0)
+                    Thread.yield();
+            }
+        }
+
+        /**
+         * Between two commands: release symbols targeted elsewhere, adopt the ones targeted here that their old
+         * owner has released. The release store publishes everything this thread did to the symbol
+         */
+        private void reconcile() {
+            int kept = 0;
+            boolean released = false;
+            for (int i = 0; i < count; i++) {
+                int symbol = symbols[i];
+                if ((int) INTS.getAcquire(targets, symbol) == id) {
+                    symbols[kept] = symbol;
+                    owned[kept++] = engines[symbol];
+                } else {
+                    INTS.setRelease(owners, symbol, NONE);
+                    released = true;
+                }
+            }
+            Arrays.fill(owned, kept, count, null);
+            count = kept;
+
+            for (int symbol = 0; symbol < engines.length; symbol++) {
+                if ((int) INTS.getAcquire(targets, symbol) == id && INTS.compareAndSet(owners, symbol, NONE, id)) {
+                    symbols[count] = symbol;
+                    owned[count++] = engines[symbol];
+                }
+            }
+
+            if (released)
+                generation.incrementAndGet(); // the target may have looked before the release
+        }
+    }
+}
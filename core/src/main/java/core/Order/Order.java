@@ -1,41 +1,79 @@
 package core.Order;
 
 /**
- * A little messy but supports two order books
+ * A little messy but supports several order books.
+ * <p>
+ * Kept compact, a pool preallocates millions of these: type is a byte code (see OrderType),
+ * price is in ticks of the instrument, the book maps ticks to its own levels.
+ * Longs first, then references, then bytes, so the fields pack into 80 bytes with compressed oops
+ * (see OrderLayoutReport in the benchmark module).
+ * <p>
+ * A resting order is linked twice: next / prev within its price level, accountNext / accountPrev
+ * within its account (books with mass cancel, accountId 0 is not linked).
  */
 public final class Order {
 
+    /** Market order held in a call auction as a limit at the extreme price, cancelled if unfilled at uncross */
+    public static final byte HELD_MARKET = 1;
+    /** MASS_CANCEL sides, both for everything */
+    public static final byte CANCEL_BIDS = 2;
+    public static final byte CANCEL_ASKS = 4;
+
     public long id;
-    public OrderType type;
-    public double price;
-    public boolean isMarket;
+    public long price; // ticks
     public long quantity;
+    public long accountId; // 0 - anonymous
+    public long timestamp; // ingress time in ns, 0 - not stamped. The engine's clock for expiry
+    public long expiresAt; // same clock as timestamp, 0 - good till cancel
     public Order next;
     public Order prev;
-    public int priceIndex;
+    public Order accountNext;
+    public Order accountPrev;
+    private byte type;
+    public byte flags;
 
     public Order() {}
 
-    public Order(long id, OrderType type, double price, long quantity, boolean isMarket) {
+    public Order(long id, OrderType type, long price, long quantity) {
         this.id = id;
-        this.type = type;
+        this.type = type.code;
         this.price = price;
         this.quantity = quantity;
-        this.isMarket = isMarket;
+    }
+
+    public OrderType type() {
+        return OrderType.of(type);
+    }
+
+    public void setType(OrderType type) {
+        this.type = type.code;
+    }
+
+    /**
+     * For a CANCEL the side is meaningless
+     */
+    public boolean isBuy() {
+        return (type & OrderType.SELL_BIT) == 0;
+    }
+
+    public boolean isLimit() {
+        return type < OrderType.MARKET_BIT;
     }
 
     public void reset() {
         this.id = 0;
         this.price = 0;
         this.quantity = 0;
-        this.isMarket = false;
+        this.accountId = 0;
+        this.timestamp = 0;
+        this.expiresAt = 0;
+        this.flags = 0;
         next = prev = null;
-        priceIndex = -1;
+        accountNext = accountPrev = null;
     }
 
     @Override
     public String toString() {
-        return String.format("Order#%d %s %.2f × %,d (rem %,d)",
-                id, type, price, id, quantity);
+        return String.format("Order#%d %s %d × %,d", id, type(), price, quantity);
     }
 }
@@ -0,0 +1,101 @@
+package core.Order;
+
+import core.Codec.AmendCodec;
+import core.Codec.CancelCodec;
+import core.Codec.Flyweight;
+import core.Codec.NewOrderCodec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed 64-byte binary form of an order command, shared by the IPC ring, the journal and the engine pipeline.
+ * <p>
+ * A slot holds one message of the core.Codec schema: NewOrder for limit and market orders,
+ * Cancel for CANCEL and MASS_CANCEL, Amend for AMEND, the rest of the slot is padding. Links are not part of a command.
+ * The buffer must be little-endian. One instance per thread, the flyweights inside are reused.
+ */
+public final class OrderRecord {
+
+    public static final int SIZE = 64;
+
+    private final NewOrderCodec newOrder = new NewOrderCodec();
+    private final CancelCodec cancel = new CancelCodec();
+    private final AmendCodec amend = new AmendCodec();
+
+    public void write(ByteBuffer buffer, int offset, Order order) {
+        OrderType type = order.type();
+        if (type == OrderType.CANCEL || type == OrderType.MASS_CANCEL) {
+            cancel.wrapForEncode(buffer, offset)
+                    .orderId(order.id)
+                    .accountId(order.accountId)
+                    .timestamp(order.timestamp)
+                    .type(type.code)
+                    .flags(order.flags);
+
+            return;
+        }
+        if (type == OrderType.AMEND) {
+            amend.wrapForEncode(buffer, offset)
+                    .orderId(order.id)
+                    .accountId(order.accountId)
+                    .price(order.price)
+                    .quantity(order.quantity)
+                    .timestamp(order.timestamp);
+
+            return;
+        }
+
+        newOrder.wrapForEncode(buffer, offset)
+                .orderId(order.id)
+                .price(order.price)
+                .quantity(order.quantity)
+                .accountId(order.accountId)
+                .timestamp(order.timestamp)
+                .expiresAt(order.expiresAt)
+                .type(type.code)
+                .flags(order.flags);
+    }
+
+    /**
+     * Sets every field a command carries, the order may be a reused one
+     */
+    public void read(ByteBuffer buffer, int offset, Order order) {
+        int templateId = Flyweight.templateId(buffer, offset);
+        if (templateId == CancelCodec.TEMPLATE_ID) {
+            cancel.wrapForDecode(buffer, offset);
+            order.id = cancel.orderId();
+            order.price = 0;
+            order.quantity = 0;
+            order.accountId = cancel.accountId();
+            order.timestamp = cancel.timestamp();
+            order.expiresAt = 0;
+            order.setType(OrderType.of(cancel.type()));
+            order.flags = cancel.flags();
+
+            return;
+        }
+        if (templateId == AmendCodec.TEMPLATE_ID) {
+            amend.wrapForDecode(buffer, offset);
+            order.id = amend.orderId();
+            order.price = amend.price();
+            order.quantity = amend.quantity();
+            order.accountId = amend.accountId();
+            order.timestamp = amend.timestamp();
+            order.expiresAt = 0;
+            order.setType(OrderType.AMEND);
+            order.flags = 0;
+
+            return;
+        }
+
+        newOrder.wrapForDecode(buffer, offset);
+        order.id = newOrder.orderId();
+        order.price = newOrder.price();
+        order.quantity = newOrder.quantity();
+        order.accountId = newOrder.accountId();
+        order.timestamp = newOrder.timestamp();
+        order.expiresAt = newOrder.expiresAt();
+        order.setType(OrderType.of(newOrder.type()));
+        order.flags = newOrder.flags();
+    }
+}
@@ -1,6 +1,27 @@
 package core.Order;
 
+/**
+ * Stored in Order as a byte code: bit 0 - sell side, bit 1 - market
+ */
 public enum OrderType {
-    BUY_LIMIT, SELL_LIMIT,
-    BUY_MARKET, SELL_MARKET
+    BUY_LIMIT(0), SELL_LIMIT(1),
+    BUY_MARKET(2), SELL_MARKET(3),
+    CANCEL(4), // order.id is the id of the resting order to cancel
+    MASS_CANCEL(5), // every resting order of order.accountId on the sides set in order.flags
+    AMEND(6); // order.id is the resting order, order.price and order.quantity replace its own
+
+    public static final byte SELL_BIT = 1;
+    public static final byte MARKET_BIT = 2;
+
+    private static final OrderType[] BY_CODE = values(); // declared in code order
+
+    public final byte code;
+
+    OrderType(int code) {
+        this.code = (byte) code;
+    }
+
+    public static OrderType of(byte code) {
+        return BY_CODE[code];
+    }
 }
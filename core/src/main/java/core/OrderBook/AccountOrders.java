@@ -0,0 +1,57 @@
+package core.OrderBook;
+
+import core.Collections.LongObjectHashMap;
+import core.Order.Order;
+
+/**
+ * Per-account intrusive lists through resting orders (Order.accountNext / accountPrev), head by account id.
+ * <p>
+ * Books link an order when it comes to rest and unlink it before handing it to the pool releaser,
+ * so a mass cancel walks only the account's own orders. Orders with accountId 0 are not linked.
+ */
+final class AccountOrders {
+
+    private final LongObjectHashMap<Order> heads = new LongObjectHashMap<>(1024);
+
+    void add(Order order) {
+        if (order.accountId == 0)
+            return;
+
+        Order head = heads.put(order.accountId, order);
+        order.accountPrev = null;
+        order.accountNext = head;
+        if (head != null)
+            head.accountPrev = order;
+    }
+
+    void remove(Order order) {
+        if (order.accountId == 0)
+            return;
+
+        if (order.accountPrev != null)
+            order.accountPrev.accountNext = order.accountNext;
+        else if (order.accountNext != null)
+            heads.put(order.accountId, order.accountNext);
+        else
+            heads.remove(order.accountId);
+
+        if (order.accountNext != null)
+            order.accountNext.accountPrev = order.accountPrev;
+
+        order.accountNext = order.accountPrev = null;
+    }
+
+    /**
+     * @return most recently rested order of the account or null
+     */
+    Order head(long accountId) {
+        return accountId == 0 ? null : heads.get(accountId);
+    }
+
+    /**
+     * @return accounts with at least one resting order
+     */
+    int size() {
+        return heads.size();
+    }
+}
@@ -1,5 +1,7 @@
 package core.OrderBook;
 
+import core.Events.BestPriceScanEvent;
+import core.MarketData.BookListener;
 import core.Order.Order;
 import core.Order.OrderType;
 
@@ -14,11 +16,15 @@ import java.util.function.Consumer;
  * <p>
  * Usage:
  *  - create: new ArrayBucketOrderBook(minPrice, maxPrice, tickSize)
- *  - add a LIMIT order: placeLimit(order)  (order.price must map to an index)
+ *  - add a LIMIT order: placeLimit(order)  (order.price in ticks must map to an index)
  *  - match a MARKET order: placeMarket(order)
- *  - cancel: cancel(order)
+ *  - cancel: cancel(order), cancelAccount(accountId, bids, asks, listener) for every resting order of an account
+ *  - call auction: startAuction(), orders rest without matching, uncross() executes at a single price
+ *  - depth: getCumulativeQuantity(bid, price), getSweepPrice(bid, quantity) in O(log n) off a Fenwick tree per side
  * <p>
  * Note: Limits must be unique objects stored in the book. Market orders should be pooled.
+ * poolReleaser receives resting orders leaving the book (filled or cancelled),
+ * the incoming market order is released by the caller.
  */
 public final class ArrayBucketOrderBook implements OrderBook {
 
@@ -62,31 +68,73 @@ public final class ArrayBucketOrderBook implements OrderBook {
 
     private final double minPrice;
     private final double tickSize;
+    private final long minTick;
     private final int capacity;
 
     private final Level[] bids;
     private final Level[] asks;
+    // level totals again, summed by prefix: kept in step by levelChanged, which every quantity change goes through
+    private final DepthIndex bidDepth;
+    private final DepthIndex askDepth;
 
     private int bestBidIndex = -1;
     private int bestAskIndex = -1;
 
     private final Consumer<Trade> tradeConsumer;
     private final Consumer<Order> poolReleaser;
+    private BookListener bookListener;
+    private final AccountOrders accounts = new AccountOrders();
+
+    // Call auction. With B(p) = bids at or above p and S(p) = asks at or below p (held market orders
+    // rest at the extreme index, so they count everywhere), B falls and S rises with p. The executable
+    // volume min(B, S) peaks where S - B turns non-negative: eqIndex is the lowest such index,
+    // eqBuy = B(eqIndex), eqSell = S(eqIndex). An order moves eqIndex only across the band it changed
+    private boolean auction;
+    private int eqIndex;
+    private long eqBuy;
+    private long eqSell;
+    private int indicativeIndex = -1;
+    private long indicativeVolume;
 
     public static final class Trade {
         public final double price;
         public final long qty;
         public final boolean buyInitiator;
+        public final long makerOrderId;
+        public final long takerOrderId;
+        public final long makerAccountId;
+        public final long takerAccountId;
+        public final long timestamp; // the taker's ingress time, 0 - not stamped or uncrossed in an auction
 
         public Trade(double price, long qty, boolean buyInitiator) {
+            this(price, qty, buyInitiator, 0, 0);
+        }
+
+        public Trade(double price, long qty, boolean buyInitiator, long makerOrderId, long takerOrderId) {
+            this(price, qty, buyInitiator, makerOrderId, takerOrderId, 0, 0);
+        }
+
+        public Trade(double price, long qty, boolean buyInitiator, long makerOrderId, long takerOrderId,
+                     long makerAccountId, long takerAccountId) {
+            this(price, qty, buyInitiator, makerOrderId, takerOrderId, makerAccountId, takerAccountId, 0);
+        }
+
+        public Trade(double price, long qty, boolean buyInitiator, long makerOrderId, long takerOrderId,
+                     long makerAccountId, long takerAccountId, long timestamp) {
             this.price = price;
             this.qty = qty;
             this.buyInitiator = buyInitiator;
+            this.makerOrderId = makerOrderId;
+            this.takerOrderId = takerOrderId;
+            this.makerAccountId = makerAccountId;
+            this.takerAccountId = takerAccountId;
+            this.timestamp = timestamp;
         }
 
         @Override
         public String toString() {
-            return String.format("Trade{price=%.8f, qty=%d, buyInitiator=%s}", price, qty, buyInitiator);
+            return String.format("Trade{price=%.8f, qty=%d, buyInitiator=%s, maker=%d, taker=%d}",
+                    price, qty, buyInitiator, makerOrderId, takerOrderId);
         }
     }
 
@@ -109,6 +157,7 @@ public final class ArrayBucketOrderBook implements OrderBook {
 
         this.minPrice = minPrice;
         this.tickSize = tickSize;
+        this.minTick = Math.round(minPrice / tickSize);
         long buckets = (long)Math.floor((maxPrice - minPrice) / tickSize) + 1L;
         if (buckets > Integer.MAX_VALUE)
             throw new IllegalArgumentException("too many buckets");
@@ -121,6 +170,8 @@ public final class ArrayBucketOrderBook implements OrderBook {
             bids[i] = new Level();
             asks[i] = new Level();
         }
+        this.bidDepth = new DepthIndex(capacity);
+        this.askDepth = new DepthIndex(capacity);
 
         this.tradeConsumer = tradeConsumer;
         this.poolReleaser = poolReleaser;
@@ -139,29 +190,52 @@ public final class ArrayBucketOrderBook implements OrderBook {
         return minPrice + index * tickSize;
     }
 
+    public long priceToTick(double price) {
+        return Math.round(price / tickSize);
+    }
+
+    private int tickToIndex(long tick) {
+        long idx = tick - minTick;
+        if (idx < 0 || idx >= capacity)
+            throw new IndexOutOfBoundsException("price out of range: " + tick + " ticks");
+
+        return (int) idx;
+    }
+
     public void placeBuyLimit(Order order) {
-        int idx = priceToIndex(order.price);
-        order.priceIndex = idx;
+        int idx = tickToIndex(order.price);
         Level level = bids[idx];
         level.addLast(order);
+        accounts.add(order);
 
         if (bestBidIndex < idx)
             bestBidIndex = idx;
+
+        levelChanged(true, idx, level.totalQty);
+        if (auction)
+            auctionChanged(true, idx, order.quantity);
     }
 
     public void placeSellLimit(Order order) {
-        int idx = priceToIndex(order.price);
-        order.priceIndex = idx;
+        int idx = tickToIndex(order.price);
         Level level = asks[idx];
 
         level.addLast(order);
+        accounts.add(order);
         if (bestAskIndex == -1 || bestAskIndex > idx)
             bestAskIndex = idx;
+
+        levelChanged(false, idx, level.totalQty);
+        if (auction)
+            auctionChanged(false, idx, order.quantity);
     }
 
     public void placeBuyMarket(Order marketOrder) {
-        if (marketOrder.quantity <= 0) {
-            maybeReleaseMarket(marketOrder);
+        if (marketOrder.quantity <= 0)
+            return;
+
+        if (auction) {
+            holdForAuction(marketOrder, OrderType.BUY_LIMIT, capacity - 1);
 
             return;
         }
@@ -180,19 +254,23 @@ public final class ArrayBucketOrderBook implements OrderBook {
 
             long quantity = Math.min(marketOrder.quantity, head.quantity);
             double tradePrice = indexToPrice(idx);
+            long makerId = head.id; // head may be released by consumeFromLevel
+            long makerAccountId = head.accountId;
             consumeFromLevel(lvl, head, quantity, true);
 
             marketOrder.quantity -= quantity;
             if (tradeConsumer != null)
-                tradeConsumer.accept(new Trade(tradePrice, quantity, true));
+                tradeConsumer.accept(new Trade(tradePrice, quantity, true, makerId, marketOrder.id,
+                        makerAccountId, marketOrder.accountId, marketOrder.timestamp));
         }
-
-        maybeReleaseMarket(marketOrder);
     }
 
     public void placeSellMarket(Order marketOrder) {
-        if (marketOrder.quantity <= 0) {
-            maybeReleaseMarket(marketOrder);
+        if (marketOrder.quantity <= 0)
+            return;
+
+        if (auction) {
+            holdForAuction(marketOrder, OrderType.SELL_LIMIT, 0);
 
             return;
         }
@@ -211,33 +289,41 @@ public final class ArrayBucketOrderBook implements OrderBook {
 
             long quantity = Math.min(marketOrder.quantity, head.quantity);
             double tradePrice = indexToPrice(idx);
+            long makerId = head.id; // head may be released by consumeFromLevel
+            long makerAccountId = head.accountId;
             consumeFromLevel(lvl, head, quantity, false);
 
             marketOrder.quantity -= quantity;
             if (tradeConsumer != null)
-                tradeConsumer.accept(new Trade(tradePrice, quantity, false));
+                tradeConsumer.accept(new Trade(tradePrice, quantity, false, makerId, marketOrder.id,
+                        makerAccountId, marketOrder.accountId, marketOrder.timestamp));
         }
-
-        maybeReleaseMarket(marketOrder);
     }
 
     /**
      * Not in the hot path, could use 'if' inside
      */
     public boolean cancel(Order order) {
-        int idx = order.priceIndex;
-        if (idx < 0 || idx >= capacity)
+        long offset = order.price - minTick;
+        if (offset < 0 || offset >= capacity)
             return false;
 
-        Level level = (order.type == OrderType.BUY_MARKET || order.type == OrderType.BUY_LIMIT) ? bids[idx] : asks[idx];
+        int idx = (int) offset;
+        boolean buy = order.isBuy();
+        Level level = buy ? bids[idx] : asks[idx];
         if (order.prev == null && order.next == null && level.head != order)
             return false;
 
+        long quantity = order.quantity;
         level.remove(order);
-        if ((order.type == OrderType.BUY_MARKET || order.type == OrderType.BUY_LIMIT) && level.isEmpty()) {
+        accounts.remove(order);
+        levelChanged(buy, idx, level.totalQty);
+        if (auction)
+            auctionChanged(buy, idx, -quantity);
+        if (buy && level.isEmpty()) {
             if (bestBidIndex == idx)
                 retreatBestBid();
-        } else if ((order.type == OrderType.SELL_MARKET || order.type == OrderType.SELL_LIMIT) && level.isEmpty()) {
+        } else if (!buy && level.isEmpty()) {
             if (bestAskIndex == idx)
                 advanceBestAsk();
         }
@@ -248,6 +334,27 @@ public final class ArrayBucketOrderBook implements OrderBook {
         return true;
     }
 
+    /**
+     * Walks the account's own resting orders, each one is cancelled like cancel(order)
+     */
+    @Override
+    public int cancelAccount(long accountId, boolean bids, boolean asks, CancelListener listener) {
+        int cancelled = 0;
+        Order order = accounts.head(accountId);
+        while (order != null) {
+            Order next = order.accountNext; // cancel releases the order
+            if (order.isBuy() ? bids : asks) {
+                listener.onCancelled(order.id, accountId, order.isBuy(), order.quantity);
+                cancel(order);
+                cancelled++;
+            }
+
+            order = next;
+        }
+
+        return cancelled;
+    }
+
     /**
      * Handles partial fills and removal
      * TODO split sell and buy paths
@@ -259,11 +366,14 @@ public final class ArrayBucketOrderBook implements OrderBook {
         if (head == null)
             return;
 
+        int idx = (int) (head.price - minTick);
         if (quantity >= head.quantity) {
             level.remove(head);
+            accounts.remove(head);
             if (poolReleaser != null)
                 poolReleaser.accept(head);
 
+            levelChanged(!initiatorIsBuy, idx, level.totalQty);
             if (level.isEmpty()) {
                 if (initiatorIsBuy)
                     advanceBestAsk();
@@ -273,7 +383,244 @@ public final class ArrayBucketOrderBook implements OrderBook {
         } else {
             head.quantity -= quantity;
             level.totalQty -= quantity;
+            levelChanged(!initiatorIsBuy, idx, level.totalQty);
+        }
+    }
+
+    /**
+     * Switches to the call auction: orders accumulate without matching until uncross().
+     * Market orders are held as limits at the most aggressive price and cancelled if unfilled at uncross
+     */
+    public void startAuction() {
+        if (auction)
+            return;
+
+        auction = true;
+        // no ask rests below the best ask, start there and walk to the crossing once: limits rest without
+        // matching, so the book may already be crossed
+        eqIndex = bestAskIndex == -1 ? 0 : bestAskIndex;
+        eqBuy = bidDepth.suffix(eqIndex);
+        eqSell = asks[eqIndex].totalQty;
+        indicativeIndex = -1;
+        indicativeVolume = 0;
+        walkToCrossing();
+        updateIndicative();
+    }
+
+    /**
+     * Executes the crossed volume at the indicative price in one pass: buys from the highest bid down,
+     * sells from the lowest ask up, FIFO within a level. The later order of each pair is the taker.
+     * Unfilled held market orders are cancelled and continuous matching resumes
+     *
+     * @param listener receives each cancelled market order before it goes back to the pool
+     * @return executed volume, 0 when not in auction or nothing crossed
+     */
+    public long uncross(CancelListener listener) {
+        if (!auction)
+            return 0;
+
+        auction = false;
+        long volume = indicativeVolume;
+        double price = volume > 0 ? indexToPrice(indicativeIndex) : Double.NaN;
+        int buyIdx = bestBidIndex;
+        int sellIdx = bestAskIndex;
+        long remaining = volume;
+        // volume = min(B, S) at the indicative index, both sides hold enough within the band
+        while (remaining > 0) {
+            while (bids[buyIdx].isEmpty())
+                buyIdx--;
+            while (asks[sellIdx].isEmpty())
+                sellIdx++;
+
+            Order buy = bids[buyIdx].head;
+            Order sell = asks[sellIdx].head;
+            long quantity = Math.min(remaining, Math.min(buy.quantity, sell.quantity));
+            boolean buyIsTaker = buy.id > sell.id;
+            Order maker = buyIsTaker ? sell : buy;
+            Order taker = buyIsTaker ? buy : sell;
+            long makerId = maker.id, takerId = taker.id; // both may be released below
+            long makerAccountId = maker.accountId, takerAccountId = taker.accountId;
+
+            fillInAuction(bids[buyIdx], buy, quantity, true, buyIdx);
+            fillInAuction(asks[sellIdx], sell, quantity, false, sellIdx);
+            remaining -= quantity;
+            if (tradeConsumer != null)
+                tradeConsumer.accept(new Trade(price, quantity, buyIsTaker, makerId, takerId,
+                        makerAccountId, takerAccountId));
         }
+
+        cancelHeldMarkets(bids[capacity - 1], true, capacity - 1, listener);
+        cancelHeldMarkets(asks[0], false, 0, listener);
+        skipEmptyBidsBackward();
+        skipEmptyAsksForward();
+
+        indicativeIndex = -1;
+        indicativeVolume = 0;
+
+        return volume;
+    }
+
+    public boolean isAuction() {
+        return auction;
+    }
+
+    /**
+     * @return equilibrium price of the running auction, NaN when nothing crosses
+     */
+    public double getIndicativePrice() {
+        return indicativeVolume > 0 ? indexToPrice(indicativeIndex) : Double.NaN;
+    }
+
+    public long getIndicativeVolume() {
+        return indicativeVolume;
+    }
+
+    private void holdForAuction(Order marketOrder, OrderType limitType, int idx) {
+        marketOrder.flags |= Order.HELD_MARKET;
+        marketOrder.setType(limitType); // the caller now sees a resting limit and keeps it indexed
+        marketOrder.price = minTick + idx;
+        if (limitType == OrderType.BUY_LIMIT)
+            placeBuyLimit(marketOrder);
+        else
+            placeSellLimit(marketOrder);
+    }
+
+    /**
+     * Adds the quantity change to the cumulative sums it falls into and walks eqIndex to the new crossing
+     */
+    private void auctionChanged(boolean bid, int idx, long delta) {
+        if (bid && idx >= eqIndex)
+            eqBuy += delta;
+        else if (!bid && idx <= eqIndex)
+            eqSell += delta;
+
+        walkToCrossing();
+        updateIndicative();
+    }
+
+    /**
+     * Moves eqIndex to the lowest index where S >= B, from wherever the sums are consistent
+     */
+    private void walkToCrossing() {
+        while (eqSell < eqBuy && eqIndex < capacity - 1) {
+            eqBuy -= bids[eqIndex].totalQty;
+            eqIndex++;
+            eqSell += asks[eqIndex].totalQty;
+        }
+
+        while (eqIndex > 0) {
+            long buyBelow = eqBuy + bids[eqIndex - 1].totalQty;
+            long sellBelow = eqSell - asks[eqIndex].totalQty;
+            if (sellBelow < buyBelow)
+                break;
+
+            eqBuy = buyBelow;
+            eqSell = sellBelow;
+            eqIndex--;
+        }
+    }
+
+    /**
+     * The peak is at eqIndex (volume B) or one tick below it (volume S).
+     * Ties go to the smaller imbalance, then to eqIndex
+     */
+    private void updateIndicative() {
+        int index = eqIndex;
+        long volume = Math.min(eqBuy, eqSell);
+        if (eqIndex > 0) {
+            long buyBelow = eqBuy + bids[eqIndex - 1].totalQty;
+            long sellBelow = eqSell - asks[eqIndex].totalQty;
+            long volumeBelow = Math.min(buyBelow, sellBelow);
+            if (volumeBelow > volume
+                    || (volumeBelow == volume && Math.abs(buyBelow - sellBelow) < Math.abs(eqBuy - eqSell))) {
+                index = eqIndex - 1;
+                volume = volumeBelow;
+            }
+        }
+
+        if (volume == 0)
+            index = -1;
+        else if (index == capacity - 1 && asks[index].isEmpty() && onlyHeldMarkets(bids[index]))
+            index = nearestLimit(index, -1);
+        else if (index == 0 && bids[index].isEmpty() && onlyHeldMarkets(asks[index]))
+            index = nearestLimit(index, 1);
+
+        if (index == indicativeIndex && volume == indicativeVolume)
+            return;
+
+        indicativeIndex = index;
+        indicativeVolume = volume;
+        if (bookListener != null)
+            bookListener.onIndicativePrice(getIndicativePrice(), volume);
+    }
+
+    /**
+     * Held market orders only set the volume, the price comes from the nearest real limit.
+     * Scans only while one side's market orders outweigh every opposite limit
+     */
+    private int nearestLimit(int index, int step) {
+        for (int i = index + step; i >= 0 && i < capacity; i += step)
+            if (!bids[i].isEmpty() || !asks[i].isEmpty())
+                return i;
+
+        return index;
+    }
+
+    private static boolean onlyHeldMarkets(Level level) {
+        for (Order order = level.head; order != null; order = order.next)
+            if ((order.flags & Order.HELD_MARKET) == 0)
+                return false;
+
+        return true;
+    }
+
+    private void fillInAuction(Level level, Order order, long quantity, boolean bid, int idx) {
+        if (quantity >= order.quantity) {
+            level.remove(order);
+            accounts.remove(order);
+            if (poolReleaser != null)
+                poolReleaser.accept(order);
+        } else {
+            order.quantity -= quantity;
+            level.totalQty -= quantity;
+        }
+
+        levelChanged(bid, idx, level.totalQty);
+    }
+
+    private void cancelHeldMarkets(Level level, boolean bid, int idx, CancelListener listener) {
+        boolean changed = false;
+        Order order = level.head;
+        while (order != null) {
+            Order next = order.next;
+            if ((order.flags & Order.HELD_MARKET) != 0) {
+                listener.onCancelled(order.id, order.accountId, bid, order.quantity);
+                level.remove(order);
+                accounts.remove(order);
+                if (poolReleaser != null)
+                    poolReleaser.accept(order);
+
+                changed = true;
+            }
+
+            order = next;
+        }
+
+        if (changed)
+            levelChanged(bid, idx, level.totalQty);
+    }
+
+    private void levelChanged(boolean bid, int idx, long totalQty) {
+        (bid ? bidDepth : askDepth).set(idx, totalQty);
+        if (bookListener != null)
+            bookListener.onLevelChanged(bid, indexToPrice(idx), totalQty);
+    }
+
+    /**
+     * Optional, receives every price level change on the matching thread
+     */
+    public void setBookListener(BookListener bookListener) {
+        this.bookListener = bookListener;
     }
 
     /**
@@ -287,6 +634,9 @@ public final class ArrayBucketOrderBook implements OrderBook {
         while (i < capacity && asks[i].isEmpty())
             i++;
 
+        if (i - bestAskIndex > BestPriceScanEvent.LONG_SCAN_LEVELS)
+            BestPriceScanEvent.emit(false, i - bestAskIndex, i < capacity);
+
         bestAskIndex = (i < capacity) ? i : -1;
     }
 
@@ -301,6 +651,9 @@ public final class ArrayBucketOrderBook implements OrderBook {
         while (i >= 0 && bids[i].isEmpty())
             i--;
 
+        if (bestBidIndex - i > BestPriceScanEvent.LONG_SCAN_LEVELS)
+            BestPriceScanEvent.emit(true, bestBidIndex - i, i >= 0);
+
         bestBidIndex = (i >= 0) ? i : -1;
     }
 
@@ -326,11 +679,7 @@ public final class ArrayBucketOrderBook implements OrderBook {
             bestBidIndex = -1;
     }
 
-    private void maybeReleaseMarket(Order marketOrder) {
-        if (poolReleaser != null)
-            poolReleaser.accept(marketOrder);
-    }
-
+    @Override
     public double getBestBidPrice() {
         if (bestBidIndex == -1)
             return Double.NaN;
@@ -338,6 +687,7 @@ public final class ArrayBucketOrderBook implements OrderBook {
         return indexToPrice(bestBidIndex);
     }
 
+    @Override
     public double getBestAskPrice() {
         if (bestAskIndex == -1)
             return Double.NaN;
@@ -345,12 +695,50 @@ public final class ArrayBucketOrderBook implements OrderBook {
         return indexToPrice(bestAskIndex);
     }
 
+    @Override
+    public long getTotalAtPrice(boolean buy, double price) {
+        long idx = Math.round((price - minPrice) / tickSize);
+        if (idx < 0 || idx >= capacity)
+            return 0;
+
+        return getTotalAtPriceIndex(buy, (int) idx);
+    }
+
     public long getTotalAtPriceIndex(boolean buy, int idx) {
         Level l = buy ? bids[idx] : asks[idx];
 
         return l.totalQty;
     }
 
+    /**
+     * Quantity resting on one side at prices equal or better than price: bids at or above it, asks at or below it,
+     * i.e. what a market order of the other side takes before trading through price.
+     * Includes market orders held by a running auction. O(log n)
+     */
+    public long getCumulativeQuantity(boolean bid, double price) {
+        long idx = Math.round((price - minPrice) / tickSize);
+        if (bid)
+            return idx >= capacity ? 0 : bidDepth.suffix((int) Math.max(idx, 0));
+
+        return idx < 0 ? 0 : askDepth.prefix((int) Math.min(idx, capacity - 1));
+    }
+
+    /**
+     * Worst price reached when quantity is taken from one side best level first: the lowest bid or the highest ask
+     * swept. NaN if the side holds less than quantity. O(log n)
+     */
+    public double getSweepPrice(boolean bid, long quantity) {
+        if (quantity <= 0)
+            throw new IllegalArgumentException("quantity must be > 0");
+
+        DepthIndex depth = bid ? bidDepth : askDepth;
+        if (depth.total() < quantity)
+            return Double.NaN;
+
+        // bids are taken from the top: the sweep ends at the lowest index whose prefix exceeds what stays behind
+        return indexToPrice(bid ? depth.lowerBound(depth.total() - quantity + 1) : depth.lowerBound(quantity));
+    }
+
     public int capacity() { return capacity; }
 }
 
@@ -0,0 +1,72 @@
+package core.OrderBook;
+
+/**
+ * Fenwick tree over the level quantities of one side of a ladder: a level update, the quantity up to an index
+ * and the first index at which that quantity reaches a target are all O(log n), nothing is scanned.
+ * <p>
+ * Keeps its own copy of the levels, so the book sets a level's new total instead of working out the delta.
+ * Not thread safe, owned by the matching thread like the book.
+ */
+final class DepthIndex {
+
+    private final long[] tree; // 1-based, tree[i] sums levels (i - lowbit(i), i]
+    private final long[] levels;
+    private final int topStep;
+    private long total;
+
+    DepthIndex(int capacity) {
+        tree = new long[capacity + 1];
+        levels = new long[capacity];
+        topStep = Integer.highestOneBit(capacity);
+    }
+
+    void set(int index, long quantity) {
+        long delta = quantity - levels[index];
+        if (delta == 0)
+            return;
+
+        levels[index] = quantity;
+        total += delta;
+        for (int i = index + 1; i < tree.length; i += i & -i)
+            tree[i] += delta;
+    }
+
+    /**
+     * @return the sum of levels [0, index], 0 for index -1
+     */
+    long prefix(int index) {
+        long sum = 0;
+        for (int i = index + 1; i > 0; i -= i & -i)
+            sum += tree[i];
+
+        return sum;
+    }
+
+    /**
+     * @return the sum of levels [index, capacity)
+     */
+    long suffix(int index) {
+        return total - prefix(index - 1);
+    }
+
+    long total() {
+        return total;
+    }
+
+    /**
+     * @return the lowest index with prefix(index) >= quantity, capacity if the whole side holds less
+     */
+    int lowerBound(long quantity) {
+        int position = 0;
+        long remaining = quantity;
+        for (int step = topStep; step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] < remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+
+        return position;
+    }
+}
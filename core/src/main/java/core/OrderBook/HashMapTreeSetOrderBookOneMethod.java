@@ -24,7 +24,7 @@ public final class HashMapTreeSetOrderBookOneMethod implements OneMethodOrderBoo
         var prices = (orderType == OrderType.BUY_MARKET || orderType == OrderType.BUY_LIMIT) ? bidPrices : askPrices;
 
         map.computeIfAbsent(price, _ -> new ArrayDeque<>())
-                .add(new Order(id++, orderType, price, qty, false));
+                .add(new Order(id++, orderType, 0, qty));
         prices.add(price);
     }
 
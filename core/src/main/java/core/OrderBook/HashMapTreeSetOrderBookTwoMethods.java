@@ -21,14 +21,14 @@ public final class HashMapTreeSetOrderBookTwoMethods implements ExperimentalOrde
     @Override
     public void placeBuyLimit(double price, long quantity) {
         bids.computeIfAbsent(price, _ -> new ArrayDeque<>())
-                .add(new Order(id++, OrderType.BUY_LIMIT, price, quantity, false));
+                .add(new Order(id++, OrderType.BUY_LIMIT, 0, quantity));
         bidPrices.add(price);
     }
 
     @Override
     public void placeSellLimit(double price, long quantity) {
         asks.computeIfAbsent(price, _ -> new ArrayDeque<>())
-                .add(new Order(id++, OrderType.SELL_LIMIT, price, quantity, false));
+                .add(new Order(id++, OrderType.SELL_LIMIT, 0, quantity));
         askPrices.add(price);
     }
 
@@ -0,0 +1,718 @@
+package core.OrderBook;
+
+import core.Order.Order;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * SlabOrderBook kept in a memory-mapped file: the price ladder, the order slots and the id index all live in the
+ * mapping and refer to each other by slot number, so a restarted process maps the file and trades, nothing to rebuild.
+ * <p>
+ * - Every word a book call changes is undo-logged in the file first, the log is cleared when the call returns.
+ *   Reopening after a crash rolls back the call that was cut short and checks the header, O(words it changed)
+ * - setSequence() before each command: its journal sequence is stored with the changes it makes, after a restart
+ *   replay the journal from appliedSequence() + 1. Commands that left the book untouched replay as no-ops too
+ * - A call that throws leaves its changes for the next open to roll back, reopen the file instead of going on.
+ *   A call that runs out of undo log rolls itself back before it throws, the book goes on as before the call
+ * - The undo log is bounded: a market sweep stops short of it and leaves the rest of the taker unfilled (the engine
+ *   reports it cancelled), a mass cancel commits in chunks without its sequence and a replay finishes it
+ * <p>
+ * Usage:
+ *  - create or reopen: new MappedOrderBook(file, minPrice, maxPrice, tickSize, slots, tradeConsumer)
+ *  - an existing file must have been created with the same prices and slots
+ * <p>
+ * Note: Survives the process, not the host: the OS writes the pages back when it likes, force() to sync them.
+ * Fills of a rolled back command are emitted again by its replay. The index keeps slot numbers only and reads
+ * ids from the slots, a probe costs a slot read. No auction, listener or pool releaser, like SlabOrderBook.
+ */
+public final class MappedOrderBook implements OrderBook, AutoCloseable {
+
+    /** Words one book call may change, a market order sweeping some 200k resting orders fits */
+    public static final int UNDO_CAPACITY = 1 << 20;
+    /** Undo words left free for the order being filled or cancelled and the commit after it */
+    private static final int UNDO_HEADROOM = 1 << 12;
+    /** Bounded by the index, two int entries per slot in an array of at most 2^30 */
+    public static final int MAX_SLOTS = 1 << 29;
+
+    private static final int NIL = 0; // slot 0 is never used, a zeroed file has no links
+
+    private static final long MAGIC = 0x4B4F4F4250414DL; // "MAPBOOK"
+
+    // header
+    private static final long MIN_TICK = 8;
+    private static final long TICK_SIZE = 16;
+    private static final long LEVELS = 24;
+    private static final long SLOTS = 32;
+    private static final long APPLIED = 40;
+    private static final long FREE_HEAD = 48;
+    private static final long FRESH = 56;
+    private static final long RESTING = 64;
+    private static final long BEST_BID = 72;
+    private static final long BEST_ASK = 80;
+    private static final long UNDO_COUNT = 88;
+    private static final long UNDO = 128; // (offset, old value) pairs
+    private static final long INT_WORD = 1L << 62; // undo offset of an int field
+
+    // level: head and tail slot, quantity
+    private static final int LEVEL_SIZE = 16;
+    private static final int HEAD = 0;
+    private static final int TAIL = 4;
+    private static final int LEVEL_QTY = 8;
+
+    // slot: id, quantity, account, level, side, links
+    private static final int SLOT_SIZE = 40;
+    private static final int ID = 0;
+    private static final int QTY = 8;
+    private static final int ACCOUNT = 16;
+    private static final int LEVEL = 24;
+    private static final int BUY = 28;
+    private static final int NEXT = 32;
+    private static final int PREV = 36;
+
+    private final double minPrice;
+    private final double tickSize;
+    private final long minTick;
+    private final int capacity;
+    private final int slots;
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final long bids;
+    private final long asks;
+    private final long slotBase;
+    private final long index;
+    private final int mask;
+
+    // header fields, written back to the file when a call returns
+    private int bestBidIndex;
+    private int bestAskIndex;
+    private int freeHead;
+    private int fresh; // slots from here on were never used
+    private int resting;
+    private long applied;
+
+    private long sequence = -1;
+    private int undoCount;
+    private final int rolledBack;
+
+    private final Consumer<Trade> tradeConsumer;
+
+    /**
+     * Map the book, creating it if missing, rolling back an interrupted call if not
+     *
+     * @param slots maximum number of resting orders
+     * @param tradeConsumer optional consumer to receive executed trades (could be null)
+     * @throws IllegalStateException if the file holds another book or fails the consistency check
+     */
+    public MappedOrderBook(Path file, double minPrice, double maxPrice, double tickSize, int slots,
+                           Consumer<Trade> tradeConsumer) {
+        if (tickSize <= 0)
+            throw new IllegalArgumentException("tickSize > 0");
+        if (maxPrice <= minPrice)
+            throw new IllegalArgumentException("maxPrice > minPrice");
+        if (slots <= 0 || slots > MAX_SLOTS)
+            throw new IllegalArgumentException("slots in (0, " + MAX_SLOTS + "]");
+
+        this.minPrice = minPrice;
+        this.tickSize = tickSize;
+        this.minTick = Math.round(minPrice / tickSize);
+        long buckets = (long)Math.floor((maxPrice - minPrice) / tickSize) + 1L;
+        if (buckets > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("too many buckets");
+
+        this.capacity = (int)buckets;
+        this.slots = slots;
+        this.tradeConsumer = tradeConsumer;
+
+        int entries = Integer.highestOneBit(Math.max(16, slots * 2 - 1)) << 1;
+        mask = entries - 1;
+        bids = UNDO + (long) UNDO_CAPACITY * 16;
+        asks = bids + (long) capacity * LEVEL_SIZE;
+        slotBase = asks + (long) capacity * LEVEL_SIZE;
+        index = slotBase + (slots + 1L) * SLOT_SIZE;
+        long size = index + entries * 4L;
+
+        arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() != 0 && channel.size() != size)
+                throw new IllegalStateException(file + " is not a book of " + capacity + " levels and " + slots + " slots");
+
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+        } catch (IOException e) {
+            arena.close();
+            throw new UncheckedIOException("Cannot map " + file, e);
+        } catch (RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+
+        if (getLong(0) == 0) {
+            create();
+            rolledBack = 0;
+        } else if (getLong(0) != MAGIC || getLong(MIN_TICK) != minTick || getLong(LEVELS) != capacity
+                || getLong(SLOTS) != slots || getLong(TICK_SIZE) != Double.doubleToLongBits(tickSize)) {
+            close();
+            throw new IllegalStateException(file + " is not a book of " + capacity + " levels and " + slots + " slots");
+        } else {
+            rolledBack = rollBack();
+        }
+
+        load();
+        check(file);
+    }
+
+    private void load() {
+        bestBidIndex = (int) getLong(BEST_BID);
+        bestAskIndex = (int) getLong(BEST_ASK);
+        freeHead = (int) getLong(FREE_HEAD);
+        fresh = (int) getLong(FRESH);
+        resting = (int) getLong(RESTING);
+        applied = getLong(APPLIED);
+    }
+
+    /**
+     * Header last, a file cut short before the magic is created again
+     */
+    private void create() {
+        segment.set(JAVA_LONG, MIN_TICK, minTick);
+        segment.set(JAVA_LONG, TICK_SIZE, Double.doubleToLongBits(tickSize));
+        segment.set(JAVA_LONG, LEVELS, capacity);
+        segment.set(JAVA_LONG, SLOTS, slots);
+        segment.set(JAVA_LONG, APPLIED, -1L);
+        segment.set(JAVA_LONG, FREE_HEAD, NIL);
+        segment.set(JAVA_LONG, FRESH, 1L);
+        segment.set(JAVA_LONG, RESTING, 0L);
+        segment.set(JAVA_LONG, BEST_BID, -1L);
+        segment.set(JAVA_LONG, BEST_ASK, -1L);
+        segment.set(JAVA_LONG, UNDO_COUNT, 0L);
+        segment.set(JAVA_LONG, 0, MAGIC);
+    }
+
+    /**
+     * Restore the old values of an interrupted call newest first, safe to repeat if interrupted itself
+     */
+    private int rollBack() {
+        long count = getLong(UNDO_COUNT);
+        if (count < 0 || count > UNDO_CAPACITY)
+            throw new IllegalStateException("undo log of " + count + " words");
+
+        for (long i = count - 1; i >= 0; i--) {
+            long offset = getLong(UNDO + i * 16);
+            long old = getLong(UNDO + i * 16 + 8);
+            if ((offset & INT_WORD) != 0)
+                segment.set(JAVA_INT, offset & ~INT_WORD, (int) old);
+            else
+                segment.set(JAVA_LONG, offset, old);
+        }
+        segment.set(JAVA_LONG, UNDO_COUNT, 0L);
+
+        return (int) count;
+    }
+
+    /**
+     * O(1): header fields in range, best levels non-empty. Limits rest without matching, so a crossed book is valid
+     */
+    private void check(Path file) {
+        boolean valid = freeHead >= 0 && freeHead <= slots && fresh >= 1 && fresh <= slots + 1L
+                && resting >= 0 && resting < fresh
+                && bestBidIndex >= -1 && bestBidIndex < capacity && bestAskIndex >= -1 && bestAskIndex < capacity
+                && (bestBidIndex == -1 || getInt(level(true, bestBidIndex) + HEAD) != NIL)
+                && (bestAskIndex == -1 || getInt(level(false, bestAskIndex) + HEAD) != NIL);
+        if (!valid) {
+            close();
+            throw new IllegalStateException(file + " failed the consistency check");
+        }
+    }
+
+    public long priceToTick(double price) {
+        return Math.round(price / tickSize);
+    }
+
+    public double indexToPrice(int index) {
+        return minPrice + index * tickSize;
+    }
+
+    private int tickToIndex(long tick) {
+        long idx = tick - minTick;
+        if (idx < 0 || idx >= capacity)
+            throw new IndexOutOfBoundsException("price out of range: " + tick + " ticks");
+
+        return (int) idx;
+    }
+
+    /**
+     * Journal sequence of the command about to be applied, stored with whatever it changes
+     */
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * @return sequence of the last command that changed the book, -1 if none did, replay the journal after it
+     */
+    public long appliedSequence() {
+        return applied;
+    }
+
+    /**
+     * @return words of an interrupted call rolled back when the file was opened
+     */
+    public int rolledBack() {
+        return rolledBack;
+    }
+
+    @Override
+    public void placeBuyLimit(Order order) {
+        int idx = tickToIndex(order.price);
+        rest(order, true, idx);
+
+        if (bestBidIndex < idx)
+            bestBidIndex = idx;
+        commit();
+    }
+
+    @Override
+    public void placeSellLimit(Order order) {
+        int idx = tickToIndex(order.price);
+        rest(order, false, idx);
+
+        if (bestAskIndex == -1 || bestAskIndex > idx)
+            bestAskIndex = idx;
+        commit();
+    }
+
+    /**
+     * Stops short of the undo log, the taker's quantity left is unfilled
+     */
+    @Override
+    public void placeBuyMarket(Order marketOrder) {
+        while (marketOrder.quantity > 0 && bestAskIndex != -1 && hasUndoRoom()) {
+            int idx = bestAskIndex;
+            long maker = slot(getInt(level(false, idx) + HEAD));
+            long quantity = Math.min(marketOrder.quantity, getLong(maker + QTY));
+            long makerId = getLong(maker + ID);
+            long makerAccountId = getLong(maker + ACCOUNT);
+            consume(maker, false, idx, quantity);
+
+            marketOrder.quantity -= quantity;
+            if (tradeConsumer != null)
+                tradeConsumer.accept(new Trade(indexToPrice(idx), quantity, true, makerId, marketOrder.id,
+                        makerAccountId, marketOrder.accountId, marketOrder.timestamp));
+        }
+        commit();
+    }
+
+    /**
+     * Stops short of the undo log, the taker's quantity left is unfilled
+     */
+    @Override
+    public void placeSellMarket(Order marketOrder) {
+        while (marketOrder.quantity > 0 && bestBidIndex != -1 && hasUndoRoom()) {
+            int idx = bestBidIndex;
+            long maker = slot(getInt(level(true, idx) + HEAD));
+            long quantity = Math.min(marketOrder.quantity, getLong(maker + QTY));
+            long makerId = getLong(maker + ID);
+            long makerAccountId = getLong(maker + ACCOUNT);
+            consume(maker, true, idx, quantity);
+
+            marketOrder.quantity -= quantity;
+            if (tradeConsumer != null)
+                tradeConsumer.accept(new Trade(indexToPrice(idx), quantity, false, makerId, marketOrder.id,
+                        makerAccountId, marketOrder.accountId, marketOrder.timestamp));
+        }
+        commit();
+    }
+
+    /**
+     * By id and account, the order object was released when it came to rest
+     */
+    @Override
+    public boolean cancel(Order order) {
+        if (order.id == 0)
+            return false;
+
+        int slot = find(order.id);
+        if (slot == NIL || getLong(slot(slot) + ACCOUNT) != order.accountId)
+            return false;
+
+        unindex(order.id);
+
+        remove(slot);
+        commit();
+
+        return true;
+    }
+
+    /**
+     * No per-account lists in the file: walks the chosen sides from the best level out, O(levels + resting orders)
+     * of those sides. Orders with id 0 can't be cancelled and are skipped. Commits in chunks when the undo log fills,
+     * the sequence with the last one: cut short, the replayed command cancels the orders left
+     */
+    @Override
+    public int cancelAccount(long accountId, boolean bids, boolean asks, CancelListener listener) {
+        if (accountId == 0)
+            return 0;
+
+        int cancelled = 0;
+        for (int idx = bids ? bestBidIndex : -1; idx >= 0; idx--)
+            cancelled += cancelAccount(true, idx, accountId, listener);
+        for (int idx = asks ? bestAskIndex : capacity; idx >= 0 && idx < capacity; idx++)
+            cancelled += cancelAccount(false, idx, accountId, listener);
+        commit();
+
+        return cancelled;
+    }
+
+    private int cancelAccount(boolean buy, int idx, long accountId, CancelListener listener) {
+        int cancelled = 0;
+        int slot = getInt(level(buy, idx) + HEAD);
+        while (slot != NIL) {
+            long address = slot(slot);
+            int next = getInt(address + NEXT); // remove frees the slot
+            long id = getLong(address + ID);
+            if (id != 0 && getLong(address + ACCOUNT) == accountId) {
+                listener.onCancelled(id, accountId, buy, getLong(address + QTY));
+                unindex(id);
+                remove(slot);
+                cancelled++;
+                if (!hasUndoRoom())
+                    checkpoint();
+            }
+
+            slot = next;
+        }
+
+        return cancelled;
+    }
+
+    /**
+     * Takes an unindexed slot off its level
+     */
+    private void remove(int slot) {
+        long address = slot(slot);
+        boolean buy = getInt(address + BUY) != 0;
+        int idx = getInt(address + LEVEL);
+        long level = level(buy, idx);
+        putLong(level + LEVEL_QTY, getLong(level + LEVEL_QTY) - getLong(address + QTY));
+        unlink(slot, level);
+        free(slot);
+
+        if (buy && getInt(level + HEAD) == NIL && bestBidIndex == idx)
+            retreatBestBid();
+        else if (!buy && getInt(level + HEAD) == NIL && bestAskIndex == idx)
+            advanceBestAsk();
+    }
+
+    /**
+     * Copies the order into a free slot at the tail of its level
+     */
+    private void rest(Order order, boolean buy, int idx) {
+        int slot = freeHead;
+        if (slot != NIL)
+            freeHead = getInt(slot(slot) + NEXT);
+        else if (fresh <= slots)
+            slot = fresh++;
+        else
+            throw new IllegalStateException("all " + slots + " slots are resting");
+
+        resting++;
+
+        // a free slot's fields are dead until it is linked, only its free list link needs undo
+        long address = slot(slot);
+        segment.set(JAVA_LONG, address + ID, order.id);
+        segment.set(JAVA_LONG, address + QTY, order.quantity);
+        segment.set(JAVA_LONG, address + ACCOUNT, order.accountId);
+        segment.set(JAVA_INT, address + LEVEL, idx);
+        segment.set(JAVA_INT, address + BUY, buy ? 1 : 0);
+
+        long level = level(buy, idx);
+        int tail = getInt(level + TAIL);
+        segment.set(JAVA_INT, address + PREV, tail);
+        putInt(address + NEXT, NIL);
+        if (tail != NIL)
+            putInt(slot(tail) + NEXT, slot);
+        else
+            putInt(level + HEAD, slot);
+        putInt(level + TAIL, slot);
+        putLong(level + LEVEL_QTY, getLong(level + LEVEL_QTY) + order.quantity);
+
+        if (order.id != 0)
+            index(order.id, slot);
+
+        order.quantity = 0; // copied, the caller releases the object
+    }
+
+    /**
+     * Fills the head slot of the best level, partially or completely
+     */
+    private void consume(long address, boolean buy, int idx, long quantity) {
+        long level = level(buy, idx);
+        putLong(level + LEVEL_QTY, getLong(level + LEVEL_QTY) - quantity);
+
+        long remaining = getLong(address + QTY) - quantity;
+        if (remaining > 0) {
+            putLong(address + QTY, remaining);
+
+            return;
+        }
+
+        int slot = getInt(level + HEAD);
+        long id = getLong(address + ID);
+        if (id != 0)
+            unindex(id);
+        unlink(slot, level);
+        free(slot);
+
+        if (buy && getInt(level + HEAD) == NIL)
+            retreatBestBid();
+        else if (!buy && getInt(level + HEAD) == NIL)
+            advanceBestAsk();
+    }
+
+    private void unlink(int slot, long level) {
+        long address = slot(slot);
+        int before = getInt(address + PREV);
+        int after = getInt(address + NEXT);
+
+        if (before != NIL)
+            putInt(slot(before) + NEXT, after);
+        else
+            putInt(level + HEAD, after);
+
+        if (after != NIL)
+            putInt(slot(after) + PREV, before);
+        else
+            putInt(level + TAIL, before);
+    }
+
+    private void free(int slot) {
+        putInt(slot(slot) + NEXT, freeHead);
+        freeHead = slot;
+        resting--;
+    }
+
+    /**
+     * Move bestAskIndex forward to next non-empty ask or -1
+     */
+    private void advanceBestAsk() {
+        int i = bestAskIndex;
+        while (i < capacity && getInt(level(false, i) + HEAD) == NIL)
+            i++;
+
+        bestAskIndex = (i < capacity) ? i : -1;
+    }
+
+    /**
+     * Move bestBidIndex backward to next non-empty bid or -1
+     */
+    private void retreatBestBid() {
+        int i = bestBidIndex;
+        while (i >= 0 && getInt(level(true, i) + HEAD) == NIL)
+            i--;
+
+        bestBidIndex = (i >= 0) ? i : -1;
+    }
+
+    /**
+     * Ends a call that changed the book: header fields and the command's sequence go in under the same undo log,
+     * clearing the log commits them all
+     */
+    private void commit() {
+        if (undoCount == 0)
+            return;
+
+        putLong(APPLIED, sequence);
+        applied = sequence;
+        checkpoint();
+    }
+
+    /**
+     * Commits the changes so far without the sequence, only for commands that can be applied again over them
+     */
+    private void checkpoint() {
+        putLong(FREE_HEAD, freeHead);
+        putLong(FRESH, fresh);
+        putLong(RESTING, resting);
+        putLong(BEST_BID, bestBidIndex);
+        putLong(BEST_ASK, bestAskIndex);
+
+        segment.set(JAVA_LONG, UNDO_COUNT, 0L);
+        undoCount = 0;
+    }
+
+    private boolean hasUndoRoom() {
+        return undoCount < UNDO_CAPACITY - UNDO_HEADROOM;
+    }
+
+    private void putLong(long offset, long value) {
+        log(offset, getLong(offset));
+        segment.set(JAVA_LONG, offset, value);
+    }
+
+    private void putInt(long offset, int value) {
+        log(offset | INT_WORD, getInt(offset));
+        segment.set(JAVA_INT, offset, value);
+    }
+
+    /**
+     * The entry goes in before the count that covers it, the count before the change it undoes.
+     * Out of entries, the call is rolled back here and now: fills it emitted stand, the book doesn't have them
+     */
+    private void log(long offset, long old) {
+        if (undoCount == UNDO_CAPACITY) {
+            rollBack();
+            undoCount = 0;
+            load();
+
+            throw new IllegalStateException("a call changing more than " + UNDO_CAPACITY + " words was rolled back");
+        }
+
+        long entry = UNDO + undoCount * 16L;
+        segment.set(JAVA_LONG, entry, offset);
+        segment.set(JAVA_LONG, entry + 8, old);
+        segment.set(JAVA_LONG, UNDO_COUNT, ++undoCount);
+    }
+
+    // id -> slot: open addressing with linear probing over slot numbers, keys are read from the slots
+
+    private int home(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+
+        return (int) ((h ^ (h >>> 32)) & mask);
+    }
+
+    private long entry(int i) {
+        return index + i * 4L;
+    }
+
+    /**
+     * A resting id taken again points to the newest slot, like SlabOrderBook
+     */
+    private void index(long id, int slot) {
+        int i = home(id);
+        int other;
+        while ((other = getInt(entry(i))) != NIL && getLong(slot(other) + ID) != id)
+            i = (i + 1) & mask;
+
+        putInt(entry(i), slot);
+    }
+
+    /**
+     * @return the id's slot or NIL
+     */
+    private int find(long id) {
+        int i = home(id);
+        int slot;
+        while ((slot = getInt(entry(i))) != NIL && getLong(slot(slot) + ID) != id)
+            i = (i + 1) & mask;
+
+        return slot;
+    }
+
+    /**
+     * @return the slot removed from the index or NIL
+     */
+    private int unindex(long id) {
+        int i = home(id);
+        int slot;
+        while ((slot = getInt(entry(i))) != NIL) {
+            if (getLong(slot(slot) + ID) == id)
+                break;
+
+            i = (i + 1) & mask;
+        }
+        if (slot == NIL)
+            return NIL;
+
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            int moved = getInt(entry(j));
+            if (moved == NIL)
+                break;
+
+            int home = home(getLong(slot(moved) + ID));
+            // move j into the hole unless its home lies cyclically in (hole, j]
+            boolean stays = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!stays) {
+                putInt(entry(hole), moved);
+                hole = j;
+            }
+        }
+        putInt(entry(hole), NIL);
+
+        return slot;
+    }
+
+    private long level(boolean buy, int idx) {
+        return (buy ? bids : asks) + (long) idx * LEVEL_SIZE;
+    }
+
+    private long slot(int slot) {
+        return slotBase + (long) slot * SLOT_SIZE;
+    }
+
+    private int getInt(long offset) {
+        return segment.get(JAVA_INT, offset);
+    }
+
+    private long getLong(long offset) {
+        return segment.get(JAVA_LONG, offset);
+    }
+
+    public int restingCount() {
+        return resting;
+    }
+
+    @Override
+    public double getBestBidPrice() {
+        if (bestBidIndex == -1)
+            return Double.NaN;
+
+        return indexToPrice(bestBidIndex);
+    }
+
+    @Override
+    public double getBestAskPrice() {
+        if (bestAskIndex == -1)
+            return Double.NaN;
+
+        return indexToPrice(bestAskIndex);
+    }
+
+    @Override
+    public long getTotalAtPrice(boolean buy, double price) {
+        long idx = Math.round((price - minPrice) / tickSize);
+        if (idx < 0 || idx >= capacity)
+            return 0;
+
+        return getLong(level(buy, (int) idx) + LEVEL_QTY);
+    }
+
+    /**
+     * Write the book's dirty pages to the device, for surviving the host too
+     */
+    public void force() {
+        segment.force();
+    }
+
+    /**
+     * Unmap the file, the book can't be used after
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
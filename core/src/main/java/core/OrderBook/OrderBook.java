@@ -10,5 +10,44 @@ public interface OrderBook {
     void placeBuyMarket(Order order);
     void placeSellMarket(Order order);
 
-    // TODO cancel Order
+    /**
+     * Remove a resting order from the book.
+     * Books that copy resting orders (SlabOrderBook, MappedOrderBook) match by order.id and order.accountId,
+     * the others by identity.
+     *
+     * @return false if the order is not resting in this book (already filled or cancelled)
+     */
+    boolean cancel(Order order);
+
+    /**
+     * Mass cancel: remove every resting order of the account on the chosen sides.
+     * One book is one symbol, so this is the per-symbol cancel, the caller fans out for all symbols.
+     *
+     * @param listener receives each removed order before it goes back to the pool
+     * @return number of orders cancelled
+     */
+    int cancelAccount(long accountId, boolean bids, boolean asks, CancelListener listener);
+
+    /**
+     * An order removed by cancelAccount, on the calling thread
+     */
+    @FunctionalInterface
+    interface CancelListener {
+        void onCancelled(long orderId, long accountId, boolean buy, long remaining);
+    }
+
+    /**
+     * @return NaN when there are no bids
+     */
+    double getBestBidPrice();
+
+    /**
+     * @return NaN when there are no asks
+     */
+    double getBestAskPrice();
+
+    /**
+     * @return total quantity resting at the price on one side, 0 for an empty level
+     */
+    long getTotalAtPrice(boolean buy, double price);
 }
\ No newline at end of file
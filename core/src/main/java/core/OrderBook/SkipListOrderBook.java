@@ -0,0 +1,378 @@
+package core.OrderBook;
+
+import core.Collections.LongObjectHashMap;
+import core.MarketData.BookListener;
+import core.Order.Order;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Sparse order book for instruments whose price range is too wide for ArrayBucketOrderBook.
+ * <p>
+ * - Price discretization: order.price is already in ticks, a primitive long key, nothing is boxed
+ * - Two skip lists of Level: asks keyed by tick, bids keyed by -tick, so both iterate best price first
+ * - A primitive open-addressing tick -> Level index in front of each list: placing at an existing level
+ *   or cancelling is O(1), the skip list is searched only when a new level is created
+ * - Intrusive doubly-linked list of Order within each Level
+ * - Empty levels go to a free list and are reused, the steady state allocates only Trades
+ * <p>
+ * Best price is the first node: O(1). Creating or removing a level in the middle is O(log levels).
+ * poolReleaser receives resting orders leaving the book (filled or cancelled),
+ * the incoming market order is released by the caller.
+ */
+public final class SkipListOrderBook implements OrderBook {
+
+    private static final int MAX_HEIGHT = 16; // p = 1/4, enough for 4^16 levels
+
+    private static final class Level {
+        long key;
+        int height;
+        final Level[] next = new Level[MAX_HEIGHT];
+
+        Order head;
+        Order tail;
+        long totalQty;
+
+        void addLast(Order order) {
+            order.prev = tail;
+            order.next = null;
+            if (tail != null)
+                tail.next = order;
+
+            tail = order;
+            if (head == null)
+                head = order;
+
+            totalQty += order.quantity;
+        }
+
+        void remove(Order order) {
+            if (order.prev != null)
+                order.prev.next = order.next;
+            else
+                head = order.next;
+
+            if (order.next != null)
+                order.next.prev = order.prev;
+            else
+                tail = order.prev;
+
+            totalQty -= order.quantity;
+            order.next = order.prev = null;
+        }
+
+        boolean isEmpty() {
+            return head == null;
+        }
+    }
+
+    private final class SkipList {
+        private final Level head = new Level(); // sentinel
+        private final Level[] update = new Level[MAX_HEIGHT];
+        private final LongObjectHashMap<Level> index = new LongObjectHashMap<>(1024);
+        private int height = 1;
+        private int size;
+
+        Level first() {
+            return head.next[0];
+        }
+
+        Level find(long key) {
+            return index.get(indexKey(key));
+        }
+
+        Level findOrInsert(long key) {
+            Level existing = index.get(indexKey(key));
+            if (existing != null)
+                return existing;
+
+            Level x = head;
+            for (int i = height - 1; i >= 0; i--) {
+                while (x.next[i] != null && x.next[i].key < key)
+                    x = x.next[i];
+
+                update[i] = x;
+            }
+
+            int h = randomHeight();
+            if (h > height) {
+                for (int i = height; i < h; i++)
+                    update[i] = head;
+
+                height = h;
+            }
+
+            Level level = allocateLevel(key, h);
+            for (int i = 0; i < h; i++) {
+                level.next[i] = update[i].next[i];
+                update[i].next[i] = level;
+            }
+
+            index.put(indexKey(key), level);
+            size++;
+
+            return level;
+        }
+
+        /**
+         * The best level: every predecessor is the sentinel, no search needed
+         */
+        void removeFirst() {
+            Level first = head.next[0];
+            for (int i = 0; i < first.height; i++)
+                head.next[i] = first.next[i];
+
+            unlinked(first);
+        }
+
+        void remove(Level level) {
+            if (head.next[0] == level) {
+                removeFirst();
+
+                return;
+            }
+
+            Level x = head;
+            for (int i = height - 1; i >= 0; i--) {
+                while (x.next[i] != null && x.next[i].key < level.key)
+                    x = x.next[i];
+
+                if (i < level.height)
+                    x.next[i] = level.next[i];
+            }
+
+            unlinked(level);
+        }
+
+        private void unlinked(Level level) {
+            while (height > 1 && head.next[height - 1] == null)
+                height--;
+
+            index.remove(indexKey(level.key));
+            size--;
+            freeLevel(level);
+        }
+    }
+
+    private final double tickSize;
+
+    private final SkipList bids = new SkipList();
+    private final SkipList asks = new SkipList();
+
+    private Level freeLevels; // linked through next[0]
+    private long seed = 0x2545F4914F6CDD1DL;
+
+    private final Consumer<Trade> tradeConsumer;
+    private final Consumer<Order> poolReleaser;
+    private BookListener bookListener;
+    private final AccountOrders accounts = new AccountOrders();
+
+    /**
+     * @param tickSize price tick resolution (> 0)
+     * @param tradeConsumer optional consumer to receive executed trades (could be null)
+     * @param poolReleaser optional pool release callback (could be null)
+     */
+    public SkipListOrderBook(double tickSize, Consumer<Trade> tradeConsumer, Consumer<Order> poolReleaser) {
+        if (tickSize <= 0)
+            throw new IllegalArgumentException("tickSize > 0");
+
+        this.tickSize = tickSize;
+        this.tradeConsumer = tradeConsumer;
+        this.poolReleaser = poolReleaser;
+    }
+
+    public long priceToTick(double price) {
+        return Math.round(price / tickSize);
+    }
+
+    public double tickToPrice(long tick) {
+        return tick * tickSize;
+    }
+
+    @Override
+    public void placeBuyLimit(Order order) {
+        Level level = bids.findOrInsert(-order.price);
+        level.addLast(order);
+        accounts.add(order);
+
+        levelChanged(true, level);
+    }
+
+    @Override
+    public void placeSellLimit(Order order) {
+        Level level = asks.findOrInsert(order.price);
+        level.addLast(order);
+        accounts.add(order);
+
+        levelChanged(false, level);
+    }
+
+    @Override
+    public void placeBuyMarket(Order marketOrder) {
+        match(marketOrder, asks, true);
+    }
+
+    @Override
+    public void placeSellMarket(Order marketOrder) {
+        match(marketOrder, bids, false);
+    }
+
+    private void match(Order marketOrder, SkipList side, boolean initiatorIsBuy) {
+        while (marketOrder.quantity > 0) {
+            Level level = side.first();
+            if (level == null)
+                break;
+
+            Order head = level.head;
+            long quantity = Math.min(marketOrder.quantity, head.quantity);
+            double tradePrice = tickToPrice(initiatorIsBuy ? level.key : -level.key);
+            long makerId = head.id; // head may be released below
+            long makerAccountId = head.accountId;
+
+            if (quantity >= head.quantity) {
+                level.remove(head);
+                accounts.remove(head);
+                if (poolReleaser != null)
+                    poolReleaser.accept(head);
+            } else {
+                head.quantity -= quantity;
+                level.totalQty -= quantity;
+            }
+
+            levelChanged(!initiatorIsBuy, level);
+            if (level.isEmpty())
+                side.removeFirst();
+
+            marketOrder.quantity -= quantity;
+            if (tradeConsumer != null)
+                tradeConsumer.accept(new Trade(tradePrice, quantity, initiatorIsBuy, makerId, marketOrder.id,
+                        makerAccountId, marketOrder.accountId, marketOrder.timestamp));
+        }
+    }
+
+    @Override
+    public boolean cancel(Order order) {
+        boolean buy = order.isBuy();
+        SkipList side = buy ? bids : asks;
+        long tick = order.price;
+
+        Level level = side.find(buy ? -tick : tick);
+        if (level == null || (order.prev == null && order.next == null && level.head != order))
+            return false;
+
+        level.remove(order);
+        accounts.remove(order);
+        levelChanged(buy, level);
+        if (level.isEmpty())
+            side.remove(level);
+
+        if (poolReleaser != null)
+            poolReleaser.accept(order);
+
+        return true;
+    }
+
+    /**
+     * Walks the account's own resting orders, each one is cancelled like cancel(order)
+     */
+    @Override
+    public int cancelAccount(long accountId, boolean bids, boolean asks, CancelListener listener) {
+        int cancelled = 0;
+        Order order = accounts.head(accountId);
+        while (order != null) {
+            Order next = order.accountNext; // cancel releases the order
+            if (order.isBuy() ? bids : asks) {
+                listener.onCancelled(order.id, accountId, order.isBuy(), order.quantity);
+                cancel(order);
+                cancelled++;
+            }
+
+            order = next;
+        }
+
+        return cancelled;
+    }
+
+    /**
+     * 0 is the empty-slot marker of the index, remap tick 0 to a key no real price produces
+     */
+    private static long indexKey(long key) {
+        return key != 0 ? key : Long.MIN_VALUE;
+    }
+
+    private Level allocateLevel(long key, int height) {
+        Level level = freeLevels;
+        if (level != null) {
+            freeLevels = level.next[0];
+            level.next[0] = null;
+        } else {
+            level = new Level();
+        }
+
+        level.key = key;
+        level.height = height;
+
+        return level;
+    }
+
+    private void freeLevel(Level level) {
+        Arrays.fill(level.next, 0, level.height, null);
+        level.head = level.tail = null;
+        level.totalQty = 0;
+        level.next[0] = freeLevels;
+        freeLevels = level;
+    }
+
+    private int randomHeight() {
+        long x = seed; // xorshift64
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        seed = x;
+
+        // two random bits per level: p = 1/4
+        int height = 1 + (Long.numberOfTrailingZeros(x | (1L << 62)) >>> 1);
+
+        return Math.min(height, MAX_HEIGHT);
+    }
+
+    private void levelChanged(boolean bid, Level level) {
+        if (bookListener != null)
+            bookListener.onLevelChanged(bid, tickToPrice(bid ? -level.key : level.key), level.totalQty);
+    }
+
+    /**
+     * Optional, receives every price level change on the matching thread
+     */
+    public void setBookListener(BookListener bookListener) {
+        this.bookListener = bookListener;
+    }
+
+    @Override
+    public double getBestBidPrice() {
+        Level best = bids.first();
+
+        return best == null ? Double.NaN : tickToPrice(-best.key);
+    }
+
+    @Override
+    public double getBestAskPrice() {
+        Level best = asks.first();
+
+        return best == null ? Double.NaN : tickToPrice(best.key);
+    }
+
+    @Override
+    public long getTotalAtPrice(boolean buy, double price) {
+        long tick = priceToTick(price);
+        Level level = buy ? bids.find(-tick) : asks.find(tick);
+
+        return level == null ? 0 : level.totalQty;
+    }
+
+    public int levelCount(boolean buy) {
+        return buy ? bids.size : asks.size;
+    }
+}
@@ -0,0 +1,415 @@
+package core.OrderBook;
+
+import core.Collections.LongIntHashMap;
+import core.Order.Order;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Array-bucket price ladder with resting orders kept in primitive arrays indexed by slot.
+ * <p>
+ * - A resting limit is copied into a free slot and the incoming order's quantity is set to 0,
+ *   so the caller releases the Order right away (MatchingEngine releases filled limits)
+ * - Levels are FIFO lists of slots linked by int indexes, no Order headers or references for the GC to trace
+ * - Cancel looks the slot up by order.id, the Order passed in only carries the id and the account that must own it
+ * - Slots of an account are linked through accountNext / accountPrev, a mass cancel walks only that account's
+ * <p>
+ * Usage:
+ *  - create: new SlabOrderBook(minPrice, maxPrice, tickSize, slots, tradeConsumer)
+ *  - slots bounds the resting orders, size it like the order pool
+ * <p>
+ * Note: No call auction, book listener or pool releaser, see ArrayBucketOrderBook for those.
+ * Orders with id 0 rest but can't be cancelled.
+ */
+public final class SlabOrderBook implements OrderBook {
+
+    private static final int NIL = -1;
+
+    private final double minPrice;
+    private final double tickSize;
+    private final long minTick;
+    private final int capacity;
+
+    // levels by price index
+    private final int[] bidHead;
+    private final int[] bidTail;
+    private final long[] bidQty;
+    private final int[] askHead;
+    private final int[] askTail;
+    private final long[] askQty;
+
+    private int bestBidIndex = -1;
+    private int bestAskIndex = -1;
+
+    // resting orders by slot, free slots are chained through next
+    private final long[] ids;
+    private final long[] quantities;
+    private final long[] accountIds;
+    private final int[] levels;
+    private final boolean[] buys;
+    private final int[] next;
+    private final int[] prev;
+    private final int[] accountNext;
+    private final int[] accountPrev;
+    private int freeHead;
+    private int resting;
+
+    private final LongIntHashMap slotById;
+    private final LongIntHashMap headByAccount = new LongIntHashMap(1024);
+    private final Consumer<Trade> tradeConsumer;
+
+    /**
+     * @param slots maximum number of resting orders
+     * @param tradeConsumer optional consumer to receive executed trades (could be null)
+     */
+    public SlabOrderBook(double minPrice, double maxPrice, double tickSize, int slots, Consumer<Trade> tradeConsumer) {
+        if (tickSize <= 0)
+            throw new IllegalArgumentException("tickSize > 0");
+        if (maxPrice <= minPrice)
+            throw new IllegalArgumentException("maxPrice > minPrice");
+        if (slots <= 0)
+            throw new IllegalArgumentException("slots > 0");
+
+        this.minPrice = minPrice;
+        this.tickSize = tickSize;
+        this.minTick = Math.round(minPrice / tickSize);
+        long buckets = (long)Math.floor((maxPrice - minPrice) / tickSize) + 1L;
+        if (buckets > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("too many buckets");
+
+        this.capacity = (int)buckets;
+
+        bidHead = newLinks(capacity);
+        bidTail = newLinks(capacity);
+        bidQty = new long[capacity];
+        askHead = newLinks(capacity);
+        askTail = newLinks(capacity);
+        askQty = new long[capacity];
+
+        ids = new long[slots];
+        quantities = new long[slots];
+        accountIds = new long[slots];
+        levels = new int[slots];
+        buys = new boolean[slots];
+        next = new int[slots];
+        prev = new int[slots];
+        accountNext = new int[slots];
+        accountPrev = new int[slots];
+        for (int i = 0; i < slots; i++)
+            next[i] = i + 1 < slots ? i + 1 : NIL;
+
+        slotById = new LongIntHashMap(slots);
+        this.tradeConsumer = tradeConsumer;
+    }
+
+    private static int[] newLinks(int size) {
+        int[] links = new int[size];
+        Arrays.fill(links, NIL);
+
+        return links;
+    }
+
+    public long priceToTick(double price) {
+        return Math.round(price / tickSize);
+    }
+
+    public double indexToPrice(int index) {
+        return minPrice + index * tickSize;
+    }
+
+    private int tickToIndex(long tick) {
+        long idx = tick - minTick;
+        if (idx < 0 || idx >= capacity)
+            throw new IndexOutOfBoundsException("price out of range: " + tick + " ticks");
+
+        return (int) idx;
+    }
+
+    @Override
+    public void placeBuyLimit(Order order) {
+        int idx = tickToIndex(order.price);
+        rest(order, true, idx);
+
+        if (bestBidIndex < idx)
+            bestBidIndex = idx;
+    }
+
+    @Override
+    public void placeSellLimit(Order order) {
+        int idx = tickToIndex(order.price);
+        rest(order, false, idx);
+
+        if (bestAskIndex == -1 || bestAskIndex > idx)
+            bestAskIndex = idx;
+    }
+
+    @Override
+    public void placeBuyMarket(Order marketOrder) {
+        while (marketOrder.quantity > 0 && bestAskIndex != -1) {
+            int idx = bestAskIndex;
+            int slot = askHead[idx];
+            long quantity = Math.min(marketOrder.quantity, quantities[slot]);
+            long makerId = ids[slot];
+            long makerAccountId = accountIds[slot];
+            consume(slot, quantity);
+
+            marketOrder.quantity -= quantity;
+            if (tradeConsumer != null)
+                tradeConsumer.accept(new Trade(indexToPrice(idx), quantity, true, makerId, marketOrder.id,
+                        makerAccountId, marketOrder.accountId, marketOrder.timestamp));
+        }
+    }
+
+    @Override
+    public void placeSellMarket(Order marketOrder) {
+        while (marketOrder.quantity > 0 && bestBidIndex != -1) {
+            int idx = bestBidIndex;
+            int slot = bidHead[idx];
+            long quantity = Math.min(marketOrder.quantity, quantities[slot]);
+            long makerId = ids[slot];
+            long makerAccountId = accountIds[slot];
+            consume(slot, quantity);
+
+            marketOrder.quantity -= quantity;
+            if (tradeConsumer != null)
+                tradeConsumer.accept(new Trade(indexToPrice(idx), quantity, false, makerId, marketOrder.id,
+                        makerAccountId, marketOrder.accountId, marketOrder.timestamp));
+        }
+    }
+
+    /**
+     * By id and account, the order object was released when it came to rest
+     */
+    @Override
+    public boolean cancel(Order order) {
+        if (order.id == 0)
+            return false;
+
+        int slot = slotById.get(order.id);
+        if (slot == LongIntHashMap.MISSING || accountIds[slot] != order.accountId)
+            return false;
+
+        slotById.remove(order.id);
+        remove(slot);
+
+        return true;
+    }
+
+    /**
+     * Takes an unindexed slot off its level
+     */
+    private void remove(int slot) {
+        boolean buy = buys[slot];
+        int idx = levels[slot];
+        if (buy)
+            bidQty[idx] -= quantities[slot];
+        else
+            askQty[idx] -= quantities[slot];
+        unlink(slot);
+        free(slot);
+
+        if (buy && bidHead[idx] == NIL && bestBidIndex == idx)
+            retreatBestBid();
+        else if (!buy && askHead[idx] == NIL && bestAskIndex == idx)
+            advanceBestAsk();
+    }
+
+    /**
+     * Walks the account's own slots, each one is cancelled like cancel(order).
+     * Orders with id 0 can't be cancelled and are skipped
+     */
+    @Override
+    public int cancelAccount(long accountId, boolean bids, boolean asks, CancelListener listener) {
+        if (accountId == 0)
+            return 0;
+
+        int cancelled = 0;
+        int slot = headByAccount.get(accountId); // MISSING is NIL
+        while (slot != NIL) {
+            int next = accountNext[slot]; // remove frees the slot
+            if (ids[slot] != 0 && (buys[slot] ? bids : asks)) {
+                listener.onCancelled(ids[slot], accountId, buys[slot], quantities[slot]);
+                slotById.remove(ids[slot]);
+                remove(slot);
+                cancelled++;
+            }
+
+            slot = next;
+        }
+
+        return cancelled;
+    }
+
+    /**
+     * Copies the order into a free slot at the tail of its level
+     */
+    private void rest(Order order, boolean buy, int idx) {
+        int slot = freeHead;
+        if (slot == NIL)
+            throw new IllegalStateException("all " + ids.length + " slots are resting");
+
+        freeHead = next[slot];
+        resting++;
+
+        ids[slot] = order.id;
+        quantities[slot] = order.quantity;
+        accountIds[slot] = order.accountId;
+        levels[slot] = idx;
+        buys[slot] = buy;
+
+        int[] tails = buy ? bidTail : askTail;
+        int tail = tails[idx];
+        prev[slot] = tail;
+        next[slot] = NIL;
+        if (tail != NIL)
+            next[tail] = slot;
+        else
+            (buy ? bidHead : askHead)[idx] = slot;
+        tails[idx] = slot;
+        (buy ? bidQty : askQty)[idx] += order.quantity;
+
+        if (order.id != 0)
+            slotById.put(order.id, slot);
+        linkAccount(slot);
+
+        order.quantity = 0; // copied, the caller releases the object
+    }
+
+    /**
+     * Fills the head slot of the best level, partially or completely
+     */
+    private void consume(int slot, long quantity) {
+        boolean buy = buys[slot];
+        int idx = levels[slot];
+        if (buy)
+            bidQty[idx] -= quantity;
+        else
+            askQty[idx] -= quantity;
+
+        if (quantity < quantities[slot]) {
+            quantities[slot] -= quantity;
+
+            return;
+        }
+
+        if (ids[slot] != 0)
+            slotById.remove(ids[slot]);
+        unlink(slot);
+        free(slot);
+
+        if (buy && bidHead[idx] == NIL)
+            retreatBestBid();
+        else if (!buy && askHead[idx] == NIL)
+            advanceBestAsk();
+    }
+
+    private void unlink(int slot) {
+        boolean buy = buys[slot];
+        int idx = levels[slot];
+        int before = prev[slot];
+        int after = next[slot];
+
+        if (before != NIL)
+            next[before] = after;
+        else
+            (buy ? bidHead : askHead)[idx] = after;
+
+        if (after != NIL)
+            prev[after] = before;
+        else
+            (buy ? bidTail : askTail)[idx] = before;
+    }
+
+    private void linkAccount(int slot) {
+        long accountId = accountIds[slot];
+        accountPrev[slot] = NIL;
+        accountNext[slot] = NIL;
+        if (accountId == 0)
+            return;
+
+        int head = headByAccount.put(accountId, slot);
+        if (head != LongIntHashMap.MISSING) {
+            accountNext[slot] = head;
+            accountPrev[head] = slot;
+        }
+    }
+
+    private void unlinkAccount(int slot) {
+        long accountId = accountIds[slot];
+        if (accountId == 0)
+            return;
+
+        int before = accountPrev[slot];
+        int after = accountNext[slot];
+        if (before != NIL)
+            accountNext[before] = after;
+        else if (after != NIL)
+            headByAccount.put(accountId, after);
+        else
+            headByAccount.remove(accountId);
+
+        if (after != NIL)
+            accountPrev[after] = before;
+    }
+
+    private void free(int slot) {
+        unlinkAccount(slot);
+        quantities[slot] = 0;
+        next[slot] = freeHead;
+        freeHead = slot;
+        resting--;
+    }
+
+    /**
+     * Move bestAskIndex forward to next non-empty ask or -1
+     */
+    private void advanceBestAsk() {
+        int i = bestAskIndex;
+        while (i < capacity && askHead[i] == NIL)
+            i++;
+
+        bestAskIndex = (i < capacity) ? i : -1;
+    }
+
+    /**
+     * Move bestBidIndex backward to next non-empty bid or -1
+     */
+    private void retreatBestBid() {
+        int i = bestBidIndex;
+        while (i >= 0 && bidHead[i] == NIL)
+            i--;
+
+        bestBidIndex = (i >= 0) ? i : -1;
+    }
+
+    public int restingCount() {
+        return resting;
+    }
+
+    @Override
+    public double getBestBidPrice() {
+        if (bestBidIndex == -1)
+            return Double.NaN;
+
+        return indexToPrice(bestBidIndex);
+    }
+
+    @Override
+    public double getBestAskPrice() {
+        if (bestAskIndex == -1)
+            return Double.NaN;
+
+        return indexToPrice(bestAskIndex);
+    }
+
+    @Override
+    public long getTotalAtPrice(boolean buy, double price) {
+        long idx = Math.round((price - minPrice) / tickSize);
+        if (idx < 0 || idx >= capacity)
+            return 0;
+
+        return buy ? bidQty[(int) idx] : askQty[(int) idx];
+    }
+}
@@ -1,12 +1,36 @@
 package core.OrderBook;
 
 import core.Order.Order;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
 
 import java.util.*;
+import java.util.function.Consumer;
 
+/**
+ * Levels keyed by price in ticks
+ */
 public class TreeMapOrderBook implements OrderBook {
-    public final NavigableMap<Double, Deque<Order>> bids = new TreeMap<>(Comparator.reverseOrder());
-    public final NavigableMap<Double, Deque<Order>> asks = new TreeMap<>();
+    public final NavigableMap<Long, Deque<Order>> bids = new TreeMap<>(Comparator.reverseOrder());
+    public final NavigableMap<Long, Deque<Order>> asks = new TreeMap<>();
+
+    private final double tickSize;
+    private final Consumer<Trade> tradeConsumer;
+
+    public TreeMapOrderBook(double tickSize) {
+        this(tickSize, null);
+    }
+
+    /**
+     * @param tickSize price tick resolution (> 0)
+     * @param tradeConsumer optional consumer to receive executed trades (could be null)
+     */
+    public TreeMapOrderBook(double tickSize, Consumer<Trade> tradeConsumer) {
+        if (tickSize <= 0)
+            throw new IllegalArgumentException("tickSize > 0");
+
+        this.tickSize = tickSize;
+        this.tradeConsumer = tradeConsumer;
+    }
 
     @Override
     public void placeBuyLimit(Order order) {
@@ -24,8 +48,8 @@ public class TreeMapOrderBook implements OrderBook {
     public void placeBuyMarket(Order order) {
         long quantity = order.quantity;
         while (quantity > 0 && !asks.isEmpty()) {
-            Map.Entry<Double, Deque<Order>> bestAskEntry = asks.firstEntry();
-            double bestAskPrice = bestAskEntry.getKey();
+            Map.Entry<Long, Deque<Order>> bestAskEntry = asks.firstEntry();
+            long bestAskPrice = bestAskEntry.getKey();
 
             Deque<Order> level = bestAskEntry.getValue();
             Order ask = level.peekFirst();
@@ -37,6 +61,9 @@ public class TreeMapOrderBook implements OrderBook {
 
             quantity -= tradeQty;
             ask.quantity -= tradeQty;
+            if (tradeConsumer != null)
+                tradeConsumer.accept(new Trade(bestAskPrice * tickSize, tradeQty, true, ask.id, order.id,
+                        ask.accountId, order.accountId, order.timestamp));
 
             if (ask.quantity == 0) {
                 level.removeFirst();
@@ -45,14 +72,16 @@ public class TreeMapOrderBook implements OrderBook {
                     asks.remove(bestAskPrice);
             }
         }
+
+        order.quantity = quantity;
     }
 
     @Override
     public void placeSellMarket(Order order) {
         long quantity = order.quantity;
         while (quantity > 0 && !bids.isEmpty()) {
-            Map.Entry<Double, Deque<Order>> bestBidEntry = bids.firstEntry();
-            double bestBidPrice = bestBidEntry.getKey();
+            Map.Entry<Long, Deque<Order>> bestBidEntry = bids.firstEntry();
+            long bestBidPrice = bestBidEntry.getKey();
 
             Deque<Order> level = bestBidEntry.getValue();
             Order bid = level.peekFirst();
@@ -64,6 +93,9 @@ public class TreeMapOrderBook implements OrderBook {
 
             quantity -= tradeQty;
             bid.quantity -= tradeQty;
+            if (tradeConsumer != null)
+                tradeConsumer.accept(new Trade(bestBidPrice * tickSize, tradeQty, false, bid.id, order.id,
+                        bid.accountId, order.accountId, order.timestamp));
 
             if (bid.quantity == 0) {
                 level.removeFirst();
@@ -71,5 +103,85 @@ public class TreeMapOrderBook implements OrderBook {
                     bids.remove(bestBidPrice);
             }
         }
+
+        order.quantity = quantity;
+    }
+
+    @Override
+    public boolean cancel(Order order) {
+        NavigableMap<Long, Deque<Order>> side = order.isBuy() ? bids : asks;
+
+        Deque<Order> level = side.get(order.price);
+        if (level == null || !level.removeFirstOccurrence(order))
+            return false;
+
+        if (level.isEmpty())
+            side.remove(order.price);
+
+        return true;
+    }
+
+    /**
+     * Not in the hot path, scans every resting order of the chosen sides
+     */
+    @Override
+    public int cancelAccount(long accountId, boolean bids, boolean asks, CancelListener listener) {
+        if (accountId == 0)
+            return 0;
+
+        int cancelled = 0;
+        if (bids)
+            cancelled += cancelAccount(this.bids, accountId, listener);
+        if (asks)
+            cancelled += cancelAccount(this.asks, accountId, listener);
+
+        return cancelled;
+    }
+
+    private static int cancelAccount(NavigableMap<Long, Deque<Order>> side, long accountId, CancelListener listener) {
+        int cancelled = 0;
+        Iterator<Deque<Order>> levels = side.values().iterator();
+        while (levels.hasNext()) {
+            Deque<Order> level = levels.next();
+            Iterator<Order> orders = level.iterator();
+            while (orders.hasNext()) {
+                Order order = orders.next();
+                if (order.accountId == accountId) {
+                    listener.onCancelled(order.id, accountId, order.isBuy(), order.quantity);
+                    orders.remove();
+                    cancelled++;
+                }
+            }
+            if (level.isEmpty())
+                levels.remove();
+        }
+
+        return cancelled;
+    }
+
+    @Override
+    public double getBestBidPrice() {
+        return bids.isEmpty() ? Double.NaN : bids.firstKey() * tickSize;
+    }
+
+    @Override
+    public double getBestAskPrice() {
+        return asks.isEmpty() ? Double.NaN : asks.firstKey() * tickSize;
+    }
+
+    /**
+     * Not in the hot path, sums the level
+     */
+    @Override
+    public long getTotalAtPrice(boolean buy, double price) {
+        Deque<Order> level = (buy ? bids : asks).get(Math.round(price / tickSize));
+        if (level == null)
+            return 0;
+
+        long total = 0;
+        for (Order order : level)
+            total += order.quantity;
+
+        return total;
     }
-}
\ No newline at end of file
+}
@@ -1,41 +1,91 @@
 package core.OrderPool;
 
+import core.Events.PoolExhaustedEvent;
 import core.Order.Order;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Preallocated free list of orders, safe for one borrowing thread (ingress) and one releasing thread (engine).
+ * <p>
+ * Free orders sit in a ring: release appends at head, borrow takes from tail.
+ */
 public class SPSCOrderPool {
-    private final Order[] stack;
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(SPSCOrderPool.class, "head", long.class);
+            TAIL = lookup.findVarHandle(SPSCOrderPool.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Order[] slots;
+    private final int mask;
     private final int capacity;
-    private int top;
+
+    private long head; // written by the releasing thread
+    private long tail; // written by the borrowing thread
 
     public SPSCOrderPool(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("capacity must be in (0, 2^30]");
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+
         this.capacity = capacity;
-        this.stack = new Order[capacity];
-        this.top = capacity;
+        this.slots = new Order[size];
+        this.mask = size - 1;
 
         for (int i = 0; i < capacity; i++)
-            stack[i] = new Order();
+            slots[i] = new Order();
+
+        this.head = capacity;
     }
 
     public Order borrow() {
-        if (top == 0)
+        long t = tail;
+        if (t >= (long) HEAD.getAcquire(this)) {
+            PoolExhaustedEvent.emit(capacity);
+
             return null;
+        }
 
-        return stack[--top];
+        int index = (int) (t & mask);
+        Order order = slots[index];
+        slots[index] = null;
+        TAIL.setRelease(this, t + 1);
+
+        return order;
     }
 
     public void release(Order order) {
         if (order == null)
             return;
 
-        if (top == capacity)
+        long h = head;
+        if (h - (long) TAIL.getAcquire(this) >= capacity)
             throw new IllegalStateException("Pool overflow");
 
         order.reset();
-        stack[top++] = order;
+        slots[(int) (h & mask)] = order;
+        HEAD.setRelease(this, h + 1);
+    }
+
+    public long available() {
+        long t = (long) TAIL.getAcquire(this);
+        return (long) HEAD.getAcquire(this) - t;
     }
 
     @Override
     public String toString() {
-        return String.format("Pool size: %d, top is: %d ", stack.length, top);
+        return String.format("Pool size: %d, available: %d ", capacity, available());
     }
 }
@@ -0,0 +1,11 @@
+package core.Persistence;
+
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+
+public interface TradeBatchWriter {
+
+    /**
+     * Persist trades[0..count). Called from the drain thread only, a failed batch is retried as a whole.
+     */
+    void write(Trade[] trades, int count) throws Exception;
+}
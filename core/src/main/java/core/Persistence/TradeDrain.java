@@ -0,0 +1,152 @@
+package core.Persistence;
+
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import core.RingBuffer.RingBuffer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains trades from the output ring on its own thread and hands them to a {@link TradeBatchWriter}.
+ * <p>
+ * A batch is flushed when it reaches maxBatchSize or when its oldest trade has waited maxBatchDelay,
+ * whichever comes first. A failing writer is retried with backoff; meanwhile the ring fills up
+ * and the engine sees back-pressure through {@link TradePublisher}. After stop() the trades left are still
+ * retried, for up to the shutdown timeout; what can't be written by then is counted as lost and reported.
+ */
+public class TradeDrain implements Runnable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long DEFAULT_SHUTDOWN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final RingBuffer<Trade> ringBuffer;
+    private final TradeBatchWriter writer;
+    private final Trade[] batch;
+    private final long maxBatchDelayNanos;
+    private final long shutdownTimeoutNanos;
+
+    private volatile boolean running = true;
+    private long shutdownDeadline; // written before running is cleared, read once it is seen cleared
+
+    private final AtomicLong persistedCount = new AtomicLong();
+    private final AtomicLong failedBatchCount = new AtomicLong();
+    private final AtomicLong lostCount = new AtomicLong();
+
+    public TradeDrain(RingBuffer<Trade> ringBuffer, TradeBatchWriter writer, int maxBatchSize, long maxBatchDelay, TimeUnit unit) {
+        this(ringBuffer, writer, maxBatchSize, unit.toNanos(maxBatchDelay), DEFAULT_SHUTDOWN_TIMEOUT_NANOS);
+    }
+
+    /**
+     * @param shutdownTimeoutNanos how long the final flush retries a failing writer after stop()
+     */
+    public TradeDrain(RingBuffer<Trade> ringBuffer, TradeBatchWriter writer, int maxBatchSize, long maxBatchDelayNanos,
+                      long shutdownTimeoutNanos) {
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("maxBatchSize > 0");
+        if (shutdownTimeoutNanos < 0)
+            throw new IllegalArgumentException("shutdownTimeoutNanos >= 0");
+
+        this.ringBuffer = ringBuffer;
+        this.writer = writer;
+        this.batch = new Trade[maxBatchSize];
+        this.maxBatchDelayNanos = maxBatchDelayNanos;
+        this.shutdownTimeoutNanos = shutdownTimeoutNanos;
+    }
+
+    @Override
+    public void run() {
+        int size = 0;
+        long batchStart = 0;
+
+        while (running) {
+            Trade trade = ringBuffer.poll();
+            if (trade != null) {
+                if (size == 0)
+                    batchStart = System.nanoTime();
+
+                batch[size++] = trade;
+                if (size == batch.length) {
+                    flush(size);
+                    size = 0;
+                }
+
+                continue;
+            }
+
+            if (size > 0 && System.nanoTime() - batchStart >= maxBatchDelayNanos) {
+                flush(size);
+                size = 0;
+
+                continue;
+            }
+
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+
+        // stopped: persist whatever is left in the ring
+        Trade trade;
+        while ((trade = ringBuffer.poll()) != null) {
+            batch[size++] = trade;
+            if (size == batch.length) {
+                flush(size);
+                size = 0;
+            }
+        }
+
+        if (size > 0)
+            flush(size);
+    }
+
+    private void flush(int size) {
+        long backoff = IDLE_PARK_NANOS;
+        while (true) {
+            try {
+                writer.write(batch, size);
+                break;
+            } catch (Exception e) {
+                failedBatchCount.incrementAndGet();
+                System.err.println("Trade batch of " + size + " failed: " + e.getMessage());
+
+                if (!running && System.nanoTime() - shutdownDeadline >= 0) { // shutting down, don't retry forever
+                    lostCount.addAndGet(size);
+                    System.err.println("Trade batch of " + size + " lost on shutdown");
+                    Arrays.fill(batch, 0, size, null);
+
+                    return;
+                }
+
+                LockSupport.parkNanos(backoff);
+                backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_NANOS);
+            }
+        }
+
+        persistedCount.addAndGet(size);
+        Arrays.fill(batch, 0, size, null);
+    }
+
+    /**
+     * Trades still in the ring are written before run() returns, retrying for up to the shutdown timeout
+     */
+    public void stop() {
+        shutdownDeadline = System.nanoTime() + shutdownTimeoutNanos;
+        running = false;
+    }
+
+    public long getPersistedCount() {
+        return persistedCount.get();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatchCount.get();
+    }
+
+    /**
+     * @return trades the writer still refused when the shutdown timeout ran out
+     */
+    public long getLostCount() {
+        return lostCount.get();
+    }
+}
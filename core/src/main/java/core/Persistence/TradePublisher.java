@@ -0,0 +1,98 @@
+package core.Persistence;
+
+import core.Events.RingFullEvent;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import core.RingBuffer.SPSCRingBuffer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Engine-side end of a trade output ring, runs on the matching thread.
+ * <p>
+ * - new TradePublisher(ring, highWaterMark): never drops. The engine stops taking new orders while
+ *   {@link #isBackPressured()} is true, the capacity - highWaterMark slots above the mark take the fills
+ *   of the order in hand and should cover the most one order can make, one per resting order.
+ *   If they don't, accept() waits for the drain rather than leave the book half-updated mid-sweep
+ * - dropping(ring, name): for stages that may lose trades (candles), never waits and never back-pressures,
+ *   trades that don't fit are counted as dropped
+ */
+public final class TradePublisher implements Consumer<Trade> {
+
+    private static final long STALL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final SPSCRingBuffer<Trade> ringBuffer;
+    private final long highWaterMark;
+    private final boolean dropping;
+    private final String name;
+
+    private volatile long stallCount; // single writer
+    private volatile long droppedCount; // single writer
+
+    public TradePublisher(SPSCRingBuffer<Trade> ringBuffer, long highWaterMark) {
+        this(ringBuffer, highWaterMark, false, "trades");
+    }
+
+    private TradePublisher(SPSCRingBuffer<Trade> ringBuffer, long highWaterMark, boolean dropping, String name) {
+        if (highWaterMark <= 0 || highWaterMark > ringBuffer.capacity())
+            throw new IllegalArgumentException("highWaterMark must be in (0, capacity]");
+
+        this.ringBuffer = ringBuffer;
+        this.highWaterMark = highWaterMark;
+        this.dropping = dropping;
+        this.name = name;
+    }
+
+    /**
+     * @param name ring name reported in RingFullEvent
+     */
+    public static TradePublisher dropping(SPSCRingBuffer<Trade> ringBuffer, String name) {
+        return new TradePublisher(ringBuffer, ringBuffer.capacity(), true, name);
+    }
+
+    /**
+     * @throws IllegalStateException if the thread is interrupted while waiting for the drain, e.g. on shutdown
+     */
+    @Override
+    public void accept(Trade trade) {
+        if (ringBuffer.offer(trade))
+            return;
+
+        RingFullEvent.emit(name, 1);
+        if (dropping) {
+            droppedCount = droppedCount + 1;
+
+            return;
+        }
+
+        stallCount = stallCount + 1;
+        while (!ringBuffer.offer(trade)) {
+            if (Thread.currentThread().isInterrupted())
+                throw new IllegalStateException("Interrupted waiting for room in the " + name + " ring");
+
+            LockSupport.parkNanos(STALL_PARK_NANOS);
+        }
+    }
+
+    /**
+     * @return always false for a dropping publisher
+     */
+    public boolean isBackPressured() {
+        return !dropping && ringBuffer.size() >= highWaterMark;
+    }
+
+    /**
+     * @return trades that found the ring full and had to wait for the drain
+     */
+    public long getStallCount() {
+        return stallCount;
+    }
+
+    /**
+     * @return trades a dropping publisher could not fit
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+}
@@ -0,0 +1,32 @@
+package core.Pipeline;
+
+import core.Order.Order;
+import core.Order.OrderRecord;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * One preallocated pipeline slot, reused every time the ring wraps.
+ * <p>
+ * The producer writes the raw record, decode fills the order, later stages read it and set the status.
+ * The order here is never handed to a book, matching works on a pooled copy.
+ */
+public final class Command {
+
+    public static final byte ACCEPTED = 0;
+    /** Failed the pipeline's validator, not journaled and not matched */
+    public static final byte REJECTED_RISK = 1;
+    /** Journaled but the engine's pool had no order to match it with */
+    public static final byte REJECTED_POOL = 2;
+    /** Not admitted by a journal that is full or down to its cancel reserve, not journaled and not matched */
+    public static final byte REJECTED_JOURNAL = 3;
+
+    final ByteBuffer record = ByteBuffer.allocate(OrderRecord.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    public final Order order = new Order();
+    public byte status;
+
+    public boolean isAccepted() {
+        return status == ACCEPTED;
+    }
+}
@@ -0,0 +1,225 @@
+package core.Pipeline;
+
+import core.Journal.CommandJournal;
+import core.MatchingEngine.MatchingEngine;
+import core.Order.Order;
+import core.Order.OrderRecord;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.RingProducer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Staged ingress of the engine over one preallocated ring of command slots, no LMAX Disruptor:
+ * decode -> validate -> journal -> match -> publish, each stage on its own thread with its own sequence,
+ * gated on the stage before it. The producer is gated on publish, so a slot is reused only when every stage is done.
+ * <p>
+ * Ingress offers orders as before, only their 64-byte record is copied and the order goes back to the ingress pool.
+ * Decoding, risk checks and journal I/O run off the request threads and off the matching thread,
+ * the match stage copies accepted commands into the engine's own pool and matches, nothing else.
+ * Journal syncs and publishing happen once per batch.
+ */
+public final class EnginePipeline implements RingProducer<Order> {
+
+    private static final String[] STAGES = {"decode", "validate", "journal", "match", "publish"};
+
+    private final Command[] slots;
+    private final int mask;
+    private final SPSCOrderPool ingressPool;
+    private final Predicate<Order> validator;
+    private final CommandJournal journal;
+    private final Stage publisher;
+    private final Sequence cursor = new Sequence();
+    private final StageRunner[] runners = new StageRunner[STAGES.length];
+    private final Thread[] threads = new Thread[STAGES.length];
+    private final OrderRecord producerRecord = new OrderRecord();
+    private final OrderRecord decodeRecord = new OrderRecord();
+    private final OrderRecord matchRecord = new OrderRecord();
+
+    private long claimed = Sequence.INITIAL; // producer only
+    private long publishedCache = Sequence.INITIAL; // producer only, last known position of the final stage
+
+    // set by start() before the stage threads exist
+    private MatchingEngine engine;
+    private BooleanSupplier backPressure;
+
+    /**
+     * @param ingressPool offered orders are released back to it once copied
+     * @param validator   risk check, a command it refuses is rejected before the journal
+     * @param journal     optional (could be null), accepted commands are appended and synced per batch
+     * @param publisher   optional (could be null), execution reports: sees every command with its final status
+     */
+    public EnginePipeline(int capacityPow2, SPSCOrderPool ingressPool, Predicate<Order> validator,
+                          CommandJournal journal, Stage publisher) {
+        if ((capacityPow2 & (capacityPow2 - 1)) != 0)
+            throw new IllegalArgumentException("Capacity must be power of two");
+
+        this.slots = new Command[capacityPow2];
+        for (int i = 0; i < capacityPow2; i++)
+            slots[i] = new Command();
+
+        this.mask = capacityPow2 - 1;
+        this.ingressPool = ingressPool;
+        this.validator = validator;
+        this.journal = journal;
+        this.publisher = publisher;
+
+        Stage[] stages = {this::decode, this::validate, this::journal, this::match, this::publish};
+        Sequence upstream = cursor;
+        for (int i = 0; i < stages.length; i++) {
+            BooleanSupplier gate = i == 3 ? () -> backPressure != null && backPressure.getAsBoolean() : null;
+            runners[i] = new StageRunner(slots, new Sequence[]{upstream}, stages[i], gate);
+            upstream = runners[i].sequence();
+        }
+    }
+
+    /**
+     * Start one thread per stage. The engine's pool must not be the ingress pool: the match stage borrows from it.
+     * The match stage drives the engine through processOrder(), it needs no input ring of its own
+     *
+     * @param backPressure optional downstream signal (could be null), the match stage pauses while it is raised
+     */
+    public void start(MatchingEngine engine, BooleanSupplier backPressure) {
+        if (engine.orderPool == ingressPool)
+            throw new IllegalArgumentException("The engine needs its own pool, the ingress pool has another borrower");
+
+        this.engine = engine;
+        this.backPressure = backPressure;
+        for (int i = 0; i < runners.length; i++) {
+            threads[i] = new Thread(runners[i], "pipeline-" + STAGES[i] + "-thread");
+            threads[i].start();
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        for (StageRunner runner : runners)
+            runner.stop();
+        for (Thread thread : threads)
+            if (thread != null)
+                thread.join();
+    }
+
+    /**
+     * Producer side, copy the order into the next slot and release it to the ingress pool
+     */
+    public boolean offer(Order order) {
+        if (!hasRoom(1))
+            return false;
+
+        long sequence = ++claimed;
+        producerRecord.write(slots[(int) (sequence & mask)].record, 0, order);
+        cursor.set(sequence);
+        ingressPool.release(order);
+
+        return true;
+    }
+
+    public boolean offerBatch(Order[] values, int count) {
+        if (!hasRoom(count))
+            return false;
+
+        for (int i = 0; i < count; i++)
+            producerRecord.write(slots[(int) ((claimed + 1 + i) & mask)].record, 0, values[i]);
+
+        claimed += count;
+        cursor.set(claimed);
+        for (int i = 0; i < count; i++)
+            ingressPool.release(values[i]);
+
+        return true;
+    }
+
+    /**
+     * @return what stopped a stage thread, the first stage's failure when several did, null while all run
+     */
+    public Throwable getFailure() {
+        for (StageRunner runner : runners)
+            if (runner.getFailure() != null)
+                return runner.getFailure();
+
+        return null;
+    }
+
+    /**
+     * @return sequence of the last command every stage is done with
+     */
+    public long completed() {
+        return runners[runners.length - 1].sequence().get();
+    }
+
+    /**
+     * Read from the last stage back, so even while the stages run no stage in the result is ahead of the one before
+     *
+     * @return sequence each stage has reached, decode first
+     */
+    public List<Long> stageSequences() {
+        Long[] sequences = new Long[runners.length];
+        for (int i = runners.length - 1; i >= 0; i--)
+            sequences[i] = runners[i].sequence().get();
+
+        return Arrays.asList(sequences);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    private boolean hasRoom(int count) {
+        long wrapPoint = claimed + count - slots.length;
+        if (wrapPoint > publishedCache) {
+            publishedCache = runners[runners.length - 1].sequence().get();
+            if (wrapPoint > publishedCache) // full
+                return false;
+        }
+
+        return true;
+    }
+
+    private void decode(Command command, long sequence, boolean endOfBatch) {
+        decodeRecord.read(command.record, 0, command.order);
+        command.status = Command.ACCEPTED;
+    }
+
+    private void validate(Command command, long sequence, boolean endOfBatch) {
+        if (!validator.test(command.order))
+            command.status = Command.REJECTED_RISK;
+    }
+
+    private void journal(Command command, long sequence, boolean endOfBatch) {
+        if (journal == null)
+            return;
+
+        if (command.isAccepted()) {
+            if (journal.admits(command.order))
+                journal.append(command.order);
+            else
+                command.status = Command.REJECTED_JOURNAL;
+        }
+        if (endOfBatch)
+            journal.sync();
+    }
+
+    private void match(Command command, long sequence, boolean endOfBatch) {
+        if (!command.isAccepted())
+            return;
+
+        // already journaled: a follower's pool mirrors this one and skips the same command
+        Order order = engine.orderPool.borrow();
+        if (order == null) {
+            command.status = Command.REJECTED_POOL;
+
+            return;
+        }
+
+        matchRecord.read(command.record, 0, order);
+        engine.processOrder(order);
+    }
+
+    private void publish(Command command, long sequence, boolean endOfBatch) {
+        if (publisher != null)
+            publisher.onCommand(command, sequence, endOfBatch);
+    }
+}
@@ -0,0 +1,56 @@
+package core.Pipeline;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+abstract class SequenceLeftPadding {
+    long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class SequenceValue extends SequenceLeftPadding {
+    long value;
+}
+
+/**
+ * Position of one pipeline stage (or the producer), on its own cache line: the padding lives in superclasses
+ * and this class so the JVM can't reorder it away. Published with a release store, read with acquire.
+ */
+public final class Sequence extends SequenceValue {
+
+    public static final long INITIAL = -1;
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    long p11, p12, p13, p14, p15, p16, p17;
+
+    public Sequence() {
+        VALUE.setRelease(this, INITIAL);
+    }
+
+    public long get() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    /**
+     * Owner only
+     */
+    public void set(long value) {
+        VALUE.setRelease(this, value);
+    }
+
+    static long minimum(Sequence[] sequences) {
+        long min = Long.MAX_VALUE;
+        for (Sequence sequence : sequences)
+            min = Math.min(min, sequence.get());
+
+        return min;
+    }
+}
@@ -0,0 +1,13 @@
+package core.Pipeline;
+
+/**
+ * Work of one pipeline stage, called on the stage's thread for every slot in sequence order
+ */
+@FunctionalInterface
+public interface Stage {
+
+    /**
+     * @param endOfBatch last slot available to this stage for now, flush batched I/O here
+     */
+    void onCommand(Command command, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,85 @@
+package core.Pipeline;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs one stage on its own thread: waits until every upstream sequence has passed its own,
+ * hands it the whole available range as one batch, then publishes the end of the batch.
+ */
+public final class StageRunner implements Runnable {
+
+    private final Command[] slots;
+    private final int mask;
+    private final Sequence[] upstream;
+    private final Stage stage;
+    private final BooleanSupplier backPressure;
+    private final Sequence sequence = new Sequence();
+
+    private volatile boolean running = true;
+    private volatile Throwable failure;
+
+    /**
+     * @param backPressure optional (could be null), while raised the stage takes nothing new
+     */
+    StageRunner(Command[] slots, Sequence[] upstream, Stage stage, BooleanSupplier backPressure) {
+        this.slots = slots;
+        this.mask = slots.length - 1;
+        this.upstream = upstream;
+        this.stage = stage;
+        this.backPressure = backPressure;
+    }
+
+    /**
+     * An exception out of the stage stops it, it is kept for getFailure() and rethrown
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                if (processAvailable() == 0)
+                    Thread.yield();
+            }
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            running = false;
+            throw e;
+        }
+    }
+
+    /**
+     * Stage thread only, exposed for running a pipeline step by step
+     *
+     * @return slots processed
+     */
+    public int processAvailable() {
+        if (backPressure != null && backPressure.getAsBoolean())
+            return 0;
+
+        long next = sequence.get() + 1;
+        long available = Sequence.minimum(upstream);
+        if (available < next)
+            return 0;
+
+        for (long s = next; s <= available; s++)
+            stage.onCommand(slots[(int) (s & mask)], s, s == available);
+
+        sequence.set(available);
+
+        return (int) (available - next + 1);
+    }
+
+    /**
+     * @return what stopped run(), null while it runs or after a clean stop()
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public Sequence sequence() {
+        return sequence;
+    }
+
+    public void stop() {
+        running = false;
+    }
+}
@@ -24,10 +24,20 @@ public class FakeRingBufferForBenchmark<T> implements RingBuffer<T> {
         return preloadQueue.offer(order);
     }
 
+    public boolean offerBatch(T[] values, int count) {
+        for (int i = 0; i < count; i++)
+            preloadQueue.offer(values[i]);
+
+        return true;
+    }
+
     public boolean isEmpty() {
         return preloadQueue.isEmpty();
     }
 
+    /**
+     * Swap in the next iteration's preloaded orders
+     */
     public void setPreloadQueue(Queue<T> preloadQueue) {
         this.preloadQueue = preloadQueue;
     }
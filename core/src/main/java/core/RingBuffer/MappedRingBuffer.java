@@ -0,0 +1,145 @@
+package core.RingBuffer;
+
+import core.Order.Order;
+import core.Order.OrderRecord;
+import core.OrderPool.SPSCOrderPool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SPSC ring of orders in a memory-mapped file (e.g. /dev/shm), so the gateway and the engine can run as
+ * separate processes: one process offers, the other polls, each maps the same file with its own order pool.
+ * <p>
+ * An order is copied into a fixed 64-byte slot (OrderRecord) and the producer's instance goes back to its pool,
+ * the consumer borrows a fresh one from its pool per poll. Head and tail live in the file on their own
+ * cache lines and are published with release/acquire, so either side can restart and resume where it stopped.
+ */
+public final class MappedRingBuffer implements RingBuffer<Order>, AutoCloseable {
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long MAGIC = 0x4F52444552524E47L; // "ORDERRNG"
+    private static final int CAPACITY = 8;
+    private static final int HEAD = 128;
+    private static final int TAIL = 256;
+    private static final int SLOTS = 384;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final SPSCOrderPool orderPool;
+    private final int mask;
+    private final OrderRecord producerRecord = new OrderRecord();
+    private final OrderRecord consumerRecord = new OrderRecord();
+
+    /**
+     * Map the ring file, creating it if missing. An existing file must have been created with the same capacity.
+     *
+     * @param orderPool the producer releases copied orders into it, the consumer borrows polled orders from it
+     */
+    public MappedRingBuffer(Path file, int capacityPow2, SPSCOrderPool orderPool) {
+        if (capacityPow2 <= 0 || capacityPow2 > 1 << 24 || (capacityPow2 & (capacityPow2 - 1)) != 0)
+            throw new IllegalArgumentException("Capacity must be a power of two up to 2^24");
+
+        this.orderPool = orderPool;
+        this.mask = capacityPow2 - 1;
+
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SLOTS + (long) capacityPow2 * OrderRecord.SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map " + file, e);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        // a fresh file is zero-filled, the first process to map it writes the header
+        long magic = (long) LONGS.getAcquire(buffer, 0);
+        if (magic == 0) {
+            buffer.putLong(CAPACITY, capacityPow2);
+            LONGS.setRelease(buffer, 0, MAGIC);
+        } else if (magic != MAGIC || buffer.getLong(CAPACITY) != capacityPow2) {
+            close();
+            throw new IllegalStateException(file + " is not an order ring of capacity " + capacityPow2);
+        }
+    }
+
+    /**
+     * Copy the order into the next slot and release it to the pool
+     */
+    public boolean offer(Order order) {
+        long h = (long) LONGS.getOpaque(buffer, HEAD);
+        if (h - (long) LONGS.getAcquire(buffer, TAIL) > mask) // full
+            return false;
+
+        producerRecord.write(buffer, SLOTS + (int) (h & mask) * OrderRecord.SIZE, order);
+        LONGS.setRelease(buffer, HEAD, h + 1);
+        orderPool.release(order);
+
+        return true;
+    }
+
+    public boolean offerBatch(Order[] values, int count) {
+        long h = (long) LONGS.getOpaque(buffer, HEAD);
+        if (count > mask + 1 - (h - (long) LONGS.getAcquire(buffer, TAIL))) // not enough room for the whole batch
+            return false;
+
+        for (int i = 0; i < count; i++)
+            producerRecord.write(buffer, SLOTS + (int) ((h + i) & mask) * OrderRecord.SIZE, values[i]);
+
+        LONGS.setRelease(buffer, HEAD, h + count);
+        for (int i = 0; i < count; i++)
+            orderPool.release(values[i]);
+
+        return true;
+    }
+
+    /**
+     * @return a pooled copy of the next order, null if the ring is empty or the pool is exhausted
+     */
+    public Order poll() {
+        long t = (long) LONGS.getOpaque(buffer, TAIL);
+        if (t >= (long) LONGS.getAcquire(buffer, HEAD))
+            return null;
+
+        Order order = orderPool.borrow();
+        if (order == null)
+            return null;
+
+        consumerRecord.read(buffer, SLOTS + (int) (t & mask) * OrderRecord.SIZE, order);
+
+        LONGS.setRelease(buffer, TAIL, t + 1);
+
+        return order;
+    }
+
+    /**
+     * Approximate number of queued orders, safe to call from either process
+     */
+    public long size() {
+        long t = (long) LONGS.getAcquire(buffer, TAIL);
+        return (long) LONGS.getAcquire(buffer, HEAD) - t;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Close the file, the mapping itself is released when the buffer is collected
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
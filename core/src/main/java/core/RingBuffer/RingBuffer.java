@@ -1,9 +1,7 @@
 package core.RingBuffer;
 
-import java.util.Queue;
-
-public interface RingBuffer<T> {
-    public boolean offer(T value);
-    public T poll();
-    public void setPreloadQueue(Queue<T> preloadQueue);
+/**
+ * A ring with both ends in this process or mapped into it: producer and consumer are separate threads
+ */
+public interface RingBuffer<T> extends RingProducer<T>, RingConsumer<T> {
 }
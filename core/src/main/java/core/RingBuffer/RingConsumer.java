@@ -0,0 +1,11 @@
+package core.RingBuffer;
+
+/**
+ * Consumer end of an order ring: what a MatchingEngine polls
+ */
+public interface RingConsumer<T> {
+    /**
+     * @return the next value, null when there is none yet
+     */
+    public T poll();
+}
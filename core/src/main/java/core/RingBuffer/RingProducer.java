@@ -0,0 +1,13 @@
+package core.RingBuffer;
+
+/**
+ * Producer end of an order ring: what ingress (OrderService, RingCommandSink) publishes to
+ */
+public interface RingProducer<T> {
+    public boolean offer(T value);
+
+    /**
+     * Publish values[0..count) as one claim: either all of them become visible to the consumer at once or none
+     */
+    public boolean offerBatch(T[] values, int count);
+}
@@ -1,7 +1,5 @@
 package core.RingBuffer;
 
-import java.util.Queue;
-
 public class SPSCRingBuffer<T> implements RingBuffer<T> {
     private final Object[] buffer;
     private final int mask;
@@ -32,6 +30,21 @@ public class SPSCRingBuffer<T> implements RingBuffer<T> {
         return true;
     }
 
+    public boolean offerBatch(T[] values, int count) {
+        long h = head;
+        long t = tail;
+
+        if (count > buffer.length - (h - t)) // not enough room for the whole batch
+            return false;
+
+        for (int i = 0; i < count; i++)
+            buffer[(int)((h + i) & mask)] = values[i];
+
+        head = h + count;
+
+        return true;
+    }
+
     @SuppressWarnings("unchecked")
     public T poll() {
         long t = tail;
@@ -53,7 +66,15 @@ public class SPSCRingBuffer<T> implements RingBuffer<T> {
         return tail >= head;
     }
 
-    public void setPreloadQueue(Queue<T> preloadQueue) {
-        return;
+    /**
+     * Approximate number of queued elements, safe to call from either side
+     */
+    public long size() {
+        long t = tail; // read tail first so the result can't go negative
+        return head - t;
+    }
+
+    public int capacity() {
+        return buffer.length;
     }
 }
@@ -0,0 +1,56 @@
+package org.main;
+
+import core.Backtest.Backtest;
+import core.Backtest.Backtest.Result;
+import core.Backtest.Backtest.Scenario;
+import core.OrderBook.ArrayBucketOrderBook;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Replays recorded journals of EngineProcess (one per symbol, or one per symbol per day) against ArrayBucketOrderBook,
+ * every symbol a scenario of its own, all in parallel. Recordings carry AMENDs and GTT expiries, which only books
+ * holding the engine's orders replay (see Backtest.BookFactory), so SlabOrderBook isn't run here.
+ * <p>
+ * java -cp core/target/classes org.main.BacktestRunner [parallelism] [symbol journals]...
+ * <p>
+ * Each symbol argument is that symbol's journal files in replay order, comma separated. Parallelism 0 uses every
+ * core. Prints every scenario and the total: commands, skipped, trades, volume, digest and throughput.
+ */
+public class BacktestRunner {
+
+    static void main(String[] args) {
+        int parallelism = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        List<List<Path>> symbols = new ArrayList<>();
+        for (int i = 1; i < args.length; i++)
+            symbols.add(Arrays.stream(args[i].split(",")).map(Path::of).toList());
+        if (symbols.isEmpty())
+            symbols.add(List.of(Path.of("/dev/shm/exchange-journal")));
+
+        List<Scenario> scenarios = Backtest.scenarios("array-bucket", symbols,
+                (pool, trades) -> new ArrayBucketOrderBook(EngineProcess.MIN_PRICE, EngineProcess.MAX_PRICE,
+                        EngineProcess.TICK_SIZE, trades, pool::release));
+
+        ForkJoinPool workers = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+        long start = System.nanoTime();
+        List<Result> results = new Backtest(workers, EngineProcess.PRELOAD_ORDERS).run(scenarios);
+        long wall = System.nanoTime() - start;
+
+        for (Result result : results)
+            print(result);
+        Result total = Result.total(results);
+        print(total);
+        System.out.printf("%,d workers, %,.0f commands/s over %,d ms%n", workers.getParallelism(),
+                total.commands() * 1e9 / wall, wall / 1_000_000);
+    }
+
+    private static void print(Result result) {
+        System.out.printf("%-16s %,14d commands %,10d skipped %,12d trades %,16d volume digest %016x %,12.0f/s%n",
+                result.name(), result.commands(), result.skipped(), result.trades(), result.volume(),
+                result.digest(), result.commandsPerSecond());
+    }
+}
@@ -0,0 +1,95 @@
+package org.main;
+
+import core.Journal.CommandJournal;
+import core.Journal.EventLog;
+import core.Journal.EventLogPublisher;
+import core.Journal.FollowerRingBuffer;
+import core.Journal.ReplicationServer;
+import core.MatchingEngine.MatchingEngine;
+import core.Order.Order;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.MappedRingBuffer;
+import core.RingBuffer.RingConsumer;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Standalone matching engine fed by the gateway through a shared-memory ring.
+ * <p>
+ * java [-Dreplication.port=7070] [-Devent.log=/dev/shm/exchange-events] -cp core/target/classes
+ *  org.main.EngineProcess [ring file] [ring size] [journal file]
+ * <p>
+ * Start the application with engine.ipc.file pointing at the same file, in either order.
+ * With a journal it is replayed first, then every command is journaled before it is applied and a FollowerProcess
+ * can tail it on the same host or over TCP from replication.port. Market settings match the application's EngineConfig.
+ * With event.log, fills, book deltas, cancels, amends and expiries are appended to an EventLog that other processes
+ * read at their own pace (EventLogTail).
+ */
+public class EngineProcess {
+
+    static final double MIN_PRICE = 65000.0;
+    static final double MAX_PRICE = 75500.0;
+    static final double TICK_SIZE = 0.01;
+    static final int PRELOAD_ORDERS = 2_000_000;
+    static final int JOURNAL_CAPACITY = 1 << 24;
+    static final int EVENT_LOG_CAPACITY = 1 << 22;
+
+    static void main(String[] args) throws InterruptedException {
+        Path file = Path.of(args.length > 0 ? args[0] : "/dev/shm/exchange-orders");
+        int ringSize = args.length > 1 ? Integer.parseInt(args[1]) : 131072;
+        CommandJournal journal = args.length > 2 ? new CommandJournal(Path.of(args[2]), JOURNAL_CAPACITY) : null;
+
+        String eventLog = System.getProperty("event.log");
+        EventLogPublisher events = eventLog == null
+                ? null
+                : new EventLogPublisher(new EventLog(Path.of(eventLog), EVENT_LOG_CAPACITY));
+
+        SPSCOrderPool pool = new SPSCOrderPool(PRELOAD_ORDERS);
+        AtomicLong trades = new AtomicLong();
+        ArrayBucketOrderBook book = events == null
+                ? book(pool, trades)
+                : new ArrayBucketOrderBook(MIN_PRICE, MAX_PRICE, TICK_SIZE,
+                        trade -> {
+                            trades.incrementAndGet();
+                            events.accept(trade);
+                        },
+                        pool::release);
+
+        try (MappedRingBuffer ring = new MappedRingBuffer(file, ringSize, pool)) {
+            RingConsumer<Order> input = ring;
+            if (journal != null) {
+                // replay what an earlier run journaled, then journal live orders
+                FollowerRingBuffer recovery = new FollowerRingBuffer(journal, pool, journal::published);
+                recovery.promote(ring);
+                input = recovery;
+                String port = System.getProperty("replication.port");
+                if (port != null)
+                    Thread.ofPlatform().daemon().name("replication-server")
+                            .start(new ReplicationServer(journal, new InetSocketAddress(Integer.parseInt(port))));
+            }
+
+            MatchingEngine engine = new MatchingEngine(book, input, pool);
+            if (events != null) {
+                book.setBookListener(events);
+                engine.setExpiryListener(events);
+                engine.setOrderUpdateListener(events);
+            }
+            Thread matcher = new Thread(engine, "matching-engine-thread");
+            matcher.start();
+
+            System.out.println("Engine polling " + file);
+            while (matcher.isAlive()) {
+                Thread.sleep(1000);
+                System.out.printf("processed %,d, trades %,d, queued %,d%n",
+                        engine.getProcessedCount(), trades.get(), ring.size());
+            }
+        }
+    }
+
+    static ArrayBucketOrderBook book(SPSCOrderPool pool, AtomicLong trades) {
+        return new ArrayBucketOrderBook(MIN_PRICE, MAX_PRICE, TICK_SIZE, _ -> trades.incrementAndGet(), pool::release);
+    }
+}
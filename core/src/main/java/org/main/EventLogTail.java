@@ -0,0 +1,67 @@
+package org.main;
+
+import core.Codec.AckCodec;
+import core.Codec.AmendCodec;
+import core.Codec.BookDeltaCodec;
+import core.Codec.FillCodec;
+import core.Journal.EventLog;
+import core.Journal.EventLogReader;
+
+import java.nio.file.Path;
+
+/**
+ * Prints the events of an EngineProcess started with -Devent.log, one reader of its own among any others.
+ * <p>
+ * java -cp core/target/classes org.main.EventLogTail [event log file] [from sequence]
+ * <p>
+ * Without a sequence it follows from the newest event, 0 replays everything the log still holds.
+ * A tail that falls a whole log behind is lapped and starts again from the oldest event.
+ */
+public class EventLogTail {
+
+    static void main(String[] args) throws InterruptedException {
+        Path file = Path.of(args.length > 0 ? args[0] : "/dev/shm/exchange-events");
+        EventLog log = new EventLog(file, EngineProcess.EVENT_LOG_CAPACITY);
+        EventLogReader reader = new EventLogReader(log, args.length > 1 ? Long.parseLong(args[1]) : log.published());
+
+        FillCodec fill = new FillCodec();
+        BookDeltaCodec bookDelta = new BookDeltaCodec();
+        AckCodec ack = new AckCodec();
+        AmendCodec amend = new AmendCodec();
+        EventLogReader.Handler print = (sequence, templateId, buffer, offset) -> {
+            switch (templateId) {
+                case FillCodec.TEMPLATE_ID -> {
+                    fill.wrapForDecode(buffer, offset);
+                    System.out.printf("%d fill %d @ %.2f maker %d taker %d%n", sequence, fill.quantity(), fill.price(),
+                            fill.makerOrderId(), fill.takerOrderId());
+                }
+                case BookDeltaCodec.TEMPLATE_ID -> {
+                    bookDelta.wrapForDecode(buffer, offset);
+                    System.out.printf("%d %s %.2f -> %d%n", sequence, bookDelta.bid() ? "bid" : "ask",
+                            bookDelta.price(), bookDelta.totalQty());
+                }
+                case AckCodec.TEMPLATE_ID -> {
+                    ack.wrapForDecode(buffer, offset);
+                    System.out.printf("%d ack %d status %d leaves %d reason %d%n", sequence, ack.orderId(),
+                            ack.status(), ack.leavesQty(), ack.reason());
+                }
+                case AmendCodec.TEMPLATE_ID -> {
+                    amend.wrapForDecode(buffer, offset);
+                    System.out.printf("%d amend %d to %d @ %d ticks%n", sequence, amend.orderId(), amend.quantity(),
+                            amend.price());
+                }
+                default -> System.out.printf("%d template %d%n", sequence, templateId);
+            }
+        };
+
+        while (true) {
+            try {
+                if (reader.poll(print, 1024) == 0)
+                    Thread.sleep(1);
+            } catch (IllegalStateException lapped) {
+                System.out.println(lapped.getMessage());
+                reader = new EventLogReader(log, log.oldest());
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.main;
+
+import core.Journal.CommandJournal;
+import core.Journal.FollowerRingBuffer;
+import core.Journal.ReplicationClient;
+import core.MatchingEngine.MatchingEngine;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.MappedRingBuffer;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hot standby for an EngineProcess started with a journal, reports its replication lag every second.
+ * <p>
+ * java -cp core/target/classes org.main.FollowerProcess [journal file] [leader host:port] [ring file] [ring size]
+ * <p>
+ * Without a leader it tails the primary's journal file on the same host, with one it copies the journal over TCP
+ * into the given file. Type "promote" once the primary is gone: the follower applies what is left
+ * and starts taking orders from the ring file, journaling them.
+ */
+public class FollowerProcess {
+
+    static void main(String[] args) throws Exception {
+        Path journalFile = Path.of(args.length > 0 ? args[0] : "/dev/shm/exchange-journal");
+        String leader = args.length > 1 && !args[1].isEmpty() ? args[1] : null;
+        Path ringFile = Path.of(args.length > 2 ? args[2] : "/dev/shm/exchange-orders");
+        int ringSize = args.length > 3 ? Integer.parseInt(args[3]) : 131072;
+
+        CommandJournal journal = new CommandJournal(journalFile, EngineProcess.JOURNAL_CAPACITY);
+        ReplicationClient client = null;
+        if (leader != null) {
+            int colon = leader.lastIndexOf(':');
+            client = new ReplicationClient(journal,
+                    new InetSocketAddress(leader.substring(0, colon), Integer.parseInt(leader.substring(colon + 1))));
+            Thread.ofPlatform().daemon().name("replication-client").start(client);
+        }
+
+        SPSCOrderPool pool = new SPSCOrderPool(EngineProcess.PRELOAD_ORDERS);
+        AtomicLong trades = new AtomicLong();
+        FollowerRingBuffer input = new FollowerRingBuffer(journal, pool,
+                client != null ? client::leaderSequence : journal::published);
+        MatchingEngine engine = new MatchingEngine(EngineProcess.book(pool, trades), input, pool);
+        Thread matcher = new Thread(engine, "matching-engine-thread");
+        matcher.start();
+
+        Thread.ofPlatform().daemon().name("follower-stats").start(() -> {
+            while (true) {
+                System.out.printf("%s applied %,d, lag %,d, trades %,d%n", input.isPromoted() ? "primary" : "follower",
+                        input.applied(), input.lag(), trades.get());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        BufferedReader console = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = console.readLine()) != null) {
+            if (!line.trim().equals("promote"))
+                continue;
+
+            if (client != null)
+                client.stop();
+
+            input.promote(new MappedRingBuffer(ringFile, ringSize, pool));
+            System.out.println("Promoted, taking orders from " + ringFile);
+        }
+
+        matcher.join();
+    }
+}
@@ -42,7 +42,7 @@ public class Main {
 
         SPSCOrderPool pool = new SPSCOrderPool(1_048_576);
         SPSCRingBuffer<Order> ring = new SPSCRingBuffer<>(131072);
-        TreeMapOrderBook book = new TreeMapOrderBook();
+        TreeMapOrderBook book = new TreeMapOrderBook(1.0);
 
         Thread producer = getProducerThread(pool, ring);
         Thread matcher = getMatcherThread(ring, book, pool);
@@ -63,7 +63,7 @@ public class Main {
                     continue;
                 }
 
-                switch (order.type) {
+                switch (order.type()) {
                     case BUY_LIMIT -> orderBook.placeBuyLimit(order);
                     case SELL_LIMIT -> orderBook.placeSellLimit(order);
                     case BUY_MARKET -> orderBook.placeBuyMarket(order);
@@ -90,9 +90,9 @@ public class Main {
                 order.id = counter.incrementAndGet();
                 order.price = 100 + rnd.nextInt(10);
                 order.quantity = 1 + rnd.nextInt(5);
-                order.type = rnd.nextBoolean() ?
+                order.setType(rnd.nextBoolean() ?
                         (rnd.nextBoolean() ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT) :
-                        (rnd.nextBoolean() ? OrderType.BUY_MARKET : OrderType.SELL_MARKET);
+                        (rnd.nextBoolean() ? OrderType.BUY_MARKET : OrderType.SELL_MARKET));
 
                 while (!ring.offer(order)) {
                     Thread.onSpinWait();
@@ -0,0 +1,43 @@
+package unit;
+
+import core.Gateway.AccountTokens;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountTokensTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final AccountTokens tokens = new AccountTokens(SECRET);
+
+    @Test
+    void testIssuedTokenVerifiesUntilItExpires() {
+        String token = tokens.issue(42, 1_000);
+
+        assertEquals(42, tokens.verify(token, 999));
+        assertEquals(AccountTokens.INVALID, tokens.verify(token, 1_000));
+    }
+
+    @Test
+    void testRejectsTamperedAndForeignTokens() {
+        String token = tokens.issue(42, 1_000);
+        String otherAccount = "43" + token.substring(2);
+        AccountTokens other = new AccountTokens("fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(AccountTokens.INVALID, tokens.verify(otherAccount, 0));
+        assertEquals(AccountTokens.INVALID, tokens.verify(other.issue(42, 1_000), 0));
+        assertEquals(AccountTokens.INVALID, tokens.verify(token.substring(0, token.length() - 2), 0));
+    }
+
+    @Test
+    void testRejectsMalformedTokens() {
+        for (String token : new String[] {null, "", "42", "42.1000", ".1000.x", "42..x", "42.1000.!!"})
+            assertEquals(AccountTokens.INVALID, tokens.verify(token, 0), token);
+
+        assertThrows(IllegalArgumentException.class, () -> new AccountTokens(new byte[16]));
+        assertThrows(IllegalArgumentException.class, () -> tokens.issue(0, 1_000));
+    }
+}
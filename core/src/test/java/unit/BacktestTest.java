@@ -0,0 +1,128 @@
+package unit;
+
+import core.Backtest.Backtest;
+import core.Backtest.Backtest.Result;
+import core.Backtest.Backtest.Scenario;
+import core.Journal.CommandJournal;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderBook.SlabOrderBook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BacktestTest {
+
+    private static final int SYMBOLS = 3;
+    private static final int DAYS = 2;
+    private static final int COMMANDS_PER_DAY = 10_000;
+
+    private static final Backtest.BookFactory ARRAY_BUCKET =
+            (pool, trades) -> new ArrayBucketOrderBook(90.0, 110.0, 1.0, trades, pool::release);
+    private static final Backtest.BookFactory SLAB =
+            (pool, trades) -> new SlabOrderBook(90.0, 110.0, 1.0, 1 << 14, trades);
+
+    @TempDir
+    Path dir;
+
+    /**
+     * One journal per symbol per day, ids go on across days
+     */
+    private List<List<Path>> record() {
+        List<List<Path>> symbols = new ArrayList<>();
+        for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+            SplittableRandom rnd = new SplittableRandom(50 + symbol);
+            List<Path> days = new ArrayList<>();
+            long id = 0;
+            for (int day = 0; day < DAYS; day++) {
+                Path file = dir.resolve("symbol-" + symbol + "-day-" + day);
+                try (CommandJournal journal = new CommandJournal(file, 1 << 14)) {
+                    for (int i = 0; i < COMMANDS_PER_DAY; i++) {
+                        int roll = rnd.nextInt(10);
+                        long price = 95 + rnd.nextInt(11);
+                        Order order = roll < 7
+                                ? new Order(++id, OrderType.values()[roll & 3], price, 1 + rnd.nextInt(20))
+                                : new Order(1 + rnd.nextLong(id + 1), OrderType.CANCEL, 0, 0);
+                        journal.append(order);
+                    }
+                }
+                days.add(file);
+            }
+            symbols.add(days);
+        }
+
+        return symbols;
+    }
+
+    @Test
+    void testParallelRunMatchesSequentialReplayScenarioByScenario() {
+        List<List<Path>> symbols = record();
+        List<Scenario> scenarios = new ArrayList<>(Backtest.scenarios("array", symbols, ARRAY_BUCKET));
+        scenarios.addAll(Backtest.scenarios("slab", symbols, SLAB));
+
+        ForkJoinPool workers = new ForkJoinPool(4);
+        try {
+            Backtest backtest = new Backtest(workers, 1 << 14);
+            List<Result> results = backtest.run(scenarios);
+
+            assertEquals(scenarios.size(), results.size());
+            for (int i = 0; i < scenarios.size(); i++) {
+                Result parallel = results.get(i);
+                Result sequential = backtest.replay(scenarios.get(i));
+                assertEquals(scenarios.get(i).name(), parallel.name());
+                assertEquals(DAYS * COMMANDS_PER_DAY, parallel.commands());
+                assertEquals(0, parallel.skipped());
+                assertTrue(parallel.trades() > 0);
+                assertEquals(sequential.trades(), parallel.trades());
+                assertEquals(sequential.volume(), parallel.volume());
+                assertEquals(sequential.digest(), parallel.digest());
+            }
+
+            // no AMEND or GTT in the recording, both books fill in price-time priority: variants differ in speed only
+            for (int symbol = 0; symbol < SYMBOLS; symbol++)
+                assertEquals(results.get(symbol).digest(), results.get(SYMBOLS + symbol).digest());
+            assertNotEquals(results.get(0).digest(), results.get(1).digest());
+
+            Result total = Result.total(results);
+            assertEquals(2L * SYMBOLS * DAYS * COMMANDS_PER_DAY, total.commands());
+            assertEquals(results.stream().mapToLong(Result::volume).sum(), total.volume());
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    @Test
+    void testSecondDayContinuesTheFirstDaysBook() {
+        List<Path> days = record().get(0);
+        Backtest backtest = new Backtest(ForkJoinPool.commonPool(), 1 << 14);
+
+        Result both = backtest.replay(new Scenario("both", days, ARRAY_BUCKET));
+        Result first = backtest.replay(new Scenario("first", days.subList(0, 1), ARRAY_BUCKET));
+        assertEquals(2 * first.commands(), both.commands());
+        assertTrue(both.trades() > first.trades());
+    }
+
+    @Test
+    void testOpensExistingJournalsReadOnly() throws Exception {
+        Path file = Files.write(dir.resolve("not-a-journal"), new byte[256]);
+        assertThrows(IllegalStateException.class, () -> CommandJournal.open(file));
+        assertThrows(UncheckedIOException.class, () -> CommandJournal.open(dir.resolve("missing")));
+        assertFalse(Files.exists(dir.resolve("missing")));
+
+        try (CommandJournal journal = CommandJournal.open(record().get(0).get(0))) {
+            assertEquals(COMMANDS_PER_DAY, journal.published());
+            assertThrows(ReadOnlyBufferException.class, () -> journal.append(new Order(1, OrderType.CANCEL, 0, 0)));
+        }
+    }
+}
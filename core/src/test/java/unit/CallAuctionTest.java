@@ -0,0 +1,178 @@
+package unit;
+
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CallAuctionTest {
+
+    private final List<Trade> trades = new ArrayList<>();
+    private final List<Order> released = new ArrayList<>();
+    private final Map<Long, Long> cancelled = new HashMap<>();
+    private final ArrayBucketOrderBook book = new ArrayBucketOrderBook(90.0, 110.0, 1.0, trades::add, released::add);
+
+    @Test
+    void testOrdersAccumulateWithoutMatching() {
+        book.startAuction();
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 99, 15));
+        book.placeBuyLimit(new Order(2, OrderType.BUY_LIMIT, 101, 10));
+        book.placeBuyMarket(new Order(3, OrderType.BUY_MARKET, 0, 5));
+
+        assertTrue(trades.isEmpty());
+        assertEquals(15, book.getTotalAtPriceIndex(false, book.priceToIndex(99.0)));
+        assertEquals(15, book.getIndicativeVolume());
+    }
+
+    @Test
+    void testUncrossAtMaximumVolumePrice() {
+        book.startAuction();
+        book.placeBuyLimit(new Order(1, OrderType.BUY_LIMIT, 101, 10));
+        book.placeBuyLimit(new Order(2, OrderType.BUY_LIMIT, 100, 20));
+        book.placeSellLimit(new Order(3, OrderType.SELL_LIMIT, 99, 15));
+        book.placeSellLimit(new Order(4, OrderType.SELL_LIMIT, 100, 10));
+
+        // 99 -> 15, 100 -> 25, 101 -> 10
+        assertEquals(100.0, book.getIndicativePrice(), 1e-9);
+        assertEquals(25, book.getIndicativeVolume());
+
+        assertEquals(25, uncross());
+        assertFalse(book.isAuction());
+        for (Trade trade : trades)
+            assertEquals(100.0, trade.price, 1e-9);
+
+        assertEquals(25, trades.stream().mapToLong(t -> t.qty).sum());
+        assertEquals(5, book.getTotalAtPriceIndex(true, book.priceToIndex(100.0)));
+        assertEquals(100.0, book.getBestBidPrice(), 1e-9);
+        assertTrue(Double.isNaN(book.getBestAskPrice()));
+        assertEquals(3, released.size()); // bid 2 rests with 5
+    }
+
+    @Test
+    void testCancelMovesIndicativePrice() {
+        book.startAuction();
+        Order bid = new Order(1, OrderType.BUY_LIMIT, 105, 10);
+        book.placeBuyLimit(bid);
+        book.placeSellLimit(new Order(2, OrderType.SELL_LIMIT, 95, 10));
+        Order lowBid = new Order(3, OrderType.BUY_LIMIT, 97, 10);
+        book.placeBuyLimit(lowBid);
+        assertEquals(10, book.getIndicativeVolume());
+
+        assertTrue(book.cancel(bid));
+        assertEquals(10, book.getIndicativeVolume());
+        assertTrue(book.getIndicativePrice() >= 95.0 && book.getIndicativePrice() <= 97.0);
+
+        assertTrue(book.cancel(lowBid));
+        assertEquals(0, book.getIndicativeVolume());
+        assertTrue(Double.isNaN(book.getIndicativePrice()));
+    }
+
+    @Test
+    void testUnfilledMarketOrdersCancelledAtUncross() {
+        book.startAuction();
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 100, 10));
+        Order market = new Order(2, OrderType.BUY_MARKET, 0, 30);
+        book.placeBuyMarket(market);
+
+        assertEquals(10, book.getIndicativeVolume());
+        assertEquals(10, uncross());
+
+        assertEquals(1, trades.size());
+        assertEquals(100.0, trades.get(0).price, 1e-9);
+        assertEquals(2, trades.get(0).takerOrderId);
+        assertTrue(released.contains(market));
+        assertEquals(Map.of(2L, 20L), cancelled);
+        assertTrue(Double.isNaN(book.getBestBidPrice()));
+        assertTrue(Double.isNaN(book.getBestAskPrice()));
+    }
+
+    @Test
+    void testAuctionStartedOnACrossedBookUncrossesIt() {
+        // limits rest without matching in continuous trading too
+        book.placeBuyLimit(new Order(1, OrderType.BUY_LIMIT, 105, 10));
+        book.placeSellLimit(new Order(2, OrderType.SELL_LIMIT, 103, 10));
+        book.placeSellLimit(new Order(3, OrderType.SELL_LIMIT, 100, 5));
+
+        book.startAuction();
+        assertEquals(103.0, book.getIndicativePrice(), 1e-9);
+        assertEquals(10, book.getIndicativeVolume());
+
+        assertEquals(10, uncross());
+        assertEquals(10, trades.stream().mapToLong(t -> t.qty).sum());
+        for (Trade trade : trades)
+            assertEquals(103.0, trade.price, 1e-9);
+
+        assertTrue(Double.isNaN(book.getBestBidPrice()));
+        assertEquals(103.0, book.getBestAskPrice(), 1e-9);
+        assertEquals(5, book.getTotalAtPriceIndex(false, book.priceToIndex(103.0)));
+        assertTrue(cancelled.isEmpty());
+    }
+
+    @Test
+    void testIndicativeMatchesFullScan() {
+        Random random = new Random(7);
+        book.startAuction();
+        List<Order> resting = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            int action = random.nextInt(10);
+            if (action < 2 && !resting.isEmpty()) {
+                book.cancel(resting.remove(random.nextInt(resting.size())));
+            } else if (action == 2) {
+                Order order = new Order(i, random.nextBoolean() ? OrderType.BUY_MARKET : OrderType.SELL_MARKET,
+                        0, 1 + random.nextInt(20));
+                if (order.type() == OrderType.BUY_MARKET)
+                    book.placeBuyMarket(order);
+                else
+                    book.placeSellMarket(order);
+
+                resting.add(order);
+            } else {
+                boolean buy = random.nextBoolean();
+                Order order = new Order(i, buy ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT,
+                        95 + random.nextInt(11), 1 + random.nextInt(50));
+                if (buy)
+                    book.placeBuyLimit(order);
+                else
+                    book.placeSellLimit(order);
+
+                resting.add(order);
+            }
+
+            assertEquals(maxVolumeByScan(), book.getIndicativeVolume(), "step " + i);
+        }
+
+        long expected = book.getIndicativeVolume();
+        assertEquals(expected, uncross());
+        assertEquals(expected, trades.stream().mapToLong(t -> t.qty).sum());
+        assertTrue(Double.isNaN(book.getBestBidPrice()) || Double.isNaN(book.getBestAskPrice())
+                || book.getBestBidPrice() < book.getBestAskPrice());
+    }
+
+    private long uncross() {
+        return book.uncross((orderId, _, _, remaining) -> cancelled.put(orderId, remaining));
+    }
+
+    private long maxVolumeByScan() {
+        long best = 0;
+        for (int p = 0; p < book.capacity(); p++) {
+            long buy = 0, sell = 0;
+            for (int i = p; i < book.capacity(); i++)
+                buy += book.getTotalAtPriceIndex(true, i);
+            for (int i = 0; i <= p; i++)
+                sell += book.getTotalAtPriceIndex(false, i);
+
+            best = Math.max(best, Math.min(buy, sell));
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,99 @@
+package unit;
+
+import core.MarketData.CandleAggregator;
+import core.MarketData.CandleSeries;
+import core.MarketData.CandleSeries.Candle;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import core.Persistence.TradePublisher;
+import core.RingBuffer.SPSCRingBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CandleAggregatorTest {
+
+    private static final long MINUTE = 1_700_000_040_000L; // epoch ms, on a minute boundary
+
+    @Test
+    void testBarsPerInterval() {
+        SPSCRingBuffer<Trade> ring = new SPSCRingBuffer<>(16);
+        CandleAggregator candles = new CandleAggregator(ring, CandleAggregator.DEFAULT_INTERVALS, 8);
+        ring.offer(trade(MINUTE + 100, 10.0, 2));
+        ring.offer(trade(MINUTE + 900, 12.0, 1));
+        ring.offer(trade(MINUTE + 950, 9.0, 1));
+        ring.offer(trade(MINUTE + 3_500, 11.0, 4)); // two empty seconds leave no bar
+        assertEquals(4, candles.drain(100));
+
+        List<Candle> seconds = candles.series(1_000).recent(10);
+        assertEquals(List.of(
+                new Candle(MINUTE, 10.0, 12.0, 9.0, 9.0, 4, (20.0 + 12.0 + 9.0) / 4, 3),
+                new Candle(MINUTE + 3_000, 11.0, 11.0, 11.0, 11.0, 4, 11.0, 1)), seconds);
+
+        Candle minute = candles.series(60_000).recent(10).getFirst();
+        assertEquals(new Candle(MINUTE, 10.0, 12.0, 9.0, 11.0, 8, (20.0 + 12.0 + 9.0 + 44.0) / 8, 4), minute);
+        assertEquals(MINUTE - MINUTE % 3_600_000, candles.series(3_600_000).recent(1).getFirst().startMillis());
+        assertNull(candles.series(5_000));
+    }
+
+    @Test
+    void testOnlyTheLastBarsAreKept() {
+        CandleSeries series = new CandleSeries(1_000, 4);
+        for (int i = 0; i < 10; i++)
+            series.onTrade(MINUTE + i * 1_000L, 100 + i, 1);
+
+        List<Candle> bars = series.recent(100);
+        assertEquals(4, bars.size());
+        assertEquals(MINUTE + 6_000, bars.getFirst().startMillis());
+        assertEquals(109.0, bars.getLast().close());
+        assertEquals(List.of(bars.getLast()), series.recent(1));
+        assertTrue(new CandleSeries(1_000, 4).recent(10).isEmpty());
+    }
+
+    @Test
+    void testBarsFollowTakerTimestampsFromTheBook() {
+        SPSCRingBuffer<Trade> ring = new SPSCRingBuffer<>(16);
+        CandleAggregator candles = new CandleAggregator(ring, new long[]{1_000}, 8);
+        ArrayBucketOrderBook book = new ArrayBucketOrderBook(90.0, 110.0, 1.0, TradePublisher.dropping(ring, "candles"), null);
+
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 101, 5));
+        book.placeSellLimit(new Order(2, OrderType.SELL_LIMIT, 102, 5));
+        Order taker = new Order(3, OrderType.BUY_MARKET, 0, 8);
+        taker.timestamp = (MINUTE + 1_234) * 1_000_000;
+        book.placeBuyMarket(taker);
+        candles.drain(100);
+
+        assertEquals(List.of(new Candle(MINUTE + 1_000, 101.0, 102.0, 101.0, 102.0, 8, (505.0 + 306.0) / 8, 2)),
+                candles.series(1_000).recent(10));
+    }
+
+    @Test
+    void testReadersNeverSeeAHalfAppliedTrade() throws InterruptedException {
+        CandleSeries series = new CandleSeries(1_000, 64);
+        int trades = 500_000;
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < trades; i++)
+                series.onTrade(MINUTE + i / 100, 100.0, 1); // 100 trades per ms, a bar per 100k trades
+        });
+        writer.start();
+
+        while (writer.isAlive()) {
+            for (Candle bar : series.recent(64)) {
+                assertEquals(bar.trades(), bar.volume());
+                assertEquals(100.0, bar.vwap(), 1e-9);
+            }
+            Thread.yield();
+        }
+        writer.join();
+
+        assertEquals(trades, series.recent(64).stream().mapToLong(Candle::volume).sum());
+    }
+
+    private static Trade trade(long timeMillis, double price, long qty) {
+        return new Trade(price, qty, true, 0, 0, 0, 0, timeMillis * 1_000_000);
+    }
+}
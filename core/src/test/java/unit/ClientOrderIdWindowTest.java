@@ -0,0 +1,96 @@
+package unit;
+
+import core.Collections.ClientOrderIdWindow;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientOrderIdWindowTest {
+
+    @Test
+    void testIdsAreKeptPerAccount() {
+        ClientOrderIdWindow window = new ClientOrderIdWindow(16, 1_000);
+
+        window.put(1, 42, 100, 0);
+        window.put(2, 42, 101, 0);
+
+        assertEquals(100, window.get(1, 42, 10));
+        assertEquals(101, window.get(2, 42, 10));
+        assertEquals(ClientOrderIdWindow.MISSING, window.get(3, 42, 10));
+        assertEquals(ClientOrderIdWindow.MISSING, window.get(1, 43, 10));
+        assertThrows(IllegalStateException.class, () -> window.put(1, 42, 102, 10));
+        assertThrows(IllegalArgumentException.class, () -> window.put(1, 0, 102, 10));
+    }
+
+    @Test
+    void testIdsAreForgottenAfterTheWindow() {
+        ClientOrderIdWindow window = new ClientOrderIdWindow(16, 1_000);
+        window.put(1, 42, 100, 0);
+        window.put(1, 43, 101, 500);
+
+        assertEquals(100, window.get(1, 42, 999));
+        assertEquals(ClientOrderIdWindow.MISSING, window.get(1, 42, 1_000));
+
+        // the next put evicts what expired, the id can be reused
+        window.put(1, 42, 102, 1_000);
+        assertEquals(2, window.size());
+        assertEquals(102, window.get(1, 42, 1_000));
+        assertEquals(101, window.get(1, 43, 1_000));
+    }
+
+    @Test
+    void testOldestIsEvictedWhenFull() {
+        ClientOrderIdWindow window = new ClientOrderIdWindow(4, Long.MAX_VALUE);
+        for (int i = 1; i <= 6; i++)
+            window.put(7, i, 100 + i, i);
+
+        assertEquals(4, window.size());
+        assertEquals(ClientOrderIdWindow.MISSING, window.get(7, 1, 6));
+        assertEquals(ClientOrderIdWindow.MISSING, window.get(7, 2, 6));
+        for (int i = 3; i <= 6; i++)
+            assertEquals(100 + i, window.get(7, i, 6));
+    }
+
+    @Test
+    void testMatchesAMapOverRandomTraffic() {
+        int capacity = 256;
+        long windowLength = 5_000;
+        ClientOrderIdWindow window = new ClientOrderIdWindow(capacity, windowLength);
+        Map<String, long[]> reference = new HashMap<>(); // key -> {orderId, insertedAt}
+        long[] inserted = new long[1 << 16];
+        String[] keys = new String[inserted.length];
+        int first = 0;
+        int last = 0;
+        Random random = new Random(7);
+        long now = 0;
+
+        for (long orderId = 1; orderId < 50_000; orderId++) {
+            now += random.nextInt(40);
+            long accountId = random.nextInt(8);
+            long clientOrderId = 1 + random.nextInt(400);
+            String key = accountId + "/" + clientOrderId;
+
+            long[] expected = reference.get(key);
+            long expectedId = expected != null && now - expected[1] < windowLength ? expected[0] : 0;
+            assertEquals(expectedId, window.get(accountId, clientOrderId, now), key + " at " + now);
+            if (expectedId != 0)
+                continue;
+
+            // mirror the eviction: expired entries first, then the oldest when full
+            while (first < last && now - inserted[first & (inserted.length - 1)] >= windowLength)
+                reference.remove(keys[first++ & (inserted.length - 1)]);
+            if (last - first == window.capacity())
+                reference.remove(keys[first++ & (inserted.length - 1)]);
+
+            window.put(accountId, clientOrderId, orderId, now);
+            reference.put(key, new long[]{orderId, now});
+            inserted[last & (inserted.length - 1)] = now;
+            keys[last++ & (inserted.length - 1)] = key;
+            assertEquals(last - first, window.size());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package unit;
+
+import core.Codec.*;
+import core.Order.Order;
+import core.Order.OrderRecord;
+import core.Order.OrderType;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodecTest {
+
+    private static ByteBuffer buffer(boolean direct) {
+        return (direct ? ByteBuffer.allocateDirect(256) : ByteBuffer.allocate(256)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Test
+    void testEveryMessageRoundTripsAtAnOffset() {
+        for (boolean direct : new boolean[]{false, true}) {
+            ByteBuffer bytes = buffer(direct);
+            int offset = 13;
+
+            NewOrderCodec newOrder = new NewOrderCodec().wrapForEncode(bytes, offset).orderId(1).price(-2)
+                    .quantity(3).accountId(4).timestamp(5).expiresAt(6).type((byte) 7).flags((byte) -8);
+            assertEquals(offset + NewOrderCodec.SIZE, newOrder.limit());
+            newOrder = new NewOrderCodec().wrapForDecode(bytes, offset);
+            assertEquals(1, newOrder.orderId());
+            assertEquals(-2, newOrder.price());
+            assertEquals(3, newOrder.quantity());
+            assertEquals(4, newOrder.accountId());
+            assertEquals(5, newOrder.timestamp());
+            assertEquals(6, newOrder.expiresAt());
+            assertEquals(7, newOrder.type());
+            assertEquals(-8, newOrder.flags());
+
+            new CancelCodec().wrapForEncode(bytes, offset).orderId(11).accountId(12).timestamp(13)
+                    .type((byte) 4).flags((byte) 6);
+            CancelCodec cancel = new CancelCodec().wrapForDecode(bytes, offset);
+            assertEquals(11, cancel.orderId());
+            assertEquals(12, cancel.accountId());
+            assertEquals(13, cancel.timestamp());
+            assertEquals(4, cancel.type());
+            assertEquals(6, cancel.flags());
+            assertEquals(offset + CancelCodec.SIZE, cancel.limit());
+
+            new AmendCodec().wrapForEncode(bytes, offset).orderId(21).accountId(22).price(23).quantity(24)
+                    .timestamp(25);
+            AmendCodec amend = new AmendCodec().wrapForDecode(bytes, offset);
+            assertEquals(21, amend.orderId());
+            assertEquals(22, amend.accountId());
+            assertEquals(23, amend.price());
+            assertEquals(24, amend.quantity());
+            assertEquals(25, amend.timestamp());
+
+            new AckCodec().wrapForEncode(bytes, offset).orderId(31).accountId(32).timestamp(33).leavesQty(34)
+                    .status(AckCodec.REJECTED).reason((byte) 2);
+            AckCodec ack = new AckCodec().wrapForDecode(bytes, offset);
+            assertEquals(31, ack.orderId());
+            assertEquals(32, ack.accountId());
+            assertEquals(33, ack.timestamp());
+            assertEquals(34, ack.leavesQty());
+            assertEquals(AckCodec.REJECTED, ack.status());
+            assertEquals(2, ack.reason());
+
+            new FillCodec().wrapForEncode(bytes, offset).makerOrderId(41).takerOrderId(42).makerAccountId(43)
+                    .takerAccountId(44).price(65_000.01).quantity(45).timestamp(46).buyInitiator(true);
+            FillCodec fill = new FillCodec().wrapForDecode(bytes, offset);
+            assertEquals(41, fill.makerOrderId());
+            assertEquals(42, fill.takerOrderId());
+            assertEquals(43, fill.makerAccountId());
+            assertEquals(44, fill.takerAccountId());
+            assertEquals(65_000.01, fill.price());
+            assertEquals(45, fill.quantity());
+            assertEquals(46, fill.timestamp());
+            assertTrue(fill.buyInitiator());
+            assertFalse(fill.buyInitiator(false).buyInitiator());
+
+            new BookDeltaCodec().wrapForEncode(bytes, offset).price(64_999.5).totalQty(0).bid(true);
+            BookDeltaCodec delta = new BookDeltaCodec().wrapForDecode(bytes, offset);
+            assertEquals(64_999.5, delta.price());
+            assertEquals(0, delta.totalQty());
+            assertTrue(delta.bid());
+
+            assertEquals(0, bytes.position()); // absolute access only
+        }
+    }
+
+    @Test
+    void testLayoutIsLittleEndianWithHeader() {
+        ByteBuffer bytes = buffer(false);
+        new NewOrderCodec().wrapForEncode(bytes, 0).orderId(0x0102030405060708L).type((byte) 9);
+
+        assertEquals(NewOrderCodec.BLOCK_LENGTH, bytes.getShort(0));
+        assertEquals(NewOrderCodec.TEMPLATE_ID, bytes.getShort(2));
+        assertEquals(Flyweight.SCHEMA_ID, bytes.getShort(4));
+        assertEquals(Flyweight.VERSION, bytes.getShort(6));
+        assertEquals(0x08, bytes.get(Flyweight.HEADER)); // least significant byte first
+        assertEquals(0x01, bytes.get(Flyweight.HEADER + 7));
+        assertEquals(9, bytes.get(Flyweight.HEADER + 48));
+        assertEquals(NewOrderCodec.TEMPLATE_ID, Flyweight.templateId(bytes, 0));
+
+        assertTrue(NewOrderCodec.SIZE <= OrderRecord.SIZE);
+        assertTrue(CancelCodec.SIZE <= OrderRecord.SIZE);
+    }
+
+    @Test
+    void testSegmentAndBufferViewsOfTheSameBytesAgree() {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = arena.allocate(256);
+            ByteBuffer bytes = segment.asByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+            long offset = 13;
+
+            FillCodec fill = new FillCodec().wrapForEncode(segment, offset).makerOrderId(1).takerOrderId(2)
+                    .price(65_001.25).quantity(3).buyInitiator(true);
+            assertEquals(offset + FillCodec.SIZE, fill.limit());
+            fill = new FillCodec().wrapForDecode(bytes, (int) offset);
+            assertEquals(1, fill.makerOrderId());
+            assertEquals(65_001.25, fill.price());
+            assertTrue(fill.buyInitiator());
+
+            new AckCodec().wrapForEncode(bytes, 100).orderId(42).status(AckCodec.CANCELLED);
+            assertEquals(AckCodec.TEMPLATE_ID, Flyweight.templateId(segment, 100));
+            AckCodec ack = new AckCodec().wrapForDecode(segment, 100);
+            assertEquals(42, ack.orderId());
+            assertEquals(AckCodec.CANCELLED, ack.status());
+
+            assertThrows(IllegalArgumentException.class, () -> new NewOrderCodec().wrapForDecode(segment, 100));
+            assertThrows(IndexOutOfBoundsException.class, () -> new NewOrderCodec().wrapForEncode(segment, 250));
+        }
+    }
+
+    @Test
+    void testDecodeRejectsForeignMessages() {
+        ByteBuffer bytes = buffer(false);
+        new CancelCodec().wrapForEncode(bytes, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> new NewOrderCodec().wrapForDecode(bytes, 0));
+        bytes.putShort(6, (short) (Flyweight.VERSION + 1));
+        assertThrows(IllegalArgumentException.class, () -> new CancelCodec().wrapForDecode(bytes, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CancelCodec().wrapForEncode(ByteBuffer.allocate(64), 0)); // big-endian by default
+    }
+
+    @Test
+    void testOrderRecordPicksMessageByTypeAndOverwritesReusedOrders() {
+        ByteBuffer bytes = buffer(true);
+        OrderRecord record = new OrderRecord();
+        Order stale = new Order(99, OrderType.SELL_LIMIT, 999, 999);
+        stale.expiresAt = 999;
+
+        for (OrderType type : OrderType.values()) {
+            Order order = new Order(5, type, 101, 20);
+            order.accountId = 3;
+            order.timestamp = 1_000;
+            order.expiresAt = 2_000;
+            order.flags = Order.CANCEL_ASKS;
+            record.write(bytes, OrderRecord.SIZE, order);
+            record.read(bytes, OrderRecord.SIZE, stale);
+
+            boolean cancel = type == OrderType.CANCEL || type == OrderType.MASS_CANCEL;
+            boolean amend = type == OrderType.AMEND;
+            int templateId = cancel ? CancelCodec.TEMPLATE_ID : amend ? AmendCodec.TEMPLATE_ID : NewOrderCodec.TEMPLATE_ID;
+            assertEquals(templateId, Flyweight.templateId(bytes, OrderRecord.SIZE), type.name());
+            assertEquals(type, stale.type());
+            assertEquals(5, stale.id);
+            assertEquals(3, stale.accountId);
+            assertEquals(1_000, stale.timestamp);
+            assertEquals(amend ? 0 : Order.CANCEL_ASKS, stale.flags, type.name());
+            assertEquals(cancel ? 0 : 101, stale.price, type.name());
+            assertEquals(cancel ? 0 : 20, stale.quantity, type.name());
+            assertEquals(cancel || amend ? 0 : 2_000, stale.expiresAt, type.name());
+        }
+    }
+}
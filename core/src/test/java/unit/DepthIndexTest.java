@@ -0,0 +1,118 @@
+package unit;
+
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DepthIndexTest {
+
+    private final ArrayBucketOrderBook book = new ArrayBucketOrderBook(90.0, 110.0, 1.0, null, null);
+
+    @Test
+    void testCumulativeQuantityAndSweepPrice() {
+        book.placeBuyLimit(new Order(1, OrderType.BUY_LIMIT, 100, 10));
+        book.placeBuyLimit(new Order(2, OrderType.BUY_LIMIT, 98, 20));
+        book.placeBuyLimit(new Order(3, OrderType.BUY_LIMIT, 100, 5));
+        book.placeSellLimit(new Order(4, OrderType.SELL_LIMIT, 102, 7));
+        book.placeSellLimit(new Order(5, OrderType.SELL_LIMIT, 105, 8));
+
+        assertEquals(15, book.getCumulativeQuantity(true, 100.0));
+        assertEquals(15, book.getCumulativeQuantity(true, 99.0));
+        assertEquals(35, book.getCumulativeQuantity(true, 98.0));
+        assertEquals(35, book.getCumulativeQuantity(true, 50.0));
+        assertEquals(0, book.getCumulativeQuantity(true, 101.0));
+        assertEquals(0, book.getCumulativeQuantity(false, 101.0));
+        assertEquals(7, book.getCumulativeQuantity(false, 104.0));
+        assertEquals(15, book.getCumulativeQuantity(false, 200.0));
+
+        assertEquals(100.0, book.getSweepPrice(true, 15), 1e-9);
+        assertEquals(98.0, book.getSweepPrice(true, 16), 1e-9);
+        assertEquals(98.0, book.getSweepPrice(true, 35), 1e-9);
+        assertTrue(Double.isNaN(book.getSweepPrice(true, 36)));
+        assertEquals(102.0, book.getSweepPrice(false, 7), 1e-9);
+        assertEquals(105.0, book.getSweepPrice(false, 8), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> book.getSweepPrice(false, 0));
+    }
+
+    @Test
+    void testFillsAndCancelsKeepTheIndexInStep() {
+        Order bid = new Order(1, OrderType.BUY_LIMIT, 100, 10);
+        book.placeBuyLimit(bid);
+        book.placeBuyLimit(new Order(2, OrderType.BUY_LIMIT, 99, 10));
+        book.placeSellMarket(new Order(3, OrderType.SELL_MARKET, 0, 4));
+
+        assertEquals(16, book.getCumulativeQuantity(true, 99.0));
+        assertEquals(99.0, book.getSweepPrice(true, 7), 1e-9);
+
+        book.cancel(bid);
+        assertEquals(0, book.getCumulativeQuantity(true, 100.0));
+        assertEquals(99.0, book.getSweepPrice(true, 1), 1e-9);
+    }
+
+    @Test
+    void testMatchesALadderScanOverRandomFlow() {
+        Random random = new Random(11);
+        List<Order> resting = new ArrayList<>();
+        long id = 1;
+
+        for (int step = 0; step < 20_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 5) {
+                boolean buy = random.nextBoolean();
+                Order order = new Order(id++, buy ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT,
+                        buy ? 90 + random.nextInt(12) : 99 + random.nextInt(12), 1 + random.nextInt(20));
+                if (buy)
+                    book.placeBuyLimit(order);
+                else
+                    book.placeSellLimit(order);
+                resting.add(order);
+            } else if (action < 7 && !resting.isEmpty()) {
+                book.cancel(resting.remove(random.nextInt(resting.size())));
+            } else {
+                boolean buy = random.nextBoolean();
+                Order market = new Order(id++, buy ? OrderType.BUY_MARKET : OrderType.SELL_MARKET, 0,
+                        1 + random.nextInt(30));
+                if (buy)
+                    book.placeBuyMarket(market);
+                else
+                    book.placeSellMarket(market); // filled orders stay in the list, cancelling them is a no-op
+            }
+
+            boolean bid = random.nextBoolean();
+            double price = 88 + random.nextInt(25);
+            assertEquals(scanQuantity(bid, price), book.getCumulativeQuantity(bid, price), "step " + step);
+            long quantity = 1 + random.nextInt(120);
+            assertEquals(scanSweep(bid, quantity), book.getSweepPrice(bid, quantity), 1e-9, "step " + step);
+        }
+    }
+
+    private long scanQuantity(boolean bid, double price) {
+        long sum = 0;
+        for (int i = 0; i < book.capacity(); i++) {
+            double levelPrice = book.indexToPrice(i);
+            if (bid ? levelPrice >= price : levelPrice <= price)
+                sum += book.getTotalAtPriceIndex(bid, i);
+        }
+
+        return sum;
+    }
+
+    private double scanSweep(boolean bid, long quantity) {
+        long sum = 0;
+        for (int n = 0; n < book.capacity(); n++) {
+            int i = bid ? book.capacity() - 1 - n : n;
+            sum += book.getTotalAtPriceIndex(bid, i);
+            if (sum >= quantity)
+                return book.indexToPrice(i);
+        }
+
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,121 @@
+package unit;
+
+import core.MatchingEngine.MatchingEngine;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.RingConsumer;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Book and pool of one engine with a running digest of every trade, for tests that feed two engines the same
+ * commands (replication, the pipeline) and compare them. Also the command stream they feed, and the order
+ * factories the unit tests share.
+ */
+final class EngineNode {
+
+    static final long START = 1_700_000_000_000L * 1_000_000L; // epoch ns
+
+    final SPSCOrderPool pool;
+    final long[] trades = new long[2]; // count, digest
+    final ArrayBucketOrderBook book;
+
+    EngineNode() {
+        this(1 << 18);
+    }
+
+    EngineNode(int poolSize) {
+        pool = new SPSCOrderPool(poolSize);
+        book = new ArrayBucketOrderBook(90.0, 110.0, 1.0, trade -> {
+            trades[0]++;
+            trades[1] = trades[1] * 31 + trade.makerOrderId * 1_000_003 + trade.takerOrderId * 7919 + trade.qty;
+        }, pool::release);
+    }
+
+    MatchingEngine engine(RingConsumer<Order> input) {
+        return new MatchingEngine(book, input, pool);
+    }
+
+    /**
+     * Limits around 100 with short GTT expiries, markets, cancels of recent orders and rare mass cancels,
+     * one microsecond apart
+     */
+    static Order command(SPSCOrderPool pool, SplittableRandom rnd, long i) {
+        Order order = pool.borrow();
+        order.timestamp = START + i * 1_000;
+        order.accountId = 1 + rnd.nextInt(50);
+        int kind = rnd.nextInt(100);
+        if (kind < 50) {
+            boolean buy = rnd.nextBoolean();
+            order.id = i;
+            order.setType(buy ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT);
+            order.price = buy ? 91 + rnd.nextInt(10) : 100 + rnd.nextInt(10);
+            order.quantity = 1 + rnd.nextInt(20);
+            if (rnd.nextBoolean())
+                order.expiresAt = order.timestamp + rnd.nextLong(1, 50_000_000L);
+        } else if (kind < 80) {
+            order.id = i;
+            order.setType(rnd.nextBoolean() ? OrderType.BUY_MARKET : OrderType.SELL_MARKET);
+            order.quantity = 1 + rnd.nextInt(20);
+        } else if (kind < 99) {
+            order.id = Math.max(1, i - rnd.nextInt(2_000));
+            order.setType(OrderType.CANCEL);
+        } else {
+            order.setType(OrderType.MASS_CANCEL);
+            order.flags = rnd.nextBoolean() ? Order.CANCEL_BIDS : Order.CANCEL_ASKS;
+        }
+
+        return order;
+    }
+
+    /**
+     * Not pooled, for books fed directly
+     */
+    static Order order(long id, long accountId, OrderType type, long price, long quantity) {
+        Order order = new Order(id, type, price, quantity);
+        order.accountId = accountId;
+
+        return order;
+    }
+
+    static Order order(SPSCOrderPool pool, long id, OrderType type, long price, long quantity) {
+        Order order = pool.borrow();
+        order.id = id;
+        order.setType(type);
+        order.price = price;
+        order.quantity = quantity;
+
+        return order;
+    }
+
+    /**
+     * Stamped for the engine's expiry clock, expiresAt 0 - good till cancel
+     */
+    static Order order(SPSCOrderPool pool, long id, long accountId, OrderType type, long price, long quantity,
+                       long timestamp, long expiresAt) {
+        Order order = order(pool, id, type, price, quantity);
+        order.accountId = accountId;
+        order.timestamp = timestamp;
+        order.expiresAt = expiresAt;
+
+        return order;
+    }
+
+    static void assertSameState(EngineNode expected, EngineNode actual, String where) {
+        assertEquals(expected.trades[0], actual.trades[0], "trade count " + where);
+        assertEquals(expected.trades[1], actual.trades[1], "trade digest " + where);
+        assertEquals(expected.pool.available(), actual.pool.available(), "resting orders " + where);
+        assertEquals(expected.book.getBestBidPrice(), actual.book.getBestBidPrice(), 1e-9, "best bid " + where);
+        assertEquals(expected.book.getBestAskPrice(), actual.book.getBestAskPrice(), 1e-9, "best ask " + where);
+        for (int price = 90; price <= 110; price++) {
+            assertEquals(expected.book.getTotalAtPrice(true, price), actual.book.getTotalAtPrice(true, price),
+                    "bids at " + price + " " + where);
+            assertEquals(expected.book.getTotalAtPrice(false, price), actual.book.getTotalAtPrice(false, price),
+                    "asks at " + price + " " + where);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package unit;
+
+import core.Journal.CommandJournal;
+import core.Journal.FollowerRingBuffer;
+import core.MatchingEngine.MatchingEngine;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderPool.SPSCOrderPool;
+import core.Pipeline.Command;
+import core.Pipeline.EnginePipeline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static unit.EngineNode.assertSameState;
+import static unit.EngineNode.command;
+import static unit.EngineNode.order;
+
+public class EnginePipelineTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testPipelineMatchesLikeDirectEngineAndJournalsEveryCommand() throws InterruptedException {
+        int commands = 300_000;
+        try (CommandJournal journal = new CommandJournal(dir.resolve("journal"), 2 * commands)) {
+            SPSCOrderPool ingressPool = new SPSCOrderPool(1 << 12);
+            EnginePipeline pipeline = new EnginePipeline(1024, ingressPool, order -> true, journal, null);
+            EngineNode piped = new EngineNode(1 << 18);
+            pipeline.start(piped.engine(null), null);
+
+            EngineNode direct = new EngineNode(1 << 18);
+            MatchingEngine directEngine = direct.engine(null);
+
+            SplittableRandom pipedRnd = new SplittableRandom(41);
+            SplittableRandom directRnd = new SplittableRandom(41);
+            for (int i = 1; i <= commands; i++) {
+                Order order = command(ingressPool, pipedRnd, i);
+                while (!pipeline.offer(order))
+                    Thread.yield();
+                directEngine.processOrder(command(direct.pool, directRnd, i));
+
+                if (i % 10_000 == 0)
+                    assertStagesOrdered(pipeline.stageSequences(), i - 1);
+            }
+
+            awaitCompleted(pipeline, commands - 1);
+            pipeline.stop();
+
+            assertEquals(commands, journal.published());
+            assertEquals(1 << 12, ingressPool.available());
+            assertTrue(direct.trades[0] > commands / 10);
+            assertSameState(direct, piped, "pipeline");
+        }
+    }
+
+    @Test
+    void testRiskRejectionsAreNeitherJournaledNorMatched() throws InterruptedException {
+        try (CommandJournal journal = new CommandJournal(dir.resolve("journal"), 1024)) {
+            SPSCOrderPool ingressPool = new SPSCOrderPool(64);
+            byte[] statuses = new byte[8];
+            long[] reportedIds = new long[8];
+            EnginePipeline pipeline = new EnginePipeline(16, ingressPool, order -> order.quantity <= 100, journal,
+                    (command, sequence, endOfBatch) -> {
+                        statuses[(int) sequence] = command.status;
+                        reportedIds[(int) sequence] = command.order.id;
+                    });
+            EngineNode node = new EngineNode(64);
+            pipeline.start(node.engine(null), null);
+
+            pipeline.offer(order(ingressPool, 1, OrderType.SELL_LIMIT, 101, 10));
+            pipeline.offer(order(ingressPool, 2, OrderType.SELL_LIMIT, 102, 1_000)); // fat finger
+            pipeline.offer(order(ingressPool, 3, OrderType.BUY_MARKET, 0, 500)); // fat finger
+            pipeline.offer(order(ingressPool, 4, OrderType.BUY_MARKET, 0, 4));
+
+            awaitCompleted(pipeline, 3);
+            pipeline.stop();
+
+            assertArrayEquals(new byte[]{Command.ACCEPTED, Command.REJECTED_RISK, Command.REJECTED_RISK,
+                    Command.ACCEPTED, 0, 0, 0, 0}, statuses);
+            assertArrayEquals(new long[]{1, 2, 3, 4, 0, 0, 0, 0}, reportedIds);
+            assertEquals(1, node.trades[0]);
+            assertEquals(6, node.book.getTotalAtPrice(false, 101.0));
+            assertEquals(0, node.book.getTotalAtPrice(false, 102.0));
+
+            assertEquals(2, journal.published());
+            Order journaled = new Order();
+            journal.read(1, journaled);
+            assertEquals(4, journaled.id);
+        }
+    }
+
+    @Test
+    void testPoolRejectionIsJournaledAndFollowerSkipsTheSameCommand() throws InterruptedException {
+        try (CommandJournal journal = new CommandJournal(dir.resolve("journal"), 1024);
+             CommandJournal tail = new CommandJournal(dir.resolve("journal"), 1024)) {
+            SPSCOrderPool ingressPool = new SPSCOrderPool(64);
+            byte[] statuses = new byte[4];
+            EnginePipeline pipeline = new EnginePipeline(16, ingressPool, order -> true, journal,
+                    (command, sequence, endOfBatch) -> statuses[(int) sequence] = command.status);
+            EngineNode primary = new EngineNode(2);
+            pipeline.start(primary.engine(null), null);
+
+            pipeline.offer(order(ingressPool, 1, OrderType.SELL_LIMIT, 101, 10));
+            pipeline.offer(order(ingressPool, 2, OrderType.SELL_LIMIT, 102, 10));
+            pipeline.offer(order(ingressPool, 3, OrderType.SELL_LIMIT, 103, 10)); // both orders rest, pool is empty
+            awaitCompleted(pipeline, 2);
+            pipeline.stop();
+
+            assertArrayEquals(new byte[]{Command.ACCEPTED, Command.ACCEPTED, Command.REJECTED_POOL, 0}, statuses);
+            assertEquals(3, journal.published());
+
+            EngineNode follower = new EngineNode(2);
+            FollowerRingBuffer followerInput = new FollowerRingBuffer(tail, follower.pool, tail::published);
+            MatchingEngine followerEngine = follower.engine(followerInput);
+            for (int i = 0; i < 3; i++)
+                followerEngine.matchOne();
+
+            assertEquals(3, followerInput.applied());
+            assertEquals(0, follower.book.getTotalAtPrice(false, 103.0));
+            assertSameState(primary, follower, "after pool rejection");
+        }
+    }
+
+    @Test
+    void testOfferFailsWhenRingIsFull() {
+        SPSCOrderPool ingressPool = new SPSCOrderPool(8);
+        EnginePipeline pipeline = new EnginePipeline(4, ingressPool, order -> true, null, null);
+
+        for (int i = 1; i <= 4; i++)
+            assertTrue(pipeline.offer(order(ingressPool, i, OrderType.BUY_LIMIT, 95, 1)));
+        Order rejected = order(ingressPool, 5, OrderType.BUY_LIMIT, 95, 1);
+        assertFalse(pipeline.offer(rejected));
+        assertFalse(pipeline.offerBatch(new Order[]{rejected}, 1));
+
+        assertEquals(7, ingressPool.available()); // copied orders went back to the pool, the rejected one is ours
+        assertEquals(List.of(-1L, -1L, -1L, -1L, -1L), pipeline.stageSequences());
+        assertEquals(4, pipeline.capacity());
+    }
+
+    @Test
+    void testMatchStagePausesUnderBackPressure() throws InterruptedException {
+        SPSCOrderPool ingressPool = new SPSCOrderPool(64);
+        EnginePipeline pipeline = new EnginePipeline(16, ingressPool, order -> true, null, null);
+        EngineNode node = new EngineNode(64);
+        AtomicBoolean pressure = new AtomicBoolean(true);
+        pipeline.start(node.engine(null), pressure::get);
+
+        Order[] batch = {
+                order(ingressPool, 1, OrderType.SELL_LIMIT, 101, 10),
+                order(ingressPool, 2, OrderType.BUY_MARKET, 0, 4)
+        };
+        assertTrue(pipeline.offerBatch(batch, 2));
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (pipeline.stageSequences().get(2) < 1 && System.nanoTime() < deadline)
+            Thread.yield();
+
+        List<Long> paused = pipeline.stageSequences();
+        assertEquals(1, paused.get(2)); // journal stage is done
+        assertEquals(-1, paused.get(3)); // match stage is held back
+        assertEquals(0, node.trades[0]);
+
+        pressure.set(false);
+        awaitCompleted(pipeline, 1);
+        pipeline.stop();
+
+        assertEquals(1, node.trades[0]);
+        assertEquals(6, node.book.getTotalAtPrice(false, 101.0));
+    }
+
+    @Test
+    void testStartRejectsEngineSharingTheIngressPool() {
+        EngineNode node = new EngineNode(8);
+        EnginePipeline pipeline = new EnginePipeline(4, node.pool, order -> true, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> pipeline.start(node.engine(null), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new EnginePipeline(6, node.pool, order -> true, null, null));
+    }
+
+    private static void awaitCompleted(EnginePipeline pipeline, long sequence) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (pipeline.completed() < sequence && System.nanoTime() < deadline)
+            Thread.yield();
+
+        assertEquals(sequence, pipeline.completed());
+    }
+
+    /**
+     * Read while the stages run, so a stage may only be behind the one before it, never ahead
+     */
+    private static void assertStagesOrdered(List<Long> sequences, long claimed) {
+        long upstream = claimed;
+        for (long sequence : sequences) {
+            assertTrue(sequence <= upstream, sequences + " claimed " + claimed);
+            upstream = sequence;
+        }
+    }
+}
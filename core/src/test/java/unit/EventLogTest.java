@@ -0,0 +1,190 @@
+package unit;
+
+import core.Codec.AckCodec;
+import core.Codec.AmendCodec;
+import core.Codec.BookDeltaCodec;
+import core.Codec.FillCodec;
+import core.Journal.EventLog;
+import core.Journal.EventLogPublisher;
+import core.Journal.EventLogReader;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventLogTest {
+
+    @TempDir
+    Path dir;
+
+    private final FillCodec fill = new FillCodec();
+
+    private EventLogPublisher publishFills(EventLog log, int count) {
+        EventLogPublisher publisher = new EventLogPublisher(log);
+        for (int i = 0; i < count; i++)
+            publisher.accept(new Trade(100.0 + i, i + 1, true, 10 + i, 20 + i, 1, 2, i));
+
+        return publisher;
+    }
+
+    @Test
+    void testEveryOutputIsReadBackInPlace() {
+        try (EventLog log = new EventLog(dir.resolve("events"), 16)) {
+            EventLogPublisher publisher = new EventLogPublisher(log);
+            publisher.accept(new Trade(101.5, 7, false, 11, 12, 3, 4, 99));
+            publisher.onLevelChanged(true, 101.5, 13);
+            publisher.onCancelled(12, 4, true, 5);
+            publisher.onExpired(13, 4, false, 6);
+            publisher.onAmended(14, 4, true, 10_150, 8);
+            publisher.onRejected(15, 4, 2);
+
+            List<Integer> templates = new ArrayList<>();
+            BookDeltaCodec delta = new BookDeltaCodec();
+            AckCodec ack = new AckCodec();
+            AmendCodec amend = new AmendCodec();
+            EventLogReader reader = new EventLogReader(log, 0);
+            assertEquals(6, reader.poll((sequence, templateId, buffer, offset) -> {
+                assertEquals(templates.size(), sequence);
+                templates.add(templateId);
+                switch (templateId) {
+                    case FillCodec.TEMPLATE_ID -> {
+                        fill.wrapForDecode(buffer, offset);
+                        assertEquals(101.5, fill.price());
+                        assertEquals(7, fill.quantity());
+                        assertEquals(11, fill.makerOrderId());
+                        assertEquals(4, fill.takerAccountId());
+                        assertEquals(99, fill.timestamp());
+                        assertFalse(fill.buyInitiator());
+                    }
+                    case BookDeltaCodec.TEMPLATE_ID -> {
+                        delta.wrapForDecode(buffer, offset);
+                        assertTrue(delta.bid());
+                        assertEquals(13, delta.totalQty());
+                    }
+                    case AckCodec.TEMPLATE_ID -> {
+                        ack.wrapForDecode(buffer, offset);
+                        // cancelled, expired, rejected
+                        int i = sequence == 2 ? 0 : sequence == 3 ? 1 : 2;
+                        byte[] statuses = {AckCodec.CANCELLED, AckCodec.EXPIRED, AckCodec.REJECTED};
+                        assertEquals(statuses[i], ack.status());
+                        assertEquals(new long[]{12, 13, 15}[i], ack.orderId());
+                        assertEquals(new long[]{5, 6, 0}[i], ack.leavesQty());
+                        assertEquals(new byte[]{0, 0, 2}[i], ack.reason());
+                    }
+                    case AmendCodec.TEMPLATE_ID -> {
+                        amend.wrapForDecode(buffer, offset);
+                        assertEquals(14, amend.orderId());
+                        assertEquals(10_150, amend.price());
+                        assertEquals(8, amend.quantity());
+                    }
+                    default -> fail("template " + templateId);
+                }
+            }, 100));
+
+            assertEquals(List.of(FillCodec.TEMPLATE_ID, BookDeltaCodec.TEMPLATE_ID, AckCodec.TEMPLATE_ID,
+                    AckCodec.TEMPLATE_ID, AmendCodec.TEMPLATE_ID, AckCodec.TEMPLATE_ID), templates);
+            assertEquals(0, reader.poll((sequence, templateId, buffer, offset) -> fail(), 100));
+        }
+    }
+
+    @Test
+    void testReadersKeepCursorsOfTheirOwnAndReplayFromAnySequence() {
+        try (EventLog log = new EventLog(dir.resolve("events"), 16)) {
+            publishFills(log, 10);
+
+            EventLogReader slow = new EventLogReader(log, 0);
+            EventLogReader replay = new EventLogReader(log, 7);
+            List<Long> quantities = new ArrayList<>();
+            EventLogReader.Handler collect = (sequence, templateId, buffer, offset) ->
+                    quantities.add(fill.wrapForDecode(buffer, offset).quantity());
+
+            assertEquals(3, replay.poll(collect, 100));
+            assertEquals(List.of(8L, 9L, 10L), quantities);
+
+            quantities.clear();
+            assertEquals(2, slow.poll(collect, 2));
+            assertEquals(List.of(1L, 2L), quantities);
+            assertEquals(8, slow.lag());
+            assertEquals(0, replay.lag());
+            assertEquals(10, log.published());
+        }
+    }
+
+    @Test
+    void testLappedReaderFailsAndRestartsFromTheOldest() {
+        try (EventLog log = new EventLog(dir.resolve("events"), 4)) {
+            publishFills(log, 10);
+
+            EventLogReader reader = new EventLogReader(log, 0);
+            assertThrows(IllegalStateException.class,
+                    () -> reader.poll((sequence, templateId, buffer, offset) -> {}, 100));
+            assertEquals(6, log.oldest());
+
+            List<Long> sequences = new ArrayList<>();
+            assertEquals(4, new EventLogReader(log, log.oldest())
+                    .poll((sequence, templateId, buffer, offset) -> sequences.add(sequence), 100));
+            assertEquals(List.of(6L, 7L, 8L, 9L), sequences);
+        }
+    }
+
+    @Test
+    void testHandlerGetsACopyTheWriterCannotOverwrite() {
+        try (EventLog log = new EventLog(dir.resolve("events"), 4)) {
+            EventLogPublisher publisher = publishFills(log, 2);
+            EventLogReader reader = new EventLogReader(log, 0);
+            List<Long> quantities = new ArrayList<>();
+
+            assertThrows(IllegalStateException.class, () -> reader.poll((sequence, templateId, buffer, offset) -> {
+                for (int i = 0; i < 4; i++) // laps the reader while it handles event 0
+                    publisher.accept(new Trade(200.0, 99, true, 30, 40, 1, 2, i));
+                quantities.add(fill.wrapForDecode(buffer, offset).quantity());
+            }, 100));
+
+            // event 1 was overwritten before it was copied and never reached the handler
+            assertEquals(List.of(1L), quantities);
+            assertEquals(1, reader.sequence());
+        }
+    }
+
+    @Test
+    void testAnotherMappingOfTheFileSeesTheSameEvents() {
+        Path file = dir.resolve("events");
+        try (EventLog writer = new EventLog(file, 16); EventLog other = new EventLog(file, 16)) {
+            publishFills(writer, 3);
+
+            assertEquals(3, other.published());
+            List<Long> makers = new ArrayList<>();
+            new EventLogReader(other, 1).poll((sequence, templateId, buffer, offset) ->
+                    makers.add(fill.wrapForDecode(buffer, offset).makerOrderId()), 100);
+            assertEquals(List.of(11L, 12L), makers);
+            assertThrows(IllegalStateException.class, () -> new EventLog(file, 32));
+        }
+    }
+
+    @Test
+    void testReaderTailsAConcurrentWriter() throws InterruptedException {
+        int count = 50_000;
+        try (EventLog log = new EventLog(dir.resolve("events"), 1 << 16)) {
+            Thread writer = new Thread(() -> publishFills(log, count));
+            writer.start();
+
+            EventLogReader reader = new EventLogReader(log, 0);
+            FillCodec decoder = new FillCodec();
+            long[] expected = {1};
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (reader.sequence() < count && System.nanoTime() < deadline) {
+                if (reader.poll((sequence, templateId, buffer, offset) ->
+                        assertEquals(expected[0]++, decoder.wrapForDecode(buffer, offset).quantity()), 256) == 0)
+                    Thread.yield();
+            }
+            writer.join();
+
+            assertEquals(count, reader.sequence());
+        }
+    }
+}
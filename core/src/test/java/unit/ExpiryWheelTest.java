@@ -0,0 +1,118 @@
+package unit;
+
+import core.MatchingEngine.ExpiryWheel;
+import core.MatchingEngine.MatchingEngine;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.SPSCRingBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static unit.EngineNode.START;
+import static unit.EngineNode.order;
+
+public class ExpiryWheelTest {
+
+    private static final long TICK = 1L << ExpiryWheel.TICK_SHIFT;
+
+    @Test
+    void testEveryOrderExpiresAtItsTickAcrossAllLevels() {
+        List<Order> expired = new ArrayList<>();
+        List<String> wrong = new ArrayList<>();
+        long[] previous = new long[1];
+        long[] now = new long[1];
+        ExpiryWheel wheel = new ExpiryWheel(order -> {
+            long deadline = order.expiresAt >> ExpiryWheel.TICK_SHIFT;
+            if (deadline > now[0] >> ExpiryWheel.TICK_SHIFT)
+                wrong.add("early " + order);
+            if (deadline <= previous[0] >> ExpiryWheel.TICK_SHIFT)
+                wrong.add("late " + order);
+
+            expired.add(order);
+        });
+
+        now[0] = START;
+        wheel.advance(now[0]);
+
+        SplittableRandom rnd = new SplittableRandom(5);
+        long[] spans = {200, 600, 60_000, 150_000, 15_000_000, 40_000_000, 3_000_000_000L, 20_000_000_000L}; // ticks, each level and just past it
+        for (int i = 1; i <= 5_000; i++) {
+            Order order = new Order(i, OrderType.BUY_LIMIT, 100, 1);
+            order.expiresAt = START + (1 + rnd.nextLong(spans[i % spans.length])) * TICK;
+            wheel.add(order);
+        }
+
+        long end = START + 21_000_000_000L * TICK;
+        while (now[0] < end) {
+            previous[0] = now[0];
+            long ticks = now[0] - START < 200_000 * TICK ? 1 : rnd.nextLong(1, 1L << rnd.nextInt(1, 24)); // then up to hours
+            now[0] += ticks * TICK;
+            wheel.advance(now[0]);
+        }
+
+        assertTrue(wrong.isEmpty(), wrong.toString());
+        assertEquals(5_000, expired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testStaleEntriesAreDropped() {
+        List<Order> expired = new ArrayList<>();
+        ExpiryWheel wheel = new ExpiryWheel(expired::add);
+        wheel.advance(START);
+
+        Order filled = new Order(1, OrderType.BUY_LIMIT, 100, 1);
+        filled.expiresAt = START + 10 * TICK;
+        Order reused = new Order(2, OrderType.BUY_LIMIT, 100, 1);
+        reused.expiresAt = START + 300 * TICK;
+        wheel.add(filled);
+        wheel.add(reused);
+
+        filled.quantity = 0;
+        reused.id = 3; // released and borrowed again under another id
+        wheel.advance(START + 100_000 * TICK);
+
+        assertTrue(expired.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testEngineExpiresRestingOrdersOnLaterMessages() {
+        SPSCOrderPool pool = new SPSCOrderPool(16);
+        ArrayBucketOrderBook book = new ArrayBucketOrderBook(90.0, 110.0, 1.0, null, pool::release);
+        MatchingEngine engine = new MatchingEngine(book, new SPSCRingBuffer<>(16), pool);
+        List<String> reports = new ArrayList<>();
+        engine.setExpiryListener((orderId, accountId, buy, remaining) ->
+                reports.add(orderId + " " + accountId + " " + buy + " " + remaining));
+
+        long oneSecond = 1_000_000_000L;
+        engine.processOrder(order(pool, 1, 7, OrderType.SELL_LIMIT, 101, 10, START, START + oneSecond));
+        engine.processOrder(order(pool, 2, 7, OrderType.SELL_LIMIT, 102, 10, START, 0));
+        engine.processOrder(order(pool, 3, 7, OrderType.BUY_MARKET, 0, 4, START + oneSecond / 2, 0));
+        assertTrue(reports.isEmpty());
+
+        engine.processOrder(order(pool, 4, 7, OrderType.BUY_LIMIT, 95, 1, START + 2 * oneSecond, 0));
+
+        assertEquals(List.of("1 7 false 6"), reports);
+        assertEquals(102.0, book.getBestAskPrice(), 1e-9);
+        assertEquals(14, pool.available()); // #2 and #4 resting
+    }
+
+    @Test
+    void testOrderExpiredOnArrivalDoesNotRest() {
+        SPSCOrderPool pool = new SPSCOrderPool(16);
+        ArrayBucketOrderBook book = new ArrayBucketOrderBook(90.0, 110.0, 1.0, null, pool::release);
+        MatchingEngine engine = new MatchingEngine(book, new SPSCRingBuffer<>(16), pool);
+
+        engine.processOrder(order(pool, 1, 7, OrderType.BUY_LIMIT, 100, 10, START, START - 1));
+
+        assertTrue(Double.isNaN(book.getBestBidPrice()));
+        assertEquals(16, pool.available());
+    }
+}
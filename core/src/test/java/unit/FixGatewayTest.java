@@ -0,0 +1,399 @@
+package unit;
+
+import core.Gateway.Fix;
+import core.Gateway.FixCredentials;
+import core.Gateway.FixGateway;
+import core.Gateway.FixReader;
+import core.Gateway.FixWriter;
+import core.Gateway.RingCommandSink;
+import core.MarketData.MarketDataPublisher;
+import core.MarketData.MarketDataRing;
+import core.MatchingEngine.MatchingEngine;
+import core.Order.Order;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.SPSCRingBuffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FixGatewayTest {
+
+    private static final String COMP_ID = "EXCHANGE";
+    private static final String SYMBOL = "BTC-USD";
+
+    private ArrayBucketOrderBook book;
+    private MatchingEngine engine;
+    private FixGateway gateway;
+    private Thread engineThread;
+    private Thread gatewayThread;
+
+    @BeforeEach
+    void setUp() {
+        SPSCOrderPool pool = new SPSCOrderPool(1024);
+        SPSCRingBuffer<Order> ring = new SPSCRingBuffer<>(256);
+        MarketDataRing executionRing = new MarketDataRing(1024);
+        MarketDataPublisher executions = new MarketDataPublisher(executionRing);
+
+        book = new ArrayBucketOrderBook(100.0, 110.0, 0.5, executions, pool::release);
+        engine = new MatchingEngine(book, ring, pool);
+        engine.setExpiryListener(executions);
+        engine.setOrderUpdateListener(executions);
+        gateway = new FixGateway(new InetSocketAddress("localhost", 0), COMP_ID, SYMBOL, 100.0, 110.0, 0.5,
+                new RingCommandSink(ring, pool, 1), executionRing,
+                new FixCredentials().add("ALICE", 1, password("ALICE")).add("BOB", 2, password("BOB")));
+
+        engineThread = new Thread(engine, "matching-engine-thread");
+        gatewayThread = new Thread(gateway, "fix-gateway-thread");
+        engineThread.start();
+        gatewayThread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gateway.stop();
+        engine.stop();
+        gatewayThread.join();
+        engineThread.join();
+    }
+
+    @Test
+    void testNewOrderIsAcknowledgedAndRestsInTheBook() throws IOException {
+        try (Client client = new Client(gateway.port(), "ALICE", 1)) {
+            FixReader ack = client.newOrder("a1", Fix.SIDE_SELL, "101.5", 10);
+
+            assertEquals(Fix.EXECUTION_REPORT, ack.msgType());
+            assertEquals(Fix.EXEC_NEW, ack.getChar(Fix.EXEC_TYPE));
+            assertEquals(Fix.EXEC_NEW, ack.getChar(Fix.ORD_STATUS));
+            assertEquals("a1", client.string(Fix.CL_ORD_ID));
+            assertEquals(1, ack.getLong(Fix.ORDER_ID));
+            assertEquals(1015, ack.getDecimal(Fix.PRICE, 1));
+            assertEquals(10, ack.getLong(Fix.LEAVES_QTY));
+            assertEquals(2, ack.getLong(Fix.MSG_SEQ_NUM)); // after the logon
+            await(() -> restingAt(false, 101.5) == 10);
+        }
+    }
+
+    @Test
+    void testFillsAreReportedToMakerAndTaker() throws IOException {
+        try (Client maker = new Client(gateway.port(), "ALICE", 1);
+             Client taker = new Client(gateway.port(), "BOB", 2)) {
+            maker.newOrder("m1", Fix.SIDE_SELL, "101.5", 10);
+            await(() -> restingAt(false, 101.5) == 10);
+
+            FixReader ack = taker.send(taker.order("t1", Fix.SIDE_BUY, 4).putChar(Fix.ORD_TYPE, Fix.ORD_TYPE_MARKET));
+            assertEquals(Fix.EXEC_NEW, ack.getChar(Fix.EXEC_TYPE));
+            assertFalse(ack.has(Fix.PRICE));
+
+            FixReader fill = taker.receive();
+            assertEquals(Fix.EXEC_TRADE, fill.getChar(Fix.EXEC_TYPE));
+            assertEquals(Fix.EXEC_FILL, fill.getChar(Fix.ORD_STATUS));
+            assertEquals("t1", taker.string(Fix.CL_ORD_ID));
+            assertEquals(4, fill.getLong(Fix.LAST_QTY));
+            assertEquals(1015, fill.getDecimal(Fix.LAST_PX, 1));
+            assertEquals(1015, fill.getDecimal(Fix.AVG_PX, 1));
+            assertEquals(0, fill.getLong(Fix.LEAVES_QTY));
+
+            fill = maker.receive();
+            assertEquals(Fix.EXEC_TRADE, fill.getChar(Fix.EXEC_TYPE));
+            assertEquals(Fix.EXEC_PARTIAL_FILL, fill.getChar(Fix.ORD_STATUS));
+            assertEquals("m1", maker.string(Fix.CL_ORD_ID));
+            assertEquals(4, fill.getLong(Fix.CUM_QTY));
+            assertEquals(6, fill.getLong(Fix.LEAVES_QTY));
+        }
+    }
+
+    @Test
+    void testUnfilledMarketOrderIsCanceled() throws IOException {
+        try (Client client = new Client(gateway.port(), "ALICE", 1)) {
+            client.send(client.order("t1", Fix.SIDE_BUY, 4).putChar(Fix.ORD_TYPE, Fix.ORD_TYPE_MARKET));
+
+            FixReader canceled = client.receive();
+            assertEquals(Fix.EXEC_CANCELED, canceled.getChar(Fix.EXEC_TYPE));
+            assertEquals("t1", client.string(Fix.CL_ORD_ID));
+            assertEquals(0, canceled.getLong(Fix.LEAVES_QTY));
+        }
+    }
+
+    @Test
+    void testCancelIsPendingUntilTheEngineConfirms() throws IOException {
+        try (Client client = new Client(gateway.port(), "ALICE", 1)) {
+            client.newOrder("a1", Fix.SIDE_BUY, "100", 10);
+
+            FixReader pending = client.send(client.message(Fix.ORDER_CANCEL_REQUEST)
+                    .putBytes(Fix.ORIG_CL_ORD_ID, ascii("a1"), 0, 2)
+                    .putBytes(Fix.CL_ORD_ID, ascii("a2"), 0, 2)
+                    .putBytes(Fix.SYMBOL, ascii(SYMBOL), 0, SYMBOL.length())
+                    .putChar(Fix.SIDE, Fix.SIDE_BUY));
+            assertEquals(Fix.EXEC_PENDING_CANCEL, pending.getChar(Fix.EXEC_TYPE));
+            assertEquals("a2", client.string(Fix.CL_ORD_ID));
+            assertEquals("a1", client.string(Fix.ORIG_CL_ORD_ID));
+
+            FixReader canceled = client.receive();
+            assertEquals(Fix.EXEC_CANCELED, canceled.getChar(Fix.EXEC_TYPE));
+            assertEquals(Fix.EXEC_CANCELED, canceled.getChar(Fix.ORD_STATUS));
+            assertEquals("a2", client.string(Fix.CL_ORD_ID));
+            await(() -> restingAt(true, 100) == 0);
+
+            FixReader reject = client.send(client.message(Fix.ORDER_CANCEL_REQUEST)
+                    .putBytes(Fix.ORIG_CL_ORD_ID, ascii("a1"), 0, 2)
+                    .putBytes(Fix.CL_ORD_ID, ascii("a3"), 0, 2));
+            assertEquals(Fix.ORDER_CANCEL_REJECT, reject.msgType());
+            assertEquals(Fix.CXL_REJ_UNKNOWN_ORDER, reject.getLong(Fix.CXL_REJ_REASON));
+            assertEquals(Fix.RESPONSE_TO_CANCEL, reject.getChar(Fix.CXL_REJ_RESPONSE_TO));
+        }
+    }
+
+    @Test
+    void testReplaceMovesTheOrderAndKeepsItsFills() throws IOException {
+        try (Client maker = new Client(gateway.port(), "ALICE", 1);
+             Client taker = new Client(gateway.port(), "BOB", 2)) {
+            maker.newOrder("m1", Fix.SIDE_SELL, "101.5", 10);
+            taker.send(taker.order("t1", Fix.SIDE_BUY, 4).putChar(Fix.ORD_TYPE, Fix.ORD_TYPE_MARKET));
+            assertEquals(Fix.EXEC_PARTIAL_FILL, maker.receive().getChar(Fix.ORD_STATUS));
+
+            FixReader pending = maker.send(maker.order(Fix.ORDER_CANCEL_REPLACE_REQUEST, "m2", Fix.SIDE_SELL, 20)
+                    .putBytes(Fix.ORIG_CL_ORD_ID, ascii("m1"), 0, 2)
+                    .putChar(Fix.ORD_TYPE, Fix.ORD_TYPE_LIMIT)
+                    .putBytes(Fix.PRICE, ascii("103"), 0, 3));
+            assertEquals(Fix.EXEC_PENDING_REPLACE, pending.getChar(Fix.EXEC_TYPE));
+
+            FixReader replaced = maker.receive();
+            assertEquals(Fix.EXEC_REPLACED, replaced.getChar(Fix.EXEC_TYPE));
+            assertEquals(Fix.EXEC_PARTIAL_FILL, replaced.getChar(Fix.ORD_STATUS));
+            assertEquals("m2", maker.string(Fix.CL_ORD_ID));
+            assertEquals("m1", maker.string(Fix.ORIG_CL_ORD_ID));
+            assertEquals(1030, replaced.getDecimal(Fix.PRICE, 1));
+            assertEquals(20, replaced.getLong(Fix.ORDER_QTY));
+            assertEquals(4, replaced.getLong(Fix.CUM_QTY));
+            assertEquals(16, replaced.getLong(Fix.LEAVES_QTY));
+            await(() -> restingAt(false, 101.5) == 0 && restingAt(false, 103) == 16);
+
+            FixReader reject = maker.send(maker.order(Fix.ORDER_CANCEL_REPLACE_REQUEST, "m3", Fix.SIDE_SELL, 20)
+                    .putBytes(Fix.ORIG_CL_ORD_ID, ascii("m1"), 0, 2) // the order is m2 now
+                    .putChar(Fix.ORD_TYPE, Fix.ORD_TYPE_LIMIT)
+                    .putBytes(Fix.PRICE, ascii("104"), 0, 3));
+            assertEquals(Fix.ORDER_CANCEL_REJECT, reject.msgType());
+            assertEquals(Fix.RESPONSE_TO_REPLACE, reject.getChar(Fix.CXL_REJ_RESPONSE_TO));
+        }
+    }
+
+    @Test
+    void testInvalidOrdersAreRejectedBeforeTheEngine() throws IOException {
+        try (Client client = new Client(gateway.port(), "ALICE", 1)) {
+            assertEquals(Fix.EXEC_REJECTED, client.newOrder("a1", Fix.SIDE_BUY, "100.25", 10).getChar(Fix.EXEC_TYPE));
+            assertEquals("a1", client.string(Fix.CL_ORD_ID));
+            assertEquals(Fix.EXEC_REJECTED, client.newOrder("a2", Fix.SIDE_BUY, "99.5", 10).getChar(Fix.EXEC_TYPE));
+            assertEquals(Fix.EXEC_REJECTED, client.newOrder("a3", Fix.SIDE_BUY, "100", 0).getChar(Fix.EXEC_TYPE));
+
+            assertEquals(Fix.EXEC_NEW, client.newOrder("a4", Fix.SIDE_BUY, "100", 1).getChar(Fix.EXEC_TYPE));
+            FixReader duplicate = client.newOrder("a4", Fix.SIDE_BUY, "100", 1);
+            assertEquals(Fix.EXEC_REJECTED, duplicate.getChar(Fix.EXEC_TYPE));
+            assertEquals(Fix.ORD_REJ_DUPLICATE, duplicate.getLong(Fix.ORD_REJ_REASON));
+
+            FixReader reject = client.send(client.message(Fix.msgType('B'))); // News
+            assertEquals(Fix.REJECT, reject.msgType());
+        }
+    }
+
+    @Test
+    void testDisconnectCancelsTheAccountsOrders() throws IOException {
+        try (Client client = new Client(gateway.port(), "ALICE", 1)) {
+            client.newOrder("a1", Fix.SIDE_BUY, "100", 10);
+            client.newOrder("a2", Fix.SIDE_SELL, "110", 5);
+            await(() -> restingAt(true, 100) == 10 && restingAt(false, 110) == 5);
+        }
+
+        await(() -> restingAt(true, 100) == 0 && restingAt(false, 110) == 0);
+
+        try (Client again = new Client(gateway.port(), "ALICE", 1)) { // the session slot and account are free again
+            assertEquals(Fix.EXEC_NEW, again.newOrder("a1", Fix.SIDE_BUY, "100", 1).getChar(Fix.EXEC_TYPE));
+        }
+    }
+
+    @Test
+    void testSecondLogonForTheAccountAndSequenceGapsEndTheSession() throws IOException {
+        try (Client client = new Client(gateway.port(), "ALICE", 1)) {
+            try (Client twin = new Client(gateway.port(), "ALICE")) {
+                FixReader logout = twin.send(twin.logon(1));
+                assertEquals(Fix.LOGOUT, logout.msgType());
+                assertTrue(twin.closed());
+            }
+
+            client.seqNum++;
+            FixReader logout = client.send(client.message(Fix.HEARTBEAT));
+            assertEquals(Fix.LOGOUT, logout.msgType());
+            assertTrue(client.closed());
+        }
+    }
+
+    @Test
+    void testLogonNeedsTheSendersPasswordAndAccount() throws IOException {
+        try (Client guesser = new Client(gateway.port(), "ALICE")) {
+            guesser.password = "guess";
+            assertEquals(Fix.LOGOUT, guesser.send(guesser.logon(0)).msgType());
+        }
+
+        try (Client victim = new Client(gateway.port(), "ALICE", 1)) {
+            victim.newOrder("a1", Fix.SIDE_SELL, "101.5", 10);
+            await(() -> restingAt(false, 101.5) == 10);
+
+            try (Client intruder = new Client(gateway.port(), "MALLORY")) {
+                assertEquals(Fix.LOGOUT, intruder.send(intruder.logon(1)).msgType());
+            }
+            try (Client intruder = new Client(gateway.port(), "BOB")) { // BOB's password, ALICE's account
+                assertEquals(Fix.LOGOUT, intruder.send(intruder.logon(1)).msgType());
+            }
+
+            // none of them logged on, their drops cancel nothing and the victim still trades
+            assertEquals(Fix.EXEC_NEW, victim.newOrder("a2", Fix.SIDE_SELL, "102", 1).getChar(Fix.EXEC_TYPE));
+            assertEquals(10, restingAt(false, 101.5));
+        }
+    }
+
+    private static String password(String sender) {
+        return sender.toLowerCase() + "-secret";
+    }
+
+    private long restingAt(boolean bid, double price) {
+        return book.getTotalAtPriceIndex(bid, book.priceToIndex(price));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.yield();
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Blocking test client, one message at a time
+     */
+    private static final class Client implements AutoCloseable {
+
+        private static final byte[] TARGET = ascii(COMP_ID);
+
+        final Socket socket;
+        final byte[] sender;
+        final FixWriter writer = new FixWriter();
+        final FixReader reader = new FixReader();
+        final ByteBuffer out = ByteBuffer.allocate(2048);
+        final byte[] received = new byte[1 << 16];
+        final ByteBuffer in = ByteBuffer.wrap(received);
+        int parsed;
+        int length;
+        long seqNum = 1;
+        String password;
+
+        Client(int port, String sender) throws IOException {
+            this.socket = new Socket("localhost", port);
+            this.sender = ascii(sender);
+            this.password = password(sender);
+            socket.setSoTimeout(5_000);
+            socket.setTcpNoDelay(true);
+        }
+
+        Client(int port, String sender, long accountId) throws IOException {
+            this(port, sender);
+            FixReader logon = send(logon(accountId));
+            assertEquals(Fix.LOGON, logon.msgType());
+        }
+
+        /**
+         * @param accountId 0 to leave Account out, the credentials name it
+         */
+        FixWriter logon(long accountId) {
+            FixWriter logon = message(Fix.LOGON)
+                    .putChar(Fix.ENCRYPT_METHOD, (byte) '0')
+                    .putLong(Fix.HEART_BT_INT, 30)
+                    .putBytes(Fix.PASSWORD, ascii(password), 0, password.length());
+
+            return accountId == 0 ? logon : logon.putLong(Fix.ACCOUNT, accountId);
+        }
+
+        FixWriter message(int msgType) {
+            return writer.begin(msgType, sender, sender.length, TARGET, TARGET.length, seqNum++,
+                    System.currentTimeMillis());
+        }
+
+        /**
+         * NewOrderSingle without order type and price
+         */
+        FixWriter order(String clOrdId, byte side, long quantity) {
+            return order(Fix.NEW_ORDER_SINGLE, clOrdId, side, quantity);
+        }
+
+        FixWriter order(int msgType, String clOrdId, byte side, long quantity) {
+            return message(msgType)
+                    .putBytes(Fix.CL_ORD_ID, ascii(clOrdId), 0, clOrdId.length())
+                    .putBytes(Fix.SYMBOL, ascii(SYMBOL), 0, SYMBOL.length())
+                    .putChar(Fix.SIDE, side)
+                    .putLong(Fix.ORDER_QTY, quantity)
+                    .putTimestamp(Fix.TRANSACT_TIME, System.currentTimeMillis());
+        }
+
+        FixReader newOrder(String clOrdId, byte side, String price, long quantity) throws IOException {
+            return send(order(clOrdId, side, quantity)
+                    .putChar(Fix.ORD_TYPE, Fix.ORD_TYPE_LIMIT)
+                    .putBytes(Fix.PRICE, ascii(price), 0, price.length())
+                    .putChar(Fix.TIME_IN_FORCE, Fix.TIF_GTC));
+        }
+
+        /**
+         * Send the message being written and wait for the answer
+         */
+        FixReader send(FixWriter message) throws IOException {
+            out.clear();
+            assertTrue(message.finish(out));
+            socket.getOutputStream().write(out.array(), 0, out.position());
+
+            return receive();
+        }
+
+        FixReader receive() throws IOException {
+            while (true) {
+                int messageLength = reader.parse(in, parsed, length);
+                assertTrue(messageLength >= 0, "malformed message from the gateway");
+                if (messageLength > 0) {
+                    parsed += messageLength;
+
+                    return reader;
+                }
+
+                int read = socket.getInputStream().read(received, length, received.length - length);
+                assertTrue(read > 0, "connection closed");
+                length += read;
+            }
+        }
+
+        String string(int tag) {
+            byte[] value = new byte[64];
+            int count = reader.copyValue(tag, value, 0, value.length);
+
+            return new String(value, 0, count, StandardCharsets.US_ASCII);
+        }
+
+        boolean closed() throws IOException {
+            return socket.getInputStream().read() < 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
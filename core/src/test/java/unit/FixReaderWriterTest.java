@@ -0,0 +1,113 @@
+package unit;
+
+import core.Gateway.Fix;
+import core.Gateway.FixReader;
+import core.Gateway.FixWriter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FixReaderWriterTest {
+
+    private static final byte[] SENDER = "CLIENT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TARGET = "EXCHANGE".getBytes(StandardCharsets.US_ASCII);
+    private static final long SENDING_TIME = 1_792_413_296_789L; // 2026-10-19T12:34:56.789Z
+
+    private final FixWriter writer = new FixWriter();
+    private final FixReader reader = new FixReader();
+
+    private ByteBuffer encode(String price, boolean direct) {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(512) : ByteBuffer.allocate(512);
+        buffer.position(7); // not at the start of the buffer
+        writer.begin(Fix.NEW_ORDER_SINGLE, SENDER, SENDER.length, TARGET, TARGET.length, 42, SENDING_TIME)
+                .putBytes(Fix.CL_ORD_ID, ascii("order-1"), 0, 7)
+                .putChar(Fix.SIDE, Fix.SIDE_SELL)
+                .putLong(Fix.ORDER_QTY, 250)
+                .putBytes(Fix.PRICE, ascii(price), 0, price.length())
+                .putDecimal(Fix.AVG_PX, -6500025, 2);
+        assertTrue(writer.finish(buffer));
+
+        return buffer;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void testWrittenMessageParsesBackFieldByField() {
+        for (boolean direct : new boolean[]{false, true}) {
+            ByteBuffer buffer = encode("65000.25", direct);
+
+            assertEquals(buffer.position() - 7, reader.parse(buffer, 7, buffer.position()));
+            assertEquals(Fix.NEW_ORDER_SINGLE, reader.msgType());
+            assertEquals(42, reader.getLong(Fix.MSG_SEQ_NUM));
+            assertTrue(reader.valueEquals(Fix.SENDER_COMP_ID, SENDER, SENDER.length));
+            assertTrue(reader.valueEquals(Fix.TARGET_COMP_ID, TARGET, TARGET.length));
+            assertEquals(SENDING_TIME, reader.getTimestamp(Fix.SENDING_TIME));
+            assertEquals(Fix.SIDE_SELL, reader.getChar(Fix.SIDE));
+            assertEquals(250, reader.getLong(Fix.ORDER_QTY));
+            assertEquals(6500025, reader.getDecimal(Fix.PRICE, 2));
+            assertEquals(-6500025, reader.getDecimal(Fix.AVG_PX, 2));
+            assertEquals(7, reader.valueLength(Fix.CL_ORD_ID));
+
+            byte[] clOrdId = new byte[32];
+            assertEquals(7, reader.copyValue(Fix.CL_ORD_ID, clOrdId, 0, clOrdId.length));
+            assertEquals("order-1", new String(clOrdId, 0, 7, StandardCharsets.US_ASCII));
+            assertFalse(reader.has(Fix.ACCOUNT));
+            assertEquals(FixReader.MISSING, reader.getLong(Fix.ACCOUNT));
+        }
+    }
+
+    @Test
+    void testEveryPrefixIsIncompleteAndTwoMessagesParseInTurn() {
+        ByteBuffer buffer = encode("1", false);
+        int first = buffer.position() - 7;
+        writer.begin(Fix.HEARTBEAT, SENDER, SENDER.length, TARGET, TARGET.length, 43, SENDING_TIME);
+        assertTrue(writer.finish(buffer));
+
+        for (int limit = 7; limit < 7 + first; limit++)
+            assertEquals(0, reader.parse(buffer, 7, limit), "prefix of " + (limit - 7));
+
+        assertEquals(first, reader.parse(buffer, 7, buffer.position()));
+        int second = reader.parse(buffer, 7 + first, buffer.position());
+        assertEquals(buffer.position(), 7 + first + second);
+        assertEquals(Fix.HEARTBEAT, reader.msgType());
+        assertEquals(43, reader.getLong(Fix.MSG_SEQ_NUM));
+    }
+
+    @Test
+    void testCorruptedMessagesAreMalformed() {
+        ByteBuffer buffer = encode("1", false);
+        int end = buffer.position();
+
+        int checksumAt = end - 2;
+        buffer.put(checksumAt, (byte) (buffer.get(checksumAt) == '9' ? '0' : buffer.get(checksumAt) + 1));
+        assertEquals(-1, reader.parse(buffer, 7, end));
+
+        buffer = encode("1", false);
+        buffer.put(7 + 2, (byte) 'X'); // FIX.4.4 -> XIX.4.4
+        assertEquals(-1, reader.parse(buffer, 7, end));
+
+        buffer = encode("1", false);
+        int valueAt = buffer.position() - 12; // inside the last field, the checksum no longer matches
+        buffer.put(valueAt, (byte) (buffer.get(valueAt) ^ 1));
+        assertEquals(-1, reader.parse(buffer, 7, end));
+    }
+
+    @Test
+    void testDecimalsScaleToTheTickGrid() {
+        String[] prices = {"65000", "65000.2", "65000.25", "65000.250", "-0.5", ".5", "65000.251", "6.5.0", "abc", "-"};
+        long[] expected = {6500000, 6500020, 6500025, 6500025, -50, 50,
+                FixReader.MISSING, FixReader.MISSING, FixReader.MISSING, FixReader.MISSING};
+
+        for (int i = 0; i < prices.length; i++) {
+            ByteBuffer buffer = encode(prices[i], false);
+            assertTrue(reader.parse(buffer, 7, buffer.position()) > 0);
+            assertEquals(expected[i], reader.getDecimal(Fix.PRICE, 2), prices[i]);
+        }
+    }
+}
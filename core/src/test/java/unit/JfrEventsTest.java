@@ -0,0 +1,77 @@
+package unit;
+
+import core.MatchingEngine.MatchingEngine;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.SPSCRingBuffer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JfrEventsTest {
+
+    @Test
+    void testPoolExhaustionAndSampledMatchAreRecorded() throws Exception {
+        Path file = Files.createTempFile("engine", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("exchange.PoolExhausted");
+            recording.enable("exchange.Match");
+            recording.enable("exchange.BestPriceScan");
+            recording.start();
+
+            SPSCOrderPool pool = new SPSCOrderPool(MatchingEngine.MATCH_SAMPLE_RATE);
+            ArrayBucketOrderBook book = new ArrayBucketOrderBook(100.0, 300.0, 1.0, null, pool::release);
+            MatchingEngine engine = new MatchingEngine(book, new SPSCRingBuffer<>(1024), pool);
+
+            Order ask = pool.borrow();
+            ask.setType(OrderType.SELL_LIMIT);
+            ask.price = 101;
+            ask.quantity = 1;
+            engine.processOrder(ask);
+
+            Order farAsk = pool.borrow();
+            farAsk.setType(OrderType.SELL_LIMIT);
+            farAsk.price = 290;
+            farAsk.quantity = 1;
+            engine.processOrder(farAsk);
+
+            // takes 101, the best ask scan then walks 189 empty levels
+            for (int i = 2; i < MatchingEngine.MATCH_SAMPLE_RATE; i++) {
+                Order market = pool.borrow();
+                market.setType(OrderType.BUY_MARKET);
+                market.quantity = i == 2 ? 1 : 0;
+                engine.processOrder(market);
+            }
+
+            while (pool.borrow() != null) {} // drain, the failing borrow emits the event
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("exchange.PoolExhausted")));
+        RecordedEvent match = events.stream()
+                .filter(e -> e.getEventType().getName().equals("exchange.Match"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("BUY_MARKET", match.getString("orderType"));
+        RecordedEvent scan = events.stream()
+                .filter(e -> e.getEventType().getName().equals("exchange.BestPriceScan"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(189, scan.getInt("levels"));
+        assertTrue(scan.getBoolean("found"));
+    }
+}
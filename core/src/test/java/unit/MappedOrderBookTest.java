@@ -0,0 +1,241 @@
+package unit;
+
+import core.Journal.CommandJournal;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import core.OrderBook.MappedOrderBook;
+import core.OrderBook.OrderBook;
+import core.OrderBook.SlabOrderBook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedOrderBookTest {
+
+    private static final double MIN_PRICE = 100.0;
+    private static final double MAX_PRICE = 131.0;
+    private static final int SLOTS = 1 << 12;
+
+    @TempDir
+    Path dir;
+
+    private MappedOrderBook open(Path file, Consumer<Trade> trades) {
+        return new MappedOrderBook(file, MIN_PRICE, MAX_PRICE, 1.0, SLOTS, trades);
+    }
+
+    private MappedOrderBook open(Path file, int slots, Consumer<Trade> trades) {
+        return new MappedOrderBook(file, MIN_PRICE, MAX_PRICE, 1.0, slots, trades);
+    }
+
+    private static void apply(OrderBook book, Order order) {
+        switch (order.type()) {
+            case BUY_LIMIT -> book.placeBuyLimit(order);
+            case SELL_LIMIT -> book.placeSellLimit(order);
+            case BUY_MARKET -> book.placeBuyMarket(order);
+            case SELL_MARKET -> book.placeSellMarket(order);
+            case CANCEL -> book.cancel(order);
+            default -> throw new IllegalArgumentException(order.type().toString());
+        }
+    }
+
+    private static Order randomCommand(SplittableRandom rnd, long id) {
+        int roll = rnd.nextInt(10);
+        if (roll < 6)
+            return new Order(id, roll < 3 ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT,
+                    roll < 3 ? 100 + rnd.nextInt(16) : 116 + rnd.nextInt(16), 1 + rnd.nextInt(50));
+        if (roll < 8)
+            return new Order(1 + rnd.nextLong(id), OrderType.CANCEL, 0, 0);
+
+        return new Order(id, roll == 8 ? OrderType.BUY_MARKET : OrderType.SELL_MARKET, 0, 1 + rnd.nextInt(120));
+    }
+
+    private static void assertSameBook(OrderBook expected, MappedOrderBook actual, int resting) {
+        assertEquals(expected.getBestBidPrice(), actual.getBestBidPrice());
+        assertEquals(expected.getBestAskPrice(), actual.getBestAskPrice());
+        assertEquals(resting, actual.restingCount());
+        for (double price = MIN_PRICE; price <= MAX_PRICE; price++) {
+            assertEquals(expected.getTotalAtPrice(true, price), actual.getTotalAtPrice(true, price), "bid " + price);
+            assertEquals(expected.getTotalAtPrice(false, price), actual.getTotalAtPrice(false, price), "ask " + price);
+        }
+    }
+
+    @Test
+    void testReopenedBookKeepsLevelsQueuesAndIds() {
+        Path file = dir.resolve("book");
+        try (MappedOrderBook book = open(file, null)) {
+            book.placeBuyLimit(new Order(1, OrderType.BUY_LIMIT, 110, 5));
+            book.placeBuyLimit(new Order(2, OrderType.BUY_LIMIT, 110, 7));
+            book.placeBuyLimit(new Order(3, OrderType.BUY_LIMIT, 108, 4));
+            book.placeSellLimit(new Order(4, OrderType.SELL_LIMIT, 112, 9));
+            assertTrue(book.cancel(new Order(3, OrderType.CANCEL, 0, 0)));
+        }
+
+        List<Trade> trades = new ArrayList<>();
+        try (MappedOrderBook book = open(file, trades::add)) {
+            assertEquals(0, book.rolledBack());
+            assertEquals(3, book.restingCount());
+            assertEquals(110.0, book.getBestBidPrice());
+            assertEquals(112.0, book.getBestAskPrice());
+            assertEquals(12, book.getTotalAtPrice(true, 110.0));
+            assertEquals(0, book.getTotalAtPrice(true, 108.0));
+            assertFalse(book.cancel(new Order(3, OrderType.CANCEL, 0, 0)));
+
+            // time priority survives: order 1 fills first
+            book.placeSellMarket(new Order(5, OrderType.SELL_MARKET, 0, 6));
+            assertEquals(List.of(1L, 2L), trades.stream().map(t -> t.makerOrderId).toList());
+            assertEquals(6, book.getTotalAtPrice(true, 110.0));
+            assertTrue(book.cancel(new Order(2, OrderType.CANCEL, 0, 0)));
+            assertTrue(Double.isNaN(book.getBestBidPrice()));
+        }
+    }
+
+    @Test
+    void testReopensACrossedBook() {
+        Path file = dir.resolve("book");
+        try (MappedOrderBook book = open(file, null)) {
+            book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 103, 10));
+            book.placeBuyLimit(new Order(2, OrderType.BUY_LIMIT, 105, 10));
+        }
+
+        try (MappedOrderBook book = open(file, null)) {
+            assertEquals(105.0, book.getBestBidPrice());
+            assertEquals(103.0, book.getBestAskPrice());
+            assertEquals(2, book.restingCount());
+        }
+    }
+
+    @Test
+    void testCrashMidCommandRollsBackAndJournalTailReplays() {
+        Path file = dir.resolve("book");
+        SplittableRandom rnd = new SplittableRandom(48);
+        SlabOrderBook reference = new SlabOrderBook(MIN_PRICE, MAX_PRICE, 1.0, SLOTS, null);
+        int[] fills = {0};
+        RuntimeException crash = new RuntimeException("crash");
+
+        try (CommandJournal journal = new CommandJournal(dir.resolve("journal"), 1 << 16)) {
+            MappedOrderBook book = open(file, _ -> {
+                if (--fills[0] == 0)
+                    throw crash;
+            });
+            long id = 0;
+            long committed = -1;
+            while (true) {
+                Order command = randomCommand(rnd, ++id);
+                long sequence = journal.append(command);
+                Order copy = new Order();
+                journal.read(sequence, copy);
+                apply(reference, copy);
+
+                // the process dies on the second fill of a sweep, after 5000 commands
+                fills[0] = sequence >= 5000 ? 2 : Integer.MAX_VALUE;
+                book.setSequence(sequence);
+                try {
+                    apply(book, command);
+                } catch (RuntimeException e) {
+                    assertSame(crash, e);
+                    break;
+                }
+                if (book.appliedSequence() == sequence)
+                    committed = sequence;
+            }
+
+            // commands journaled but never reached the book
+            for (int i = 0; i < 100; i++) {
+                Order command = randomCommand(rnd, ++id);
+                journal.append(command);
+                apply(reference, command);
+            }
+
+            try (MappedOrderBook recovered = open(file, null)) {
+                assertTrue(recovered.rolledBack() > 0);
+                assertEquals(committed, recovered.appliedSequence());
+
+                Order command = new Order();
+                for (long sequence = recovered.appliedSequence() + 1; sequence < journal.published(); sequence++) {
+                    journal.read(sequence, command);
+                    recovered.setSequence(sequence);
+                    apply(recovered, command);
+                }
+                assertSameBook(reference, recovered, reference.restingCount());
+            }
+        }
+    }
+
+    @Test
+    void testSweepAndMassCancelPastTheUndoLog() {
+        Path file = dir.resolve("book");
+        int makers = 300_000;
+        long[] filled = {0};
+        long left;
+        try (MappedOrderBook book = open(file, 1 << 19, t -> filled[0] += t.qty)) {
+            for (int i = 1; i <= makers; i++) {
+                Order maker = new Order(i, OrderType.SELL_LIMIT, 120 + i % 10, 1);
+                maker.accountId = 1;
+                book.placeSellLimit(maker);
+            }
+
+            // some 5 undo words per filled maker: the sweep stops after about 200k of them
+            Order taker = new Order(makers + 1, OrderType.BUY_MARKET, 0, makers);
+            book.setSequence(1);
+            book.placeBuyMarket(taker);
+            left = taker.quantity;
+            assertTrue(left > 0 && filled[0] > MappedOrderBook.UNDO_CAPACITY / 8, "filled " + filled[0]);
+            assertEquals(makers, filled[0] + left);
+            assertEquals(left, book.restingCount());
+
+            for (int i = 1; i <= makers; i++) {
+                Order bid = new Order(makers + 1 + i, OrderType.BUY_LIMIT, 100 + i % 10, 1);
+                bid.accountId = 2;
+                book.placeBuyLimit(bid);
+            }
+
+            long[] cancelled = {0};
+            book.setSequence(2);
+            assertEquals(makers, book.cancelAccount(2, true, true, (id, account, buy, remaining) -> {
+                assertEquals(2, account);
+                cancelled[0] += remaining;
+            }));
+            assertEquals(makers, cancelled[0]);
+            assertEquals(2, book.appliedSequence());
+        }
+
+        try (MappedOrderBook book = open(file, 1 << 19, null)) {
+            assertEquals(0, book.rolledBack());
+            assertEquals(2, book.appliedSequence());
+            assertEquals(left, book.restingCount());
+            assertTrue(Double.isNaN(book.getBestBidPrice()));
+            assertEquals(left, book.cancelAccount(1, false, true, (id, account, buy, remaining) -> {}));
+        }
+    }
+
+    @Test
+    void testRefusesAnotherGeometryOrABrokenHeader() throws Exception {
+        Path file = dir.resolve("book");
+        try (MappedOrderBook book = open(file, null)) {
+            book.placeBuyLimit(new Order(1, OrderType.BUY_LIMIT, 110, 5));
+        }
+
+        assertThrows(IllegalStateException.class,
+                () -> new MappedOrderBook(file, MIN_PRICE, MAX_PRICE, 1.0, SLOTS * 2, null));
+        assertThrows(IllegalStateException.class,
+                () -> new MappedOrderBook(file, MIN_PRICE, MAX_PRICE + 1, 1.0, SLOTS, null));
+
+        // best bid pointing at an empty level
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, 3), 72);
+        }
+        assertThrows(IllegalStateException.class, () -> open(file, null));
+    }
+}
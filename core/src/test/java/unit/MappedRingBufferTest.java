@@ -0,0 +1,141 @@
+package unit;
+
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.MappedRingBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static unit.EngineNode.order;
+
+/**
+ * Producer and consumer map the same file with separate pools, as two processes would
+ */
+public class MappedRingBufferTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testOrderFieldsSurviveTheCopy() {
+        SPSCOrderPool gatewayPool = new SPSCOrderPool(4);
+        SPSCOrderPool enginePool = new SPSCOrderPool(4);
+        try (MappedRingBuffer gateway = new MappedRingBuffer(dir.resolve("ring"), 8, gatewayPool);
+             MappedRingBuffer engine = new MappedRingBuffer(dir.resolve("ring"), 8, enginePool)) {
+            Order order = gatewayPool.borrow();
+            order.id = 42;
+            order.setType(OrderType.SELL_LIMIT);
+            order.price = -7;
+            order.quantity = 1_000_000_000_000L;
+            order.accountId = 9;
+            order.timestamp = 123;
+            order.expiresAt = 456;
+            order.flags = Order.CANCEL_ASKS;
+
+            assertTrue(gateway.offer(order));
+            assertEquals(4, gatewayPool.available());
+
+            Order copy = engine.poll();
+            assertEquals(42, copy.id);
+            assertEquals(OrderType.SELL_LIMIT, copy.type());
+            assertEquals(-7, copy.price);
+            assertEquals(1_000_000_000_000L, copy.quantity);
+            assertEquals(9, copy.accountId);
+            assertEquals(123, copy.timestamp);
+            assertEquals(456, copy.expiresAt);
+            assertEquals(Order.CANCEL_ASKS, copy.flags);
+            assertEquals(3, enginePool.available());
+            assertNull(engine.poll());
+        }
+    }
+
+    @Test
+    void testFullRingAndBatches() {
+        SPSCOrderPool gatewayPool = new SPSCOrderPool(16);
+        try (MappedRingBuffer gateway = new MappedRingBuffer(dir.resolve("ring"), 4, gatewayPool);
+             MappedRingBuffer engine = new MappedRingBuffer(dir.resolve("ring"), 4, new SPSCOrderPool(16))) {
+            Order[] batch = {
+                    order(gatewayPool, 1, OrderType.BUY_LIMIT, 100, 1),
+                    order(gatewayPool, 2, OrderType.BUY_LIMIT, 100, 1),
+                    order(gatewayPool, 3, OrderType.BUY_LIMIT, 100, 1)
+            };
+            assertTrue(gateway.offerBatch(batch, 3));
+            Order[] tooMany = {
+                    order(gatewayPool, 4, OrderType.BUY_LIMIT, 100, 1),
+                    order(gatewayPool, 5, OrderType.BUY_LIMIT, 100, 1)
+            };
+            assertFalse(gateway.offerBatch(tooMany, 2));
+            assertTrue(gateway.offer(order(gatewayPool, 6, OrderType.BUY_LIMIT, 100, 1)));
+            assertFalse(gateway.offer(order(gatewayPool, 7, OrderType.BUY_LIMIT, 100, 1)));
+            assertEquals(4, engine.size());
+
+            for (long id : new long[]{1, 2, 3, 6})
+                assertEquals(id, engine.poll().id);
+            assertNull(engine.poll());
+        }
+    }
+
+    @Test
+    void testReopenedRingResumesWhereItStopped() {
+        Path file = dir.resolve("ring");
+        SPSCOrderPool gatewayPool = new SPSCOrderPool(8);
+        SPSCOrderPool enginePool = new SPSCOrderPool(8);
+        try (MappedRingBuffer gateway = new MappedRingBuffer(file, 8, gatewayPool)) {
+            gateway.offer(order(gatewayPool, 1, OrderType.BUY_LIMIT, 100, 1));
+            gateway.offer(order(gatewayPool, 2, OrderType.BUY_LIMIT, 100, 1));
+        }
+        try (MappedRingBuffer engine = new MappedRingBuffer(file, 8, enginePool)) {
+            assertEquals(1, engine.poll().id);
+        }
+        try (MappedRingBuffer gateway = new MappedRingBuffer(file, 8, gatewayPool);
+             MappedRingBuffer engine = new MappedRingBuffer(file, 8, enginePool)) {
+            gateway.offer(order(gatewayPool, 3, OrderType.BUY_LIMIT, 100, 1));
+
+            assertEquals(2, engine.poll().id);
+            assertEquals(3, engine.poll().id);
+        }
+    }
+
+    @Test
+    void testCapacityMismatchIsRejected() {
+        Path file = dir.resolve("ring");
+        new MappedRingBuffer(file, 8, new SPSCOrderPool(1)).close();
+
+        assertThrows(IllegalStateException.class, () -> new MappedRingBuffer(file, 16, new SPSCOrderPool(1)));
+        assertThrows(IllegalArgumentException.class, () -> new MappedRingBuffer(file, 12, new SPSCOrderPool(1)));
+    }
+
+    @Test
+    void testOrdersCrossThreadsInSequence() throws InterruptedException {
+        int orders = 200_000;
+        SPSCOrderPool gatewayPool = new SPSCOrderPool(1024);
+        SPSCOrderPool enginePool = new SPSCOrderPool(1024);
+        try (MappedRingBuffer gateway = new MappedRingBuffer(dir.resolve("ring"), 256, gatewayPool);
+             MappedRingBuffer engine = new MappedRingBuffer(dir.resolve("ring"), 256, enginePool)) {
+            Thread producer = new Thread(() -> {
+                for (int i = 1; i <= orders; i++) {
+                    Order order = order(gatewayPool, i, OrderType.BUY_LIMIT, 100, 1);
+                    order.quantity = i * 3L;
+                    while (!gateway.offer(order))
+                        Thread.yield();
+                }
+            });
+            producer.start();
+
+            for (int i = 1; i <= orders; i++) {
+                Order order;
+                while ((order = engine.poll()) == null)
+                    Thread.yield();
+
+                assertEquals(i, order.id);
+                assertEquals(i * 3L, order.quantity);
+                enginePool.release(order);
+            }
+            producer.join();
+        }
+    }
+}
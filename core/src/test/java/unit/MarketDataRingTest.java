@@ -0,0 +1,66 @@
+package unit;
+
+import core.MarketData.MarketDataPublisher;
+import core.MarketData.MarketDataRing;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static unit.EngineNode.order;
+
+public class MarketDataRingTest {
+
+    @Test
+    void testBookChangesAndFillsReachTheRing() {
+        MarketDataRing ring = new MarketDataRing(64);
+        MarketDataPublisher publisher = new MarketDataPublisher(ring);
+        ArrayBucketOrderBook book = new ArrayBucketOrderBook(100.0, 110.0, 1.0, publisher, null);
+        book.setBookListener(publisher);
+
+        Order resting = order(1, 7, OrderType.SELL_LIMIT, 101, 10);
+        book.placeSellLimit(resting);
+        book.placeBuyLimit(order(2, 7, OrderType.BUY_LIMIT, 100, 5));
+        book.placeBuyMarket(order(3, 8, OrderType.BUY_MARKET, 0, 4));
+        book.cancel(resting);
+
+        List<String> events = new ArrayList<>();
+        int polled = ring.poll(new MarketDataRing.Handler() {
+            @Override
+            public void onLevel(boolean bid, double price, long totalQty) {
+                events.add((bid ? "bid " : "ask ") + price + " " + totalQty);
+            }
+
+            @Override
+            public void onFill(double price, long qty, boolean buyInitiator,
+                               long makerOrderId, long takerOrderId, long makerAccountId, long takerAccountId) {
+                events.add("fill " + price + " " + qty + " " + makerOrderId + "/" + takerOrderId + " " + makerAccountId + "/" + takerAccountId);
+            }
+        }, 100);
+
+        assertEquals(List.of(
+                "ask 101.0 10",
+                "bid 100.0 5",
+                "ask 101.0 6",
+                "fill 101.0 4 1/3 7/8",
+                "ask 101.0 0"), events);
+        assertEquals(5, polled);
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void testFullRingDropsInsteadOfBlocking() {
+        MarketDataRing ring = new MarketDataRing(2);
+        MarketDataPublisher publisher = new MarketDataPublisher(ring);
+
+        for (int i = 0; i < 5; i++)
+            publisher.onLevelChanged(true, 100.0, i);
+
+        assertEquals(2, ring.size());
+        assertEquals(3, publisher.getDroppedCount());
+    }
+}
@@ -0,0 +1,198 @@
+package unit;
+
+import core.MatchingEngine.MatchingEngine;
+import core.MatchingEngine.OrderUpdateListener;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderBook.MappedOrderBook;
+import core.OrderBook.OrderBook;
+import core.OrderBook.SkipListOrderBook;
+import core.OrderBook.SlabOrderBook;
+import core.OrderBook.TreeMapOrderBook;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.SPSCRingBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static unit.EngineNode.order;
+
+public class MassCancelTest {
+
+    private static final OrderBook.CancelListener NONE = (_, _, _, _) -> {};
+
+    @TempDir
+    Path dir;
+
+    private static final List<Function<Consumer<Order>, OrderBook>> BOOKS = List.of(
+            released -> new ArrayBucketOrderBook(90.0, 110.0, 1.0, null, released),
+            released -> new SkipListOrderBook(1.0, null, released));
+
+    @Test
+    void testCancelsOnlyTheAccountsOrders() {
+        for (Function<Consumer<Order>, OrderBook> factory : BOOKS) {
+            List<Order> released = new ArrayList<>();
+            OrderBook book = factory.apply(released::add);
+            book.placeBuyLimit(order(1, 7, OrderType.BUY_LIMIT, 99, 10));
+            book.placeBuyLimit(order(2, 8, OrderType.BUY_LIMIT, 99, 5));
+            book.placeSellLimit(order(3, 7, OrderType.SELL_LIMIT, 101, 10));
+            book.placeSellLimit(order(4, 7, OrderType.SELL_LIMIT, 102, 10));
+
+            assertEquals(3, book.cancelAccount(7, true, true, NONE), book.getClass().getSimpleName());
+            assertEquals(5, book.getTotalAtPrice(true, 99.0));
+            assertTrue(Double.isNaN(book.getBestAskPrice()));
+            assertEquals(3, released.size());
+            assertEquals(0, book.cancelAccount(7, true, true, NONE));
+        }
+    }
+
+    @Test
+    void testCancelsOneSide() {
+        for (Function<Consumer<Order>, OrderBook> factory : BOOKS) {
+            OrderBook book = factory.apply(null);
+            book.placeBuyLimit(order(1, 7, OrderType.BUY_LIMIT, 99, 10));
+            book.placeSellLimit(order(2, 7, OrderType.SELL_LIMIT, 101, 10));
+
+            assertEquals(1, book.cancelAccount(7, false, true, NONE));
+            assertEquals(99.0, book.getBestBidPrice(), 1e-9);
+            assertTrue(Double.isNaN(book.getBestAskPrice()));
+        }
+    }
+
+    @Test
+    void testFilledOrdersLeaveTheAccountList() {
+        for (Function<Consumer<Order>, OrderBook> factory : BOOKS) {
+            List<Order> released = new ArrayList<>();
+            OrderBook book = factory.apply(released::add);
+            Order filled = order(1, 7, OrderType.SELL_LIMIT, 101, 10);
+            book.placeSellLimit(filled);
+            book.placeSellLimit(order(2, 7, OrderType.SELL_LIMIT, 101, 10));
+            book.placeBuyMarket(order(3, 8, OrderType.BUY_MARKET, 0, 15));
+
+            assertNull(filled.accountNext);
+            assertNull(filled.accountPrev);
+            assertEquals(1, book.cancelAccount(7, true, true, NONE));
+            assertEquals(2, released.size());
+        }
+    }
+
+    @Test
+    void testAnonymousOrdersAreNotLinked() {
+        OrderBook book = BOOKS.getFirst().apply(null);
+        book.placeBuyLimit(order(1, 0, OrderType.BUY_LIMIT, 99, 10));
+
+        assertEquals(0, book.cancelAccount(0, true, true, NONE));
+        assertEquals(10, book.getTotalAtPrice(true, 99.0));
+    }
+
+    @Test
+    void testEveryBookCancelsAndReportsEachOrder() {
+        List<OrderBook> books = List.of(
+                new ArrayBucketOrderBook(90.0, 110.0, 1.0, null, null),
+                new SkipListOrderBook(1.0, null, null),
+                new TreeMapOrderBook(1.0),
+                new SlabOrderBook(90.0, 110.0, 1.0, 16, null),
+                new MappedOrderBook(dir.resolve("book"), 90.0, 110.0, 1.0, 16, null));
+        for (OrderBook book : books) {
+            String name = book.getClass().getSimpleName();
+            book.placeBuyLimit(order(1, 7, OrderType.BUY_LIMIT, 99, 10));
+            book.placeBuyLimit(order(2, 8, OrderType.BUY_LIMIT, 99, 5));
+            book.placeSellLimit(order(3, 7, OrderType.SELL_LIMIT, 101, 10));
+            book.placeBuyLimit(order(4, 7, OrderType.BUY_LIMIT, 98, 4));
+
+            List<Long> reported = new ArrayList<>();
+            long[] remaining = new long[1];
+            assertEquals(3, book.cancelAccount(7, true, true, (orderId, accountId, _, quantity) -> {
+                assertEquals(7, accountId, name);
+                reported.add(orderId);
+                remaining[0] += quantity;
+            }), name);
+
+            assertEquals(List.of(1L, 3L, 4L), reported.stream().sorted().toList(), name);
+            assertEquals(24, remaining[0], name);
+            assertEquals(5, book.getTotalAtPrice(true, 99.0), name);
+            assertEquals(0, book.getTotalAtPrice(true, 98.0), name);
+            assertEquals(99.0, book.getBestBidPrice(), 1e-9, name);
+            assertTrue(Double.isNaN(book.getBestAskPrice()), name);
+            assertFalse(book.cancel(order(1, 7, OrderType.CANCEL, 0, 0)), name);
+        }
+        ((MappedOrderBook) books.getLast()).close();
+    }
+
+    @Test
+    void testEngineReportsEveryMassCancelledOrder() {
+        SPSCOrderPool pool = new SPSCOrderPool(64);
+        ArrayBucketOrderBook book = new ArrayBucketOrderBook(90.0, 110.0, 1.0, null, pool::release);
+        MatchingEngine engine = new MatchingEngine(book, new SPSCRingBuffer<>(16), pool);
+        List<Long> cancelled = new ArrayList<>();
+        engine.setOrderUpdateListener(new OrderUpdateListener() {
+            @Override
+            public void onCancelled(long orderId, long accountId, boolean buy, long remaining) {
+                cancelled.add(orderId);
+            }
+
+            @Override
+            public void onAmended(long orderId, long accountId, boolean buy, long price, long quantity) {
+            }
+        });
+
+        for (int i = 1; i <= 4; i++) {
+            Order order = pool.borrow();
+            order.id = i;
+            order.accountId = i == 2 ? 8 : 7;
+            order.setType(OrderType.BUY_LIMIT);
+            order.price = 95 + i;
+            order.quantity = 1;
+            engine.processOrder(order);
+        }
+
+        Order command = pool.borrow();
+        command.setType(OrderType.MASS_CANCEL);
+        command.accountId = 7;
+        command.flags = Order.CANCEL_BIDS | Order.CANCEL_ASKS;
+        engine.processOrder(command);
+        assertEquals(List.of(1L, 3L, 4L), cancelled.stream().sorted().toList());
+
+        Order cancel = pool.borrow();
+        cancel.id = 3;
+        cancel.setType(OrderType.CANCEL);
+        engine.processOrder(cancel); // gone from the index too, nothing to report
+        assertEquals(3, cancelled.size());
+        assertEquals(63, pool.available());
+    }
+
+    @Test
+    void testSingleEngineCommandClearsAnAccount() {
+        int orders = 50_000;
+        SPSCOrderPool pool = new SPSCOrderPool(orders + 16);
+        ArrayBucketOrderBook book = new ArrayBucketOrderBook(90.0, 110.0, 1.0, null, pool::release);
+        MatchingEngine engine = new MatchingEngine(book, new SPSCRingBuffer<>(16), pool);
+
+        for (int i = 1; i <= orders; i++) {
+            Order order = pool.borrow();
+            order.id = i;
+            order.accountId = i % 10 == 0 ? 8 : 7;
+            order.setType(OrderType.BUY_LIMIT);
+            order.price = 91 + i % 10;
+            order.quantity = 1;
+            engine.processOrder(order);
+        }
+
+        Order command = pool.borrow();
+        command.setType(OrderType.MASS_CANCEL);
+        command.accountId = 7;
+        command.flags = Order.CANCEL_BIDS | Order.CANCEL_ASKS;
+        engine.processOrder(command);
+
+        assertEquals(orders / 10, book.getTotalAtPrice(true, 91.0));
+        assertEquals(91.0, book.getBestBidPrice(), 1e-9);
+        assertEquals(orders + 16 - orders / 10, pool.available());
+    }
+}
@@ -0,0 +1,276 @@
+package unit;
+
+import core.MatchingEngine.MatchingEngine;
+import core.MatchingEngine.OrderUpdateListener;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderBook.SlabOrderBook;
+import core.OrderPool.SPSCOrderPool;
+import core.RingBuffer.SPSCRingBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchingEngineTest {
+
+    private static final int POOL_SIZE = 64;
+
+    private SPSCOrderPool pool;
+    private SPSCRingBuffer<Order> ring;
+    private ArrayBucketOrderBook book;
+    private MatchingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        pool = new SPSCOrderPool(POOL_SIZE);
+        ring = new SPSCRingBuffer<>(16);
+        book = new ArrayBucketOrderBook(100.0, 110.0, 0.5, null, pool::release);
+        engine = new MatchingEngine(book, ring, pool);
+    }
+
+    @Test
+    void testCancelById_RemovesRestingOrderAndReturnsItToPool() {
+        engine.processOrder(order(1, OrderType.SELL_LIMIT, 101.0, 10));
+        engine.processOrder(order(2, OrderType.SELL_LIMIT, 101.0, 5));
+        assertEquals(15, book.getTotalAtPriceIndex(false, book.priceToIndex(101.0)));
+
+        engine.processOrder(order(1, OrderType.CANCEL, 0, 0));
+
+        assertEquals(5, book.getTotalAtPriceIndex(false, book.priceToIndex(101.0)));
+        assertEquals(POOL_SIZE - 1, pool.available()); // order #2 still resting
+    }
+
+    @Test
+    void testCancelOfFilledOrderIsIgnored() {
+        engine.processOrder(order(1, OrderType.SELL_LIMIT, 101.0, 10));
+        engine.processOrder(order(2, OrderType.BUY_MARKET, 0, 10));
+        assertTrue(Double.isNaN(book.getBestAskPrice()));
+
+        engine.processOrder(order(1, OrderType.CANCEL, 0, 0));
+
+        assertEquals(POOL_SIZE, pool.available());
+    }
+
+    @Test
+    void testCancelDoesNotHitRecycledOrder() {
+        engine.processOrder(order(1, OrderType.SELL_LIMIT, 101.0, 10));
+        engine.processOrder(order(2, OrderType.BUY_MARKET, 0, 10)); // #1 filled and recycled
+
+        for (int id = 3; id < 3 + POOL_SIZE / 2; id++)
+            engine.processOrder(order(id, OrderType.BUY_LIMIT, 100.0, 1));
+
+        engine.processOrder(order(1, OrderType.CANCEL, 0, 0));
+
+        assertEquals(POOL_SIZE / 2, book.getTotalAtPriceIndex(true, book.priceToIndex(100.0)));
+    }
+
+    @Test
+    void testBatchIsPublishedAtOnceOrNotAtAll() {
+        Order[] batch = new Order[10];
+        for (int i = 0; i < batch.length; i++)
+            batch[i] = order(i + 1, OrderType.BUY_LIMIT, 100.0, 1);
+
+        assertTrue(ring.offerBatch(batch, 10));
+        assertFalse(ring.offerBatch(batch, 7)); // 6 free slots left
+        assertTrue(ring.offerBatch(batch, 6));
+        assertEquals(16, ring.size());
+
+        int polled = 0;
+        while (ring.poll() != null)
+            polled++;
+
+        assertEquals(16, polled);
+    }
+
+    @Test
+    void testPoolRejectsOverflow() {
+        Order order = pool.borrow();
+        pool.release(order);
+
+        assertThrows(IllegalStateException.class, () -> pool.release(new Order()));
+    }
+
+    @Test
+    void testSlabBookReleasesRestingOrdersAndCancelsById() {
+        SlabOrderBook slab = new SlabOrderBook(100.0, 110.0, 0.5, 16, null);
+        engine = new MatchingEngine(slab, ring, pool);
+
+        engine.processOrder(order(1, OrderType.SELL_LIMIT, 101.0, 10));
+        engine.processOrder(order(2, OrderType.SELL_LIMIT, 101.0, 5));
+        assertEquals(POOL_SIZE, pool.available()); // copied into slots
+        assertEquals(15, slab.getTotalAtPrice(false, 101.0));
+
+        engine.processOrder(order(1, OrderType.CANCEL, 0, 0));
+        assertEquals(5, slab.getTotalAtPrice(false, 101.0));
+        assertEquals(1, slab.restingCount());
+
+        engine.processOrder(order(3, OrderType.BUY_MARKET, 0, 5));
+        assertTrue(Double.isNaN(slab.getBestAskPrice()));
+        assertEquals(POOL_SIZE, pool.available());
+    }
+
+    @Test
+    void testAmendMovesOrderToNewPriceAndQuantityBehindTheQueue() {
+        List<String> updates = recordUpdates();
+        engine.processOrder(order(1, OrderType.SELL_LIMIT, 101.0, 10));
+        engine.processOrder(order(2, OrderType.SELL_LIMIT, 102.0, 5));
+        engine.processOrder(order(3, OrderType.BUY_LIMIT, 100.0, 7));
+
+        engine.processOrder(order(1, OrderType.AMEND, 102.0, 4));
+        engine.processOrder(order(3, OrderType.AMEND, 100.5, 2));
+
+        assertEquals(0, book.getTotalAtPriceIndex(false, book.priceToIndex(101.0)));
+        assertEquals(9, book.getTotalAtPriceIndex(false, book.priceToIndex(102.0)));
+        assertEquals(2, book.getTotalAtPriceIndex(true, book.priceToIndex(100.5)));
+        assertEquals(POOL_SIZE - 3, pool.available()); // the replaced orders went back, the commands rest
+        assertEquals(List.of("amended 1 sell " + book.priceToTick(102.0) + " x 4",
+                "amended 3 buy " + book.priceToTick(100.5) + " x 2"), updates);
+
+        engine.processOrder(order(4, OrderType.BUY_MARKET, 0, 6)); // #2 was there first
+        assertEquals(3, book.getTotalAtPriceIndex(false, book.priceToIndex(102.0)));
+
+        engine.processOrder(order(1, OrderType.CANCEL, 0, 0)); // amended order is still found by its id
+        assertEquals(0, book.getTotalAtPriceIndex(false, book.priceToIndex(102.0)));
+        assertEquals("cancelled 1 sell 3", updates.getLast());
+    }
+
+    @Test
+    void testAmendOfUnknownOrFilledOrderChangesNothing() {
+        List<String> updates = recordUpdates();
+        engine.processOrder(order(1, OrderType.SELL_LIMIT, 101.0, 10));
+        engine.processOrder(order(2, OrderType.BUY_MARKET, 0, 10));
+
+        engine.processOrder(order(1, OrderType.AMEND, 103.0, 5));
+        engine.processOrder(order(7, OrderType.AMEND, 103.0, 5));
+        engine.processOrder(order(5, OrderType.SELL_LIMIT, 104.0, 5));
+        engine.processOrder(order(5, OrderType.AMEND, 103.0, 0)); // zero quantity is not a cancel
+        engine.processOrder(order(1, OrderType.CANCEL, 0, 0));
+
+        assertTrue(Double.isNaN(book.getBestBidPrice()));
+        assertEquals(5, book.getTotalAtPriceIndex(false, book.priceToIndex(104.0)));
+        assertEquals(0, book.getTotalAtPriceIndex(false, book.priceToIndex(103.0)));
+        assertEquals(POOL_SIZE - 1, pool.available());
+        assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    void testOnlyTheOwningAccountCancelsOrAmends() {
+        List<String> updates = recordUpdates();
+        Order resting = order(1, OrderType.SELL_LIMIT, 101.0, 10);
+        resting.accountId = 7;
+        engine.processOrder(resting);
+
+        Order amend = order(1, OrderType.AMEND, 102.0, 4);
+        amend.accountId = 8;
+        engine.processOrder(amend);
+        Order cancel = order(1, OrderType.CANCEL, 0, 0);
+        cancel.accountId = 8;
+        engine.processOrder(cancel);
+        assertEquals(10, book.getTotalAtPriceIndex(false, book.priceToIndex(101.0)));
+        assertTrue(updates.isEmpty());
+
+        cancel = order(1, OrderType.CANCEL, 0, 0);
+        cancel.accountId = 7;
+        engine.processOrder(cancel);
+        assertEquals(List.of("cancelled 1 sell 10"), updates);
+        assertEquals(POOL_SIZE, pool.available());
+    }
+
+    @Test
+    void testSlabCancelChecksTheAccount() {
+        SlabOrderBook slab = new SlabOrderBook(100.0, 110.0, 0.5, 16, null);
+        engine = new MatchingEngine(slab, ring, pool);
+        Order resting = order(1, OrderType.SELL_LIMIT, 101.0, 10);
+        resting.accountId = 7;
+        engine.processOrder(resting);
+
+        engine.processOrder(order(1, OrderType.CANCEL, 0, 0));
+        assertEquals(1, slab.restingCount());
+
+        Order cancel = order(1, OrderType.CANCEL, 0, 0);
+        cancel.accountId = 7;
+        engine.processOrder(cancel);
+        assertEquals(0, slab.restingCount());
+    }
+
+    @Test
+    void testUnfilledRestOfMarketOrderIsReportedCancelled() {
+        List<String> updates = recordUpdates();
+        engine.processOrder(order(1, OrderType.SELL_LIMIT, 101.0, 10));
+        engine.processOrder(order(2, OrderType.BUY_MARKET, 0, 4));
+        engine.processOrder(order(3, OrderType.BUY_MARKET, 0, 9));
+        engine.processOrder(order(4, OrderType.SELL_MARKET, 0, 5));
+
+        assertEquals(List.of("cancelled 3 buy 3", "cancelled 4 sell 5"), updates);
+        assertEquals(POOL_SIZE, pool.available());
+    }
+
+    @Test
+    void testHeldMarketOrderLeftAtUncrossIsReportedCancelled() {
+        List<String> updates = recordUpdates();
+        book.startAuction();
+        engine.processOrder(order(1, OrderType.SELL_LIMIT, 101.0, 10));
+        engine.processOrder(order(2, OrderType.BUY_MARKET, 0, 30));
+
+        assertEquals(10, engine.uncross());
+        assertEquals(List.of("cancelled 2 buy 20"), updates);
+        assertEquals(POOL_SIZE, pool.available());
+
+        engine.processOrder(order(2, OrderType.CANCEL, 0, 0)); // no longer indexed
+        assertEquals(List.of("cancelled 2 buy 20"), updates);
+    }
+
+    @Test
+    void testExceptionStopsTheEngineAndIsKept() throws InterruptedException {
+        Order outOfRange = order(1, OrderType.BUY_LIMIT, 100.0, 10);
+        outOfRange.price = 0;
+        ring.offer(outOfRange);
+
+        Thread thread = new Thread(engine);
+        thread.setUncaughtExceptionHandler((_, _) -> {});
+        thread.start();
+        thread.join(5_000);
+
+        assertFalse(thread.isAlive());
+        assertInstanceOf(IndexOutOfBoundsException.class, engine.getFailure());
+    }
+
+    @Test
+    void testEngineWithoutInputRingIsOnlyDrivenThroughProcessOrder() {
+        MatchingEngine driven = new MatchingEngine(book, null, pool);
+
+        driven.processOrder(order(1, OrderType.SELL_LIMIT, 101.0, 10));
+        assertEquals(101.0, book.getBestAskPrice());
+        assertThrows(IllegalStateException.class, driven::run);
+        assertThrows(IllegalStateException.class, () -> driven.drain(1));
+    }
+
+    private List<String> recordUpdates() {
+        List<String> updates = new ArrayList<>();
+        engine.setOrderUpdateListener(new OrderUpdateListener() {
+            @Override
+            public void onCancelled(long orderId, long accountId, boolean buy, long remaining) {
+                updates.add("cancelled " + orderId + (buy ? " buy " : " sell ") + remaining);
+            }
+
+            @Override
+            public void onAmended(long orderId, long accountId, boolean buy, long price, long quantity) {
+                updates.add("amended " + orderId + (buy ? " buy " : " sell ") + price + " x " + quantity);
+            }
+        });
+
+        return updates;
+    }
+
+    /**
+     * Prices on this book's half tick, EngineNode's factory takes ticks
+     */
+    private Order order(long id, OrderType type, double price, long quantity) {
+        return EngineNode.order(pool, id, type, book.priceToTick(price), quantity);
+    }
+}
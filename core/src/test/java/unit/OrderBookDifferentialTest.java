@@ -0,0 +1,181 @@
+package unit;
+
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import core.OrderBook.MappedOrderBook;
+import core.OrderBook.OrderBook;
+import core.OrderBook.SkipListOrderBook;
+import core.OrderBook.SlabOrderBook;
+import core.OrderBook.TreeMapOrderBook;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives random limit / market / cancel sequences through every OrderBook in lockstep with ReferenceOrderBook
+ * and compares fills, cancel results, best prices and resting quantities after each step.
+ * <p>
+ * A narrow price range keeps levels deep and queues long. Long runs:
+ *  mvn -pl core test -Dtest=OrderBookDifferentialTest -Dfuzz.steps=10000000 -Dfuzz.seeds=8
+ * A new book only needs an entry in BOOKS.
+ */
+public class OrderBookDifferentialTest {
+
+    private static final int STEPS = Integer.getInteger("fuzz.steps", 200_000);
+    private static final int SEEDS = Integer.getInteger("fuzz.seeds", 3);
+
+    private static final double MIN_PRICE = 100.0;
+    private static final int TICKS = 32;
+    private static final int WINDOW = 4096; // recent limit ids that cancels pick from
+    private static final int FULL_CHECK_EVERY = 256;
+
+    private static final Map<String, Function<Consumer<Trade>, OrderBook>> BOOKS = new LinkedHashMap<>();
+
+    static {
+        BOOKS.put("ArrayBucket", trades -> new ArrayBucketOrderBook(MIN_PRICE, MIN_PRICE + TICKS - 1, 1.0, trades, null));
+        BOOKS.put("TreeMap", trades -> new TreeMapOrderBook(1.0, trades));
+        BOOKS.put("SkipList", trades -> new SkipListOrderBook(1.0, trades, null));
+        BOOKS.put("Slab", trades -> new SlabOrderBook(MIN_PRICE, MIN_PRICE + TICKS - 1, 1.0, 1 << 18, trades));
+        BOOKS.put("Mapped", trades ->
+                new MappedOrderBook(tempFile(), MIN_PRICE, MIN_PRICE + TICKS - 1, 1.0, 1 << 18, trades));
+    }
+
+    private static Path tempFile() {
+        try {
+            Path file = Files.createTempFile("book", ".mapped");
+            file.toFile().deleteOnExit();
+
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Subject {
+        final String name;
+        final List<Trade> trades = new ArrayList<>();
+        final OrderBook book;
+        final Map<Long, Order> recent = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Order> eldest) {
+                return size() > WINDOW;
+            }
+        };
+
+        Subject(String name, Function<Consumer<Trade>, OrderBook> factory) {
+            this.name = name;
+            this.book = factory.apply(trades::add);
+        }
+    }
+
+    @Test
+    void testBooksMatchReferenceModel() {
+        for (long seed = 1; seed <= SEEDS; seed++)
+            run(seed);
+    }
+
+    private void run(long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        ReferenceOrderBook reference = new ReferenceOrderBook();
+        List<Subject> subjects = new ArrayList<>();
+        BOOKS.forEach((name, factory) -> subjects.add(new Subject(name, factory)));
+
+        long[] recentIds = new long[WINDOW];
+        int limits = 0;
+        long id = 0;
+        for (int step = 1; step <= STEPS; step++) {
+            String where = "seed " + seed + " step " + step;
+            int roll = rnd.nextInt(100);
+            boolean buy = rnd.nextBoolean();
+            double touched = Double.NaN;
+
+            if (roll < 45) {
+                double price = MIN_PRICE + rnd.nextInt(TICKS);
+                long quantity = rnd.nextInt(1, 100);
+                reference.limit(++id, buy, price, quantity);
+                for (Subject s : subjects) {
+                    Order order = new Order(id, buy ? OrderType.BUY_LIMIT : OrderType.SELL_LIMIT, (long) price, quantity); // tick 1.0
+                    s.recent.put(id, order);
+                    if (buy)
+                        s.book.placeBuyLimit(order);
+                    else
+                        s.book.placeSellLimit(order);
+                }
+
+                recentIds[limits++ & (WINDOW - 1)] = id;
+                touched = price;
+            } else if (roll < 75) {
+                long quantity = rnd.nextInt(1, 150);
+                List<ReferenceOrderBook.Fill> expected = reference.market(++id, buy, quantity);
+                for (Subject s : subjects) {
+                    s.trades.clear();
+                    Order order = new Order(id, buy ? OrderType.BUY_MARKET : OrderType.SELL_MARKET, 0, quantity);
+                    if (buy)
+                        s.book.placeBuyMarket(order);
+                    else
+                        s.book.placeSellMarket(order);
+
+                    assertFills(expected, s, where);
+                }
+            } else if (limits > 0) {
+                long target = recentIds[rnd.nextInt(Math.min(limits, WINDOW))];
+                ReferenceOrderBook.Resting cancelled = reference.cancel(target);
+                for (Subject s : subjects)
+                    assertEquals(cancelled != null, s.book.cancel(s.recent.get(target)), s.name + " cancel " + target + ", " + where);
+
+                if (cancelled != null)
+                    touched = cancelled.price;
+            }
+
+            for (Subject s : subjects) {
+                assertEquals(reference.bestBid(), s.book.getBestBidPrice(), 1e-9, s.name + " best bid, " + where);
+                assertEquals(reference.bestAsk(), s.book.getBestAskPrice(), 1e-9, s.name + " best ask, " + where);
+                if (!Double.isNaN(touched)) {
+                    assertEquals(reference.totalAt(true, touched), s.book.getTotalAtPrice(true, touched), s.name + " bids at " + touched + ", " + where);
+                    assertEquals(reference.totalAt(false, touched), s.book.getTotalAtPrice(false, touched), s.name + " asks at " + touched + ", " + where);
+                }
+            }
+
+            if (step % FULL_CHECK_EVERY == 0)
+                assertAllLevels(reference, subjects, where);
+        }
+
+        assertAllLevels(reference, subjects, "seed " + seed + " end");
+    }
+
+    private static void assertFills(List<ReferenceOrderBook.Fill> expected, Subject s, String where) {
+        assertEquals(expected.size(), s.trades.size(), s.name + " fill count, " + where);
+        for (int i = 0; i < expected.size(); i++) {
+            ReferenceOrderBook.Fill e = expected.get(i);
+            Trade t = s.trades.get(i);
+            String fill = s.name + " fill " + i + ", " + where;
+            assertEquals(e.price(), t.price, 1e-9, fill);
+            assertEquals(e.qty(), t.qty, fill);
+            assertEquals(e.buyInitiator(), t.buyInitiator, fill);
+            assertEquals(e.makerOrderId(), t.makerOrderId, fill);
+            assertEquals(e.takerOrderId(), t.takerOrderId, fill);
+        }
+    }
+
+    private static void assertAllLevels(ReferenceOrderBook reference, List<Subject> subjects, String where) {
+        for (int tick = 0; tick < TICKS; tick++) {
+            double price = MIN_PRICE + tick;
+            long bids = reference.totalAt(true, price);
+            long asks = reference.totalAt(false, price);
+            for (Subject s : subjects) {
+                assertEquals(bids, s.book.getTotalAtPrice(true, price), s.name + " bids at " + price + ", " + where);
+                assertEquals(asks, s.book.getTotalAtPrice(false, price), s.name + " asks at " + price + ", " + where);
+            }
+        }
+    }
+}
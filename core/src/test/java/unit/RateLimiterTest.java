@@ -0,0 +1,93 @@
+package unit;
+
+import core.Gateway.RateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testBurstThenRefillAtTheRate() {
+        RateLimiter limiter = new RateLimiter(16, 10, 5); // a token every 100 ms
+        long now = 42 * SECOND;
+
+        for (int i = 0; i < 5; i++)
+            assertTrue(limiter.tryAcquire(1, now), "burst " + i);
+        assertFalse(limiter.tryAcquire(1, now));
+
+        assertFalse(limiter.tryAcquire(1, now + 99_000_000L));
+        assertTrue(limiter.tryAcquire(1, now + 100_000_000L));
+        assertFalse(limiter.tryAcquire(1, now + 100_000_000L));
+
+        // an idle client is back to a full bucket, never more
+        now += 10 * SECOND;
+        assertFalse(limiter.tryAcquire(1, 6, now));
+        assertTrue(limiter.tryAcquire(1, 5, now));
+        assertFalse(limiter.tryAcquire(1, now));
+    }
+
+    @Test
+    void testClientsHaveBucketsOfTheirOwn() {
+        RateLimiter limiter = new RateLimiter(16, 1, 2);
+
+        assertTrue(limiter.tryAcquire(1, 2, 0));
+        assertFalse(limiter.tryAcquire(1, 0));
+        assertTrue(limiter.tryAcquire(2, 2, 0));
+        assertTrue(limiter.tryAcquire(-3, 2, 0));
+        assertFalse(limiter.tryAcquire(2, 0));
+    }
+
+    @Test
+    void testClientsBeyondTheTableShareTheOverflowBucket() {
+        RateLimiter limiter = new RateLimiter(1, 1, 3); // 4 slots
+
+        int admitted = 0;
+        for (long client = 1; client <= 100; client++)
+            if (limiter.tryAcquire(client, 0))
+                admitted++;
+
+        assertEquals(4 + 3, admitted); // one token for each of the 4 slot owners, the overflow bucket's 3
+        assertTrue(limiter.tryAcquire(1, 1, SECOND));
+    }
+
+    @Test
+    void testIdleBucketsAreTakenOverByNewClients() {
+        RateLimiter limiter = new RateLimiter(1, 1, 3); // 4 slots
+
+        for (long client = 1; client <= 100; client++)
+            limiter.tryAcquire(client, 0);
+
+        // the 4 owners are full again, each new client gets a bucket of its own instead of the shared overflow
+        for (long client = 101; client <= 104; client++)
+            assertTrue(limiter.tryAcquire(client, 3, 10 * SECOND), "client " + client);
+
+        // busy buckets are kept
+        assertFalse(limiter.tryAcquire(101, 10 * SECOND));
+        assertTrue(limiter.tryAcquire(105, 3, 10 * SECOND));
+        assertFalse(limiter.tryAcquire(106, 10 * SECOND));
+    }
+
+    @Test
+    void testConcurrentTakesNeverExceedTheBucket() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(16, 1, 10_000);
+        AtomicInteger granted = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++)
+                    if (limiter.tryAcquire(7, SECOND))
+                        granted.incrementAndGet();
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(10_000, granted.get());
+    }
+}
@@ -0,0 +1,100 @@
+package unit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deliberately naive model for the differential test: a flat list of resting orders in arrival order,
+ * every market order scans it for the best price. Slow and obviously right.
+ */
+final class ReferenceOrderBook {
+
+    static final class Resting {
+        final long id;
+        final boolean buy;
+        final double price;
+        long quantity;
+
+        Resting(long id, boolean buy, double price, long quantity) {
+            this.id = id;
+            this.buy = buy;
+            this.price = price;
+            this.quantity = quantity;
+        }
+    }
+
+    record Fill(double price, long qty, boolean buyInitiator, long makerOrderId, long takerOrderId) {}
+
+    private final List<Resting> resting = new ArrayList<>();
+
+    void limit(long id, boolean buy, double price, long quantity) {
+        resting.add(new Resting(id, buy, price, quantity));
+    }
+
+    List<Fill> market(long id, boolean buy, long quantity) {
+        List<Fill> fills = new ArrayList<>();
+        while (quantity > 0) {
+            Resting best = null;
+            for (Resting r : resting) {
+                if (r.buy == buy)
+                    continue;
+
+                // strictly better only, so the earliest order wins at equal price
+                if (best == null || (buy ? r.price < best.price : r.price > best.price))
+                    best = r;
+            }
+
+            if (best == null)
+                break;
+
+            long qty = Math.min(quantity, best.quantity);
+            best.quantity -= qty;
+            quantity -= qty;
+            if (best.quantity == 0)
+                resting.remove(best);
+
+            fills.add(new Fill(best.price, qty, buy, best.id, id));
+        }
+
+        return fills;
+    }
+
+    /**
+     * @return the cancelled order or null if it is not resting
+     */
+    Resting cancel(long id) {
+        for (int i = 0; i < resting.size(); i++) {
+            if (resting.get(i).id == id)
+                return resting.remove(i);
+        }
+
+        return null;
+    }
+
+    double bestBid() {
+        double best = Double.NaN;
+        for (Resting r : resting)
+            if (r.buy && (Double.isNaN(best) || r.price > best))
+                best = r.price;
+
+        return best;
+    }
+
+    double bestAsk() {
+        double best = Double.NaN;
+        for (Resting r : resting)
+            if (!r.buy && (Double.isNaN(best) || r.price < best))
+                best = r.price;
+
+        return best;
+    }
+
+    long totalAt(boolean buy, double price) {
+        long total = 0;
+        for (Resting r : resting)
+            if (r.buy == buy && r.price == price)
+                total += r.quantity;
+
+        return total;
+    }
+}
@@ -0,0 +1,174 @@
+package unit;
+
+import core.Journal.CommandJournal;
+import core.Journal.FollowerRingBuffer;
+import core.Journal.JournaledRingBuffer;
+import core.Journal.ReplicationClient;
+import core.Journal.ReplicationServer;
+import core.MatchingEngine.MatchingEngine;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.RingBuffer.SPSCRingBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static unit.EngineNode.assertSameState;
+import static unit.EngineNode.command;
+import static unit.EngineNode.order;
+
+public class ReplicationTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testFollowerBooksEqualPrimaryAfterMillionsOfCommands() {
+        int commands = 2_000_000;
+        try (CommandJournal journal = new CommandJournal(dir.resolve("journal"), 2 * commands);
+             CommandJournal tail = new CommandJournal(dir.resolve("journal"), 2 * commands)) {
+            SPSCRingBuffer<Order> ingress = new SPSCRingBuffer<>(16);
+            EngineNode primary = new EngineNode();
+            MatchingEngine primaryEngine = primary.engine(new JournaledRingBuffer(ingress, journal, primary.pool));
+            EngineNode follower = new EngineNode();
+            FollowerRingBuffer followerInput = new FollowerRingBuffer(tail, follower.pool, tail::published);
+            MatchingEngine followerEngine = follower.engine(followerInput);
+
+            SplittableRandom rnd = new SplittableRandom(39);
+            for (int i = 1; i <= commands; i++) {
+                ingress.offer(command(primary.pool, rnd, i));
+                primaryEngine.matchOne();
+
+                if (i % 100_000 == 0) {
+                    assertEquals(followerInput.applied() + followerInput.lag(), i);
+                    while (followerInput.lag() > 0)
+                        followerEngine.matchOne();
+                    assertSameState(primary, follower, "after " + i);
+                }
+            }
+
+            assertEquals(commands, followerInput.applied());
+            assertTrue(primary.trades[0] > commands / 10);
+        }
+    }
+
+    @Test
+    void testTcpFollowerCatchesUpOverLoopback() throws InterruptedException {
+        int commands = 200_000;
+        try (CommandJournal journal = new CommandJournal(dir.resolve("primary"), 2 * commands);
+             CommandJournal copy = new CommandJournal(dir.resolve("follower"), 2 * commands)) {
+            SPSCRingBuffer<Order> ingress = new SPSCRingBuffer<>(16);
+            EngineNode primary = new EngineNode();
+            MatchingEngine primaryEngine = primary.engine(new JournaledRingBuffer(ingress, journal, primary.pool));
+            SplittableRandom rnd = new SplittableRandom(40);
+            for (int i = 1; i <= commands / 2; i++) { // the follower starts behind
+                ingress.offer(command(primary.pool, rnd, i));
+                primaryEngine.matchOne();
+            }
+
+            ReplicationServer server = new ReplicationServer(journal, new InetSocketAddress("127.0.0.1", 0));
+            ReplicationClient client = new ReplicationClient(copy, new InetSocketAddress("127.0.0.1", server.port()));
+            Thread serverThread = new Thread(server, "replication-server");
+            Thread clientThread = new Thread(client, "replication-client");
+            serverThread.start();
+            clientThread.start();
+
+            EngineNode follower = new EngineNode();
+            FollowerRingBuffer followerInput = new FollowerRingBuffer(copy, follower.pool, client::leaderSequence);
+            MatchingEngine followerEngine = follower.engine(followerInput);
+
+            for (int i = commands / 2 + 1; i <= commands; i++) {
+                ingress.offer(command(primary.pool, rnd, i));
+                primaryEngine.matchOne();
+                followerEngine.matchOne();
+            }
+
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (followerInput.applied() < commands && System.nanoTime() < deadline) {
+                followerEngine.matchOne();
+                Thread.yield();
+            }
+
+            client.stop();
+            server.stop();
+            clientThread.join();
+            serverThread.join();
+
+            assertEquals(commands, followerInput.applied());
+            assertEquals(0, followerInput.lag());
+            assertSameState(primary, follower, "over tcp");
+        }
+    }
+
+    @Test
+    void testPromotedFollowerTakesLiveOrdersAndJournalsThem() {
+        try (CommandJournal journal = new CommandJournal(dir.resolve("journal"), 1024);
+             CommandJournal tail = new CommandJournal(dir.resolve("journal"), 1024)) {
+            SPSCRingBuffer<Order> ingress = new SPSCRingBuffer<>(16);
+            EngineNode primary = new EngineNode();
+            MatchingEngine primaryEngine = primary.engine(new JournaledRingBuffer(ingress, journal, primary.pool));
+            EngineNode follower = new EngineNode();
+            FollowerRingBuffer followerInput = new FollowerRingBuffer(tail, follower.pool, tail::published);
+            MatchingEngine followerEngine = follower.engine(followerInput);
+
+            ingress.offer(order(primary.pool, 1, OrderType.SELL_LIMIT, 101, 10));
+            ingress.offer(order(primary.pool, 2, OrderType.SELL_LIMIT, 102, 10));
+            primaryEngine.matchOne();
+            primaryEngine.matchOne();
+            assertEquals(2, followerInput.lag());
+
+            // primary dies, the follower is promoted before it has caught up
+            SPSCRingBuffer<Order> newIngress = new SPSCRingBuffer<>(16);
+            followerInput.promote(newIngress);
+            newIngress.offer(order(follower.pool, 3, OrderType.BUY_MARKET, 0, 15));
+            for (int i = 0; i < 3; i++)
+                followerEngine.matchOne();
+
+            assertTrue(followerInput.isPromoted());
+            assertEquals(0, followerInput.lag());
+            assertEquals(3, tail.published());
+            assertEquals(102.0, follower.book.getBestAskPrice(), 1e-9);
+            assertEquals(5, follower.book.getTotalAtPrice(false, 102.0));
+
+            Order journaled = new Order();
+            tail.read(2, journaled);
+            assertEquals(3, journaled.id);
+            assertEquals(OrderType.BUY_MARKET, journaled.type());
+        }
+    }
+
+    @Test
+    void testFullJournalRefusesOrdersAndKeepsRoomForCancels() {
+        try (CommandJournal journal = new CommandJournal(dir.resolve("journal"), 128)) {
+            SPSCRingBuffer<Order> ingress = new SPSCRingBuffer<>(16);
+            EngineNode primary = new EngineNode();
+            JournaledRingBuffer input = new JournaledRingBuffer(ingress, journal, primary.pool);
+            MatchingEngine engine = primary.engine(input);
+            long available = primary.pool.available();
+
+            for (int id = 1; id <= 127; id++) {
+                ingress.offer(order(primary.pool, id, OrderType.SELL_LIMIT, 101, 1));
+                engine.matchOne();
+            }
+
+            // the last 2 records are the cancel reserve
+            assertEquals(126, journal.published());
+            assertEquals(1, input.refused());
+            assertEquals(126, primary.book.getTotalAtPrice(false, 101.0));
+
+            for (int id = 1; id <= 3; id++) {
+                ingress.offer(order(primary.pool, id, OrderType.CANCEL, 0, 0));
+                engine.matchOne();
+            }
+
+            assertEquals(128, journal.published());
+            assertEquals(2, input.refused());
+            assertEquals(124, primary.book.getTotalAtPrice(false, 101.0));
+            assertEquals(available - 124, primary.pool.available());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package unit;
+
+import core.MatchingEngine.ShardGroup;
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook;
+import core.OrderBook.OrderBook;
+import core.OrderPool.SPSCOrderPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardGroupTest {
+
+    private static final int SYMBOLS = 4;
+
+    private final List<List<Long>> trades = new ArrayList<>();
+    private final List<List<Long>> expected = new ArrayList<>();
+
+    private ShardGroup group(int shards) {
+        OrderBook[] books = new OrderBook[SYMBOLS];
+        SPSCOrderPool[] pools = new SPSCOrderPool[SYMBOLS];
+        for (int i = 0; i < SYMBOLS; i++) {
+            List<Long> fills = new ArrayList<>();
+            trades.add(fills);
+            expected.add(new ArrayList<>());
+            pools[i] = new SPSCOrderPool(1 << 14);
+            books[i] = new ArrayBucketOrderBook(90.0, 110.0, 1.0,
+                    trade -> fills.add(trade.makerOrderId * 1_000_003 + trade.takerOrderId * 7919 + trade.qty),
+                    pools[i]::release);
+        }
+
+        return new ShardGroup(books, pools, shards, 1 << 10);
+    }
+
+    /**
+     * Sends the same random flow per symbol to the group and to a book of its own run on this thread
+     */
+    private void send(ShardGroup group, int symbol, SplittableRandom rnd, long id, OrderBook[] references) {
+        OrderType type = OrderType.values()[rnd.nextInt(4)];
+        long price = 95 + rnd.nextInt(11);
+        long quantity = 1 + rnd.nextInt(20);
+
+        Order order;
+        while ((order = group.pool(symbol).borrow()) == null)
+            Thread.yield();
+        order.id = id;
+        order.setType(type);
+        order.price = price;
+        order.quantity = quantity;
+        while (!group.offer(symbol, order))
+            Thread.yield();
+
+        Order copy = new Order(id, type, price, quantity);
+        switch (type) {
+            case BUY_LIMIT -> references[symbol].placeBuyLimit(copy);
+            case SELL_LIMIT -> references[symbol].placeSellLimit(copy);
+            case BUY_MARKET -> references[symbol].placeBuyMarket(copy);
+            case SELL_MARKET -> references[symbol].placeSellMarket(copy);
+        }
+    }
+
+    private OrderBook[] references() {
+        OrderBook[] references = new OrderBook[SYMBOLS];
+        for (int i = 0; i < SYMBOLS; i++) {
+            List<Long> fills = expected.get(i);
+            references[i] = new ArrayBucketOrderBook(90.0, 110.0, 1.0,
+                    trade -> fills.add(trade.makerOrderId * 1_000_003 + trade.takerOrderId * 7919 + trade.qty), null);
+        }
+
+        return references;
+    }
+
+    private static void awaitDrained(ShardGroup group, long[] sent) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        for (int i = 0; i < group.symbols(); i++)
+            while (group.engine(i).getProcessedCount() < sent[i] && System.nanoTime() < deadline)
+                Thread.yield();
+    }
+
+    private static void awaitOwner(ShardGroup group, int symbol, int shard) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (group.shardOf(symbol) != shard && System.nanoTime() < deadline)
+            Thread.yield();
+        assertEquals(shard, group.shardOf(symbol));
+    }
+
+    @Test
+    void testSymbolsKeepTheirOrderWhileMovedBackAndForth() throws InterruptedException {
+        ShardGroup group = group(3);
+        OrderBook[] references = references();
+        group.start();
+        for (int i = 0; i < SYMBOLS; i++)
+            awaitOwner(group, i, i % 3);
+
+        SplittableRandom rnd = new SplittableRandom(49);
+        long[] sent = new long[SYMBOLS];
+        int moves = 0;
+        for (long id = 1; id <= 200_000; id++) {
+            int symbol = rnd.nextInt(SYMBOLS);
+            send(group, symbol, rnd, id, references);
+            sent[symbol]++;
+            if (id % 500 == 0 && group.migrate(rnd.nextInt(SYMBOLS), rnd.nextInt(3)))
+                moves++;
+        }
+        awaitDrained(group, sent);
+        group.stop();
+
+        assertTrue(moves > 100, "moves " + moves);
+        for (int i = 0; i < SYMBOLS; i++) {
+            assertEquals(sent[i], group.engine(i).getProcessedCount());
+            assertEquals(expected.get(i), trades.get(i), "symbol " + i);
+        }
+    }
+
+    @Test
+    void testRebalanceMovesTheHotSymbolsNeighbourAway() throws InterruptedException {
+        ShardGroup group = group(2); // shard 0: symbols 0 and 2, shard 1: 1 and 3
+        OrderBook[] references = references();
+        group.start();
+        for (int i = 0; i < SYMBOLS; i++)
+            awaitOwner(group, i, i % 2);
+
+        SplittableRandom rnd = new SplittableRandom(7);
+        long[] sent = new long[SYMBOLS];
+        int[] flow = {9000, 100, 1000, 100};
+        long id = 0;
+        for (int symbol = 0; symbol < SYMBOLS; symbol++)
+            for (int i = 0; i < flow[symbol]; i++, sent[symbol]++)
+                send(group, symbol, rnd, ++id, references);
+        awaitDrained(group, sent);
+
+        // 10000 against 200: moving symbol 0 only moves the hot spot, symbol 2 evens it to 9000 / 1200
+        assertEquals(2, group.rebalance());
+        awaitOwner(group, 2, 1);
+        assertEquals(0, group.shardOf(0));
+        assertEquals(ShardGroup.NONE, group.rebalance(), "nothing new to balance");
+
+        for (int i = 0; i < 1000; i++, sent[2]++)
+            send(group, 2, rnd, ++id, references);
+        awaitDrained(group, sent);
+        group.stop();
+
+        assertEquals(expected.get(2), trades.get(2));
+        assertThrows(IllegalArgumentException.class, () -> group.migrate(0, 2));
+    }
+}
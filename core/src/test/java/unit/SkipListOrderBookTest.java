@@ -0,0 +1,120 @@
+package unit;
+
+import core.Order.Order;
+import core.Order.OrderType;
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import core.OrderBook.SkipListOrderBook;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SkipListOrderBookTest {
+
+    private final List<Trade> trades = new ArrayList<>();
+    private final SkipListOrderBook book = new SkipListOrderBook(0.01, trades::add, null);
+
+    @Test
+    void testPriceTimePriority_FIFO() {
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 10000, 10));
+        book.placeSellLimit(new Order(2, OrderType.SELL_LIMIT, 10000, 20));
+        book.placeSellLimit(new Order(3, OrderType.SELL_LIMIT, 10000, 30));
+
+        book.placeBuyMarket(new Order(4, OrderType.BUY_MARKET, 0, 25));
+
+        assertEquals(2, trades.size());
+        assertEquals(1, trades.get(0).makerOrderId);
+        assertEquals(10, trades.get(0).qty);
+        assertEquals(2, trades.get(1).makerOrderId);
+        assertEquals(15, trades.get(1).qty);
+        assertEquals(35, book.getTotalAtPrice(false, 100.0));
+    }
+
+    @Test
+    void testBestPricePriority_BothSides() {
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 10100, 100));
+        book.placeSellLimit(new Order(2, OrderType.SELL_LIMIT, 10000, 100));
+        book.placeBuyLimit(new Order(3, OrderType.BUY_LIMIT, 9800, 100));
+        book.placeBuyLimit(new Order(4, OrderType.BUY_LIMIT, 9900, 100));
+
+        assertEquals(100.0, book.getBestAskPrice(), 1e-9);
+        assertEquals(99.0, book.getBestBidPrice(), 1e-9);
+
+        book.placeSellMarket(new Order(5, OrderType.SELL_MARKET, 0, 150));
+
+        assertEquals(98.0, book.getBestBidPrice(), 1e-9);
+        assertEquals(50, book.getTotalAtPrice(true, 98.0));
+        assertEquals(99.0, trades.get(0).price, 1e-9);
+        assertEquals(98.0, trades.get(1).price, 1e-9);
+    }
+
+    @Test
+    void testMultipleLevelsConsumed() {
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 10000, 10));
+        book.placeSellLimit(new Order(2, OrderType.SELL_LIMIT, 10100, 20));
+        book.placeSellLimit(new Order(3, OrderType.SELL_LIMIT, 10200, 30));
+
+        book.placeBuyMarket(new Order(4, OrderType.BUY_MARKET, 0, 55));
+
+        assertEquals(0, book.getTotalAtPrice(false, 100.0));
+        assertEquals(0, book.getTotalAtPrice(false, 101.0));
+        assertEquals(5, book.getTotalAtPrice(false, 102.0));
+        assertEquals(1, book.levelCount(false));
+    }
+
+    @Test
+    void testCancel_RemovesOrderAndEmptyLevel() {
+        Order first = new Order(1, OrderType.BUY_LIMIT, 10000, 10);
+        Order second = new Order(2, OrderType.BUY_LIMIT, 10000, 20);
+        Order other = new Order(3, OrderType.BUY_LIMIT, 9950, 5);
+        book.placeBuyLimit(first);
+        book.placeBuyLimit(second);
+        book.placeBuyLimit(other);
+
+        assertTrue(book.cancel(first));
+        assertFalse(book.cancel(first));
+        assertEquals(20, book.getTotalAtPrice(true, 100.0));
+
+        assertTrue(book.cancel(second));
+        assertEquals(99.5, book.getBestBidPrice(), 1e-9);
+        assertEquals(1, book.levelCount(true));
+    }
+
+    @Test
+    void testMarketOrderDoesNothingWhenBookEmpty() {
+        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 1000));
+        book.placeSellMarket(new Order(2, OrderType.SELL_MARKET, 0, 1000));
+
+        assertTrue(trades.isEmpty());
+        assertTrue(Double.isNaN(book.getBestBidPrice()));
+        assertTrue(Double.isNaN(book.getBestAskPrice()));
+    }
+
+    @Test
+    void testWidePriceRange_OrderedAcrossManyLevels() {
+        Random rnd = new Random(42);
+        long expected = 0;
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < 10_000; i++) {
+            double price = 1 + rnd.nextInt(100_000_000) * 0.01; // up to 1M, far too wide for an array book
+            book.placeSellLimit(new Order(i + 1, OrderType.SELL_LIMIT, book.priceToTick(price), 1));
+            expected++;
+            best = Math.min(best, price);
+        }
+
+        assertEquals(best, book.getBestAskPrice(), 1e-6);
+
+        book.placeBuyMarket(new Order(0, OrderType.BUY_MARKET, 0, expected));
+
+        double last = 0;
+        for (Trade trade : trades) {
+            assertTrue(trade.price >= last);
+            last = trade.price;
+        }
+        assertEquals(expected, trades.size());
+        assertEquals(0, book.levelCount(false));
+    }
+}
@@ -0,0 +1,190 @@
+package unit;
+
+import core.OrderBook.ArrayBucketOrderBook.Trade;
+import core.Persistence.TradeDrain;
+import core.Persistence.TradePublisher;
+import core.RingBuffer.SPSCRingBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradeDrainTest {
+
+    @Test
+    void testBatchesAreBoundedBySize() throws InterruptedException {
+        SPSCRingBuffer<Trade> ring = new SPSCRingBuffer<>(1024);
+        List<Integer> batchSizes = new ArrayList<>();
+        TradeDrain drain = new TradeDrain(ring, (_, count) -> batchSizes.add(count), 10, 1, TimeUnit.HOURS);
+
+        for (int i = 0; i < 25; i++)
+            ring.offer(new Trade(100.0, 1, true));
+
+        Thread thread = new Thread(drain);
+        thread.start();
+        waitFor(() -> drain.getPersistedCount() == 20);
+        drain.stop();
+        thread.join();
+
+        assertEquals(List.of(10, 10, 5), batchSizes); // last 5 flushed on stop
+        assertEquals(25, drain.getPersistedCount());
+    }
+
+    @Test
+    void testPartialBatchFlushedAfterDelay() throws InterruptedException {
+        SPSCRingBuffer<Trade> ring = new SPSCRingBuffer<>(1024);
+        TradeDrain drain = new TradeDrain(ring, (_, _) -> {}, 1000, 1, TimeUnit.MILLISECONDS);
+
+        Thread thread = new Thread(drain);
+        thread.start();
+        ring.offer(new Trade(100.0, 1, true));
+        ring.offer(new Trade(100.0, 2, false));
+
+        waitFor(() -> drain.getPersistedCount() == 2);
+        drain.stop();
+        thread.join();
+    }
+
+    @Test
+    void testFailedBatchIsRetried() throws InterruptedException {
+        SPSCRingBuffer<Trade> ring = new SPSCRingBuffer<>(1024);
+        int[] attempts = new int[1];
+        TradeDrain drain = new TradeDrain(ring, (_, _) -> {
+            if (attempts[0]++ < 2)
+                throw new IllegalStateException("db down");
+        }, 4, 1, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < 4; i++)
+            ring.offer(new Trade(100.0, 1, true));
+
+        Thread thread = new Thread(drain);
+        thread.start();
+        waitFor(() -> drain.getPersistedCount() == 4);
+        drain.stop();
+        thread.join();
+
+        assertEquals(2, drain.getFailedBatchCount());
+    }
+
+    @Test
+    void testWriterFailingAtShutdownIsRetriedUntilItRecovers() throws InterruptedException {
+        SPSCRingBuffer<Trade> ring = new SPSCRingBuffer<>(1024);
+        int[] attempts = new int[1];
+        TradeDrain drain = new TradeDrain(ring, (_, _) -> {
+            if (attempts[0]++ < 3)
+                throw new IllegalStateException("db down");
+        }, 1000, TimeUnit.HOURS.toNanos(1), TimeUnit.SECONDS.toNanos(5));
+
+        for (int i = 0; i < 3; i++)
+            ring.offer(new Trade(100.0, 1, true));
+
+        drain.stop();
+        drain.run(); // stopped before it started: only the final flush runs
+
+        assertEquals(3, drain.getPersistedCount());
+        assertEquals(3, drain.getFailedBatchCount());
+        assertEquals(0, drain.getLostCount());
+    }
+
+    @Test
+    void testWriterStillFailingAfterShutdownTimeoutIsCountedAsLost() {
+        SPSCRingBuffer<Trade> ring = new SPSCRingBuffer<>(1024);
+        TradeDrain drain = new TradeDrain(ring, (_, _) -> {
+            throw new IllegalStateException("db down");
+        }, 2, TimeUnit.HOURS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(20));
+
+        for (int i = 0; i < 3; i++)
+            ring.offer(new Trade(100.0, 1, true));
+
+        drain.stop();
+        drain.run();
+
+        assertEquals(0, drain.getPersistedCount());
+        assertEquals(3, drain.getLostCount());
+    }
+
+    @Test
+    void testPublisherSignalsBackPressureAndWaitsForTheDrain() throws InterruptedException {
+        SPSCRingBuffer<Trade> ring = new SPSCRingBuffer<>(8);
+        TradePublisher publisher = new TradePublisher(ring, 6);
+
+        for (int i = 0; i < 5; i++)
+            publisher.accept(new Trade(100.0, 1, true));
+        assertFalse(publisher.isBackPressured());
+
+        publisher.accept(new Trade(100.0, 1, true));
+        assertTrue(publisher.isBackPressured());
+
+        for (int i = 0; i < 2; i++)
+            publisher.accept(new Trade(100.0, 1, true));
+        Thread engine = new Thread(() -> {
+            for (int i = 0; i < 4; i++)
+                publisher.accept(new Trade(100.0, 1, true)); // ring full: waits for the drain instead of dropping
+        });
+        engine.start();
+        waitFor(() -> publisher.getStallCount() == 1);
+
+        TradeDrain drain = new TradeDrain(ring, (_, _) -> {}, 4, 1, TimeUnit.MILLISECONDS);
+        Thread thread = new Thread(drain);
+        thread.start();
+        engine.join();
+        drain.stop();
+        thread.join();
+
+        assertEquals(12, drain.getPersistedCount());
+    }
+
+    @Test
+    void testPublisherWaitsOnAStuckDrainUntilInterrupted() throws InterruptedException {
+        SPSCRingBuffer<Trade> ring = new SPSCRingBuffer<>(8);
+        TradePublisher publisher = new TradePublisher(ring, 6);
+        for (int i = 0; i < 8; i++)
+            publisher.accept(new Trade(100.0, 1, true));
+
+        Throwable[] thrown = new Throwable[1];
+        Thread engine = new Thread(() -> {
+            try {
+                publisher.accept(new Trade(100.0, 1, true));
+            } catch (IllegalStateException e) {
+                thrown[0] = e;
+            }
+        });
+        engine.start();
+        waitFor(() -> publisher.getStallCount() == 1);
+        Thread.sleep(20);
+        assertTrue(engine.isAlive()); // still waiting, nothing dropped
+
+        engine.interrupt();
+        engine.join();
+        assertInstanceOf(IllegalStateException.class, thrown[0]);
+        assertEquals(8, ring.size());
+    }
+
+    @Test
+    void testDroppingPublisherCountsAndNeverBackPressures() {
+        SPSCRingBuffer<Trade> ring = new SPSCRingBuffer<>(8);
+        TradePublisher publisher = TradePublisher.dropping(ring, "candles");
+
+        for (int i = 0; i < 10; i++)
+            publisher.accept(new Trade(100.0, 1, true));
+
+        assertFalse(publisher.isBackPressured());
+        assertEquals(2, publisher.getDroppedCount());
+        assertEquals(0, publisher.getStallCount());
+        assertEquals(8, ring.size());
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline)
+                fail("timed out");
+
+            Thread.sleep(1);
+        }
+    }
+}
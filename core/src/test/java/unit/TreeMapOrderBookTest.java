@@ -14,61 +14,61 @@ public class TreeMapOrderBookTest {
 
     @Test
     void testPriceTimePriority_FIFO() {
-        book = new TreeMapOrderBook();
+        book = new TreeMapOrderBook(1.0);
 
-        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 100.0, 10, false));
-        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 100.0, 20, false));
-        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 100.0, 30, false));
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 100, 10));
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 100, 20));
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 100, 30));
 
-        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 25, false));
-        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 100, false));
+        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 25));
+        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 100));
     }
 
     @Test
     void testPartialFill_LeavesRemainingQuantity() {
-        book = new TreeMapOrderBook();
+        book = new TreeMapOrderBook(1.0);
 
-        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 100.0, 50, false));
-        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 20, false));
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 100, 50));
+        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 20));
 
-        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 30, false));
+        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 30));
 
-        assertFalse(book.asks.containsKey(100.0));
+        assertFalse(book.asks.containsKey(100L));
     }
 
     @Test
     void testMultipleLevelsConsumed() {
-        book = new TreeMapOrderBook();
+        book = new TreeMapOrderBook(1.0);
 
-        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 100.0, 10, false));
-        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 101.0, 20, false));
-        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 102.0, 30, false));
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 100, 10));
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 101, 20));
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 102, 30));
 
-        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 55, false));
+        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 55));
 
-        assertFalse(book.asks.containsKey(100.0));
-        assertFalse(book.asks.containsKey(101.0));
-        assertTrue(book.asks.containsKey(102.0));
+        assertFalse(book.asks.containsKey(100L));
+        assertFalse(book.asks.containsKey(101L));
+        assertTrue(book.asks.containsKey(102L));
     }
 
     @Test
     void testNoSelfTrade_BuyMarketDoesNotHitOwnBid() {
-        book = new TreeMapOrderBook();
+        book = new TreeMapOrderBook(1.0);
 
-        book.placeBuyLimit(new Order(1, OrderType.BUY_LIMIT, 100.0, 50, false));
-        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 99.0, 150, false));
+        book.placeBuyLimit(new Order(1, OrderType.BUY_LIMIT, 100, 50));
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 99, 150));
 
-        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 1000, false));
+        book.placeBuyMarket(new Order(1, OrderType.BUY_MARKET, 0, 1000));
 
-        assertTrue(book.bids.containsKey(100.0));
+        assertTrue(book.bids.containsKey(100L));
     }
 
     @Test
     void testOrderIdIsUniqueAndIncreasing() {
-        book = new TreeMapOrderBook();
+        book = new TreeMapOrderBook(1.0);
 
-        book.placeBuyLimit(new Order(1, OrderType.BUY_LIMIT, 100.0, 1, false));
-        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 101.0, 1, false));
-        book.placeBuyLimit(new Order(1, OrderType.BUY_LIMIT, 99.0, 1, false));
+        book.placeBuyLimit(new Order(1, OrderType.BUY_LIMIT, 100, 1));
+        book.placeSellLimit(new Order(1, OrderType.SELL_LIMIT, 101, 1));
+        book.placeBuyLimit(new Order(1, OrderType.BUY_LIMIT, 99, 1));
     }
 }
\ No newline at end of file